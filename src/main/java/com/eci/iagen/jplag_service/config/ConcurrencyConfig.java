@@ -0,0 +1,63 @@
+package com.eci.iagen.jplag_service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuración de ejecutores para las rutas de IO bloqueante (clonado, copia
+ * de archivos, generación de reportes) y para los análisis en segundo plano
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${git.max.concurrent.clones:5}")
+    private int maxConcurrentClones;
+
+    @Value("${jplag.analysis.max-concurrent:4}")
+    private int maxConcurrentAnalyses;
+
+    /**
+     * Ejecutor para tareas de IO. Con hilos virtuales se crea un hilo por tarea;
+     * en modo clásico se usa un pool fijo de hilos de plataforma.
+     */
+    @Bean(name = "ioExecutor")
+    public ExecutorService ioExecutor() {
+        if (virtualThreadsEnabled) {
+            logger.info("IO executor using virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jplag-io-", 0).factory());
+        }
+
+        int poolSize = Math.max(2, maxConcurrentClones);
+        logger.info("IO executor using {} platform threads", poolSize);
+        return Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("jplag-io-", 0).factory());
+    }
+
+    /**
+     * Ejecutor para análisis completos en segundo plano (con callbackUrl o
+     * completando comparaciones diferidas). Un análisis espera tareas de
+     * ioExecutor, así que no puede ocupar hilos de ese pool: en modo clásico
+     * éste tiene sus propios jplag.analysis.max-concurrent hilos y el resto
+     * de análisis espera en cola.
+     */
+    @Bean(name = "analysisExecutor")
+    public ExecutorService analysisExecutor() {
+        if (virtualThreadsEnabled) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jplag-analysis-", 0).factory());
+        }
+
+        int poolSize = Math.max(1, maxConcurrentAnalyses);
+        logger.info("Analysis executor using {} platform threads", poolSize);
+        return Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("jplag-analysis-", 0).factory());
+    }
+}
@@ -0,0 +1,99 @@
+package com.eci.iagen.jplag_service.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Diagnóstico de hilos virtuales "pinned" (bloqueados sobre su carrier thread
+ * dentro de bloques synchronized o código nativo, p.ej. dentro de JGit).
+ * Escucha el evento JFR jdk.VirtualThreadPinned y lo registra en el log.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOGGED_FRAMES = 8;
+
+    @Value("${jplag.virtual-threads.pinning-diagnostics:false}")
+    private boolean enabled;
+
+    @Value("${jplag.virtual-threads.pinning-threshold-ms:20}")
+    private long thresholdMs;
+
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT)
+                    .withThreshold(Duration.ofMillis(thresholdMs))
+                    .withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::logPinnedEvent);
+            recordingStream.startAsync();
+            logger.info("Virtual thread pinning diagnostics enabled (threshold {} ms)", thresholdMs);
+        } catch (Exception e) {
+            logger.warn("Could not start virtual thread pinning diagnostics: {}", e.getMessage());
+            recordingStream = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return recordingStream != null;
+    }
+
+    public long getPinnedEventCount() {
+        return pinnedEvents.get();
+    }
+
+    /**
+     * Registra un evento de pinning con los primeros frames de la pila
+     */
+    private void logPinnedEvent(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+
+        RecordedThread thread = event.getThread();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String frames = stackTrace == null ? "n/a"
+                : stackTrace.getFrames().stream()
+                        .limit(MAX_LOGGED_FRAMES)
+                        .map(this::formatFrame)
+                        .collect(Collectors.joining(" <- "));
+
+        logger.warn("Virtual thread {} pinned for {} ms: {}",
+                thread != null ? thread.getJavaName() : "unknown",
+                event.getDuration().toMillis(),
+                frames);
+    }
+
+    private String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":"
+                + frame.getLineNumber();
+    }
+}
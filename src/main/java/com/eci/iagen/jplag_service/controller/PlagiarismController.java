@@ -1,17 +1,38 @@
 package com.eci.iagen.jplag_service.controller;
 
+import com.eci.iagen.jplag_service.config.VirtualThreadPinningMonitor;
 import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
 import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
 import com.eci.iagen.jplag_service.service.JPlagDetectionService;
 import com.eci.iagen.jplag_service.service.comparison.ComparisonHtmlGenerator;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.job.AnalysisJobRegistry;
+import com.eci.iagen.jplag_service.service.job.ProgressBroadcaster;
+import com.eci.iagen.jplag_service.service.lifecycle.StartupMetrics;
+import com.eci.iagen.jplag_service.service.result.AnalysisResultStore;
+import com.eci.iagen.jplag_service.service.result.ComparisonTableBuilder;
+import com.eci.iagen.jplag_service.service.result.IndexedComparison;
+import com.eci.iagen.jplag_service.service.result.IndexedSession;
+import com.eci.iagen.jplag_service.service.result.ResultIndex;
+import com.eci.iagen.jplag_service.service.upload.UploadIngestionService;
+import com.eci.iagen.jplag_service.service.webhook.WebhookOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +44,8 @@ import java.util.Map;
 public class PlagiarismController {
 
     private static final Logger logger = LoggerFactory.getLogger(PlagiarismController.class);
+    private static final int MAX_QUERY_RESULTS = 10000;
+    private static final String COLUMNAR_LAYOUT = "columnar";
 
     @Autowired
     private JPlagDetectionService jplagDetectionService;
@@ -30,25 +53,88 @@ public class PlagiarismController {
     @Autowired
     private ComparisonHtmlGenerator comparisonHtmlGenerator;
 
+    @Autowired
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Autowired
+    private AnalysisJobRegistry jobRegistry;
+
+    @Autowired
+    private ProgressBroadcaster progressBroadcaster;
+
+    @Autowired
+    private UploadIngestionService uploadIngestionService;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @Autowired
+    private AnalysisResultStore resultStore;
+
+    @Autowired
+    private ResultIndex resultIndex;
+
+    @Autowired
+    private WebhookOutbox webhookOutbox;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     /**
-     * Endpoint principal para la detección de plagio
+     * Endpoint principal para la detección de plagio. Con layout=columnar las
+     * comparaciones se devuelven en comparisonTable; la codificación (JSON,
+     * Smile o CBOR) se negocia con Accept. Con callbackUrl responde 202 y
+     * notifica el resultado al terminar. Un sessionId en uso (en ejecución o
+     * con resultados guardados) responde 409 y un callbackUrl fuera de
+     * jplag.webhooks.allowed-hosts, 400.
      */
     @PostMapping("/analyze")
     public ResponseEntity<PlagiarismDetectionResponse> analyzePlagiarism(
-            @Valid @RequestBody PlagiarismDetectionRequest request) {
+            @Valid @RequestBody PlagiarismDetectionRequest request,
+            @RequestParam(defaultValue = "rows") String layout) {
 
         logger.info("Received plagiarism analysis request for assignment: {} with {} submissions",
                 request.getAssignmentId(), request.getSubmissions().size());
 
+        if (request.getSessionId() != null && jplagDetectionService.isSessionInUse(request.getSessionId())) {
+            PlagiarismDetectionResponse conflict = new PlagiarismDetectionResponse();
+            conflict.setSuccess(false);
+            conflict.setMessage("La sesión " + request.getSessionId() + " ya está en uso; use otro sessionId");
+            conflict.setSessionId(request.getSessionId());
+            conflict.setAssignmentId(request.getAssignmentId());
+            conflict.setAssignmentTitle(request.getAssignmentTitle());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(conflict);
+        }
+
+        if (request.getCallbackUrl() != null && !webhookOutbox.isAllowedCallback(request.getCallbackUrl())) {
+            PlagiarismDetectionResponse rejected = new PlagiarismDetectionResponse();
+            rejected.setSuccess(false);
+            rejected.setMessage("callbackUrl no permitido: el host no está en jplag.webhooks.allowed-hosts"
+                    + " o los webhooks están deshabilitados");
+            rejected.setAssignmentId(request.getAssignmentId());
+            rejected.setAssignmentTitle(request.getAssignmentTitle());
+            return ResponseEntity.badRequest().body(rejected);
+        }
+
+        // Con callbackUrl no se mantiene la conexión: el resultado llega por webhook
+        if (request.getCallbackUrl() != null) {
+            PlagiarismDetectionResponse accepted = jplagDetectionService.submitAnalysis(request);
+            return accepted.isSuccess() ? ResponseEntity.accepted().body(accepted)
+                    : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(accepted);
+        }
+
         try {
             PlagiarismDetectionResponse response = jplagDetectionService.detectPlagiarism(request);
 
             if (response.isSuccess()) {
                 logger.info("Plagiarism analysis completed successfully for assignment: {}", request.getAssignmentId());
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(withLayout(response, layout));
             } else {
                 logger.warn("Plagiarism analysis failed for assignment: {}", request.getAssignmentId());
-                return ResponseEntity.badRequest().body(response);
+                return ResponseEntity.badRequest().body(withLayout(response, layout));
             }
 
         } catch (Exception e) {
@@ -64,6 +150,222 @@ public class PlagiarismController {
         }
     }
 
+    /**
+     * Detección de plagio sobre entregas subidas (multipart/form-data) en lugar
+     * de repositorios Git: la parte "request" con el JSON del análisis y luego
+     * una parte por entrega (ZIP o .java) con el submissionId como nombre
+     */
+    @PostMapping(value = "/analyze/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PlagiarismDetectionResponse> analyzeUpload(HttpServletRequest httpRequest,
+            @RequestParam(defaultValue = "rows") String layout) {
+        try {
+            PlagiarismDetectionResponse response = uploadIngestionService.analyze(httpRequest);
+            if (response.isSuccess()) {
+                logger.info("Upload analysis completed successfully for assignment: {}", response.getAssignmentId());
+                return ResponseEntity.ok(withLayout(response, layout));
+            }
+            logger.warn("Upload analysis failed for assignment: {}", response.getAssignmentId());
+            return ResponseEntity.badRequest().body(withLayout(response, layout));
+
+        } catch (IllegalArgumentException e) {
+            PlagiarismDetectionResponse errorResponse = new PlagiarismDetectionResponse();
+            errorResponse.setSuccess(false);
+            errorResponse.setMessage(e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Error during upload analysis", e);
+
+            PlagiarismDetectionResponse errorResponse = new PlagiarismDetectionResponse();
+            errorResponse.setSuccess(false);
+            errorResponse.setMessage("Error durante el análisis: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Último resultado de una sesión. Un resultado parcial (por presupuesto de
+     * tiempo) se reemplaza por el completo cuando termina en segundo plano.
+     */
+    @GetMapping("/results/{sessionId}")
+    public ResponseEntity<PlagiarismDetectionResponse> getResult(@PathVariable String sessionId,
+            @RequestParam(defaultValue = "rows") String layout) {
+        PlagiarismDetectionResponse response = resultStore.get(sessionId);
+        if (response == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(withLayout(response, layout));
+    }
+
+    /**
+     * Genera el reporte HTML de un análisis ejecutado con generateReport=false a
+     * partir de su snapshot o de sus entradas conservadas
+     */
+    @PostMapping("/results/{sessionId}/report")
+    public ResponseEntity<Map<String, Object>> generateReport(@PathVariable String sessionId,
+            @RequestParam(required = false) Double minSimilarity,
+            @RequestParam(required = false) Integer maxComparisons) {
+        logger.info("Deferred report requested for session: {}", sessionId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionId", sessionId);
+        try {
+            String reportUrl = jplagDetectionService.generateDeferredReport(sessionId, minSimilarity,
+                    maxComparisons);
+            if (reportUrl == null) {
+                return ResponseEntity.notFound().build();
+            }
+            response.put("success", true);
+            response.put("reportUrl", reportUrl);
+            response.put("message", "Reporte generado");
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Error generating deferred report for session {}: {}", sessionId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Error al generar el reporte: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Comparaciones de una sesión filtradas por similitud mínima, leídas del
+     * snapshot del resultado (sin volver a ejecutar el análisis)
+     */
+    @GetMapping("/results/{sessionId}/comparisons")
+    public ResponseEntity<Map<String, Object>> getComparisons(@PathVariable String sessionId,
+            @RequestParam(defaultValue = "0.0") double minSimilarity,
+            @RequestParam(defaultValue = "rows") String layout) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionId", sessionId);
+        try {
+            List<PlagiarismDetectionResponse.ComparisonResult> comparisons =
+                    jplagDetectionService.findSnapshotComparisons(sessionId, minSimilarity);
+            if (comparisons == null) {
+                return ResponseEntity.notFound().build();
+            }
+            response.put("success", true);
+            response.put("minSimilarity", minSimilarity);
+            if (COLUMNAR_LAYOUT.equalsIgnoreCase(layout)) {
+                response.put("comparisonTable", ComparisonTableBuilder.fromComparisons(sessionId, comparisons));
+            } else {
+                response.put("comparisons", comparisons);
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error reading snapshot of session {}: {}", sessionId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Error al leer el resultado: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Grupos de entregas conectadas por pares similares (posible colusión) de
+     * una sesión; minSimilarity reemplaza el umbral por defecto
+     */
+    @GetMapping("/results/{sessionId}/clusters")
+    public ResponseEntity<PlagiarismDetectionResponse.ClusteringSummary> getClusters(@PathVariable String sessionId,
+            @RequestParam(required = false) Double minSimilarity) {
+        PlagiarismDetectionResponse.ClusteringSummary clustering = jplagDetectionService.findClusters(sessionId,
+                minSimilarity);
+        if (clustering == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(clustering);
+    }
+
+    /**
+     * Pares de todas las sesiones indexadas con similitud mínima, filtrados
+     * opcionalmente por tarea, equipo, entrega o sesión (p.ej. los pares sobre
+     * 0.6 que involucran a un equipo en cualquier análisis)
+     */
+    @GetMapping("/comparisons")
+    public ResponseEntity<Map<String, Object>> findComparisons(
+            @RequestParam(required = false) Long assignmentId,
+            @RequestParam(required = false) Long teamId,
+            @RequestParam(required = false) Long submissionId,
+            @RequestParam(required = false) String sessionId,
+            @RequestParam(defaultValue = "0.0") double minSimilarity,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "rows") String layout) {
+        List<IndexedComparison> comparisons = resultIndex.findComparisons(assignmentId, teamId, submissionId,
+                sessionId, minSimilarity, Math.max(1, Math.min(limit, MAX_QUERY_RESULTS)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("minSimilarity", minSimilarity);
+        response.put("totalComparisons", comparisons.size());
+        if (COLUMNAR_LAYOUT.equalsIgnoreCase(layout)) {
+            response.put("comparisonTable", ComparisonTableBuilder.fromIndexed(comparisons));
+        } else {
+            response.put("comparisons", comparisons);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Sesiones indexadas, opcionalmente de una tarea
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<List<IndexedSession>> findSessions(@RequestParam(required = false) Long assignmentId) {
+        return ResponseEntity.ok(resultIndex.findSessions(assignmentId));
+    }
+
+    /**
+     * Lista los análisis en ejecución
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<Map<String, Object>>> listRunningJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (AnalysisJob job : jobRegistry.getRunningJobs()) {
+            Map<String, Object> jobInfo = new HashMap<>();
+            jobInfo.put("sessionId", job.getSessionId());
+            jobInfo.put("assignmentId", job.getAssignmentId());
+            jobInfo.put("stage", job.getStage());
+            jobInfo.put("startedAt", job.getStartedAt().toString());
+            jobInfo.put("cancelled", job.isCancelled());
+            jobInfo.put("duplicates", job.getDuplicateSummary());
+            jobInfo.put("progress", job.getProgress().toMap());
+            jobs.add(jobInfo);
+        }
+        return ResponseEntity.ok(jobs);
+    }
+
+    /**
+     * Progreso de un análisis por Server-Sent Events: "stage" en cada cambio
+     * de etapa, "progress" con los contadores (repositorios clonados, archivos
+     * tokenizados, comparaciones hechas y ETA, páginas HTML escritas) y "end"
+     * al terminar
+     */
+    @GetMapping(value = "/jobs/{sessionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobProgress(@PathVariable String sessionId) {
+        logger.info("Progress stream requested for session: {}", sessionId);
+        return progressBroadcaster.subscribe(sessionId);
+    }
+
+    /**
+     * Cancela un análisis en ejecución. La cancelación es cooperativa: el
+     * análisis se detiene en el siguiente punto de control y limpia sus
+     * directorios temporales.
+     */
+    @PostMapping("/jobs/{sessionId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String sessionId) {
+        logger.info("Cancel requested for session: {}", sessionId);
+
+        if (!jobRegistry.cancel(sessionId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("sessionId", sessionId);
+        response.put("message", "Cancelación solicitada");
+        return ResponseEntity.accepted().body(response);
+    }
+
     /**
      * Health check endpoint
      */
@@ -79,6 +381,24 @@ public class PlagiarismController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Readiness: responde 200 sólo cuando el servicio acepta tráfico (después del
+     * arranque y del warm-up), 503 mientras tanto
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> readinessCheck() {
+        ReadinessState readiness = applicationAvailability.getReadinessState();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", readiness == ReadinessState.ACCEPTING_TRAFFIC ? "READY" : "NOT_READY");
+        response.put("readiness", readiness != null ? readiness.name() : null);
+        response.put("startup", startupMetrics.toMap());
+
+        HttpStatus status = readiness == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(response);
+    }
+
     /**
      * Endpoint para obtener información del servicio
      */
@@ -91,6 +411,12 @@ public class PlagiarismController {
         info.put("supportedLanguages", new String[] { "java" });
         info.put("description", "Microservicio para detección de plagio usando JPlag");
 
+        Map<String, Object> threading = new HashMap<>();
+        threading.put("virtualThreads", virtualThreadsEnabled);
+        threading.put("pinningDiagnostics", pinningMonitor.isEnabled());
+        threading.put("pinnedEvents", pinningMonitor.getPinnedEventCount());
+        info.put("threading", threading);
+
         return ResponseEntity.ok(info);
     }
 
@@ -114,7 +440,7 @@ public class PlagiarismController {
             }
 
             // Generar archivos HTML de comparación
-            comparisonHtmlGenerator.generateComparisonHtmlFiles(reportDir, sessionId);
+            comparisonHtmlGenerator.generateComparisonHtmlFiles(reportDir, sessionId, null);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -228,4 +554,19 @@ public class PlagiarismController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
+
+    /**
+     * Con layout=columnar devuelve una copia con las comparaciones en formato
+     * columnar; el resultado guardado no se modifica
+     */
+    private PlagiarismDetectionResponse withLayout(PlagiarismDetectionResponse response, String layout) {
+        if (!COLUMNAR_LAYOUT.equalsIgnoreCase(layout) || response.getComparisons() == null) {
+            return response;
+        }
+        PlagiarismDetectionResponse columnar = new PlagiarismDetectionResponse(response);
+        columnar.setComparisonTable(
+                ComparisonTableBuilder.fromComparisons(response.getSessionId(), response.getComparisons()));
+        columnar.setComparisons(null);
+        return columnar;
+    }
 }
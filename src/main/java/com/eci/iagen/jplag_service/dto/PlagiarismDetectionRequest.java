@@ -1,5 +1,11 @@
 package com.eci.iagen.jplag_service.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
 import java.util.List;
 
 /**
@@ -10,6 +16,84 @@ public class PlagiarismDetectionRequest {
     private String assignmentTitle;
     private List<SubmissionDto> submissions;
 
+    /**
+     * Identificador opcional de la sesión, elegido por el cliente para poder
+     * cancelar el análisis mientras se ejecuta. Si no se envía se genera uno.
+     */
+    @Pattern(regexp = "[A-Za-z0-9-]{1,64}")
+    private String sessionId;
+
+    /**
+     * Clave del corpus histórico (p.ej. "curso-a-lab-3-colas"). Sin clave el
+     * análisis no consulta ni alimenta el corpus, para no mezclar cursos.
+     */
+    @Pattern(regexp = "[A-Za-z0-9][A-Za-z0-9._-]{0,63}")
+    private String historyKey;
+
+    /**
+     * Si es false, el análisis no consulta ni alimenta el corpus histórico
+     */
+    private Boolean historyEnabled;
+
+    /**
+     * Repositorio opcional con el código base (plantilla) de la tarea; sus
+     * coincidencias no cuentan como plagio
+     */
+    private String baseCodeRepositoryUrl;
+
+    /**
+     * Si es true sólo se analiza la última entrega (mayor submissionId) de cada
+     * equipo. Por defecto se usa jplag.teams.latest-submission-only.
+     */
+    private Boolean latestSubmissionPerTeam;
+
+    /**
+     * Tiempo máximo (segundos) para responder. Al vencer se retornan las
+     * comparaciones terminadas hasta ese momento. Por defecto se usa
+     * jplag.time-budget.default-seconds.
+     */
+    @Min(1)
+    @Max(86400)
+    private Integer timeBudgetSeconds;
+
+    /**
+     * Si es false no se ajustan las opciones de JPlag según el tamaño de la
+     * cohorte. Por defecto se usa jplag.tuning.enabled.
+     */
+    private Boolean adaptiveTuning;
+
+    /**
+     * Opciones de JPlag fijadas por el cliente; tienen prioridad sobre el ajuste
+     * adaptativo
+     */
+    @Min(1)
+    private Integer minimumTokenMatch;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double similarityThreshold;
+
+    /**
+     * Pares incluidos en el reporte (los más similares); 0 para incluirlos todos
+     */
+    @Min(0)
+    private Integer maximumReportComparisons;
+
+    /**
+     * Si es false no se genera el reporte HTML: la respuesta sólo trae las
+     * comparaciones y estadísticas, y el reporte se puede pedir después. Por
+     * defecto se usa jplag.report.generate-by-default.
+     */
+    private Boolean generateReport;
+
+    /**
+     * URL opcional a la que se envía (POST) un resumen del resultado cuando el
+     * análisis termina. Con callbackUrl el análisis corre en segundo plano y
+     * /analyze responde 202 con el sessionId.
+     */
+    @Pattern(regexp = "https?://.{1,2040}")
+    private String callbackUrl;
+
     public PlagiarismDetectionRequest() {
     }
 
@@ -19,6 +103,12 @@ public class PlagiarismDetectionRequest {
         this.submissions = submissions;
     }
 
+    public PlagiarismDetectionRequest(Long assignmentId, String assignmentTitle, List<SubmissionDto> submissions,
+            String sessionId) {
+        this(assignmentId, assignmentTitle, submissions);
+        this.sessionId = sessionId;
+    }
+
     public Long getAssignmentId() {
         return assignmentId;
     }
@@ -43,12 +133,120 @@ public class PlagiarismDetectionRequest {
         this.submissions = submissions;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getHistoryKey() {
+        return historyKey;
+    }
+
+    public void setHistoryKey(String historyKey) {
+        this.historyKey = historyKey;
+    }
+
+    public Boolean getHistoryEnabled() {
+        return historyEnabled;
+    }
+
+    public void setHistoryEnabled(Boolean historyEnabled) {
+        this.historyEnabled = historyEnabled;
+    }
+
+    public String getBaseCodeRepositoryUrl() {
+        return baseCodeRepositoryUrl;
+    }
+
+    public void setBaseCodeRepositoryUrl(String baseCodeRepositoryUrl) {
+        this.baseCodeRepositoryUrl = baseCodeRepositoryUrl;
+    }
+
+    public Boolean getLatestSubmissionPerTeam() {
+        return latestSubmissionPerTeam;
+    }
+
+    public void setLatestSubmissionPerTeam(Boolean latestSubmissionPerTeam) {
+        this.latestSubmissionPerTeam = latestSubmissionPerTeam;
+    }
+
+    public Integer getTimeBudgetSeconds() {
+        return timeBudgetSeconds;
+    }
+
+    public void setTimeBudgetSeconds(Integer timeBudgetSeconds) {
+        this.timeBudgetSeconds = timeBudgetSeconds;
+    }
+
+    public Boolean getAdaptiveTuning() {
+        return adaptiveTuning;
+    }
+
+    public void setAdaptiveTuning(Boolean adaptiveTuning) {
+        this.adaptiveTuning = adaptiveTuning;
+    }
+
+    public Integer getMinimumTokenMatch() {
+        return minimumTokenMatch;
+    }
+
+    public void setMinimumTokenMatch(Integer minimumTokenMatch) {
+        this.minimumTokenMatch = minimumTokenMatch;
+    }
+
+    public Double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(Double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public Integer getMaximumReportComparisons() {
+        return maximumReportComparisons;
+    }
+
+    public void setMaximumReportComparisons(Integer maximumReportComparisons) {
+        this.maximumReportComparisons = maximumReportComparisons;
+    }
+
+    public Boolean getGenerateReport() {
+        return generateReport;
+    }
+
+    public void setGenerateReport(Boolean generateReport) {
+        this.generateReport = generateReport;
+    }
+
     @Override
     public String toString() {
         return "PlagiarismDetectionRequest{" +
                 "assignmentId=" + assignmentId +
                 ", assignmentTitle='" + assignmentTitle + '\'' +
                 ", submissions=" + submissions +
+                ", sessionId='" + sessionId + '\'' +
+                ", historyKey='" + historyKey + '\'' +
+                ", historyEnabled=" + historyEnabled +
+                ", baseCodeRepositoryUrl='" + baseCodeRepositoryUrl + '\'' +
+                ", latestSubmissionPerTeam=" + latestSubmissionPerTeam +
+                ", timeBudgetSeconds=" + timeBudgetSeconds +
+                ", adaptiveTuning=" + adaptiveTuning +
+                ", minimumTokenMatch=" + minimumTokenMatch +
+                ", similarityThreshold=" + similarityThreshold +
+                ", maximumReportComparisons=" + maximumReportComparisons +
+                ", generateReport=" + generateReport +
+                ", callbackUrl='" + callbackUrl + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+}
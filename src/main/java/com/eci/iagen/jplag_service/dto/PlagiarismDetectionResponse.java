@@ -8,15 +8,54 @@ import java.util.List;
 public class PlagiarismDetectionResponse {
     private Long assignmentId;
     private String assignmentTitle;
+    private String sessionId;
     private List<ComparisonResult> comparisons;
     private String reportUrl;
+    private String reportStatus;
     private boolean success;
     private String message;
     private Statistics statistics;
+    private PrefilterSummary prefilter;
+    private HistorySummary history;
+    private List<HistoricalMatch> historicalMatches;
+    private DuplicateSummary duplicates;
+    private BaseCodeSummary baseCode;
+    private TeamFilterSummary teamFilter;
+    private CompletenessSummary completeness;
+    private TuningSummary tuning;
+    private ClusteringSummary clustering;
+    private ComparisonTable comparisonTable;
+    private LimitsSummary limits;
 
     public PlagiarismDetectionResponse() {
     }
 
+    /**
+     * Copia superficial (las listas y resúmenes se comparten)
+     */
+    public PlagiarismDetectionResponse(PlagiarismDetectionResponse other) {
+        this.assignmentId = other.assignmentId;
+        this.assignmentTitle = other.assignmentTitle;
+        this.sessionId = other.sessionId;
+        this.comparisons = other.comparisons;
+        this.reportUrl = other.reportUrl;
+        this.reportStatus = other.reportStatus;
+        this.success = other.success;
+        this.message = other.message;
+        this.statistics = other.statistics;
+        this.prefilter = other.prefilter;
+        this.history = other.history;
+        this.historicalMatches = other.historicalMatches;
+        this.duplicates = other.duplicates;
+        this.baseCode = other.baseCode;
+        this.teamFilter = other.teamFilter;
+        this.completeness = other.completeness;
+        this.tuning = other.tuning;
+        this.clustering = other.clustering;
+        this.comparisonTable = other.comparisonTable;
+        this.limits = other.limits;
+    }
+
     public Long getAssignmentId() {
         return assignmentId;
     }
@@ -33,6 +72,14 @@ public class PlagiarismDetectionResponse {
         this.assignmentTitle = assignmentTitle;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
     public List<ComparisonResult> getComparisons() {
         return comparisons;
     }
@@ -49,6 +96,18 @@ public class PlagiarismDetectionResponse {
         this.reportUrl = reportUrl;
     }
 
+    /**
+     * "ready" si el reporte está generado, "deferred" si se puede generar a
+     * pedido, "unavailable" si no se generó ni se puede generar
+     */
+    public String getReportStatus() {
+        return reportStatus;
+    }
+
+    public void setReportStatus(String reportStatus) {
+        this.reportStatus = reportStatus;
+    }
+
     public boolean isSuccess() {
         return success;
     }
@@ -73,6 +132,98 @@ public class PlagiarismDetectionResponse {
         this.statistics = statistics;
     }
 
+    public PrefilterSummary getPrefilter() {
+        return prefilter;
+    }
+
+    public void setPrefilter(PrefilterSummary prefilter) {
+        this.prefilter = prefilter;
+    }
+
+    public HistorySummary getHistory() {
+        return history;
+    }
+
+    public void setHistory(HistorySummary history) {
+        this.history = history;
+    }
+
+    public List<HistoricalMatch> getHistoricalMatches() {
+        return historicalMatches;
+    }
+
+    public void setHistoricalMatches(List<HistoricalMatch> historicalMatches) {
+        this.historicalMatches = historicalMatches;
+    }
+
+    public DuplicateSummary getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(DuplicateSummary duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public BaseCodeSummary getBaseCode() {
+        return baseCode;
+    }
+
+    public void setBaseCode(BaseCodeSummary baseCode) {
+        this.baseCode = baseCode;
+    }
+
+    public TeamFilterSummary getTeamFilter() {
+        return teamFilter;
+    }
+
+    public void setTeamFilter(TeamFilterSummary teamFilter) {
+        this.teamFilter = teamFilter;
+    }
+
+    public CompletenessSummary getCompleteness() {
+        return completeness;
+    }
+
+    public void setCompleteness(CompletenessSummary completeness) {
+        this.completeness = completeness;
+    }
+
+    public TuningSummary getTuning() {
+        return tuning;
+    }
+
+    public void setTuning(TuningSummary tuning) {
+        this.tuning = tuning;
+    }
+
+    public ClusteringSummary getClustering() {
+        return clustering;
+    }
+
+    public void setClustering(ClusteringSummary clustering) {
+        this.clustering = clustering;
+    }
+
+    /**
+     * Comparaciones en formato columnar (layout=columnar); en ese caso
+     * comparisons es null
+     */
+    public ComparisonTable getComparisonTable() {
+        return comparisonTable;
+    }
+
+    public void setComparisonTable(ComparisonTable comparisonTable) {
+        this.comparisonTable = comparisonTable;
+    }
+
+    public LimitsSummary getLimits() {
+        return limits;
+    }
+
+    public void setLimits(LimitsSummary limits) {
+        this.limits = limits;
+    }
+
     public static class ComparisonResult {
         private String submission1;
         private String submission2;
@@ -201,6 +352,11 @@ public class PlagiarismDetectionResponse {
         private double averageSimilarity;
         private double maxSimilarity;
         private double minSimilarity;
+        private double p50Similarity;
+        private double p90Similarity;
+        private double p99Similarity;
+        private List<HistogramBin> histogram;
+        private List<TeamMaximum> teamMaxima;
 
         public Statistics() {
         }
@@ -253,5 +409,1147 @@ public class PlagiarismDetectionResponse {
         public void setMinSimilarity(double minSimilarity) {
             this.minSimilarity = minSimilarity;
         }
+
+        public double getP50Similarity() {
+            return p50Similarity;
+        }
+
+        public void setP50Similarity(double p50Similarity) {
+            this.p50Similarity = p50Similarity;
+        }
+
+        public double getP90Similarity() {
+            return p90Similarity;
+        }
+
+        public void setP90Similarity(double p90Similarity) {
+            this.p90Similarity = p90Similarity;
+        }
+
+        public double getP99Similarity() {
+            return p99Similarity;
+        }
+
+        public void setP99Similarity(double p99Similarity) {
+            this.p99Similarity = p99Similarity;
+        }
+
+        public List<HistogramBin> getHistogram() {
+            return histogram;
+        }
+
+        public void setHistogram(List<HistogramBin> histogram) {
+            this.histogram = histogram;
+        }
+
+        public List<TeamMaximum> getTeamMaxima() {
+            return teamMaxima;
+        }
+
+        public void setTeamMaxima(List<TeamMaximum> teamMaxima) {
+            this.teamMaxima = teamMaxima;
+        }
+    }
+
+    /**
+     * Resumen del prefiltro MinHash/LSH: cuántos pares se compararon, cuántos
+     * se omitieron y el recall estimado con la muestra de auditoría
+     */
+    public static class PrefilterSummary {
+        private int totalPairs;
+        private int candidatePairs;
+        private int auditedPairs;
+        private int skippedPairs;
+        private int candidateHits;
+        private int auditHits;
+        private double auditSimilarity;
+        private double estimatedRecall;
+        private double targetSimilarity;
+        private double theoreticalRecall;
+        private int bands;
+        private int rows;
+        private long signatureMillis;
+
+        public PrefilterSummary() {
+        }
+
+        public int getTotalPairs() {
+            return totalPairs;
+        }
+
+        public void setTotalPairs(int totalPairs) {
+            this.totalPairs = totalPairs;
+        }
+
+        public int getCandidatePairs() {
+            return candidatePairs;
+        }
+
+        public void setCandidatePairs(int candidatePairs) {
+            this.candidatePairs = candidatePairs;
+        }
+
+        public int getAuditedPairs() {
+            return auditedPairs;
+        }
+
+        public void setAuditedPairs(int auditedPairs) {
+            this.auditedPairs = auditedPairs;
+        }
+
+        public int getSkippedPairs() {
+            return skippedPairs;
+        }
+
+        public void setSkippedPairs(int skippedPairs) {
+            this.skippedPairs = skippedPairs;
+        }
+
+        public int getCandidateHits() {
+            return candidateHits;
+        }
+
+        public void setCandidateHits(int candidateHits) {
+            this.candidateHits = candidateHits;
+        }
+
+        public int getAuditHits() {
+            return auditHits;
+        }
+
+        public void setAuditHits(int auditHits) {
+            this.auditHits = auditHits;
+        }
+
+        public double getAuditSimilarity() {
+            return auditSimilarity;
+        }
+
+        public void setAuditSimilarity(double auditSimilarity) {
+            this.auditSimilarity = auditSimilarity;
+        }
+
+        public double getEstimatedRecall() {
+            return estimatedRecall;
+        }
+
+        public void setEstimatedRecall(double estimatedRecall) {
+            this.estimatedRecall = estimatedRecall;
+        }
+
+        public double getTargetSimilarity() {
+            return targetSimilarity;
+        }
+
+        public void setTargetSimilarity(double targetSimilarity) {
+            this.targetSimilarity = targetSimilarity;
+        }
+
+        public double getTheoreticalRecall() {
+            return theoreticalRecall;
+        }
+
+        public void setTheoreticalRecall(double theoreticalRecall) {
+            this.theoreticalRecall = theoreticalRecall;
+        }
+
+        public int getBands() {
+            return bands;
+        }
+
+        public void setBands(int bands) {
+            this.bands = bands;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public void setRows(int rows) {
+            this.rows = rows;
+        }
+
+        public long getSignatureMillis() {
+            return signatureMillis;
+        }
+
+        public void setSignatureMillis(long signatureMillis) {
+            this.signatureMillis = signatureMillis;
+        }
+    }
+
+    /**
+     * Resumen de la búsqueda en el corpus histórico de semestres anteriores
+     */
+    public static class HistorySummary {
+        private String historyKey;
+        private long archivedSubmissions;
+        private int selectedCandidates;
+        private long lookupMillis;
+
+        public HistorySummary() {
+        }
+
+        public String getHistoryKey() {
+            return historyKey;
+        }
+
+        public void setHistoryKey(String historyKey) {
+            this.historyKey = historyKey;
+        }
+
+        public long getArchivedSubmissions() {
+            return archivedSubmissions;
+        }
+
+        public void setArchivedSubmissions(long archivedSubmissions) {
+            this.archivedSubmissions = archivedSubmissions;
+        }
+
+        public int getSelectedCandidates() {
+            return selectedCandidates;
+        }
+
+        public void setSelectedCandidates(int selectedCandidates) {
+            this.selectedCandidates = selectedCandidates;
+        }
+
+        public long getLookupMillis() {
+            return lookupMillis;
+        }
+
+        public void setLookupMillis(long lookupMillis) {
+            this.lookupMillis = lookupMillis;
+        }
+    }
+
+    /**
+     * Similitud entre una entrega de la cohorte y una entrega histórica archivada
+     */
+    public static class HistoricalMatch {
+        private Long submissionId;
+        private String teamName;
+        private String historicalSubmission;
+        private Long historicalAssignmentId;
+        private Long historicalSubmissionId;
+        private String historicalTeamName;
+        private double similarity;
+        private int matchedTokens;
+
+        public HistoricalMatch() {
+        }
+
+        public Long getSubmissionId() {
+            return submissionId;
+        }
+
+        public void setSubmissionId(Long submissionId) {
+            this.submissionId = submissionId;
+        }
+
+        public String getTeamName() {
+            return teamName;
+        }
+
+        public void setTeamName(String teamName) {
+            this.teamName = teamName;
+        }
+
+        public String getHistoricalSubmission() {
+            return historicalSubmission;
+        }
+
+        public void setHistoricalSubmission(String historicalSubmission) {
+            this.historicalSubmission = historicalSubmission;
+        }
+
+        public Long getHistoricalAssignmentId() {
+            return historicalAssignmentId;
+        }
+
+        public void setHistoricalAssignmentId(Long historicalAssignmentId) {
+            this.historicalAssignmentId = historicalAssignmentId;
+        }
+
+        public Long getHistoricalSubmissionId() {
+            return historicalSubmissionId;
+        }
+
+        public void setHistoricalSubmissionId(Long historicalSubmissionId) {
+            this.historicalSubmissionId = historicalSubmissionId;
+        }
+
+        public String getHistoricalTeamName() {
+            return historicalTeamName;
+        }
+
+        public void setHistoricalTeamName(String historicalTeamName) {
+            this.historicalTeamName = historicalTeamName;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        public void setSimilarity(double similarity) {
+            this.similarity = similarity;
+        }
+
+        public int getMatchedTokens() {
+            return matchedTokens;
+        }
+
+        public void setMatchedTokens(int matchedTokens) {
+            this.matchedTokens = matchedTokens;
+        }
+    }
+
+    /**
+     * Resultado de la vía rápida de copias exactas (contenido normalizado sin comentarios ni espacios)
+     */
+    public static class DuplicateSummary {
+        private List<DuplicateGroup> identicalSubmissions;
+        private List<SharedFilesMatch> sharedFiles;
+        private long elapsedMillis;
+
+        public DuplicateSummary() {
+        }
+
+        public List<DuplicateGroup> getIdenticalSubmissions() {
+            return identicalSubmissions;
+        }
+
+        public void setIdenticalSubmissions(List<DuplicateGroup> identicalSubmissions) {
+            this.identicalSubmissions = identicalSubmissions;
+        }
+
+        public List<SharedFilesMatch> getSharedFiles() {
+            return sharedFiles;
+        }
+
+        public void setSharedFiles(List<SharedFilesMatch> sharedFiles) {
+            this.sharedFiles = sharedFiles;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public void setElapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * Grupo de entregas con contenido normalizado idéntico
+     */
+    public static class DuplicateGroup {
+        private List<String> submissions;
+        private List<Long> submissionIds;
+
+        public DuplicateGroup() {
+        }
+
+        public List<String> getSubmissions() {
+            return submissions;
+        }
+
+        public void setSubmissions(List<String> submissions) {
+            this.submissions = submissions;
+        }
+
+        public List<Long> getSubmissionIds() {
+            return submissionIds;
+        }
+
+        public void setSubmissionIds(List<Long> submissionIds) {
+            this.submissionIds = submissionIds;
+        }
+    }
+
+    /**
+     * Par de entregas que comparten archivos con contenido normalizado idéntico
+     */
+    public static class SharedFilesMatch {
+        private String submission1;
+        private String submission2;
+        private Long submissionId1;
+        private Long submissionId2;
+        private int sharedFileCount;
+        private List<String> files;
+
+        public SharedFilesMatch() {
+        }
+
+        public String getSubmission1() {
+            return submission1;
+        }
+
+        public void setSubmission1(String submission1) {
+            this.submission1 = submission1;
+        }
+
+        public String getSubmission2() {
+            return submission2;
+        }
+
+        public void setSubmission2(String submission2) {
+            this.submission2 = submission2;
+        }
+
+        public Long getSubmissionId1() {
+            return submissionId1;
+        }
+
+        public void setSubmissionId1(Long submissionId1) {
+            this.submissionId1 = submissionId1;
+        }
+
+        public Long getSubmissionId2() {
+            return submissionId2;
+        }
+
+        public void setSubmissionId2(Long submissionId2) {
+            this.submissionId2 = submissionId2;
+        }
+
+        public int getSharedFileCount() {
+            return sharedFileCount;
+        }
+
+        public void setSharedFileCount(int sharedFileCount) {
+            this.sharedFileCount = sharedFileCount;
+        }
+
+        public List<String> getFiles() {
+            return files;
+        }
+
+        public void setFiles(List<String> files) {
+            this.files = files;
+        }
+    }
+
+    /**
+     * Código base (plantilla) excluido de la comparación
+     */
+    public static class BaseCodeSummary {
+        private String repositoryUrl;
+        private String commit;
+        private boolean applied;
+        private boolean cached;
+        private int files;
+        private int tokens;
+        private String message;
+
+        public BaseCodeSummary() {
+        }
+
+        public String getRepositoryUrl() {
+            return repositoryUrl;
+        }
+
+        public void setRepositoryUrl(String repositoryUrl) {
+            this.repositoryUrl = repositoryUrl;
+        }
+
+        public String getCommit() {
+            return commit;
+        }
+
+        public void setCommit(String commit) {
+            this.commit = commit;
+        }
+
+        public boolean isApplied() {
+            return applied;
+        }
+
+        public void setApplied(boolean applied) {
+            this.applied = applied;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+
+        public void setCached(boolean cached) {
+            this.cached = cached;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public void setFiles(int files) {
+            this.files = files;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+
+        public void setTokens(int tokens) {
+            this.tokens = tokens;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Pares y entregas excluidos por pertenecer al mismo equipo
+     */
+    public static class TeamFilterSummary {
+        private int sameTeamPairsSkipped;
+        private boolean latestSubmissionOnly;
+        private List<Long> supersededSubmissionIds;
+
+        public TeamFilterSummary() {
+        }
+
+        public int getSameTeamPairsSkipped() {
+            return sameTeamPairsSkipped;
+        }
+
+        public void setSameTeamPairsSkipped(int sameTeamPairsSkipped) {
+            this.sameTeamPairsSkipped = sameTeamPairsSkipped;
+        }
+
+        public boolean isLatestSubmissionOnly() {
+            return latestSubmissionOnly;
+        }
+
+        public void setLatestSubmissionOnly(boolean latestSubmissionOnly) {
+            this.latestSubmissionOnly = latestSubmissionOnly;
+        }
+
+        public List<Long> getSupersededSubmissionIds() {
+            return supersededSubmissionIds;
+        }
+
+        public void setSupersededSubmissionIds(List<Long> supersededSubmissionIds) {
+            this.supersededSubmissionIds = supersededSubmissionIds;
+        }
+    }
+
+    /**
+     * Qué tan completo está el resultado cuando el análisis tiene un presupuesto de tiempo
+     */
+    public static class CompletenessSummary {
+        private boolean complete;
+        private Integer timeBudgetSeconds;
+        private int plannedComparisons;
+        private int completedComparisons;
+        private int pendingComparisons;
+        private boolean continuingInBackground;
+
+        public CompletenessSummary() {
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        public void setComplete(boolean complete) {
+            this.complete = complete;
+        }
+
+        public Integer getTimeBudgetSeconds() {
+            return timeBudgetSeconds;
+        }
+
+        public void setTimeBudgetSeconds(Integer timeBudgetSeconds) {
+            this.timeBudgetSeconds = timeBudgetSeconds;
+        }
+
+        public int getPlannedComparisons() {
+            return plannedComparisons;
+        }
+
+        public void setPlannedComparisons(int plannedComparisons) {
+            this.plannedComparisons = plannedComparisons;
+        }
+
+        public int getCompletedComparisons() {
+            return completedComparisons;
+        }
+
+        public void setCompletedComparisons(int completedComparisons) {
+            this.completedComparisons = completedComparisons;
+        }
+
+        public int getPendingComparisons() {
+            return pendingComparisons;
+        }
+
+        public void setPendingComparisons(int pendingComparisons) {
+            this.pendingComparisons = pendingComparisons;
+        }
+
+        public boolean isContinuingInBackground() {
+            return continuingInBackground;
+        }
+
+        public void setContinuingInBackground(boolean continuingInBackground) {
+            this.continuingInBackground = continuingInBackground;
+        }
+    }
+
+    /**
+     * Opciones de JPlag elegidas para el análisis y las medidas de la cohorte en que se basaron
+     */
+    public static class TuningSummary {
+        private boolean adaptive;
+        private int submissions;
+        private long totalTokens;
+        private int medianTokens;
+        private double estimatedComparisonSeconds;
+        private int minimumTokenMatch;
+        private double similarityThreshold;
+        private int maximumReportComparisons;
+        private boolean prefilterForced;
+        private List<String> overriddenOptions;
+
+        public TuningSummary() {
+        }
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getSubmissions() {
+            return submissions;
+        }
+
+        public void setSubmissions(int submissions) {
+            this.submissions = submissions;
+        }
+
+        public long getTotalTokens() {
+            return totalTokens;
+        }
+
+        public void setTotalTokens(long totalTokens) {
+            this.totalTokens = totalTokens;
+        }
+
+        public int getMedianTokens() {
+            return medianTokens;
+        }
+
+        public void setMedianTokens(int medianTokens) {
+            this.medianTokens = medianTokens;
+        }
+
+        public double getEstimatedComparisonSeconds() {
+            return estimatedComparisonSeconds;
+        }
+
+        public void setEstimatedComparisonSeconds(double estimatedComparisonSeconds) {
+            this.estimatedComparisonSeconds = estimatedComparisonSeconds;
+        }
+
+        public int getMinimumTokenMatch() {
+            return minimumTokenMatch;
+        }
+
+        public void setMinimumTokenMatch(int minimumTokenMatch) {
+            this.minimumTokenMatch = minimumTokenMatch;
+        }
+
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
+
+        public int getMaximumReportComparisons() {
+            return maximumReportComparisons;
+        }
+
+        public void setMaximumReportComparisons(int maximumReportComparisons) {
+            this.maximumReportComparisons = maximumReportComparisons;
+        }
+
+        public boolean isPrefilterForced() {
+            return prefilterForced;
+        }
+
+        public void setPrefilterForced(boolean prefilterForced) {
+            this.prefilterForced = prefilterForced;
+        }
+
+        public List<String> getOverriddenOptions() {
+            return overriddenOptions;
+        }
+
+        public void setOverriddenOptions(List<String> overriddenOptions) {
+            this.overriddenOptions = overriddenOptions;
+        }
+    }
+
+    /**
+     * Grupos de entregas conectadas por pares con similitud sobre el umbral
+     */
+    public static class ClusteringSummary {
+        private double similarityThreshold;
+        private int edges;
+        private int clusteredSubmissions;
+        private List<SubmissionCluster> clusters;
+
+        public ClusteringSummary() {
+        }
+
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
+
+        public int getEdges() {
+            return edges;
+        }
+
+        public void setEdges(int edges) {
+            this.edges = edges;
+        }
+
+        public int getClusteredSubmissions() {
+            return clusteredSubmissions;
+        }
+
+        public void setClusteredSubmissions(int clusteredSubmissions) {
+            this.clusteredSubmissions = clusteredSubmissions;
+        }
+
+        public List<SubmissionCluster> getClusters() {
+            return clusters;
+        }
+
+        public void setClusters(List<SubmissionCluster> clusters) {
+            this.clusters = clusters;
+        }
+    }
+
+    /**
+     * Grupo de entregas (posible colusión) con la similitud agregada de sus pares
+     */
+    public static class SubmissionCluster {
+        private int id;
+        private int size;
+        private List<String> submissions;
+        private List<Long> submissionIds;
+        private List<String> teams;
+        private int edges;
+        private double averageSimilarity;
+        private double maxSimilarity;
+        private double density;
+
+        public SubmissionCluster() {
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public List<String> getSubmissions() {
+            return submissions;
+        }
+
+        public void setSubmissions(List<String> submissions) {
+            this.submissions = submissions;
+        }
+
+        public List<Long> getSubmissionIds() {
+            return submissionIds;
+        }
+
+        public void setSubmissionIds(List<Long> submissionIds) {
+            this.submissionIds = submissionIds;
+        }
+
+        public List<String> getTeams() {
+            return teams;
+        }
+
+        public void setTeams(List<String> teams) {
+            this.teams = teams;
+        }
+
+        public int getEdges() {
+            return edges;
+        }
+
+        public void setEdges(int edges) {
+            this.edges = edges;
+        }
+
+        public double getAverageSimilarity() {
+            return averageSimilarity;
+        }
+
+        public void setAverageSimilarity(double averageSimilarity) {
+            this.averageSimilarity = averageSimilarity;
+        }
+
+        public double getMaxSimilarity() {
+            return maxSimilarity;
+        }
+
+        public void setMaxSimilarity(double maxSimilarity) {
+            this.maxSimilarity = maxSimilarity;
+        }
+
+        public double getDensity() {
+            return density;
+        }
+
+        public void setDensity(double density) {
+            this.density = density;
+        }
+    }
+
+    /**
+     * Cantidad de pares con similitud en [from, to) (el último intervalo incluye 1.0)
+     */
+    public static class HistogramBin {
+        private double from;
+        private double to;
+        private long count;
+
+        public HistogramBin() {
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public void setFrom(double from) {
+            this.from = from;
+        }
+
+        public double getTo() {
+            return to;
+        }
+
+        public void setTo(double to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Mayor similitud de un equipo con otro equipo en el análisis
+     */
+    public static class TeamMaximum {
+        private String team;
+        private double maxSimilarity;
+        private String otherTeam;
+
+        public TeamMaximum() {
+        }
+
+        public String getTeam() {
+            return team;
+        }
+
+        public void setTeam(String team) {
+            this.team = team;
+        }
+
+        public double getMaxSimilarity() {
+            return maxSimilarity;
+        }
+
+        public void setMaxSimilarity(double maxSimilarity) {
+            this.maxSimilarity = maxSimilarity;
+        }
+
+        public String getOtherTeam() {
+            return otherTeam;
+        }
+
+        public void setOtherTeam(String otherTeam) {
+            this.otherTeam = otherTeam;
+        }
+    }
+
+    /**
+     * Comparaciones por columnas: cada columna tiene size valores y los textos
+     * repetidos (sesiones, entregas, equipos) se guardan una vez en strings y
+     * se referencian por índice (-1 = null). La URL de cada comparación se
+     * arma con comparisonHtmlUrlTemplate.
+     */
+    public static class ComparisonTable {
+        private int size;
+        private List<String> strings;
+        private int[] sessions;
+        private int[] submission1;
+        private int[] submission2;
+        private int[] team1;
+        private int[] team2;
+        private List<Long> submissionId1;
+        private List<Long> submissionId2;
+        private double[] similarity;
+        private int[] matchedTokens;
+        private String comparisonHtmlUrlTemplate;
+
+        public ComparisonTable() {
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public List<String> getStrings() {
+            return strings;
+        }
+
+        public void setStrings(List<String> strings) {
+            this.strings = strings;
+        }
+
+        public int[] getSessions() {
+            return sessions;
+        }
+
+        public void setSessions(int[] sessions) {
+            this.sessions = sessions;
+        }
+
+        public int[] getSubmission1() {
+            return submission1;
+        }
+
+        public void setSubmission1(int[] submission1) {
+            this.submission1 = submission1;
+        }
+
+        public int[] getSubmission2() {
+            return submission2;
+        }
+
+        public void setSubmission2(int[] submission2) {
+            this.submission2 = submission2;
+        }
+
+        public int[] getTeam1() {
+            return team1;
+        }
+
+        public void setTeam1(int[] team1) {
+            this.team1 = team1;
+        }
+
+        public int[] getTeam2() {
+            return team2;
+        }
+
+        public void setTeam2(int[] team2) {
+            this.team2 = team2;
+        }
+
+        public List<Long> getSubmissionId1() {
+            return submissionId1;
+        }
+
+        public void setSubmissionId1(List<Long> submissionId1) {
+            this.submissionId1 = submissionId1;
+        }
+
+        public List<Long> getSubmissionId2() {
+            return submissionId2;
+        }
+
+        public void setSubmissionId2(List<Long> submissionId2) {
+            this.submissionId2 = submissionId2;
+        }
+
+        public double[] getSimilarity() {
+            return similarity;
+        }
+
+        public void setSimilarity(double[] similarity) {
+            this.similarity = similarity;
+        }
+
+        public int[] getMatchedTokens() {
+            return matchedTokens;
+        }
+
+        public void setMatchedTokens(int[] matchedTokens) {
+            this.matchedTokens = matchedTokens;
+        }
+
+        public String getComparisonHtmlUrlTemplate() {
+            return comparisonHtmlUrlTemplate;
+        }
+
+        public void setComparisonHtmlUrlTemplate(String comparisonHtmlUrlTemplate) {
+            this.comparisonHtmlUrlTemplate = comparisonHtmlUrlTemplate;
+        }
+    }
+
+    /**
+     * Límites de tamaño configurados y las entregas o archivos que los superaron (excluidos del análisis)
+     */
+    public static class LimitsSummary {
+        private long maxRepositoryBytes;
+        private long maxFileBytes;
+        private int maxFilesPerSubmission;
+        private long maxTokensPerSubmission;
+        private List<LimitViolation> violations;
+
+        public LimitsSummary() {
+        }
+
+        public long getMaxRepositoryBytes() {
+            return maxRepositoryBytes;
+        }
+
+        public void setMaxRepositoryBytes(long maxRepositoryBytes) {
+            this.maxRepositoryBytes = maxRepositoryBytes;
+        }
+
+        public long getMaxFileBytes() {
+            return maxFileBytes;
+        }
+
+        public void setMaxFileBytes(long maxFileBytes) {
+            this.maxFileBytes = maxFileBytes;
+        }
+
+        public int getMaxFilesPerSubmission() {
+            return maxFilesPerSubmission;
+        }
+
+        public void setMaxFilesPerSubmission(int maxFilesPerSubmission) {
+            this.maxFilesPerSubmission = maxFilesPerSubmission;
+        }
+
+        public long getMaxTokensPerSubmission() {
+            return maxTokensPerSubmission;
+        }
+
+        public void setMaxTokensPerSubmission(long maxTokensPerSubmission) {
+            this.maxTokensPerSubmission = maxTokensPerSubmission;
+        }
+
+        public List<LimitViolation> getViolations() {
+            return violations;
+        }
+
+        public void setViolations(List<LimitViolation> violations) {
+            this.violations = violations;
+        }
+    }
+
+    /**
+     * Un límite superado: la entrega completa (submissionExcluded) o sólo un archivo (path) quedó fuera
+     */
+    public static class LimitViolation {
+        private Long submissionId;
+        private String submission;
+        private String limit;
+        private String path;
+        private long value;
+        private long maximum;
+        private boolean submissionExcluded;
+
+        public LimitViolation() {
+        }
+
+        public Long getSubmissionId() {
+            return submissionId;
+        }
+
+        public void setSubmissionId(Long submissionId) {
+            this.submissionId = submissionId;
+        }
+
+        public String getSubmission() {
+            return submission;
+        }
+
+        public void setSubmission(String submission) {
+            this.submission = submission;
+        }
+
+        public String getLimit() {
+            return limit;
+        }
+
+        public void setLimit(String limit) {
+            this.limit = limit;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public void setValue(long value) {
+            this.value = value;
+        }
+
+        public long getMaximum() {
+            return maximum;
+        }
+
+        public void setMaximum(long maximum) {
+            this.maximum = maximum;
+        }
+
+        public boolean isSubmissionExcluded() {
+            return submissionExcluded;
+        }
+
+        public void setSubmissionExcluded(boolean submissionExcluded) {
+            this.submissionExcluded = submissionExcluded;
+        }
     }
 }
@@ -0,0 +1,117 @@
+package com.eci.iagen.jplag_service.service;
+
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Monitor de progreso de JGit que aborta el clon cuando el análisis se cancela,
+ * el hilo es interrumpido, se supera la duración máxima del clon o el pack
+ * recibido supera el tamaño máximo, y suma los objetos recibidos y archivos
+ * extraídos al progreso del análisis
+ */
+public class CloneProgressMonitor extends EmptyProgressMonitor {
+
+    private static final long SIZE_CHECK_INTERVAL_NANOS = 250_000_000L;
+
+    private final AnalysisJob job;
+    private final long deadlineNanos;
+    private final Path packDirectory;
+    private final long maxTransferBytes;
+    private volatile boolean timedOut;
+    private volatile boolean transferLimitExceeded;
+    private volatile long transferredBytes;
+    private volatile String task;
+    private long nextSizeCheckNanos;
+
+    public CloneProgressMonitor(AnalysisJob job, long maxDurationSeconds) {
+        this(job, maxDurationSeconds, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param repositoryDirectory directorio del clon, cuyo pack se mide
+     *                            mientras se recibe
+     */
+    public CloneProgressMonitor(AnalysisJob job, long maxDurationSeconds, Path repositoryDirectory,
+            long maxTransferBytes) {
+        this.job = job;
+        this.deadlineNanos = System.nanoTime() + maxDurationSeconds * 1_000_000_000L;
+        this.packDirectory = repositoryDirectory != null ? repositoryDirectory.resolve(".git/objects/pack") : null;
+        this.maxTransferBytes = maxTransferBytes;
+    }
+
+    @Override
+    public void beginTask(String title, int totalWork) {
+        task = title;
+    }
+
+    @Override
+    public void update(int completed) {
+        if (job == null || task == null) {
+            return;
+        }
+        if (task.startsWith("Receiving objects")) {
+            job.getProgress().addObjectsReceived(completed);
+        } else if (task.startsWith("Checking out files")) {
+            job.getProgress().addFilesCheckedOut(completed);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            timedOut = true;
+            return true;
+        }
+        if (isOverTransferLimit()) {
+            transferLimitExceeded = true;
+            return true;
+        }
+        return Thread.currentThread().isInterrupted() || (job != null && job.isCancelled());
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public boolean isTransferLimitExceeded() {
+        return transferLimitExceeded;
+    }
+
+    /**
+     * Bytes del pack recibido en la última medición
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    public long getMaxTransferBytes() {
+        return maxTransferBytes;
+    }
+
+    /**
+     * JGit escribe el pack entrante en .git/objects/pack a medida que lo
+     * recibe; se mide cada 250 ms como mucho
+     */
+    private boolean isOverTransferLimit() {
+        if (packDirectory == null || maxTransferBytes == Long.MAX_VALUE) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - nextSizeCheckNanos < 0) {
+            return transferLimitExceeded;
+        }
+        nextSizeCheckNanos = now + SIZE_CHECK_INTERVAL_NANOS;
+        try (Stream<Path> files = Files.list(packDirectory)) {
+            transferredBytes = files.mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            // Todavía no existe el directorio del pack
+            return false;
+        }
+        return transferredBytes > maxTransferBytes;
+    }
+}
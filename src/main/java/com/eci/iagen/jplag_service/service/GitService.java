@@ -1,13 +1,26 @@
 package com.eci.iagen.jplag_service.service;
 
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import jakarta.annotation.PostConstruct;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 /**
  * Servicio para clonar repositorios Git
@@ -17,30 +30,128 @@ public class GitService {
 
     private static final Logger logger = LoggerFactory.getLogger(GitService.class);
 
+    @Autowired
+    private SubmissionLimits submissionLimits;
+
+    @Value("${git.max.concurrent.clones:5}")
+    private int maxConcurrentClones;
+
+    @Value("${git.clone.timeout.seconds:60}")
+    private int cloneTimeoutSeconds;
+
+    @Value("${git.clone.max-duration.seconds:600}")
+    private long cloneMaxDurationSeconds;
+
+    /**
+     * Limita los clones simultáneos de todo el servicio. Se usa un semáforo (y
+     * no synchronized) para no fijar hilos virtuales a su carrier mientras
+     * esperan.
+     */
+    private Semaphore clonePermits;
+
+    @PostConstruct
+    public void init() {
+        clonePermits = new Semaphore(Math.max(1, maxConcurrentClones), true);
+    }
+
     /**
      * Clona un repositorio Git en el directorio especificado
      */
-    public boolean cloneRepository(String repositoryUrl, Path targetPath) {
+    public boolean cloneRepository(String repositoryUrl, Path targetPath) throws LimitExceededException {
+        return cloneRepository(repositoryUrl, targetPath, null);
+    }
+
+    /**
+     * Clona un repositorio Git asociado a un análisis. El clon se aborta si el
+     * análisis se cancela, si la red no responde durante
+     * git.clone.timeout.seconds o si el clon supera
+     * git.clone.max-duration.seconds. Si el pack recibido supera
+     * jplag.limits.max-repository-size-mb el clon se aborta y se lanza
+     * {@link LimitExceededException}.
+     */
+    public boolean cloneRepository(String repositoryUrl, Path targetPath, AnalysisJob job)
+            throws LimitExceededException {
+        File targetDir = targetPath.toFile();
+        if (targetDir.exists()) {
+            logger.warn("Target directory already exists: {}", targetPath);
+            return false;
+        }
+
         try {
-            logger.info("Cloning repository: {} to {}", repositoryUrl, targetPath);
+            clonePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting to clone repository: {}", repositoryUrl);
+            return false;
+        }
+
+        CloneProgressMonitor progressMonitor = new CloneProgressMonitor(job, cloneMaxDurationSeconds, targetPath,
+                submissionLimits.getMaxRepositoryBytes());
+        logger.info("Cloning repository: {} to {}", repositoryUrl, targetPath);
+        try (Git git = Git.cloneRepository()
+                .setURI(repositoryUrl)
+                .setDirectory(targetDir)
+                .setTimeout(cloneTimeoutSeconds)
+                .setProgressMonitor(progressMonitor)
+                .call()) {
 
-            File targetDir = targetPath.toFile();
-            if (targetDir.exists()) {
-                logger.warn("Target directory already exists: {}", targetPath);
+            if (progressMonitor.isCancelled()) {
+                if (progressMonitor.isTransferLimitExceeded()) {
+                    throw transferLimitExceeded(repositoryUrl, progressMonitor);
+                }
+                logger.warn("Clone of {} finished after cancellation, discarding it", repositoryUrl);
                 return false;
             }
 
-            Git.cloneRepository()
-                    .setURI(repositoryUrl)
-                    .setDirectory(targetDir)
-                    .call();
-
             logger.info("Successfully cloned repository: {}", repositoryUrl);
             return true;
 
-        } catch (GitAPIException e) {
-            logger.error("Failed to clone repository: {} - {}", repositoryUrl, e.getMessage());
+        } catch (GitAPIException | JGitInternalException e) {
+            if (progressMonitor.isTimedOut()) {
+                logger.error("Clone of {} exceeded {} seconds and was aborted", repositoryUrl,
+                        cloneMaxDurationSeconds);
+            } else if (progressMonitor.isTransferLimitExceeded()) {
+                throw transferLimitExceeded(repositoryUrl, progressMonitor);
+            } else {
+                logger.error("Failed to clone repository: {} - {}", repositoryUrl, e.getMessage());
+            }
             return false;
+        } finally {
+            clonePermits.release();
+        }
+    }
+
+    private LimitExceededException transferLimitExceeded(String repositoryUrl, CloneProgressMonitor monitor) {
+        logger.error("Clone of {} exceeded {} bytes and was aborted", repositoryUrl, monitor.getMaxTransferBytes());
+        return new LimitExceededException(SubmissionLimits.REPOSITORY_SIZE, monitor.getTransferredBytes(),
+                monitor.getMaxTransferBytes());
+    }
+
+    /**
+     * Consulta el commit al que apunta HEAD en el repositorio remoto sin
+     * clonarlo. Retorna null si no se pudo consultar.
+     */
+    public String resolveRemoteHead(String repositoryUrl) {
+        try {
+            Map<String, Ref> refs = Git.lsRemoteRepository()
+                    .setRemote(repositoryUrl)
+                    .setTimeout(cloneTimeoutSeconds)
+                    .callAsMap();
+            Ref head = refs.get(Constants.HEAD);
+            return head != null && head.getObjectId() != null ? head.getObjectId().getName() : null;
+        } catch (GitAPIException | JGitInternalException e) {
+            logger.warn("Failed to resolve HEAD of {}: {}", repositoryUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Commit al que apunta HEAD en un repositorio local (p.ej. un clon)
+     */
+    public String resolveLocalHead(Path repositoryPath) throws IOException {
+        try (Git git = Git.open(repositoryPath.toFile())) {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.getName() : null;
         }
     }
 
@@ -3,8 +3,40 @@ package com.eci.iagen.jplag_service.service;
 import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
 import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
 import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.analysis.AdaptiveTuningPolicy;
+import com.eci.iagen.jplag_service.service.analysis.DeferredComparisons;
+import com.eci.iagen.jplag_service.service.analysis.DuplicateDetector;
+import com.eci.iagen.jplag_service.service.analysis.JPlagRunner;
+import com.eci.iagen.jplag_service.service.analysis.RunSettings;
+import com.eci.iagen.jplag_service.service.analysis.TuningOverrides;
+import com.eci.iagen.jplag_service.service.basecode.BaseCodeTemplate;
+import com.eci.iagen.jplag_service.service.basecode.BaseCodeTemplateCache;
+import com.eci.iagen.jplag_service.service.cluster.SimilarityClusterer;
 import com.eci.iagen.jplag_service.service.comparison.ComparisonHtmlGenerator;
-import de.jplag.JPlag;
+import com.eci.iagen.jplag_service.service.fetch.SourceFetcherSelector;
+import com.eci.iagen.jplag_service.service.history.HistoricalCorpusIndex;
+import com.eci.iagen.jplag_service.service.history.HistoricalEntry;
+import com.eci.iagen.jplag_service.service.job.AnalysisCancelledException;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.job.AnalysisJobRegistry;
+import com.eci.iagen.jplag_service.service.lifecycle.StartupMetrics;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import com.eci.iagen.jplag_service.service.report.DeferredReportStore;
+import com.eci.iagen.jplag_service.service.report.RetainedAnalysis;
+import com.eci.iagen.jplag_service.service.result.AnalysisResultStore;
+import com.eci.iagen.jplag_service.service.result.IndexedComparison;
+import com.eci.iagen.jplag_service.service.result.ResultIndex;
+import com.eci.iagen.jplag_service.service.snapshot.ResultSnapshot;
+import com.eci.iagen.jplag_service.service.snapshot.ResultSnapshotStore;
+import com.eci.iagen.jplag_service.service.statistics.SimilarityStatistics;
+import com.eci.iagen.jplag_service.service.webhook.WebhookOutbox;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionStager;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceLease;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceManager;
+import com.eci.iagen.jplag_service.service.workspace.ZipExtractor;
 import de.jplag.JPlagComparison;
 import de.jplag.JPlagResult;
 import de.jplag.options.JPlagOptions;
@@ -13,6 +45,7 @@ import de.jplag.reporting.reportobject.ReportObjectFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -21,10 +54,21 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 /**
  * Servicio principal para la detección de plagio usando JPlag
@@ -33,26 +77,158 @@ import java.util.Set;
 public class JPlagDetectionService {
 
     private static final Logger logger = LoggerFactory.getLogger(JPlagDetectionService.class);
+    private static final String REPORT_READY = "ready";
+    private static final String REPORT_DEFERRED = "deferred";
+    private static final String REPORT_UNAVAILABLE = "unavailable";
 
     @Autowired
     private GitService gitService;
 
+    @Autowired
+    private SourceFetcherSelector sourceFetcherSelector;
+
     @Autowired
     private ComparisonHtmlGenerator comparisonHtmlGenerator;
 
-    @Value("${jplag.temp-directory:./temp}")
-    private String tempDirectory;
+    @Autowired
+    private JPlagRunner jplagRunner;
+
+    @Autowired
+    private AnalysisJobRegistry jobRegistry;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @Autowired
+    private HistoricalCorpusIndex historicalCorpusIndex;
+
+    @Autowired
+    private DuplicateDetector duplicateDetector;
+
+    @Autowired
+    private BaseCodeTemplateCache baseCodeTemplateCache;
+
+    @Autowired
+    private AnalysisResultStore resultStore;
+
+    @Autowired
+    private ResultIndex resultIndex;
+
+    @Autowired
+    private AdaptiveTuningPolicy tuningPolicy;
+
+    @Autowired
+    private DeferredReportStore deferredReportStore;
+
+    @Autowired
+    private ResultSnapshotStore snapshotStore;
+
+    @Autowired
+    private WebhookOutbox webhookOutbox;
+
+    @Autowired
+    private SubmissionLimits submissionLimits;
+
+    @Autowired
+    @Qualifier("ioExecutor")
+    private ExecutorService ioExecutor;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ExecutorService analysisExecutor;
 
     @Value("${jplag.reports-directory:./reports}")
     private String reportsDirectory;
 
+    @Value("${jplag.comparation-directory:./comparation}")
+    private String comparationDirectory;
+
     @Value("${jplag.minimum.similarity:0.0}")
     private double minimumSimilarity;
 
+    @Value("${jplag.statistics.histogram-bins:10}")
+    private int histogramBins;
+
+    @Value("${jplag.clustering.similarity-threshold:0.5}")
+    private double clusteringThreshold;
+
+    @Value("${jplag.teams.skip-same-team-comparisons:true}")
+    private boolean skipSameTeamComparisons;
+
+    @Value("${jplag.teams.latest-submission-only:false}")
+    private boolean latestSubmissionOnly;
+
+    @Value("${jplag.time-budget.default-seconds:0}")
+    private int defaultTimeBudgetSeconds;
+
+    @Value("${jplag.time-budget.reporting-reserve-ms:1500}")
+    private long reportingReserveMs;
+
+    @Value("${jplag.time-budget.continue-in-background:true}")
+    private boolean continueInBackground;
+
+    @Value("${jplag.report.generate-by-default:true}")
+    private boolean generateReportByDefault;
+
     /**
-     * Detecta plagio entre las entregas proporcionadas
+     * Detecta plagio entre las entregas proporcionadas. Si el request trae
+     * callbackUrl, el resultado final también se notifica por webhook.
      */
     public PlagiarismDetectionResponse detectPlagiarism(PlagiarismDetectionRequest request) {
+        return detectPlagiarism(request, this::cloneRepositories);
+    }
+
+    /**
+     * Igual que {@link #detectPlagiarism(PlagiarismDetectionRequest)}, pero las
+     * fuentes de las entregas las trae el stager (p.ej. archivos subidos) en
+     * lugar de clonar sus repositorios
+     */
+    public PlagiarismDetectionResponse detectPlagiarism(PlagiarismDetectionRequest request,
+            SubmissionStager stager) {
+        PlagiarismDetectionResponse response = runDetection(request, stager);
+        // Si el análisis continúa en segundo plano, esa tarea notifica al terminar
+        PlagiarismDetectionResponse.CompletenessSummary completeness = response.getCompleteness();
+        if (completeness == null || !completeness.isContinuingInBackground()) {
+            webhookOutbox.enqueue(request.getCallbackUrl(), response);
+        }
+        return response;
+    }
+
+    /**
+     * Lanza el análisis en segundo plano y responde de inmediato con su
+     * sessionId; el resultado se notifica a request.callbackUrl
+     */
+    public PlagiarismDetectionResponse submitAnalysis(PlagiarismDetectionRequest request) {
+        if (request.getSessionId() == null) {
+            request.setSessionId(UUID.randomUUID().toString());
+        }
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setAssignmentId(request.getAssignmentId());
+        response.setAssignmentTitle(request.getAssignmentTitle());
+        response.setSessionId(request.getSessionId());
+        try {
+            analysisExecutor.execute(() -> {
+                try {
+                    detectPlagiarism(request);
+                } catch (RuntimeException e) {
+                    logger.error("Error in asynchronous analysis of session {}", request.getSessionId(), e);
+                }
+            });
+            response.setSuccess(true);
+            response.setMessage("Análisis aceptado; el resultado se notificará a " + request.getCallbackUrl());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule analysis of session {}: {}", request.getSessionId(), e.getMessage());
+            response.setSuccess(false);
+            response.setMessage("No se pudo programar el análisis: " + e.getMessage());
+        }
+        return response;
+    }
+
+    private PlagiarismDetectionResponse runDetection(PlagiarismDetectionRequest request,
+            SubmissionStager stager) {
         logger.info("Starting plagiarism detection for assignment: {} with {} submissions",
                 request.getAssignmentId(), request.getSubmissions().size());
 
@@ -60,111 +236,184 @@ public class JPlagDetectionService {
         response.setAssignmentId(request.getAssignmentId());
         response.setAssignmentTitle(request.getAssignmentTitle());
 
-        try {
-            // Validar que hay suficientes entregas
-            if (request.getSubmissions().size() < 2) {
-                response.setSuccess(false);
-                response.setMessage("Se requieren al menos 2 entregas para detectar plagio");
-                response.setComparisons(new ArrayList<>());
-                return response;
-            }
+        // Opcionalmente sólo la última entrega de cada equipo
+        PlagiarismDetectionResponse.TeamFilterSummary teamFilter =
+                new PlagiarismDetectionResponse.TeamFilterSummary();
+        List<SubmissionDto> submissions = selectSubmissions(request, teamFilter);
 
-            // Crear directorio temporal único para esta detección
-            String sessionId = UUID.randomUUID().toString();
-            Path sessionTempDir = createSessionDirectory(sessionId);
+        // Validar que hay suficientes entregas
+        if (submissions.size() < 2) {
+            response.setSuccess(false);
+            response.setMessage("Se requieren al menos 2 entregas para detectar plagio");
+            response.setComparisons(new ArrayList<>());
+            return response;
+        }
 
-            // Clonar repositorios
-            List<File> clonedRepositories = cloneRepositories(request.getSubmissions(), sessionTempDir);
+        // Registrar el análisis para poder cancelarlo mientras se ejecuta
+        String sessionId = request.getSessionId() != null ? request.getSessionId() : UUID.randomUUID().toString();
+        response.setSessionId(sessionId);
+        AnalysisJob job = jobRegistry.register(sessionId, request.getAssignmentId());
+        if (job == null) {
+            response.setSuccess(false);
+            response.setMessage("Ya existe un análisis en ejecución con la sesión " + sessionId);
+            response.setComparisons(new ArrayList<>());
+            return response;
+        }
+        // Reutilizar la sesión sobrescribiría el resultado y los reportes de otro análisis
+        if (request.getSessionId() != null && hasStoredSession(sessionId)) {
+            jobRegistry.unregister(job);
+            logger.warn("Rejected analysis for session {}: it already has stored results", sessionId);
+            response.setSuccess(false);
+            response.setMessage("La sesión " + sessionId + " ya tiene resultados guardados; use otro sessionId");
+            response.setComparisons(new ArrayList<>());
+            return response;
+        }
+
+        job.setTeamFilterSummary(teamFilter);
+        job.setCallbackUrl(request.getCallbackUrl());
+        Integer timeBudgetSeconds = resolveTimeBudget(request);
+        if (timeBudgetSeconds != null) {
+            job.setDeadline(comparisonDeadline(job, timeBudgetSeconds));
+        }
+        String historyKey = historicalCorpusIndex.resolveKey(request);
+        boolean generateReport = request.getGenerateReport() != null ? request.getGenerateReport()
+                : generateReportByDefault;
+        WorkspaceLease workspace = null;
+        boolean completingInBackground = false;
+        try {
+            // Reservar un directorio de trabajo único para esta detección
+            workspace = workspaceManager.acquire(sessionId);
+            SubmissionRegistry registry = new SubmissionRegistry(submissions);
+
+            // Obtener las fuentes de las entregas (por defecto, clonando sus repositorios)
+            List<File> clonedRepositories = stager.stage(submissions, workspace.getRepositoriesDirectory(), job);
+            job.checkCancelled();
 
             if (clonedRepositories.size() < 2) {
                 response.setSuccess(false);
                 response.setMessage("No se pudieron clonar suficientes repositorios válidos");
                 response.setComparisons(new ArrayList<>());
+                response.setLimits(submissionLimits.summarize(job.getLimitViolations()));
                 return response;
             }
 
             // Ejecutar JPlag
-            JPlagResult jplagResult = runJPlagAnalysis(clonedRepositories);
+            RunSettings settings = new RunSettings();
+            JPlagResult jplagResult = runJPlagAnalysis(clonedRepositories, stager.isSourcesOnly(), workspace, job,
+                    request, registry, historyKey, settings);
+            job.checkCancelled();
+
+            // Generar reporte HTML usando JPlag nativo (omitido en modo rápido)
+            String reportUrl = null;
+            if (generateReport) {
+                job.setStage("reporting");
+                reportUrl = saveReportBundle(jplagResult, sessionId, registry);
+            }
 
-            // Generar reporte HTML usando JPlag nativo
-            String reportUrl = saveReportBundle(jplagResult, sessionId);
+            // Archivar la cohorte en el corpus histórico para semestres siguientes
+            job.setStage("archiving");
+            historicalCorpusIndex.archive(historyKey, request.getAssignmentId(), jplagResult, registry);
 
-            // Convertir resultados a formato de respuesta
-            List<PlagiarismDetectionResponse.ComparisonResult> comparisons = convertJPlagResultToComparisons(
-                    jplagResult, request.getSubmissions(), sessionId);
+            // Snapshot del resultado para regenerar reportes y vistas sin tokenizar
+            boolean snapshotSaved = snapshotStore.save(sessionId, jplagResult, request.getAssignmentId(),
+                    registry::find);
 
-            // Calcular estadísticas
-            PlagiarismDetectionResponse.Statistics statistics = calculateStatistics(comparisons,
-                    request.getSubmissions().size());
+            // Sin reporte (y sin snapshot) se conservan las entradas para generarlo a pedido
+            String reportStatus = generateReport ? REPORT_READY
+                    : snapshotSaved ? REPORT_DEFERRED
+                            : retainForDeferredReport(sessionId, request.getAssignmentId(), jplagResult, settings);
 
-            response.setSuccess(true);
-            response.setMessage("Análisis de plagio completado exitosamente");
-            response.setComparisons(comparisons);
+            // Convertir resultados a formato de respuesta
+            populateResults(response, jplagResult, registry, historyKey, job);
             response.setReportUrl(reportUrl);
-            response.setStatistics(statistics);
+            response.setReportStatus(reportStatus);
+
+            PlagiarismDetectionResponse.CompletenessSummary completeness =
+                    new PlagiarismDetectionResponse.CompletenessSummary();
+            completeness.setTimeBudgetSeconds(timeBudgetSeconds);
+            completeness.setPlannedComparisons(settings.getPlannedComparisons());
+            completeness.setCompletedComparisons(settings.getCompletedComparisons());
+            response.setCompleteness(completeness);
+
+            DeferredComparisons deferred = settings.getDeferredComparisons();
+            if (deferred == null) {
+                completeness.setComplete(true);
+                response.setMessage("Análisis de plagio completado exitosamente");
+                storeResult(response, registry);
+            } else {
+                // Resultado parcial: los pares más sospechosos ya se compararon
+                completeness.setPendingComparisons(deferred.getPendingComparisons());
+                completeness.setContinuingInBackground(continueInBackground);
+                response.setMessage("Resultado parcial: se agotó el presupuesto de tiempo con "
+                        + deferred.getPendingComparisons() + " comparaciones pendientes");
+                storeResult(response, registry);
+                if (continueInBackground) {
+                    completingInBackground = completeInBackground(deferred, job, workspace, response,
+                            registry, historyKey, generateReport);
+                    completeness.setContinuingInBackground(completingInBackground);
+                }
+            }
 
             logger.info("Plagiarism detection completed successfully for assignment: {}", request.getAssignmentId());
+            startupMetrics.recordAnalysisCompleted(
+                    Duration.between(job.getStartedAt(), Instant.now()).toMillis());
 
-            // Limpiar directorios temporales
-            cleanupTemporaryDirectories(sessionTempDir);
-
+        } catch (AnalysisCancelledException e) {
+            logger.warn("Plagiarism detection cancelled for assignment: {} (session {})",
+                    request.getAssignmentId(), sessionId);
+            response.setSuccess(false);
+            response.setMessage("El análisis de plagio fue cancelado");
+            response.setComparisons(new ArrayList<>());
         } catch (Exception e) {
             logger.error("Error during plagiarism detection for assignment: {}", request.getAssignmentId(), e);
             response.setSuccess(false);
             response.setMessage("Error durante el análisis de plagio: " + e.getMessage());
             response.setComparisons(new ArrayList<>());
+        } finally {
+            // El borrado del workspace ocurre en segundo plano; si el análisis
+            // continúa en segundo plano, lo libera esa tarea al terminar
+            if (!completingInBackground) {
+                workspaceManager.release(workspace);
+                jobRegistry.unregister(job);
+            }
         }
 
         return response;
     }
 
     /**
-     * Crea un directorio temporal único para esta sesión
+     * Clona todos los repositorios de las entregas. Los clones se lanzan en el
+     * ejecutor de IO; GitService limita cuántos corren a la vez.
      */
-    private Path createSessionDirectory(String sessionId) throws IOException {
-        Path sessionDir = Paths.get(tempDirectory, sessionId);
-        Files.createDirectories(sessionDir);
-        logger.info("Created session directory: {}", sessionDir);
-        return sessionDir;
-    }
+    private List<File> cloneRepositories(List<SubmissionDto> submissions, Path repositoriesDir, AnalysisJob job) {
+        job.setStage("cloning");
+        job.getProgress().setRepositoriesTotal(submissions.size());
+        List<Future<File>> pendingClones = new ArrayList<>();
+        for (SubmissionDto submission : submissions) {
+            Future<File> pendingClone = ioExecutor.submit(() -> {
+                File clonedRepo = cloneSubmission(submission, repositoriesDir, job);
+                job.getProgress().repositoryFinished(clonedRepo != null);
+                return clonedRepo;
+            });
+            job.trackTask(pendingClone);
+            pendingClones.add(pendingClone);
+        }
 
-    /**
-     * Clona todos los repositorios de las entregas
-     */
-    private List<File> cloneRepositories(List<SubmissionDto> submissions, Path sessionTempDir) {
         List<File> clonedRepos = new ArrayList<>();
-
-        for (SubmissionDto submission : submissions) {
+        for (Future<File> pendingClone : pendingClones) {
             try {
-                if (!gitService.isValidGitUrl(submission.getRepositoryUrl())) {
-                    logger.warn("Invalid Git URL for submission {}: {}",
-                            submission.getSubmissionId(), submission.getRepositoryUrl());
-                    continue;
+                File clonedRepo = pendingClone.get();
+                if (clonedRepo != null) {
+                    clonedRepos.add(clonedRepo);
                 }
-
-                String repoName = "submission_" + submission.getSubmissionId() + "_team_" + submission.getTeamId();
-                Path repoPath = sessionTempDir.resolve(repoName);
-
-                if (gitService.cloneRepository(submission.getRepositoryUrl(), repoPath)) {
-                    clonedRepos.add(repoPath.toFile());
-                    logger.info("Successfully cloned repository for submission: {}", submission.getSubmissionId());
-
-                    // Validar que el repositorio tiene archivos Java
-                    long javaFileCount = countJavaFiles(repoPath);
-                    if (javaFileCount == 0) {
-                        logger.warn("Repository for submission {} contains no Java files",
-                                submission.getSubmissionId());
-                    } else {
-                        logger.info("Repository for submission {} contains {} Java files",
-                                submission.getSubmissionId(), javaFileCount);
-                    }
-                } else {
-                    logger.warn("Failed to clone repository for submission: {}", submission.getSubmissionId());
-                }
-
-            } catch (Exception e) {
-                logger.error("Error cloning repository for submission {}: {}",
-                        submission.getSubmissionId(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingClones.forEach(future -> future.cancel(true));
+                break;
+            } catch (CancellationException e) {
+                logger.debug("Clone task cancelled");
+            } catch (ExecutionException e) {
+                logger.error("Error cloning repository: {}", e.getCause().getMessage());
             }
         }
 
@@ -173,35 +422,97 @@ public class JPlagDetectionService {
     }
 
     /**
-     * Crea un directorio root para el análisis con estructura que JPlag entiende
+     * Trae el repositorio de una entrega (clon o descarga del archivo de HEAD,
+     * según el host). Retorna null si no se pudo.
      */
-    private Path createAnalysisRootDirectory(List<File> clonedRepositories) throws IOException {
-        // Crear directorio temporal para el análisis
-        Path analysisRoot = Paths.get(tempDirectory, "analysis_" + UUID.randomUUID().toString());
-        Files.createDirectories(analysisRoot);
+    private File cloneSubmission(SubmissionDto submission, Path repositoriesDir, AnalysisJob job) {
+        try {
+            if (!gitService.isValidGitUrl(submission.getRepositoryUrl())) {
+                logger.warn("Invalid Git URL for submission {}: {}",
+                        submission.getSubmissionId(), submission.getRepositoryUrl());
+                return null;
+            }
 
-        logger.info("Creating analysis root directory: {}", analysisRoot);
+            Path repoPath = repositoriesDir.resolve(SubmissionRegistry.directoryName(submission));
 
-        // Copiar cada repositorio como un subdirectorio del root
+            if (!sourceFetcherSelector.fetch(submission.getRepositoryUrl(), repoPath, job)) {
+                logger.warn("Failed to clone repository for submission: {}", submission.getSubmissionId());
+                return null;
+            }
+
+            logger.info("Successfully cloned repository for submission: {}", submission.getSubmissionId());
+
+            // Validar que el repositorio tiene archivos Java
+            long javaFileCount = countJavaFiles(repoPath);
+            if (javaFileCount == 0) {
+                logger.warn("Repository for submission {} contains no Java files",
+                        submission.getSubmissionId());
+            } else {
+                logger.info("Repository for submission {} contains {} Java files",
+                        submission.getSubmissionId(), javaFileCount);
+            }
+            return repoPath.toFile();
+
+        } catch (LimitExceededException e) {
+            logger.warn("Excluding submission {}: {}", submission.getSubmissionId(), e.getMessage());
+            job.addLimitViolation(submissionLimits.violation(e, SubmissionRegistry.directoryName(submission)));
+            return null;
+        } catch (Exception e) {
+            logger.error("Error cloning repository for submission {}: {}",
+                    submission.getSubmissionId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Crea un directorio root para el análisis con estructura que JPlag entiende.
+     * Las fuentes se inventarían primero para decidir si el root va en memoria
+     * o en disco. Con moveSources (directorios que sólo tienen fuentes) y root
+     * en disco los archivos se mueven en lugar de copiarse. Los fuentes que
+     * superan el tamaño máximo se omiten y las entregas con demasiados
+     * archivos se excluyen.
+     */
+    private Path createAnalysisRootDirectory(List<File> clonedRepositories, boolean moveSources,
+            WorkspaceLease workspace, AnalysisJob job, SubmissionRegistry registry) throws IOException {
+        // Inventariar las fuentes de cada repositorio (en paralelo)
+        List<Future<SourceManifest>> pendingScans = new ArrayList<>();
         for (File repository : clonedRepositories) {
             if (!repository.exists() || !repository.isDirectory()) {
                 logger.warn("Skipping invalid repository: {}", repository.getAbsolutePath());
                 continue;
             }
+            Future<SourceManifest> pendingScan = ioExecutor.submit(
+                    () -> SourceManifest.scan(repository.toPath(), submissionLimits.getMaxFileBytes()));
+            job.trackTask(pendingScan);
+            pendingScans.add(pendingScan);
+        }
+        List<SourceManifest> manifests = applyFileLimits(awaitAll(pendingScans, job, "scan submission sources"),
+                job);
+        job.getProgress().setFilesTotal(manifests.stream().mapToInt(SourceManifest::getFileCount).sum());
 
-            // Crear subdirectorio en el root de análisis
-            Path submissionDir = analysisRoot.resolve(repository.getName());
+        // Vía rápida: copias exactas visibles en /jobs antes de la comparación completa
+        job.setStage("duplicate-scan");
+        job.setDuplicateSummary(duplicateDetector.detect(manifests, registry));
+        job.checkCancelled();
 
-            // Copiar solo archivos .java del repositorio
-            copyJavaFilesRecursively(repository.toPath(), submissionDir);
+        long sourceBytes = manifests.stream().mapToLong(SourceManifest::getTotalBytes).sum();
+        Path analysisRoot = workspaceManager.allocateAnalysisDirectory(workspace, sourceBytes);
 
-            // Verificar que se copiaron archivos
-            long javaFileCount = countJavaFiles(submissionDir);
-            logger.info("Submission '{}' - copied {} Java files", repository.getName(), javaFileCount);
+        logger.info("Creating analysis root directory: {}", analysisRoot);
 
-            if (javaFileCount == 0) {
-                logger.warn("No Java files found in submission: {}", repository.getName());
+        // Copiar cada repositorio como un subdirectorio del root. Si tmpfs se
+        // llena, se repite la copia en disco: un archivo faltante daría una
+        // similitud incorrecta sin ningún error visible.
+        try {
+            copyAllSources(manifests, analysisRoot, moveSources && !workspace.isInMemory(), job);
+        } catch (IOException e) {
+            if (!workspace.isInMemory()) {
+                throw e;
             }
+            logger.warn("Copying sources to memory failed for session {}: {}", workspace.getSessionId(),
+                    e.getMessage());
+            analysisRoot = workspaceManager.fallbackToDisk(workspace);
+            copyAllSources(manifests, analysisRoot, moveSources, job);
         }
 
         // Verificar estructura final
@@ -211,37 +522,107 @@ public class JPlagDetectionService {
     }
 
     /**
-     * Copia recursivamente solo archivos .java manteniendo la estructura de
-     * directorios
+     * Registra los fuentes omitidos por tamaño y descarta las entregas con más
+     * archivos que jplag.limits.max-files-per-submission
      */
-    private void copyJavaFilesRecursively(Path source, Path target) throws IOException {
-        if (!Files.exists(source)) {
-            return;
+    private List<SourceManifest> applyFileLimits(List<SourceManifest> manifests, AnalysisJob job) {
+        long maxFileBytes = submissionLimits.getMaxFileBytes();
+        int maxFiles = submissionLimits.getMaxFilesPerSubmission();
+        List<SourceManifest> accepted = new ArrayList<>();
+        for (SourceManifest manifest : manifests) {
+            for (Map.Entry<Path, Long> oversized : manifest.getOversizedFiles().entrySet()) {
+                String path = oversized.getKey().toString().replace('\\', '/');
+                logger.warn("Skipping {} in {}: {} bytes", path, manifest.getSubmissionName(), oversized.getValue());
+                job.addLimitViolation(submissionLimits.violation(SubmissionLimits.FILE_SIZE,
+                        manifest.getSubmissionName(), path, oversized.getValue(), maxFileBytes));
+            }
+            if (manifest.getFileCount() > maxFiles) {
+                logger.warn("Excluding {}: {} source files", manifest.getSubmissionName(), manifest.getFileCount());
+                job.addLimitViolation(submissionLimits.violation(SubmissionLimits.FILES_PER_SUBMISSION,
+                        manifest.getSubmissionName(), null, manifest.getFileCount(), maxFiles));
+                continue;
+            }
+            accepted.add(manifest);
         }
+        return accepted;
+    }
 
-        Files.walk(source)
-                .forEach(sourcePath -> {
-                    try {
-                        Path relativePath = source.relativize(sourcePath);
-                        Path targetPath = target.resolve(relativePath);
+    /**
+     * Copia (en paralelo) las fuentes de cada entrega a su subdirectorio del
+     * root de análisis
+     */
+    private void copyAllSources(List<SourceManifest> manifests, Path analysisRoot, boolean move,
+            AnalysisJob job) throws IOException {
+        List<Future<SourceManifest>> pendingCopies = new ArrayList<>();
+        for (SourceManifest manifest : manifests) {
+            Future<SourceManifest> pendingCopy = ioExecutor.submit(() -> {
+                copySubmissionSources(manifest, analysisRoot, move);
+                return manifest;
+            });
+            job.trackTask(pendingCopy);
+            pendingCopies.add(pendingCopy);
+        }
+        awaitAll(pendingCopies, job, "copy submission sources");
+    }
 
-                        if (Files.isDirectory(sourcePath)) {
-                            // Saltar directorios que no necesitamos
-                            String dirName = sourcePath.getFileName().toString().toLowerCase();
-                            if (!dirName.equals(".git") && !dirName.equals("target") &&
-                                    !dirName.equals("build") && !dirName.equals("node_modules") &&
-                                    !dirName.equals(".idea") && !dirName.equals("out")) {
-                                Files.createDirectories(targetPath);
-                            }
-                        } else if (sourcePath.toString().toLowerCase().endsWith(".java")) {
-                            // Copiar solo archivos .java
-                            Files.createDirectories(targetPath.getParent());
-                            Files.copy(sourcePath, targetPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                        }
-                    } catch (IOException e) {
-                        logger.warn("Failed to copy file from {} to {}: {}", sourcePath, target, e.getMessage());
-                    }
-                });
+    /**
+     * Espera el resultado de un grupo de tareas de IO del análisis. Si alguna
+     * falla, espera igual a las demás (ninguna sigue escribiendo) y lanza el
+     * primer error.
+     */
+    private <T> List<T> awaitAll(List<Future<T>> tasks, AnalysisJob job, String description) throws IOException {
+        List<T> results = new ArrayList<>();
+        IOException failure = null;
+        for (Future<T> task : tasks) {
+            try {
+                results.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while trying to " + description, e);
+            } catch (CancellationException e) {
+                job.checkCancelled();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new IOException("Failed to " + description + ": " + e.getCause().getMessage(),
+                            e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Copia (o mueve) los archivos .java de un repositorio clonado a su
+     * subdirectorio en el root de análisis, manteniendo la estructura de
+     * directorios. Falla si algún archivo no se pudo copiar.
+     */
+    private void copySubmissionSources(SourceManifest manifest, Path analysisRoot, boolean move)
+            throws IOException {
+        // Crear subdirectorio en el root de análisis
+        Path submissionDir = analysisRoot.resolve(manifest.getSubmissionName());
+        Files.createDirectories(submissionDir);
+
+        // Copiar solo los archivos .java inventariados
+        for (Path relativePath : manifest.getFiles()) {
+            Path sourcePath = manifest.getRepositoryRoot().resolve(relativePath);
+            Path targetPath = submissionDir.resolve(relativePath);
+            Files.createDirectories(targetPath.getParent());
+            if (move) {
+                Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        logger.info("Submission '{}' - {} {} Java files", manifest.getSubmissionName(),
+                move ? "moved" : "copied", manifest.getFileCount());
+
+        if (manifest.getFileCount() == 0) {
+            logger.warn("No Java files found in submission: {}", manifest.getSubmissionName());
+        }
     }
 
     /**
@@ -252,10 +633,11 @@ public class JPlagDetectionService {
             return 0;
         }
 
-        return Files.walk(directory)
-                .filter(Files::isRegularFile)
-                .filter(path -> path.toString().toLowerCase().endsWith(".java"))
-                .count();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().toLowerCase().endsWith(".java"))
+                    .count();
+        }
     }
 
     /**
@@ -315,12 +697,15 @@ public class JPlagDetectionService {
     /**
      * Ejecuta el análisis de JPlag
      */
-    private JPlagResult runJPlagAnalysis(List<File> repositories) throws Exception {
+    private JPlagResult runJPlagAnalysis(List<File> repositories, boolean moveSources, WorkspaceLease workspace,
+            AnalysisJob job, PlagiarismDetectionRequest request, SubmissionRegistry registry, String historyKey,
+            RunSettings settings) throws Exception {
         logger.info("Starting JPlag analysis with {} repositories", repositories.size());
 
         try {
             // Crear un directorio root temporal que contenga todos los submissions
-            Path analysisRootDir = createAnalysisRootDirectory(repositories);
+            job.setStage("preparing");
+            Path analysisRootDir = createAnalysisRootDirectory(repositories, moveSources, workspace, job, registry);
 
             // Configurar opciones de JPlag para Java
             JavaLanguage javaLanguage = new JavaLanguage();
@@ -333,14 +718,22 @@ public class JPlagDetectionService {
             // subdirectorios
             Set<File> rootDirectories = Set.of(analysisRootDir.toFile());
 
+            // Entregas históricas más parecidas, comparadas como "old submissions"
+            job.setStage("history-lookup");
+            Set<File> historicalDirectories = historicalCorpusIndex.selectCandidates(historyKey, request.getAssignmentId(),
+                    analysisRootDir, workspace.getRoot().resolve("history"), job);
+
             logger.info("Analysis root directory: {}", analysisRootDir);
             logger.info("Submissions found: {}",
                     repositories.stream().map(File::getName).toArray());
 
-            // Crear opciones de JPlag
-            int minTokenMatch = 12;
-            JPlagOptions options = new JPlagOptions(javaLanguage, rootDirectories, Set.of())
-                    .withMinimumTokenMatch(minTokenMatch) // Mínimo 1 token
+            // Crear opciones de JPlag; el ajuste adaptativo las afina después del parseo
+            TuningOverrides tuningOverrides = new TuningOverrides(request.getAdaptiveTuning(),
+                    request.getMinimumTokenMatch(), request.getSimilarityThreshold(),
+                    request.getMaximumReportComparisons());
+            int minTokenMatch = tuningPolicy.parsingMinimumTokenMatch(tuningOverrides);
+            JPlagOptions options = new JPlagOptions(javaLanguage, rootDirectories, historicalDirectories)
+                    .withMinimumTokenMatch(minTokenMatch)
                     .withFileSuffixes(List.of(".java")) // Solo archivos .java
                     .withSimilarityThreshold(minimumSimilarity) // Detectar todas las similitudes
                     .withMaximumNumberOfComparisons(-1); // Sin límite de comparaciones
@@ -352,7 +745,14 @@ public class JPlagDetectionService {
             logger.info("  - Similarity threshold: {}", options.similarityThreshold());
 
             // Ejecutar JPlag
-            JPlagResult result = JPlag.run(options);
+            settings.setTuningOverrides(tuningOverrides);
+            settings.setIdenticalRepresentatives(identicalRepresentatives(job));
+            settings.setBaseCode(resolveBaseCode(request, job));
+            if (skipSameTeamComparisons) {
+                settings.setTeamsByDirectory(teamsByDirectory(registry));
+            }
+            JPlagResult result = jplagRunner.run(options, job, settings);
+            job.getTeamFilterSummary().setSameTeamPairsSkipped(settings.getSameTeamPairsSkipped());
 
             logger.info("JPlag analysis completed successfully");
             logger.info("  - Total submissions processed: {}", result.getSubmissions().getSubmissions().size());
@@ -375,6 +775,8 @@ public class JPlagDetectionService {
             }
 
             return result;
+        } catch (AnalysisCancelledException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error running JPlag analysis: {}", e.getMessage(), e);
             throw e;
@@ -382,9 +784,11 @@ public class JPlagDetectionService {
     }
 
     /**
-     * Genera el reporte HTML usando la funcionalidad nativa de JPlag
+     * Genera el reporte HTML usando la funcionalidad nativa de JPlag. registry
+     * es null cuando el reporte se regenera desde disco.
      */
-    private String saveReportBundle(JPlagResult jplagResult, String sessionId) throws IOException {
+    private String saveReportBundle(JPlagResult jplagResult, String sessionId, SubmissionRegistry registry)
+            throws IOException {
         Path reportsDir = Paths.get(reportsDirectory).toAbsolutePath().normalize();
         Files.createDirectories(reportsDir);
 
@@ -407,7 +811,9 @@ public class JPlagDetectionService {
 
         // Generar archivos HTML individuales de comparación
         try {
-            comparisonHtmlGenerator.generateComparisonHtmlFiles(reportDir, sessionId);
+            AnalysisJob job = jobRegistry.get(sessionId);
+            comparisonHtmlGenerator.generateComparisonHtmlFiles(reportDir, sessionId, registry,
+                    job != null ? job.getProgress() : null);
             logger.info("Generated individual comparison HTML files for session: {}", sessionId);
         } catch (Exception e) {
             logger.warn("Failed to generate individual comparison HTML files for session {}: {}", sessionId,
@@ -424,85 +830,41 @@ public class JPlagDetectionService {
     }
 
     private void unzip(Path zip, Path dest) throws IOException {
-        Path destAbs = dest.toAbsolutePath().normalize(); // <— base absoluta
-        Files.createDirectories(destAbs);
-
-        try (java.util.zip.ZipInputStream zis = new java.util.zip.ZipInputStream(Files.newInputStream(zip))) {
-            java.util.zip.ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                String name = entry.getName();
-
-                // Normaliza separadores y quita slashes iniciales (posibles en algunos zips)
-                name = name.replace('\\', '/');
-                while (name.startsWith("/")) {
-                    name = name.substring(1);
-                }
-
-                // Bloquea traversal explícito
-                if (name.contains("..")) {
-                    throw new IOException("Unsafe entry name: " + name);
-                }
-
-                Path out = destAbs.resolve(name).normalize(); // <— resuelve contra destAbs
-                if (!out.startsWith(destAbs)) {
-                    throw new IOException("Zip Slip blocked: " + name);
-                }
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(out);
-                } else {
-                    Files.createDirectories(out.getParent());
-                    Files.copy(zis, out, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                }
-                zis.closeEntry();
-            }
-        }
+        ZipExtractor.extract(zip, dest);
     }
 
     /**
      * Convierte los resultados de JPlag al formato de respuesta
      */
     private List<PlagiarismDetectionResponse.ComparisonResult> convertJPlagResultToComparisons(
-            JPlagResult jplagResult, List<SubmissionDto> originalSubmissions, String sessionId) {
+            JPlagResult jplagResult, SubmissionRegistry registry, String sessionId,
+            SimilarityStatistics statistics) {
 
         List<PlagiarismDetectionResponse.ComparisonResult> comparisons = new ArrayList<>();
 
         for (JPlagComparison comparison : jplagResult.getAllComparisons()) {
+            // Las coincidencias con el corpus histórico se reportan aparte
+            if (!comparison.firstSubmission().isNew() || !comparison.secondSubmission().isNew()) {
+                continue;
+            }
             try {
                 // Extraer información de las entregas comparadas usando la API correcta
                 String submission1Name = comparison.firstSubmission().getName();
                 String submission2Name = comparison.secondSubmission().getName();
 
-                // Buscar información de equipos basada en los nombres de directorios
-                SubmissionDto team1Info = findSubmissionByDirectoryName(originalSubmissions, submission1Name);
-                SubmissionDto team2Info = findSubmissionByDirectoryName(originalSubmissions, submission2Name);
-
-                // Debug: log team info
-                logger.info("Team info for comparison: {} -> {}, {} -> {}",
-                        submission1Name, team1Info != null ? team1Info.getSubmissionId() : "null",
-                        submission2Name, team2Info != null ? team2Info.getSubmissionId() : "null");
+                // Con varios roots JPlag antepone el root al nombre; se busca por directorio
+                SubmissionDto team1Info = registry.find(comparison.firstSubmission().getRoot().getName());
+                SubmissionDto team2Info = registry.find(comparison.secondSubmission().getRoot().getName());
+                Long submissionId1 = team1Info != null ? team1Info.getSubmissionId()
+                        : SubmissionRegistry.parseSubmissionId(comparison.firstSubmission().getRoot().getName());
+                Long submissionId2 = team2Info != null ? team2Info.getSubmissionId()
+                        : SubmissionRegistry.parseSubmissionId(comparison.secondSubmission().getRoot().getName());
 
                 // Construir URL del HTML de comparación individual
                 String comparisonHtmlUrl = null;
-                String submissionId1 = null;
-                String submissionId2 = null;
-
-                if (team1Info != null && team2Info != null) {
-                    submissionId1 = String.valueOf(team1Info.getSubmissionId());
-                    submissionId2 = String.valueOf(team2Info.getSubmissionId());
-                } else {
-                    // Si no encontramos team info, extraer IDs de los nombres de directorio
-                    submissionId1 = extractSubmissionIdFromDirectoryName(submission1Name);
-                    submissionId2 = extractSubmissionIdFromDirectoryName(submission2Name);
-                    logger.warn("Using extracted IDs for comparison: {} -> {}, {} -> {}",
-                            submission1Name, submissionId1, submission2Name, submissionId2);
-                }
-
-                // Siempre construir la URL si tenemos IDs
                 if (submissionId1 != null && submissionId2 != null) {
                     comparisonHtmlUrl = "/reports/comparison/" + sessionId + "/" + submissionId1 + "-" + submissionId2
                             + ".html";
-                    logger.info("Generated comparison HTML URL: {}", comparisonHtmlUrl);
                 }
 
                 PlagiarismDetectionResponse.ComparisonResult result = new PlagiarismDetectionResponse.ComparisonResult(
@@ -514,10 +876,12 @@ public class JPlagDetectionService {
                         comparison.getNumberOfMatchedTokens(),
                         "completed",
                         comparisonHtmlUrl,
-                        team1Info != null ? team1Info.getSubmissionId() : null,
-                        team2Info != null ? team2Info.getSubmissionId() : null);
+                        submissionId1,
+                        submissionId2);
 
                 comparisons.add(result);
+                statistics.add(comparison.similarity(), team1Info != null ? team1Info.getTeamName() : null,
+                        team2Info != null ? team2Info.getTeamName() : null);
 
             } catch (Exception e) {
                 logger.warn("Error processing comparison: {}", e.getMessage());
@@ -532,124 +896,467 @@ public class JPlagDetectionService {
     }
 
     /**
-     * Busca una entrega por el nombre del directorio
+     * Completa la respuesta con las comparaciones, coincidencias históricas,
+     * estadísticas y resúmenes de un resultado de JPlag
      */
-    private SubmissionDto findSubmissionByDirectoryName(List<SubmissionDto> submissions, String directoryName) {
-        for (SubmissionDto submission : submissions) {
-            String expectedName = "submission_" + submission.getSubmissionId() + "_team_" + submission.getTeamId();
-            if (directoryName.contains(expectedName) || expectedName.contains(directoryName)) {
-                return submission;
-            }
+    private void populateResults(PlagiarismDetectionResponse response, JPlagResult jplagResult,
+            SubmissionRegistry registry, String historyKey, AnalysisJob job) {
+        // Las estadísticas se acumulan en la misma pasada que arma las comparaciones
+        SimilarityStatistics similarityStatistics = new SimilarityStatistics(histogramBins);
+        List<PlagiarismDetectionResponse.ComparisonResult> comparisons = convertJPlagResultToComparisons(
+                jplagResult, registry, response.getSessionId(), similarityStatistics);
+
+        List<PlagiarismDetectionResponse.HistoricalMatch> historicalMatches = convertHistoricalMatches(
+                jplagResult, registry, historyKey);
+
+        PlagiarismDetectionResponse.Statistics statistics = similarityStatistics.toStatistics(registry.size());
+
+        response.setSuccess(true);
+        response.setComparisons(comparisons);
+        response.setStatistics(statistics);
+        response.setPrefilter(job.getPrefilterSummary());
+        response.setHistory(job.getHistorySummary());
+        response.setHistoricalMatches(historicalMatches);
+        response.setDuplicates(job.getDuplicateSummary());
+        response.setBaseCode(job.getBaseCodeSummary());
+        response.setTeamFilter(job.getTeamFilterSummary());
+        response.setTuning(job.getTuningSummary());
+        response.setClustering(clusterComparisons(comparisons, clusteringThreshold));
+        response.setLimits(submissionLimits.summarize(job.getLimitViolations()));
+    }
+
+    /**
+     * Agrupa las entregas conectadas por pares con similitud sobre el umbral
+     */
+    private PlagiarismDetectionResponse.ClusteringSummary clusterComparisons(
+            List<PlagiarismDetectionResponse.ComparisonResult> comparisons, double threshold) {
+        SimilarityClusterer clusterer = new SimilarityClusterer(threshold);
+        for (PlagiarismDetectionResponse.ComparisonResult comparison : comparisons) {
+            clusterer.addEdge(comparison.getSubmission1(), comparison.getSubmissionId1(), comparison.getTeam1(),
+                    comparison.getSubmission2(), comparison.getSubmissionId2(), comparison.getTeam2(),
+                    comparison.getSimilarity());
         }
-        return null;
+        return clusterer.toSummary();
     }
 
     /**
-     * Calcula estadísticas del análisis
+     * Grupos de entregas de una sesión. Con el umbral por defecto se retorna
+     * el agrupamiento guardado con el resultado; con otro umbral se calcula
+     * sólo con los pares sobre él, leídos del índice de resultados. Retorna
+     * null si la sesión no existe.
      */
-    private PlagiarismDetectionResponse.Statistics calculateStatistics(
-            List<PlagiarismDetectionResponse.ComparisonResult> comparisons, int totalSubmissions) {
+    public PlagiarismDetectionResponse.ClusteringSummary findClusters(String sessionId, Double minSimilarity) {
+        double threshold = minSimilarity != null ? minSimilarity : clusteringThreshold;
+        PlagiarismDetectionResponse stored = resultStore.get(sessionId);
+        if (stored != null && stored.getClustering() != null
+                && stored.getClustering().getSimilarityThreshold() == threshold) {
+            return stored.getClustering();
+        }
 
-        if (comparisons.isEmpty()) {
-            return new PlagiarismDetectionResponse.Statistics(totalSubmissions, 0, 0.0, 0.0, 0.0);
+        if (resultIndex.findSession(sessionId) != null) {
+            SimilarityClusterer clusterer = new SimilarityClusterer(threshold);
+            for (IndexedComparison comparison : resultIndex.findComparisons(null, null, null, sessionId, threshold,
+                    Integer.MAX_VALUE)) {
+                clusterer.addEdge(comparison.getSubmission1(), comparison.getSubmissionId1(), comparison.getTeam1(),
+                        comparison.getSubmission2(), comparison.getSubmissionId2(), comparison.getTeam2(),
+                        comparison.getSimilarity());
+            }
+            return clusterer.toSummary();
         }
+        return stored != null && stored.getComparisons() != null
+                ? clusterComparisons(stored.getComparisons(), threshold)
+                : null;
+    }
+
+    /**
+     * Indica si un sessionId está en uso: tiene un análisis en ejecución o
+     * resultados y artefactos guardados (resultado, índice, snapshot, entradas
+     * conservadas, reporte o comparaciones)
+     */
+    public boolean isSessionInUse(String sessionId) {
+        return jobRegistry.get(sessionId) != null || hasStoredSession(sessionId);
+    }
 
-        double sum = comparisons.stream().mapToDouble(PlagiarismDetectionResponse.ComparisonResult::getSimilarity)
-                .sum();
-        double average = sum / comparisons.size();
-        double max = comparisons.stream().mapToDouble(PlagiarismDetectionResponse.ComparisonResult::getSimilarity).max()
-                .orElse(0.0);
-        double min = comparisons.stream().mapToDouble(PlagiarismDetectionResponse.ComparisonResult::getSimilarity).min()
-                .orElse(0.0);
+    private boolean hasStoredSession(String sessionId) {
+        Path reportsDir = Paths.get(reportsDirectory).toAbsolutePath().normalize();
+        return resultStore.get(sessionId) != null
+                || resultIndex.findSession(sessionId) != null
+                || snapshotStore.exists(sessionId)
+                || deferredReportStore.exists(sessionId)
+                || Files.exists(reportsDir.resolve("report_" + sessionId))
+                || Files.exists(reportsDir.resolve("report_" + sessionId + ".zip"))
+                || Files.exists(Paths.get(comparationDirectory).toAbsolutePath().normalize().resolve(sessionId));
+    }
 
-        return new PlagiarismDetectionResponse.Statistics(
-                totalSubmissions,
-                comparisons.size(),
-                Math.round(average * 100.0) / 100.0,
-                Math.round(max * 100.0) / 100.0,
-                Math.round(min * 100.0) / 100.0);
+    /**
+     * Guarda el resultado de una sesión para consultarlo después y lo agrega
+     * al índice de resultados
+     */
+    private void storeResult(PlagiarismDetectionResponse response, SubmissionRegistry registry) {
+        resultStore.put(response);
+        resultIndex.index(response, registry);
     }
 
     /**
-     * Limpia los directorios temporales después del análisis
+     * Conserva las entradas del análisis (fuentes, código base y opciones
+     * efectivas) para generar el reporte más tarde. Retorna el estado del
+     * reporte resultante.
      */
-    private void cleanupTemporaryDirectories(Path sessionDir) {
+    private String retainForDeferredReport(String sessionId, Long assignmentId, JPlagResult jplagResult,
+            RunSettings settings) {
+        JPlagOptions options = jplagResult.getOptions();
+        Path analysisRoot = options.submissionDirectories().iterator().next().toPath();
         try {
-            if (Files.exists(sessionDir)) {
-                // Eliminar recursivamente el directorio de sesión
-                Files.walk(sessionDir)
-                        .sorted((a, b) -> b.compareTo(a)) // Orden inverso para eliminar archivos antes que directorios
-                        .forEach(path -> {
-                            try {
-                                Files.delete(path);
-                            } catch (IOException e) {
-                                logger.warn("Could not delete temporary file: {}", path);
-                            }
-                        });
-                logger.info("Cleaned up temporary directory: {}", sessionDir);
+            deferredReportStore.retain(sessionId, assignmentId, analysisRoot, options, settings.getBaseCode(),
+                    settings.getTeamsByDirectory());
+            return REPORT_DEFERRED;
+        } catch (IOException e) {
+            logger.warn("Could not retain analysis of session {} for a deferred report: {}", sessionId,
+                    e.getMessage());
+            return REPORT_UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Genera (o regenera) el reporte de una sesión. Se usa el snapshot del
+     * resultado si existe; si no, las entradas conservadas: se vuelve a
+     * ejecutar JPlag con las mismas opciones efectivas sin clonar los
+     * repositorios. Retorna null si la sesión no tiene ninguno de los dos.
+     *
+     * @param minSimilarity  sólo con snapshot: pares con al menos esta
+     *                       similitud (null para todos)
+     * @param maxComparisons sólo con snapshot: pares en el reporte (null para
+     *                       el valor original)
+     */
+    public String generateDeferredReport(String sessionId, Double minSimilarity, Integer maxComparisons)
+            throws Exception {
+        ResultSnapshot snapshot = snapshotStore.open(sessionId);
+        if (snapshot != null) {
+            return generateReportFromSnapshot(sessionId, snapshot, minSimilarity, maxComparisons);
+        }
+
+        RetainedAnalysis retained = deferredReportStore.load(sessionId);
+        if (retained == null) {
+            return null;
+        }
+
+        AnalysisJob job = jobRegistry.register(sessionId, retained.getAssignmentId());
+        if (job == null) {
+            throw new IllegalStateException("Ya existe un análisis en ejecución con la sesión " + sessionId);
+        }
+        try {
+            JPlagOptions options = new JPlagOptions(new JavaLanguage(),
+                    Set.of(retained.getSubmissionsDirectory().toFile()), Set.of())
+                    .withMinimumTokenMatch(retained.getMinimumTokenMatch())
+                    .withFileSuffixes(List.of(".java"))
+                    .withSimilarityThreshold(retained.getSimilarityThreshold())
+                    .withMaximumNumberOfComparisons(retained.getMaximumReportComparisons());
+            if (retained.getBaseCodeDirectory() != null) {
+                options = options.withBaseCodeSubmissionDirectory(retained.getBaseCodeDirectory().toFile());
             }
-        } catch (Exception e) {
-            logger.warn("Error during cleanup of temporary directory {}: {}", sessionDir, e.getMessage());
+
+            // Las opciones ya fueron ajustadas en el análisis original
+            RunSettings settings = new RunSettings();
+            settings.setTuningOverrides(new TuningOverrides(false, retained.getMinimumTokenMatch(),
+                    retained.getSimilarityThreshold(), retained.getMaximumReportComparisons()));
+            settings.setTeamsByDirectory(retained.getTeamsByDirectory());
+            JPlagResult jplagResult = jplagRunner.run(options, job, settings);
+
+            job.setStage("reporting");
+            String reportUrl = saveReportBundle(jplagResult, sessionId, null);
+
+            PlagiarismDetectionResponse stored = resultStore.get(sessionId);
+            if (stored != null) {
+                stored.setReportUrl(reportUrl);
+                stored.setReportStatus(REPORT_READY);
+            }
+            logger.info("Deferred report generated for session {}", sessionId);
+            return reportUrl;
+        } finally {
+            jobRegistry.unregister(job);
         }
+    }
 
-        // También limpiar directorios de análisis temporales
+    /**
+     * Genera el reporte a partir del snapshot del resultado, sin clonar ni
+     * tokenizar: JPlag recibe las entregas con sus tokens y coincidencias
+     * guardados
+     */
+    private String generateReportFromSnapshot(String sessionId, ResultSnapshot snapshot, Double minSimilarity,
+            Integer maxComparisons) throws Exception {
+        AnalysisJob job = jobRegistry.register(sessionId,
+                snapshot.getAssignmentId() >= 0 ? snapshot.getAssignmentId() : null);
+        if (job == null) {
+            throw new IllegalStateException("Ya existe un análisis en ejecución con la sesión " + sessionId);
+        }
         try {
-            Path tempDir = Paths.get(tempDirectory);
-            if (Files.exists(tempDir)) {
-                Files.list(tempDir)
-                        .filter(path -> Files.isDirectory(path) &&
-                                path.getFileName().toString().startsWith("analysis_"))
-                        .forEach(this::cleanupSingleDirectory);
+            job.setStage("restoring");
+            JPlagResult jplagResult = snapshot.toJPlagResult(new JavaLanguage(),
+                    snapshotStore.sourcesDirectory(sessionId), minSimilarity != null ? minSimilarity : 0.0,
+                    maxComparisons);
+
+            job.setStage("reporting");
+            String reportUrl = saveReportBundle(jplagResult, sessionId, null);
+
+            PlagiarismDetectionResponse stored = resultStore.get(sessionId);
+            if (stored != null) {
+                stored.setReportUrl(reportUrl);
+                stored.setReportStatus(REPORT_READY);
             }
-        } catch (Exception e) {
-            logger.warn("Error during cleanup of analysis directories: {}", e.getMessage());
+            logger.info("Report generated from snapshot for session {} ({} comparisons)", sessionId,
+                    jplagResult.getAllComparisons().size());
+            return reportUrl;
+        } finally {
+            jobRegistry.unregister(job);
+        }
+    }
+
+    /**
+     * Comparaciones de una sesión leídas de su snapshot, filtradas por
+     * similitud mínima. Retorna null si la sesión no tiene snapshot.
+     */
+    public List<PlagiarismDetectionResponse.ComparisonResult> findSnapshotComparisons(String sessionId,
+            double minSimilarity) throws IOException {
+        ResultSnapshot snapshot = snapshotStore.open(sessionId);
+        return snapshot != null ? snapshot.comparisons(sessionId, minSimilarity) : null;
+    }
+
+    /**
+     * Presupuesto de tiempo del análisis en segundos, o null si no tiene
+     */
+    private Integer resolveTimeBudget(PlagiarismDetectionRequest request) {
+        if (request.getTimeBudgetSeconds() != null) {
+            return request.getTimeBudgetSeconds();
         }
+        return defaultTimeBudgetSeconds > 0 ? defaultTimeBudgetSeconds : null;
     }
 
     /**
-     * Limpia un directorio individual
+     * Plazo para las comparaciones: el presupuesto contado desde el inicio del
+     * análisis, menos una reserva para generar el reporte y la respuesta
      */
-    private void cleanupSingleDirectory(Path directory) {
+    private Instant comparisonDeadline(AnalysisJob job, int timeBudgetSeconds) {
+        long budgetMs = timeBudgetSeconds * 1000L;
+        long reserveMs = Math.min(reportingReserveMs, budgetMs / 2);
+        return job.getStartedAt().plusMillis(budgetMs - reserveMs);
+    }
+
+    /**
+     * Termina en segundo plano las comparaciones diferidas por el plazo y
+     * reemplaza el reporte (si se generó) y el resultado guardado de la sesión.
+     * La tarea libera el workspace y el registro del análisis al terminar.
+     * Retorna false si no se pudo programar.
+     */
+    private boolean completeInBackground(DeferredComparisons deferred, AnalysisJob job, WorkspaceLease workspace,
+            PlagiarismDetectionResponse partial, SubmissionRegistry registry, String historyKey,
+            boolean generateReport) {
+        String sessionId = job.getSessionId();
         try {
-            Files.walk(directory)
-                    .sorted((a, b) -> b.compareTo(a))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.debug("Could not delete temporary file: {}", path);
-                        }
-                    });
-        } catch (Exception e) {
-            logger.debug("Error cleaning up directory {}: {}", directory, e.getMessage());
+            analysisExecutor.submit(() -> {
+                try {
+                    JPlagResult jplagResult = jplagRunner.resume(deferred, job);
+                    snapshotStore.save(sessionId, jplagResult, partial.getAssignmentId(),
+                            registry::find);
+
+                    String reportUrl = null;
+                    if (generateReport) {
+                        job.setStage("reporting");
+                        reportUrl = saveReportBundle(jplagResult, sessionId, registry);
+                    }
+
+                    PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+                    response.setAssignmentId(partial.getAssignmentId());
+                    response.setAssignmentTitle(partial.getAssignmentTitle());
+                    response.setSessionId(sessionId);
+                    populateResults(response, jplagResult, registry, historyKey, job);
+                    response.setReportUrl(reportUrl);
+                    response.setReportStatus(partial.getReportStatus());
+                    response.setMessage("Análisis de plagio completado en segundo plano");
+
+                    PlagiarismDetectionResponse.CompletenessSummary completeness =
+                            new PlagiarismDetectionResponse.CompletenessSummary();
+                    completeness.setComplete(true);
+                    completeness.setTimeBudgetSeconds(partial.getCompleteness().getTimeBudgetSeconds());
+                    completeness.setPlannedComparisons(partial.getCompleteness().getPlannedComparisons());
+                    completeness.setCompletedComparisons(partial.getCompleteness().getPlannedComparisons());
+                    response.setCompleteness(completeness);
+                    storeResult(response, registry);
+                    webhookOutbox.enqueue(job.getCallbackUrl(), response);
+
+                    logger.info("Background completion finished for session {} ({} comparisons)", sessionId,
+                            response.getComparisons().size());
+                } catch (AnalysisCancelledException e) {
+                    logger.warn("Background completion cancelled for session {}", sessionId);
+                    notifyIncomplete(job, partial, "El análisis de plagio fue cancelado en segundo plano");
+                } catch (Exception e) {
+                    logger.error("Error completing analysis in background for session {}", sessionId, e);
+                    notifyIncomplete(job, partial, "Error al completar el análisis en segundo plano: "
+                            + e.getMessage());
+                } finally {
+                    workspaceManager.release(workspace);
+                    jobRegistry.unregister(job);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule background completion for session {}: {}", sessionId, e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Extrae el ID de submission de un nombre de directorio
-     * Ejemplo: "submission_19_team_17" -> "19"
+     * Notifica (si se pidió) que el análisis no se completó; la notificación
+     * lleva los pares del resultado parcial
+     */
+    private void notifyIncomplete(AnalysisJob job, PlagiarismDetectionResponse partial, String message) {
+        PlagiarismDetectionResponse incomplete = new PlagiarismDetectionResponse(partial);
+        incomplete.setSuccess(false);
+        incomplete.setMessage(message);
+        webhookOutbox.enqueue(job.getCallbackUrl(), incomplete);
+    }
+
+    /**
+     * Entregas a analizar. Con latestSubmissionPerTeam (o
+     * jplag.teams.latest-submission-only) se conserva sólo la entrega con mayor
+     * submissionId de cada equipo.
      */
-    private String extractSubmissionIdFromDirectoryName(String directoryName) {
-        if (directoryName == null) {
+    private List<SubmissionDto> selectSubmissions(PlagiarismDetectionRequest request,
+            PlagiarismDetectionResponse.TeamFilterSummary teamFilter) {
+        boolean latestOnly = request.getLatestSubmissionPerTeam() != null ? request.getLatestSubmissionPerTeam()
+                : latestSubmissionOnly;
+        teamFilter.setLatestSubmissionOnly(latestOnly);
+        teamFilter.setSupersededSubmissionIds(new ArrayList<>());
+        if (!latestOnly) {
+            return request.getSubmissions();
+        }
+
+        Map<Long, SubmissionDto> latestByTeam = new HashMap<>();
+        List<SubmissionDto> selected = new ArrayList<>();
+        for (SubmissionDto submission : request.getSubmissions()) {
+            if (submission.getTeamId() == null) {
+                selected.add(submission);
+                continue;
+            }
+            SubmissionDto current = latestByTeam.get(submission.getTeamId());
+            if (current == null || compareIds(submission, current) > 0) {
+                latestByTeam.put(submission.getTeamId(), submission);
+            }
+        }
+        for (SubmissionDto submission : request.getSubmissions()) {
+            if (submission.getTeamId() != null) {
+                if (latestByTeam.get(submission.getTeamId()) == submission) {
+                    selected.add(submission);
+                } else {
+                    teamFilter.getSupersededSubmissionIds().add(submission.getSubmissionId());
+                }
+            }
+        }
+
+        if (!teamFilter.getSupersededSubmissionIds().isEmpty()) {
+            logger.info("Analyzing only the latest submission per team; superseded submissions: {}",
+                    teamFilter.getSupersededSubmissionIds());
+        }
+        return selected;
+    }
+
+    private int compareIds(SubmissionDto first, SubmissionDto second) {
+        long firstId = first.getSubmissionId() != null ? first.getSubmissionId() : Long.MIN_VALUE;
+        long secondId = second.getSubmissionId() != null ? second.getSubmissionId() : Long.MIN_VALUE;
+        return Long.compare(firstId, secondId);
+    }
+
+    /**
+     * Directorio de cada entrega -> teamId, para omitir los pares del mismo equipo
+     */
+    private Map<String, Long> teamsByDirectory(SubmissionRegistry registry) {
+        Map<String, Long> teams = new HashMap<>();
+        for (SubmissionDto submission : registry.getSubmissions()) {
+            if (submission.getTeamId() != null) {
+                teams.put(SubmissionRegistry.directoryName(submission), submission.getTeamId());
+            }
+        }
+        return teams;
+    }
+
+    /**
+     * Obtiene la plantilla de la tarea desde la caché (clonándola y parseándola
+     * sólo si su commit cambió). Si falla, el análisis sigue sin código base.
+     */
+    private BaseCodeTemplate resolveBaseCode(PlagiarismDetectionRequest request, AnalysisJob job) {
+        if (request.getBaseCodeRepositoryUrl() == null || request.getBaseCodeRepositoryUrl().isBlank()) {
             return null;
         }
 
-        // Buscar patrón submission_XX_team_YY
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("submission_(\\d+)_team_\\d+");
-        java.util.regex.Matcher matcher = pattern.matcher(directoryName);
+        job.setStage("base-code");
+        PlagiarismDetectionResponse.BaseCodeSummary summary = new PlagiarismDetectionResponse.BaseCodeSummary();
+        job.setBaseCodeSummary(summary);
+        try {
+            return baseCodeTemplateCache.resolve(request.getAssignmentId(), request.getBaseCodeRepositoryUrl(),
+                    job, summary);
+        } catch (IOException e) {
+            logger.warn("Continuing without base code for assignment {}: {}", request.getAssignmentId(),
+                    e.getMessage());
+            summary.setMessage("No se pudo preparar el código base: " + e.getMessage());
+            return null;
+        }
+    }
 
-        if (matcher.find()) {
-            return matcher.group(1); // Retorna el primer grupo capturado (el ID de submission)
+    /**
+     * Representante (primera entrega) de cada grupo de entregas idénticas, si la
+     * derivación de sus comparaciones está habilitada
+     */
+    private Map<String, String> identicalRepresentatives(AnalysisJob job) {
+        PlagiarismDetectionResponse.DuplicateSummary duplicates = job.getDuplicateSummary();
+        if (duplicates == null || !duplicateDetector.isSkipIdenticalComparisons()) {
+            return Map.of();
         }
 
-        // Si no encuentra el patrón, intentar extraer cualquier número
-        pattern = java.util.regex.Pattern.compile("(\\d+)");
-        matcher = pattern.matcher(directoryName);
-        if (matcher.find()) {
-            return matcher.group(1);
+        Map<String, String> representatives = new HashMap<>();
+        for (PlagiarismDetectionResponse.DuplicateGroup group : duplicates.getIdenticalSubmissions()) {
+            String representative = group.getSubmissions().get(0);
+            group.getSubmissions().stream().skip(1)
+                    .forEach(member -> representatives.put(member, representative));
+        }
+        return representatives;
+    }
+
+    /**
+     * Convierte las comparaciones contra entregas históricas (old submissions de
+     * JPlag) al formato de respuesta
+     */
+    private List<PlagiarismDetectionResponse.HistoricalMatch> convertHistoricalMatches(JPlagResult jplagResult,
+            SubmissionRegistry registry, String historyKey) {
+
+        List<PlagiarismDetectionResponse.HistoricalMatch> matches = new ArrayList<>();
+        for (JPlagComparison comparison : jplagResult.getAllComparisons()) {
+            boolean firstIsNew = comparison.firstSubmission().isNew();
+            if (firstIsNew == comparison.secondSubmission().isNew()) {
+                continue;
+            }
+            // Con roots históricos JPlag antepone el root al nombre; se usa el directorio
+            String currentName = firstIsNew ? comparison.firstSubmission().getRoot().getName()
+                    : comparison.secondSubmission().getRoot().getName();
+            String historicalName = firstIsNew ? comparison.secondSubmission().getRoot().getName()
+                    : comparison.firstSubmission().getRoot().getName();
+
+            SubmissionDto current = registry.find(currentName);
+            HistoricalEntry entry = historicalCorpusIndex.findEntry(historyKey, historicalName);
+
+            PlagiarismDetectionResponse.HistoricalMatch match = new PlagiarismDetectionResponse.HistoricalMatch();
+            match.setSubmissionId(current != null ? current.getSubmissionId() : null);
+            match.setTeamName(current != null ? current.getTeamName() : "Unknown Team");
+            match.setHistoricalSubmission(historicalName);
+            if (entry != null) {
+                match.setHistoricalAssignmentId(entry.getAssignmentId());
+                match.setHistoricalSubmissionId(entry.getSubmissionId());
+                match.setHistoricalTeamName(entry.getTeamName());
+            }
+            match.setSimilarity(comparison.similarity());
+            match.setMatchedTokens(comparison.getNumberOfMatchedTokens());
+            matches.add(match);
         }
 
-        logger.warn("Could not extract submission ID from directory name: {}", directoryName);
-        return null;
+        matches.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return matches;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import de.jplag.Submission;
+import de.jplag.SubmissionSet;
+import de.jplag.options.JPlagOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ajusta las opciones de JPlag a la cohorte ya parseada:
+ * <ul>
+ * <li>minimum token match crece con el tamaño mediano de las entregas (en
+ * escala logarítmica), para que en entregas grandes no se reporten como
+ * coincidencia secuencias triviales;</li>
+ * <li>si el trabajo estimado de comparación supera el envolvente de tiempo se
+ * fuerza el prefiltro MinHash aunque la cohorte sea pequeña en entregas;</li>
+ * <li>si los pares superan el envolvente de memoria se sube el umbral de
+ * similitud, para no retener las coincidencias de pares irrelevantes;</li>
+ * <li>el reporte se limita a los pares más similares en cohortes grandes.</li>
+ * </ul>
+ * Los valores fijados en el request siempre tienen prioridad.
+ */
+@Component
+public class AdaptiveTuningPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveTuningPolicy.class);
+
+    @Value("${jplag.tuning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jplag.tuning.min-token-match.base:12}")
+    private int baseMinimumTokenMatch;
+
+    @Value("${jplag.tuning.min-token-match.floor:9}")
+    private int minimumTokenMatchFloor;
+
+    @Value("${jplag.tuning.min-token-match.ceiling:24}")
+    private int minimumTokenMatchCeiling;
+
+    @Value("${jplag.tuning.reference-tokens:1000}")
+    private int referenceTokens;
+
+    @Value("${jplag.tuning.tokens-per-second:5000000}")
+    private long tokensPerSecond;
+
+    @Value("${jplag.tuning.max-comparison-seconds:120}")
+    private double maxComparisonSeconds;
+
+    @Value("${jplag.tuning.max-retained-comparisons:50000}")
+    private long maxRetainedComparisons;
+
+    @Value("${jplag.tuning.large-cohort-similarity:0.1}")
+    private double largeCohortSimilarity;
+
+    @Value("${jplag.tuning.max-report-comparisons:2000}")
+    private int maxReportComparisons;
+
+    /**
+     * Minimum token match para parsear: JPlag descarta las entregas con menos
+     * tokens, así que se usa el menor valor que el ajuste podría elegir
+     */
+    public int parsingMinimumTokenMatch(TuningOverrides overrides) {
+        if (overrides.getMinimumTokenMatch() != null) {
+            return overrides.getMinimumTokenMatch();
+        }
+        return isAdaptive(overrides) ? minimumTokenMatchFloor : baseMinimumTokenMatch;
+    }
+
+    /**
+     * Decide las opciones para la cohorte. El resultado indica además si se
+     * debe forzar el prefiltro.
+     */
+    public PlagiarismDetectionResponse.TuningSummary decide(JPlagOptions options, SubmissionSet submissionSet,
+            TuningOverrides overrides) {
+        List<Submission> submissions = submissionSet.getSubmissions();
+        int[] tokenCounts = submissions.stream().mapToInt(Submission::getNumberOfTokens).sorted().toArray();
+        long totalTokens = 0;
+        for (int tokens : tokenCounts) {
+            totalTokens += tokens;
+        }
+        int medianTokens = tokenCounts.length == 0 ? 0 : tokenCounts[tokenCounts.length / 2];
+        long pairs = (long) tokenCounts.length * (tokenCounts.length - 1) / 2;
+        // Cada par procesa los tokens de ambas entregas: (n - 1) * total tokens
+        double estimatedSeconds = (double) Math.max(0, tokenCounts.length - 1) * totalTokens
+                / ((double) tokensPerSecond * Runtime.getRuntime().availableProcessors());
+
+        boolean adaptive = isAdaptive(overrides);
+        List<String> overridden = new ArrayList<>();
+
+        int minimumTokenMatch = adaptive ? adaptiveMinimumTokenMatch(medianTokens) : baseMinimumTokenMatch;
+        if (overrides.getMinimumTokenMatch() != null) {
+            minimumTokenMatch = overrides.getMinimumTokenMatch();
+            overridden.add("minimumTokenMatch");
+        }
+
+        double similarityThreshold = options.similarityThreshold();
+        if (adaptive && pairs > maxRetainedComparisons) {
+            similarityThreshold = Math.max(similarityThreshold, largeCohortSimilarity);
+        }
+        if (overrides.getSimilarityThreshold() != null) {
+            similarityThreshold = overrides.getSimilarityThreshold();
+            overridden.add("similarityThreshold");
+        }
+
+        int reportComparisons = options.maximumNumberOfComparisons();
+        if (adaptive && maxReportComparisons > 0 && pairs > maxReportComparisons) {
+            reportComparisons = maxReportComparisons;
+        }
+        if (overrides.getMaximumReportComparisons() != null) {
+            reportComparisons = overrides.getMaximumReportComparisons();
+            overridden.add("maximumReportComparisons");
+        }
+
+        PlagiarismDetectionResponse.TuningSummary summary = new PlagiarismDetectionResponse.TuningSummary();
+        summary.setAdaptive(adaptive);
+        summary.setSubmissions(tokenCounts.length);
+        summary.setTotalTokens(totalTokens);
+        summary.setMedianTokens(medianTokens);
+        summary.setEstimatedComparisonSeconds(Math.round(estimatedSeconds * 100.0) / 100.0);
+        summary.setMinimumTokenMatch(minimumTokenMatch);
+        summary.setSimilarityThreshold(similarityThreshold);
+        summary.setMaximumReportComparisons(reportComparisons);
+        summary.setPrefilterForced(adaptive && estimatedSeconds > maxComparisonSeconds);
+        summary.setOverriddenOptions(overridden);
+
+        logger.info("Tuning for {} submissions (median {} tokens, ~{} s): min token match {}, threshold {}, "
+                + "report comparisons {}, prefilter forced {}", tokenCounts.length, medianTokens,
+                summary.getEstimatedComparisonSeconds(), minimumTokenMatch, similarityThreshold, reportComparisons,
+                summary.isPrefilterForced());
+        return summary;
+    }
+
+    /**
+     * Aplica las opciones decididas
+     */
+    public JPlagOptions apply(JPlagOptions options, PlagiarismDetectionResponse.TuningSummary summary) {
+        return options.withMinimumTokenMatch(summary.getMinimumTokenMatch())
+                .withSimilarityThreshold(summary.getSimilarityThreshold())
+                .withMaximumNumberOfComparisons(summary.getMaximumReportComparisons());
+    }
+
+    private boolean isAdaptive(TuningOverrides overrides) {
+        return overrides.getAdaptive() != null ? overrides.getAdaptive() : enabled;
+    }
+
+    /**
+     * base + 2 * log2(mediana / referencia), acotado a [floor, ceiling]
+     */
+    private int adaptiveMinimumTokenMatch(int medianTokens) {
+        if (medianTokens <= 0) {
+            return baseMinimumTokenMatch;
+        }
+        double scale = Math.log((double) medianTokens / referenceTokens) / Math.log(2);
+        int value = (int) Math.round(baseMinimumTokenMatch + 2 * scale);
+        return Math.max(minimumTokenMatchFloor, Math.min(minimumTokenMatchCeiling, value));
+    }
+}
@@ -0,0 +1,126 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.SubmissionSet;
+import de.jplag.options.JPlagOptions;
+import de.jplag.strategy.ParallelComparisonStrategy;
+import de.jplag.strategy.SubmissionTuple;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Estrategia de comparación paralela de JPlag que verifica la cancelación del
+ * análisis antes de cada par, aplica los {@link TupleSelector} configurados
+ * antes de comparar y admite un código base ya tokenizado (cacheado).
+ * Si el análisis tiene un plazo, los pares se comparan en el orden que dejan
+ * los selectores y los que no alcanzan a compararse antes del plazo quedan
+ * diferidos para {@link #compareDeferred()}.
+ */
+public class CancellableComparisonStrategy extends ParallelComparisonStrategy {
+
+    private final AnalysisJob job;
+    private final List<TupleSelector> selectors;
+    private final GreedyStringTiling greedyStringTiling;
+    private final Submission baseCode;
+    private final Set<SubmissionTuple> deferred = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile List<SubmissionTuple> planned = List.of();
+
+    public CancellableComparisonStrategy(JPlagOptions options, GreedyStringTiling greedyStringTiling,
+            AnalysisJob job) {
+        this(options, greedyStringTiling, job, List.of(), null);
+    }
+
+    /**
+     * @param baseCode código base con sus tokens ya asignados, o null para usar
+     *                 el de las opciones de JPlag (si hay)
+     */
+    public CancellableComparisonStrategy(JPlagOptions options, GreedyStringTiling greedyStringTiling,
+            AnalysisJob job, List<TupleSelector> selectors, Submission baseCode) {
+        super(options, greedyStringTiling);
+        this.job = job;
+        this.selectors = selectors;
+        this.greedyStringTiling = greedyStringTiling;
+        this.baseCode = baseCode;
+    }
+
+    @Override
+    protected void handleBaseCode(SubmissionSet submissionSet) {
+        if (baseCode == null) {
+            super.handleBaseCode(submissionSet);
+            return;
+        }
+        for (Submission submission : submissionSet.getSubmissions()) {
+            job.checkCancelled();
+            submission.setBaseCodeComparison(greedyStringTiling.generateBaseCodeMarking(submission, baseCode));
+        }
+    }
+
+    @Override
+    protected Stream<SubmissionTuple> prepareStream(List<SubmissionTuple> tuples) {
+        List<SubmissionTuple> selected = tuples;
+        for (TupleSelector selector : selectors) {
+            job.checkCancelled();
+            selected = selector.select(selected);
+        }
+        planned = selected;
+        job.getProgress().setComparisonsTotal(selected.size());
+        if (job.getDeadline() == null) {
+            return super.prepareStream(selected);
+        }
+        return inPriorityOrder(selected);
+    }
+
+    @Override
+    protected Optional<JPlagComparison> compareTuple(SubmissionTuple tuple) {
+        job.checkCancelled();
+        if (job.isPastDeadline()) {
+            deferred.add(tuple);
+            return Optional.empty();
+        }
+        Optional<JPlagComparison> comparison = super.compareTuple(tuple);
+        completed.incrementAndGet();
+        job.getProgress().comparisonCompleted();
+        return comparison;
+    }
+
+    /**
+     * Compara los pares que quedaron diferidos por el plazo, en el orden
+     * original. El plazo del análisis debe haberse retirado antes.
+     */
+    List<JPlagComparison> compareDeferred() {
+        List<SubmissionTuple> pending = planned.stream().filter(deferred::contains).toList();
+        deferred.clear();
+        return inPriorityOrder(pending)
+                .flatMap(tuple -> compareTuple(tuple).stream())
+                .toList();
+    }
+
+    int getPlannedComparisons() {
+        return planned.size();
+    }
+
+    int getCompletedComparisons() {
+        return completed.get();
+    }
+
+    int getDeferredComparisons() {
+        return deferred.size();
+    }
+
+    private Stream<SubmissionTuple> inPriorityOrder(List<SubmissionTuple> tuples) {
+        return StreamSupport.stream(
+                new PriorityOrderSpliterator<>(tuples, ForkJoinPool.getCommonPoolParallelism()), true);
+    }
+}
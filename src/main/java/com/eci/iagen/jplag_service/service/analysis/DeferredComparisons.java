@@ -0,0 +1,39 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.JPlagComparison;
+import de.jplag.SubmissionSet;
+import de.jplag.options.JPlagOptions;
+
+import java.util.List;
+
+/**
+ * Estado de una ejecución de {@link JPlagRunner} cuyo plazo venció: las
+ * comparaciones ya hechas y lo necesario para terminar las pendientes con
+ * {@link JPlagRunner#resume}
+ */
+public class DeferredComparisons {
+
+    final JPlagOptions options;
+    final CancellableComparisonStrategy strategy;
+    final SubmissionSet submissionSet;
+    final List<JPlagComparison> comparisons;
+    final long durationMillis;
+    final IdenticalSubmissionSelector identicalSelector;
+    final MinHashCandidateSelector prefilter;
+
+    DeferredComparisons(JPlagOptions options, CancellableComparisonStrategy strategy, SubmissionSet submissionSet,
+            List<JPlagComparison> comparisons, long durationMillis, IdenticalSubmissionSelector identicalSelector,
+            MinHashCandidateSelector prefilter) {
+        this.options = options;
+        this.strategy = strategy;
+        this.submissionSet = submissionSet;
+        this.comparisons = comparisons;
+        this.durationMillis = durationMillis;
+        this.identicalSelector = identicalSelector;
+        this.prefilter = prefilter;
+    }
+
+    public int getPendingComparisons() {
+        return strategy.getDeferredComparisons();
+    }
+}
@@ -0,0 +1,262 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vía rápida para copias exactas: antes de tokenizar, calcula el hash del
+ * contenido normalizado (sin comentarios ni espacios) de cada archivo de las
+ * entregas y reporta las entregas idénticas y los pares que comparten archivos
+ * idénticos. Sólo lee los archivos ya inventariados en los manifiestos.
+ */
+@Component
+public class DuplicateDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateDetector.class);
+    private static final int MAX_REPORTED_PAIRS = 200;
+    private static final int MAX_REPORTED_FILES = 20;
+
+    @Value("${jplag.duplicates.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jplag.duplicates.min-file-chars:200}")
+    private int minFileChars;
+
+    @Value("${jplag.duplicates.max-share-ratio:0.5}")
+    private double maxShareRatio;
+
+    @Value("${jplag.duplicates.skip-identical-comparisons:true}")
+    private boolean skipIdenticalComparisons;
+
+    /**
+     * Indica si las comparaciones entre entregas idénticas se derivan de la
+     * comparación de su representante en lugar de calcularse
+     */
+    public boolean isSkipIdenticalComparisons() {
+        return enabled && skipIdenticalComparisons;
+    }
+
+    /**
+     * Busca entregas idénticas y archivos compartidos. Retorna null si la
+     * detección está deshabilitada.
+     */
+    public PlagiarismDetectionResponse.DuplicateSummary detect(List<SourceManifest> manifests,
+            SubmissionRegistry registry) {
+        if (!enabled) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+
+        // Hash por archivo (ruta relativa -> hash) de cada entrega, en paralelo
+        Map<String, Map<String, String>> fileHashes = new TreeMap<>();
+        Set<String> smallFileHashes = ConcurrentHashMap.newKeySet();
+        manifests.parallelStream()
+                .map(manifest -> Map.entry(manifest.getSubmissionName(), hashFiles(manifest, smallFileHashes)))
+                .toList()
+                .forEach(entry -> fileHashes.put(entry.getKey(), entry.getValue()));
+
+        List<PlagiarismDetectionResponse.DuplicateGroup> identicalGroups = findIdenticalSubmissions(fileHashes, registry);
+        List<PlagiarismDetectionResponse.SharedFilesMatch> sharedFiles = findSharedFiles(fileHashes,
+                smallFileHashes, registry);
+
+        PlagiarismDetectionResponse.DuplicateSummary summary = new PlagiarismDetectionResponse.DuplicateSummary();
+        summary.setIdenticalSubmissions(identicalGroups);
+        summary.setSharedFiles(sharedFiles);
+        summary.setElapsedMillis(System.currentTimeMillis() - start);
+
+        logger.info("Duplicate scan: {} groups of identical submissions, {} pairs sharing files in {} ms",
+                identicalGroups.size(), sharedFiles.size(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * Entregas cuyo conjunto de (ruta, contenido normalizado) es idéntico
+     */
+    private List<PlagiarismDetectionResponse.DuplicateGroup> findIdenticalSubmissions(
+            Map<String, Map<String, String>> fileHashes, SubmissionRegistry registry) {
+        Map<String, List<String>> submissionsByHash = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> submission : fileHashes.entrySet()) {
+            if (submission.getValue().isEmpty()) {
+                continue;
+            }
+            StringBuilder content = new StringBuilder();
+            new TreeMap<>(submission.getValue())
+                    .forEach((path, hash) -> content.append(path).append(':').append(hash).append('\n'));
+            submissionsByHash.computeIfAbsent(sha256(content.toString()), hash -> new ArrayList<>())
+                    .add(submission.getKey());
+        }
+
+        List<PlagiarismDetectionResponse.DuplicateGroup> groups = new ArrayList<>();
+        for (List<String> names : submissionsByHash.values()) {
+            if (names.size() > 1) {
+                PlagiarismDetectionResponse.DuplicateGroup group = new PlagiarismDetectionResponse.DuplicateGroup();
+                group.setSubmissions(names);
+                group.setSubmissionIds(names.stream()
+                        .map(registry::submissionId)
+                        .toList());
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Pares de entregas que comparten archivos idénticos (sin importar la ruta).
+     * Los archivos presentes en más de max-share-ratio de la cohorte se tratan
+     * como plantilla y se ignoran.
+     */
+    private List<PlagiarismDetectionResponse.SharedFilesMatch> findSharedFiles(
+            Map<String, Map<String, String>> fileHashes, Set<String> smallFileHashes,
+            SubmissionRegistry registry) {
+        Map<String, TreeSet<String>> submissionsByFileHash = new HashMap<>();
+        Map<String, Map<String, String>> pathsByFileHash = new HashMap<>();
+        fileHashes.forEach((submission, files) -> files.forEach((path, hash) -> {
+            submissionsByFileHash.computeIfAbsent(hash, key -> new TreeSet<>()).add(submission);
+            pathsByFileHash.computeIfAbsent(hash, key -> new HashMap<>()).putIfAbsent(submission, path);
+        }));
+
+        int maxShared = fileHashes.size() < 4 ? fileHashes.size()
+                : Math.max(2, (int) Math.floor(fileHashes.size() * maxShareRatio));
+        Map<String, List<String>> sharedByPair = new TreeMap<>();
+        submissionsByFileHash.forEach((hash, owners) -> {
+            if (owners.size() < 2 || owners.size() > maxShared || smallFileHashes.contains(hash)) {
+                return;
+            }
+            List<String> ordered = new ArrayList<>(owners);
+            for (int i = 0; i < ordered.size(); i++) {
+                for (int j = i + 1; j < ordered.size(); j++) {
+                    sharedByPair.computeIfAbsent(ordered.get(i) + "\n" + ordered.get(j), key -> new ArrayList<>())
+                            .add(pathsByFileHash.get(hash).get(ordered.get(i)));
+                }
+            }
+        });
+
+        List<PlagiarismDetectionResponse.SharedFilesMatch> matches = new ArrayList<>();
+        sharedByPair.forEach((pair, files) -> {
+            String[] names = pair.split("\n");
+            PlagiarismDetectionResponse.SharedFilesMatch match = new PlagiarismDetectionResponse.SharedFilesMatch();
+            match.setSubmission1(names[0]);
+            match.setSubmission2(names[1]);
+            match.setSubmissionId1(registry.submissionId(names[0]));
+            match.setSubmissionId2(registry.submissionId(names[1]));
+            match.setSharedFileCount(files.size());
+            match.setFiles(files.stream().sorted().limit(MAX_REPORTED_FILES).toList());
+            matches.add(match);
+        });
+
+        matches.sort((a, b) -> Integer.compare(b.getSharedFileCount(), a.getSharedFileCount()));
+        return matches.size() > MAX_REPORTED_PAIRS ? new ArrayList<>(matches.subList(0, MAX_REPORTED_PAIRS))
+                : matches;
+    }
+
+    /**
+     * Hash del contenido normalizado de cada archivo. Los archivos que
+     * normalizados quedan por debajo de min-file-chars se marcan como pequeños:
+     * cuentan para entregas idénticas pero no como archivo compartido.
+     */
+    private Map<String, String> hashFiles(SourceManifest manifest, Set<String> smallFileHashes) {
+        Map<String, String> hashes = new HashMap<>();
+        for (Path relativePath : manifest.getFiles()) {
+            String path = relativePath.toString().replace('\\', '/');
+            try {
+                String normalized = normalize(readSource(manifest.getRepositoryRoot().resolve(relativePath)));
+                String hash = sha256(normalized);
+                hashes.put(path, hash);
+                if (normalized.length() < minFileChars) {
+                    smallFileHashes.add(hash);
+                }
+            } catch (IOException e) {
+                // Un hash propio de la entrega: el archivo no puede coincidir con ningún otro
+                logger.warn("Could not read file {} in {}: {}", relativePath, manifest.getSubmissionName(),
+                        e.getMessage());
+                hashes.put(path, "unreadable:" + manifest.getSubmissionName() + "/" + path);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Lee un fuente como UTF-8; si no es UTF-8 válido (p.ej. Latin-1) lo lee
+     * como ISO-8859-1, que no pierde bytes, para que archivos distintos no
+     * queden con el mismo texto
+     */
+    static String readSource(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Elimina comentarios y espacios en blanco fuera de literales de texto
+     */
+    static String normalize(String source) {
+        StringBuilder normalized = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            char next = i + 1 < length ? source.charAt(i + 1) : '\0';
+
+            if (c == '/' && next == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '"' || c == '\'') {
+                boolean textBlock = c == '"' && source.startsWith("\"\"\"", i);
+                String delimiter = textBlock ? "\"\"\"" : String.valueOf(c);
+                int literalStart = i;
+                i += delimiter.length();
+                while (i < length && !source.startsWith(delimiter, i)) {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i = Math.min(length, i + delimiter.length());
+                normalized.append(source, literalStart, i);
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    normalized.append(c);
+                }
+                i++;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
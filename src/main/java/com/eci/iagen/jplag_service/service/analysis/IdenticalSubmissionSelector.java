@@ -0,0 +1,162 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.JPlagComparison;
+import de.jplag.JPlagResult;
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.strategy.SubmissionTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evita comparar varias veces entregas idénticas. De cada grupo sólo el
+ * representante se compara con el resto de la cohorte; las comparaciones de
+ * los demás miembros se derivan de las del representante, ya que sus
+ * secuencias de tokens son iguales (se verifica antes de agruparlas).
+ */
+public class IdenticalSubmissionSelector implements TupleSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdenticalSubmissionSelector.class);
+
+    private final Map<String, String> representativesByDirectory;
+    private final Map<Submission, Submission> representatives = new IdentityHashMap<>();
+    private final List<SubmissionTuple> skippedTuples = new ArrayList<>();
+
+    /**
+     * @param representativesByDirectory directorio de cada entrega duplicada ->
+     *                                   directorio del representante de su grupo
+     */
+    public IdenticalSubmissionSelector(Map<String, String> representativesByDirectory) {
+        this.representativesByDirectory = representativesByDirectory;
+    }
+
+    @Override
+    public List<SubmissionTuple> select(List<SubmissionTuple> tuples) {
+        Map<String, Submission> submissionsByDirectory = new HashMap<>();
+        for (SubmissionTuple tuple : tuples) {
+            submissionsByDirectory.put(tuple.left().getRoot().getName(), tuple.left());
+            submissionsByDirectory.put(tuple.right().getRoot().getName(), tuple.right());
+        }
+        representativesByDirectory.forEach((directory, representativeDirectory) -> {
+            Submission member = submissionsByDirectory.get(directory);
+            Submission representative = submissionsByDirectory.get(representativeDirectory);
+            if (member != null && representative != null && member != representative
+                    && sameTokens(member, representative)) {
+                representatives.put(member, representative);
+            }
+        });
+
+        // Pares presentes tras las etapas anteriores (p.ej. sin los del mismo equipo)
+        Set<SubmissionTuple> present = new HashSet<>(tuples);
+
+        List<SubmissionTuple> selected = new ArrayList<>();
+        for (SubmissionTuple tuple : tuples) {
+            Submission left = representativeOf(tuple.left());
+            Submission right = representativeOf(tuple.right());
+            boolean leftIsMember = left != tuple.left();
+            boolean rightIsMember = right != tuple.right();
+
+            // Se compara el par si ningún lado es miembro, si es miembro contra su
+            // propio representante (similitud interna del grupo) o si el par del
+            // que se derivaría no se va a comparar
+            if ((!leftIsMember && !rightIsMember)
+                    || (leftIsMember != rightIsMember && left == right)
+                    || !hasSource(present, tuple, left, right)) {
+                selected.add(tuple);
+            } else {
+                skippedTuples.add(tuple);
+            }
+        }
+
+        if (!skippedTuples.isEmpty()) {
+            logger.info("Identical submissions: {} comparisons derived from their representatives",
+                    skippedTuples.size());
+        }
+        return selected;
+    }
+
+    /**
+     * Agrega al resultado las comparaciones omitidas, copiando los matches de la
+     * comparación equivalente entre representantes
+     */
+    public JPlagResult addDerivedComparisons(JPlagResult result) {
+        if (skippedTuples.isEmpty()) {
+            return result;
+        }
+
+        Map<SubmissionTuple, JPlagComparison> byRepresentatives = new HashMap<>();
+        Map<Submission, JPlagComparison> withinGroup = new IdentityHashMap<>();
+        for (JPlagComparison comparison : result.getAllComparisons()) {
+            Submission first = comparison.firstSubmission();
+            Submission second = comparison.secondSubmission();
+            byRepresentatives.put(new SubmissionTuple(first, second), comparison);
+            if (representativeOf(first) == representativeOf(second)) {
+                withinGroup.putIfAbsent(representativeOf(first), comparison);
+            }
+        }
+
+        List<JPlagComparison> comparisons = new ArrayList<>(result.getAllComparisons());
+        for (SubmissionTuple tuple : skippedTuples) {
+            Submission left = representativeOf(tuple.left());
+            Submission right = representativeOf(tuple.right());
+
+            if (left == right) {
+                JPlagComparison source = withinGroup.get(left);
+                if (source != null) {
+                    comparisons.add(new JPlagComparison(tuple.left(), tuple.right(), source.matches(),
+                            source.ignoredMatches()));
+                }
+                continue;
+            }
+
+            JPlagComparison source = byRepresentatives.get(new SubmissionTuple(left, right));
+            if (source != null) {
+                comparisons.add(new JPlagComparison(tuple.left(), tuple.right(), source.matches(),
+                        source.ignoredMatches()));
+            } else if ((source = byRepresentatives.get(new SubmissionTuple(right, left))) != null) {
+                comparisons.add(new JPlagComparison(tuple.right(), tuple.left(), source.matches(),
+                        source.ignoredMatches()));
+            }
+        }
+        return new JPlagResult(comparisons, result.getSubmissions(), result.getDuration(), result.getOptions());
+    }
+
+    private static boolean hasSource(Set<SubmissionTuple> present, SubmissionTuple tuple, Submission left,
+            Submission right) {
+        if (left == right) {
+            return contains(present, left, tuple.left()) || contains(present, left, tuple.right());
+        }
+        return contains(present, left, right);
+    }
+
+    private static boolean contains(Set<SubmissionTuple> present, Submission first, Submission second) {
+        return present.contains(new SubmissionTuple(first, second))
+                || present.contains(new SubmissionTuple(second, first));
+    }
+
+    private Submission representativeOf(Submission submission) {
+        return representatives.getOrDefault(submission, submission);
+    }
+
+    private static boolean sameTokens(Submission first, Submission second) {
+        List<Token> firstTokens = first.getTokenList();
+        List<Token> secondTokens = second.getTokenList();
+        if (firstTokens == null || secondTokens == null || firstTokens.size() != secondTokens.size()) {
+            return false;
+        }
+        for (int i = 0; i < firstTokens.size(); i++) {
+            if (!firstTokens.get(i).getType().equals(secondTokens.get(i).getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,181 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlagComparison;
+import de.jplag.JPlagResult;
+import de.jplag.Submission;
+import de.jplag.SubmissionSet;
+import de.jplag.SubmissionSetBuilder;
+import de.jplag.clustering.ClusteringFactory;
+import de.jplag.exceptions.ExitException;
+import de.jplag.exceptions.SubmissionException;
+import de.jplag.merging.MatchMerging;
+import de.jplag.options.JPlagOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ejecuta el pipeline de JPlag (parseo, comparación, merging y clustering) igual
+ * que {@code JPlag.run}, pero con una estrategia de comparación propia que
+ * permite cancelar el análisis y respetar su plazo
+ */
+@Component
+public class JPlagRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(JPlagRunner.class);
+
+    @Autowired
+    private MinHashPrefilter minHashPrefilter;
+
+    @Autowired
+    private AdaptiveTuningPolicy tuningPolicy;
+
+    @Autowired
+    private SubmissionLimits submissionLimits;
+
+    public JPlagResult run(JPlagOptions options, AnalysisJob job) throws ExitException {
+        return run(options, job, new RunSettings());
+    }
+
+    public JPlagResult run(JPlagOptions options, AnalysisJob job, RunSettings settings) throws ExitException {
+        job.setStage("parsing");
+        SubmissionSet submissionSet = new SubmissionSetBuilder(options).buildSubmissionSet();
+        if (options.normalize() && options.language().supportsNormalization()
+                && options.language().requiresCoreNormalization()) {
+            submissionSet.normalizeSubmissions();
+        }
+
+        int submissionCount = submissionSet.numberOfSubmissions();
+        job.getProgress().setTokenized(
+                submissionSet.getSubmissions().stream().mapToInt(submission -> submission.getFiles().size()).sum(),
+                submissionSet.getSubmissions().stream().mapToLong(Submission::getNumberOfTokens).sum());
+        if (submissionCount < 2) {
+            throw new SubmissionException(
+                    "Not enough valid submissions! (found " + submissionCount + " valid submissions)");
+        }
+        job.checkCancelled();
+
+        // Opciones ajustadas a la cohorte ya parseada (tokens y entregas)
+        PlagiarismDetectionResponse.TuningSummary tuning = tuningPolicy.decide(options, submissionSet,
+                settings.getTuningOverrides());
+        job.setTuningSummary(tuning);
+        options = tuningPolicy.apply(options, tuning);
+        GreedyStringTiling coreAlgorithm = new GreedyStringTiling(options);
+
+        List<TupleSelector> selectors = new ArrayList<>();
+        Set<String> overTokenLimit = findOverTokenLimit(submissionSet, job);
+        if (!overTokenLimit.isEmpty()) {
+            selectors.add(new TokenLimitSelector(overTokenLimit));
+        }
+        SameTeamSelector sameTeamSelector = null;
+        if (!settings.getTeamsByDirectory().isEmpty()) {
+            sameTeamSelector = new SameTeamSelector(settings.getTeamsByDirectory());
+            selectors.add(sameTeamSelector);
+        }
+        IdenticalSubmissionSelector identicalSelector = null;
+        if (!settings.getIdenticalRepresentatives().isEmpty()) {
+            identicalSelector = new IdenticalSubmissionSelector(settings.getIdenticalRepresentatives());
+            selectors.add(identicalSelector);
+        }
+        MinHashCandidateSelector prefilter = null;
+        if (minHashPrefilter.appliesTo(submissionCount)
+                || (tuning.isPrefilterForced() && minHashPrefilter.isEnabled())) {
+            prefilter = minHashPrefilter.newSelector();
+            selectors.add(prefilter);
+        }
+        if (job.getDeadline() != null) {
+            selectors.add(minHashPrefilter.newOrderingSelector());
+        }
+        CancellableComparisonStrategy strategy = new CancellableComparisonStrategy(options, coreAlgorithm, job,
+                selectors, settings.getBaseCode() != null ? settings.getBaseCode().toSubmission(options.language())
+                        : null);
+
+        job.setStage("comparing");
+        JPlagResult result = strategy.compareSubmissions(submissionSet);
+        if (sameTeamSelector != null) {
+            settings.setSameTeamPairsSkipped(sameTeamSelector.getSkippedPairs());
+        }
+        settings.setPlannedComparisons(strategy.getPlannedComparisons());
+        settings.setCompletedComparisons(strategy.getCompletedComparisons());
+        if (strategy.getDeferredComparisons() > 0) {
+            logger.warn("Analysis deadline reached: {} of {} pairs compared, {} deferred",
+                    strategy.getCompletedComparisons(), strategy.getPlannedComparisons(),
+                    strategy.getDeferredComparisons());
+            settings.setDeferredComparisons(new DeferredComparisons(options, strategy, submissionSet,
+                    result.getAllComparisons(), result.getDuration(), identicalSelector, prefilter));
+        }
+        return postProcess(result, options, job, identicalSelector, prefilter);
+    }
+
+    /**
+     * Entregas con más tokens que el máximo, registradas como violaciones del
+     * análisis
+     */
+    private Set<String> findOverTokenLimit(SubmissionSet submissionSet, AnalysisJob job) {
+        long maxTokens = submissionLimits.getMaxTokensPerSubmission();
+        Set<String> overLimit = new HashSet<>();
+        for (Submission submission : submissionSet.getSubmissions()) {
+            long tokens = submission.getNumberOfTokens();
+            if (tokens > maxTokens) {
+                String directory = submission.getRoot().getName();
+                logger.warn("Excluding {} from comparisons: {} tokens", directory, tokens);
+                overLimit.add(directory);
+                job.addLimitViolation(submissionLimits.violation(SubmissionLimits.TOKENS_PER_SUBMISSION, directory,
+                        null, tokens, maxTokens));
+            }
+        }
+        return overLimit;
+    }
+
+    /**
+     * Compara los pares que quedaron pendientes al vencer el plazo y retorna el
+     * resultado completo, con el mismo post-procesamiento que {@link #run}
+     */
+    public JPlagResult resume(DeferredComparisons deferred, AnalysisJob job) {
+        long start = System.currentTimeMillis();
+        job.setDeadline(null);
+        job.setStage("comparing-deferred");
+        List<JPlagComparison> comparisons = new ArrayList<>(deferred.comparisons);
+        comparisons.addAll(deferred.strategy.compareDeferred());
+        job.checkCancelled();
+
+        JPlagResult result = new JPlagResult(comparisons, deferred.submissionSet,
+                deferred.durationMillis + System.currentTimeMillis() - start, deferred.options);
+        return postProcess(result, deferred.options, job, deferred.identicalSelector, deferred.prefilter);
+    }
+
+    private JPlagResult postProcess(JPlagResult result, JPlagOptions options, AnalysisJob job,
+            IdenticalSubmissionSelector identicalSelector, MinHashCandidateSelector prefilter) {
+        if (identicalSelector != null) {
+            result = identicalSelector.addDerivedComparisons(result);
+        }
+        if (options.mergingOptions().enabled()) {
+            result = new MatchMerging(options).mergeMatchesOf(result);
+        }
+        job.checkCancelled();
+
+        if (prefilter != null) {
+            job.setPrefilterSummary(prefilter.summarize(result.getAllComparisons()));
+        }
+
+        result.setClusteringResult(ClusteringFactory.getClusterings(result.getAllComparisons(),
+                options.clusteringOptions()));
+
+        SubmissionSet submissionSet = result.getSubmissions();
+        if (!submissionSet.getInvalidSubmissions().isEmpty()) {
+            logger.warn("{} submissions could not be parsed and were skipped",
+                    submissionSet.getInvalidSubmissions().size());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.Submission;
+import de.jplag.strategy.SubmissionTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordena los pares por similitud de Jaccard estimada con MinHash (de mayor a
+ * menor) sin descartar ninguno, para que con un presupuesto de tiempo los pares
+ * más sospechosos se comparen primero
+ */
+public class LikelihoodOrderingSelector implements TupleSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikelihoodOrderingSelector.class);
+
+    private final MinHashSignatures signatures;
+
+    LikelihoodOrderingSelector(int shingleSize, int numHashes) {
+        this.signatures = new MinHashSignatures(shingleSize, numHashes);
+    }
+
+    @Override
+    public List<SubmissionTuple> select(List<SubmissionTuple> tuples) {
+        long start = System.currentTimeMillis();
+        Map<Submission, long[]> signaturesBySubmission = signatures.compute(tuples);
+
+        Map<SubmissionTuple, Double> scores = new IdentityHashMap<>();
+        for (SubmissionTuple tuple : tuples) {
+            scores.put(tuple, MinHashSignatures.estimateSimilarity(signaturesBySubmission.get(tuple.left()),
+                    signaturesBySubmission.get(tuple.right())));
+        }
+        List<SubmissionTuple> ordered = tuples.stream()
+                .sorted(Comparator.comparingDouble((SubmissionTuple tuple) -> scores.get(tuple)).reversed())
+                .toList();
+
+        logger.info("Ordered {} pairs by estimated similarity in {} ms", ordered.size(),
+                System.currentTimeMillis() - start);
+        return ordered;
+    }
+}
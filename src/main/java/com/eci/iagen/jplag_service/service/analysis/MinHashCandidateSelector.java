@@ -0,0 +1,183 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.strategy.SubmissionTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selector de pares candidatos de un análisis: calcula la firma MinHash de los
+ * shingles de tokens de cada entrega, agrupa las firmas por bandas (LSH) y deja
+ * pasar sólo los pares que comparten alguna banda, más una muestra de auditoría
+ * de los pares descartados.
+ */
+public class MinHashCandidateSelector implements TupleSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinHashCandidateSelector.class);
+
+    private final MinHashSignatures signatures;
+    private final int bands;
+    private final int rows;
+    private final int auditSampleSize;
+    private final double auditSimilarity;
+    private final double targetSimilarity;
+    private final double theoreticalRecall;
+
+    private final Set<SubmissionTuple> auditTuples = new HashSet<>();
+    private int totalPairs;
+    private int candidatePairs;
+    private long signatureMillis;
+
+    MinHashCandidateSelector(int shingleSize, int numHashes, int bands, int rows, int auditSampleSize,
+            double auditSimilarity, double targetSimilarity, double theoreticalRecall) {
+        this.signatures = new MinHashSignatures(shingleSize, numHashes);
+        this.bands = bands;
+        this.rows = rows;
+        this.auditSampleSize = auditSampleSize;
+        this.auditSimilarity = auditSimilarity;
+        this.targetSimilarity = targetSimilarity;
+        this.theoreticalRecall = theoreticalRecall;
+    }
+
+    @Override
+    public List<SubmissionTuple> select(List<SubmissionTuple> tuples) {
+        long start = System.currentTimeMillis();
+        Map<Submission, long[]> signaturesBySubmission = signatures.compute(tuples);
+        Map<Submission, Integer> indexes = indexOf(signaturesBySubmission.keySet());
+        Set<Long> candidateKeys = findCandidateKeys(signaturesBySubmission, indexes);
+        signatureMillis = System.currentTimeMillis() - start;
+
+        List<SubmissionTuple> selected = new ArrayList<>();
+        List<SubmissionTuple> rejected = new ArrayList<>();
+        for (SubmissionTuple tuple : tuples) {
+            if (candidateKeys.contains(pairKey(indexes.get(tuple.left()), indexes.get(tuple.right()),
+                    indexes.size()))) {
+                selected.add(tuple);
+            } else {
+                rejected.add(tuple);
+            }
+        }
+
+        totalPairs = tuples.size();
+        candidatePairs = selected.size();
+        auditTuples.addAll(sample(rejected, auditSampleSize));
+        selected.addAll(auditTuples);
+
+        logger.info("MinHash prefilter kept {} of {} pairs (+{} audit pairs) in {} ms", candidatePairs, totalPairs,
+                auditTuples.size(), signatureMillis);
+        return selected;
+    }
+
+    /**
+     * Resume el efecto del prefiltro. El recall se estima con la muestra de
+     * auditoría: la proporción de pares auditados con similitud mayor o igual a
+     * audit-similarity se extrapola a todos los pares descartados.
+     */
+    public PlagiarismDetectionResponse.PrefilterSummary summarize(Collection<JPlagComparison> comparisons) {
+        int candidateHits = 0;
+        int auditHits = 0;
+        for (JPlagComparison comparison : comparisons) {
+            if (comparison.similarity() < auditSimilarity) {
+                continue;
+            }
+            SubmissionTuple tuple = new SubmissionTuple(comparison.firstSubmission(), comparison.secondSubmission());
+            SubmissionTuple reversed = new SubmissionTuple(comparison.secondSubmission(),
+                    comparison.firstSubmission());
+            if (auditTuples.contains(tuple) || auditTuples.contains(reversed)) {
+                auditHits++;
+            } else {
+                candidateHits++;
+            }
+        }
+
+        int rejectedPairs = totalPairs - candidatePairs;
+        double estimatedMissed = auditTuples.isEmpty() ? 0.0
+                : (double) auditHits / auditTuples.size() * rejectedPairs;
+        double estimatedRecall = candidateHits + estimatedMissed == 0 ? 1.0
+                : candidateHits / (candidateHits + estimatedMissed);
+
+        PlagiarismDetectionResponse.PrefilterSummary summary = new PlagiarismDetectionResponse.PrefilterSummary();
+        summary.setTotalPairs(totalPairs);
+        summary.setCandidatePairs(candidatePairs);
+        summary.setAuditedPairs(auditTuples.size());
+        summary.setSkippedPairs(rejectedPairs - auditTuples.size());
+        summary.setCandidateHits(candidateHits);
+        summary.setAuditHits(auditHits);
+        summary.setAuditSimilarity(auditSimilarity);
+        summary.setEstimatedRecall(Math.round(estimatedRecall * 10000.0) / 10000.0);
+        summary.setTargetSimilarity(targetSimilarity);
+        summary.setTheoreticalRecall(Math.round(theoreticalRecall * 10000.0) / 10000.0);
+        summary.setBands(bands);
+        summary.setRows(rows);
+        summary.setSignatureMillis(signatureMillis);
+        return summary;
+    }
+
+    private Set<Long> findCandidateKeys(Map<Submission, long[]> signatures, Map<Submission, Integer> indexes) {
+        int n = indexes.size();
+        Set<Long> candidates = new HashSet<>();
+
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (Map.Entry<Submission, long[]> entry : signatures.entrySet()) {
+                long[] signature = entry.getValue();
+                if (signature[0] == Long.MAX_VALUE) {
+                    continue;
+                }
+                long bandHash = band;
+                for (int row = band * rows; row < (band + 1) * rows; row++) {
+                    bandHash = MinHashSignatures.mix(bandHash * 31 + signature[row]);
+                }
+                buckets.computeIfAbsent(bandHash, key -> new ArrayList<>()).add(indexes.get(entry.getKey()));
+            }
+
+            for (List<Integer> bucket : buckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        candidates.add(pairKey(bucket.get(i), bucket.get(j), n));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private Map<Submission, Integer> indexOf(Set<Submission> submissions) {
+        Map<Submission, Integer> indexes = new IdentityHashMap<>();
+        submissions.stream()
+                .sorted()
+                .forEach(submission -> indexes.put(submission, indexes.size()));
+        return indexes;
+    }
+
+    private static long pairKey(int a, int b, int n) {
+        return (long) Math.min(a, b) * n + Math.max(a, b);
+    }
+
+    private static List<SubmissionTuple> sample(List<SubmissionTuple> tuples, int size) {
+        if (tuples.size() <= size) {
+            return tuples;
+        }
+        List<SubmissionTuple> reservoir = new ArrayList<>(tuples.subList(0, size));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size; i < tuples.size(); i++) {
+            int slot = random.nextInt(i + 1);
+            if (slot < size) {
+                reservoir.set(slot, tuples.get(i));
+            }
+        }
+        return reservoir;
+    }
+}
@@ -0,0 +1,96 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración del prefiltro MinHash/LSH. Para cohortes grandes evita
+ * ejecutar greedy string tiling sobre los n² pares: sólo los pares cuyas
+ * firmas MinHash coinciden en alguna banda LSH pasan a la comparación
+ * completa, más una muestra aleatoria de los descartados para medir el recall.
+ */
+@Component
+public class MinHashPrefilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinHashPrefilter.class);
+
+    @Value("${jplag.prefilter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jplag.prefilter.min-submissions:100}")
+    private int minSubmissions;
+
+    @Value("${jplag.prefilter.shingle-size:8}")
+    private int shingleSize;
+
+    @Value("${jplag.prefilter.num-hashes:128}")
+    private int numHashes;
+
+    @Value("${jplag.prefilter.target-similarity:0.3}")
+    private double targetSimilarity;
+
+    @Value("${jplag.prefilter.target-recall:0.99}")
+    private double targetRecall;
+
+    @Value("${jplag.prefilter.audit-sample-size:200}")
+    private int auditSampleSize;
+
+    @Value("${jplag.prefilter.audit-similarity:0.5}")
+    private double auditSimilarity;
+
+    @Value("${jplag.prefilter.ordering-hashes:32}")
+    private int orderingHashes;
+
+    /**
+     * Indica si el prefiltro aplica para la cantidad de entregas dada
+     */
+    public boolean appliesTo(int submissionCount) {
+        return enabled && submissionCount >= minSubmissions;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Crea el selector de pares para un análisis. Las filas por banda se eligen
+     * como el mayor valor que aún alcanza el recall objetivo para pares con
+     * similitud de Jaccard igual a target-similarity.
+     */
+    public MinHashCandidateSelector newSelector() {
+        int rows = rowsForTargetRecall();
+        int bands = numHashes / rows;
+        logger.info("MinHash prefilter: {} hashes, {} bands x {} rows (recall {} at Jaccard {})", numHashes,
+                bands, rows, String.format("%.4f", theoreticalRecall(targetSimilarity, bands, rows)),
+                targetSimilarity);
+        return new MinHashCandidateSelector(shingleSize, numHashes, bands, rows, auditSampleSize,
+                auditSimilarity, targetSimilarity, theoreticalRecall(targetSimilarity, bands, rows));
+    }
+
+    /**
+     * Crea el selector que ordena los pares por similitud estimada (usado con
+     * presupuesto de tiempo). Usa menos hashes que el prefiltro: sólo ordena.
+     */
+    public LikelihoodOrderingSelector newOrderingSelector() {
+        return new LikelihoodOrderingSelector(shingleSize, orderingHashes);
+    }
+
+    private int rowsForTargetRecall() {
+        for (int rows = numHashes; rows > 1; rows--) {
+            if (theoreticalRecall(targetSimilarity, numHashes / rows, rows) >= targetRecall) {
+                return rows;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Probabilidad de que un par con similitud de Jaccard s coincida en al menos
+     * una banda: 1 - (1 - s^r)^b
+     */
+    static double theoreticalRecall(double similarity, int bands, int rows) {
+        return 1.0 - Math.pow(1.0 - Math.pow(similarity, rows), bands);
+    }
+}
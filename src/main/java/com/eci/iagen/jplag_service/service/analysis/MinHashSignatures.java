@@ -0,0 +1,110 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.strategy.SubmissionTuple;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Firmas MinHash de los shingles (k tokens consecutivos) de las entregas. La
+ * proporción de posiciones iguales entre dos firmas estima la similitud de
+ * Jaccard de sus shingles.
+ */
+class MinHashSignatures {
+
+    private static final long SEED = 0x6A09E667F3BCC909L;
+
+    private final int shingleSize;
+    private final long[] hashSeeds;
+
+    MinHashSignatures(int shingleSize, int numHashes) {
+        this.shingleSize = shingleSize;
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.hashSeeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Firmas de todas las entregas que aparecen en los pares
+     */
+    Map<Submission, long[]> compute(List<SubmissionTuple> tuples) {
+        Set<Submission> submissions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SubmissionTuple tuple : tuples) {
+            submissions.add(tuple.left());
+            submissions.add(tuple.right());
+        }
+
+        Map<Submission, long[]> signatures = new IdentityHashMap<>();
+        submissions.parallelStream()
+                .map(submission -> Map.entry(submission, signatureOf(submission.getTokenList())))
+                .toList()
+                .forEach(entry -> signatures.put(entry.getKey(), entry.getValue()));
+        return signatures;
+    }
+
+    /**
+     * Firma MinHash de los shingles de una entrega; una entrega con menos de k
+     * tokens queda con todas las posiciones en Long.MAX_VALUE
+     */
+    long[] signatureOf(List<Token> tokens) {
+        long[] signature = new long[hashSeeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        if (tokens == null || tokens.size() < shingleSize) {
+            return signature;
+        }
+
+        int[] types = new int[tokens.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = tokens.get(i).getType().getDescription().hashCode();
+        }
+
+        for (int start = 0; start + shingleSize <= types.length; start++) {
+            long shingle = 1125899906842597L;
+            for (int offset = 0; offset < shingleSize; offset++) {
+                shingle = 31 * shingle + types[start + offset];
+            }
+            for (int i = 0; i < hashSeeds.length; i++) {
+                long hash = mix(shingle ^ hashSeeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Similitud de Jaccard estimada entre dos firmas
+     */
+    static double estimateSimilarity(long[] first, long[] second) {
+        if (first[0] == Long.MAX_VALUE || second[0] == Long.MAX_VALUE) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / first.length;
+    }
+
+    /**
+     * Finalizador de SplitMix64: dispersa bien valores cercanos
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,56 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator paralelo que respeta el orden de prioridad de la lista: todas
+ * las divisiones comparten un cursor, de modo que cada hilo toma siempre el
+ * siguiente elemento pendiente en lugar de un rango fijo de la lista
+ */
+class PriorityOrderSpliterator<T> implements Spliterator<T> {
+
+    private final List<T> elements;
+    private final AtomicInteger cursor;
+    private final AtomicInteger remainingSplits;
+
+    PriorityOrderSpliterator(List<T> elements, int parallelism) {
+        this(elements, new AtomicInteger(), new AtomicInteger(Math.max(0, parallelism - 1)));
+    }
+
+    private PriorityOrderSpliterator(List<T> elements, AtomicInteger cursor, AtomicInteger remainingSplits) {
+        this.elements = elements;
+        this.cursor = cursor;
+        this.remainingSplits = remainingSplits;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        int index = cursor.getAndIncrement();
+        if (index >= elements.size()) {
+            return false;
+        }
+        action.accept(elements.get(index));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (cursor.get() >= elements.size() || remainingSplits.getAndDecrement() <= 0) {
+            return null;
+        }
+        return new PriorityOrderSpliterator<>(elements, cursor, remainingSplits);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, elements.size() - cursor.get());
+    }
+
+    @Override
+    public int characteristics() {
+        return CONCURRENT | NONNULL;
+    }
+}
@@ -0,0 +1,111 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.service.basecode.BaseCodeTemplate;
+
+import java.util.Map;
+
+/**
+ * Parámetros de una ejecución de {@link JPlagRunner} además de las opciones
+ * de JPlag: qué pares omitir o derivar y el código base cacheado
+ */
+public class RunSettings {
+
+    private Map<String, String> identicalRepresentatives = Map.of();
+    private Map<String, Long> teamsByDirectory = Map.of();
+    private BaseCodeTemplate baseCode;
+    private int sameTeamPairsSkipped;
+    private int plannedComparisons;
+    private int completedComparisons;
+    private DeferredComparisons deferredComparisons;
+    private TuningOverrides tuningOverrides = new TuningOverrides();
+
+    /**
+     * Directorio de cada entrega idéntica a otra -> directorio del representante
+     * de su grupo
+     */
+    public Map<String, String> getIdenticalRepresentatives() {
+        return identicalRepresentatives;
+    }
+
+    public void setIdenticalRepresentatives(Map<String, String> identicalRepresentatives) {
+        this.identicalRepresentatives = identicalRepresentatives;
+    }
+
+    /**
+     * Directorio de cada entrega -> teamId; vacío para comparar también los pares
+     * del mismo equipo
+     */
+    public Map<String, Long> getTeamsByDirectory() {
+        return teamsByDirectory;
+    }
+
+    public void setTeamsByDirectory(Map<String, Long> teamsByDirectory) {
+        this.teamsByDirectory = teamsByDirectory;
+    }
+
+    public BaseCodeTemplate getBaseCode() {
+        return baseCode;
+    }
+
+    public void setBaseCode(BaseCodeTemplate baseCode) {
+        this.baseCode = baseCode;
+    }
+
+    /**
+     * Pares del mismo equipo omitidos (se completa al terminar la ejecución)
+     */
+    public int getSameTeamPairsSkipped() {
+        return sameTeamPairsSkipped;
+    }
+
+    public void setSameTeamPairsSkipped(int sameTeamPairsSkipped) {
+        this.sameTeamPairsSkipped = sameTeamPairsSkipped;
+    }
+
+    /**
+     * Opciones de JPlag fijadas en el request (el resto las decide el ajuste
+     * adaptativo)
+     */
+    public TuningOverrides getTuningOverrides() {
+        return tuningOverrides;
+    }
+
+    public void setTuningOverrides(TuningOverrides tuningOverrides) {
+        this.tuningOverrides = tuningOverrides;
+    }
+
+    /**
+     * Pares a comparar después de aplicar los selectores (se completa al
+     * terminar la ejecución)
+     */
+    public int getPlannedComparisons() {
+        return plannedComparisons;
+    }
+
+    public void setPlannedComparisons(int plannedComparisons) {
+        this.plannedComparisons = plannedComparisons;
+    }
+
+    /**
+     * Pares comparados antes del plazo del análisis
+     */
+    public int getCompletedComparisons() {
+        return completedComparisons;
+    }
+
+    public void setCompletedComparisons(int completedComparisons) {
+        this.completedComparisons = completedComparisons;
+    }
+
+    /**
+     * Comparaciones pendientes si venció el plazo; null si el resultado está
+     * completo
+     */
+    public DeferredComparisons getDeferredComparisons() {
+        return deferredComparisons;
+    }
+
+    public void setDeferredComparisons(DeferredComparisons deferredComparisons) {
+        this.deferredComparisons = deferredComparisons;
+    }
+}
@@ -0,0 +1,51 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.strategy.SubmissionTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Descarta, antes de comparar, los pares de entregas del mismo equipo
+ * (reentregas o varios repositorios del mismo equipo)
+ */
+public class SameTeamSelector implements TupleSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SameTeamSelector.class);
+
+    private final Map<String, Long> teamsByDirectory;
+    private int skippedPairs;
+
+    /**
+     * @param teamsByDirectory directorio de cada entrega de la cohorte -> teamId
+     */
+    public SameTeamSelector(Map<String, Long> teamsByDirectory) {
+        this.teamsByDirectory = teamsByDirectory;
+    }
+
+    @Override
+    public List<SubmissionTuple> select(List<SubmissionTuple> tuples) {
+        List<SubmissionTuple> selected = new ArrayList<>(tuples.size());
+        for (SubmissionTuple tuple : tuples) {
+            Long leftTeam = teamsByDirectory.get(tuple.left().getRoot().getName());
+            Long rightTeam = teamsByDirectory.get(tuple.right().getRoot().getName());
+            if (leftTeam != null && leftTeam.equals(rightTeam)) {
+                skippedPairs++;
+            } else {
+                selected.add(tuple);
+            }
+        }
+
+        if (skippedPairs > 0) {
+            logger.info("Skipped {} comparisons between submissions of the same team", skippedPairs);
+        }
+        return selected;
+    }
+
+    public int getSkippedPairs() {
+        return skippedPairs;
+    }
+}
@@ -0,0 +1,51 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.strategy.SubmissionTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Descarta, antes de comparar, los pares en los que participa una entrega
+ * con más tokens que jplag.limits.max-tokens-per-submission. JPlag ya la
+ * parseó, pero así no se paga su costo cuadrático contra toda la cohorte.
+ */
+public class TokenLimitSelector implements TupleSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenLimitSelector.class);
+
+    private final Set<String> excludedDirectories;
+    private int skippedPairs;
+
+    /**
+     * @param excludedDirectories directorios de las entregas que superan el límite
+     */
+    public TokenLimitSelector(Set<String> excludedDirectories) {
+        this.excludedDirectories = excludedDirectories;
+    }
+
+    @Override
+    public List<SubmissionTuple> select(List<SubmissionTuple> tuples) {
+        List<SubmissionTuple> selected = new ArrayList<>(tuples.size());
+        for (SubmissionTuple tuple : tuples) {
+            if (excludedDirectories.contains(tuple.left().getRoot().getName())
+                    || excludedDirectories.contains(tuple.right().getRoot().getName())) {
+                skippedPairs++;
+            } else {
+                selected.add(tuple);
+            }
+        }
+
+        if (skippedPairs > 0) {
+            logger.info("Skipped {} comparisons involving submissions over the token limit", skippedPairs);
+        }
+        return selected;
+    }
+
+    public int getSkippedPairs() {
+        return skippedPairs;
+    }
+}
@@ -0,0 +1,40 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+/**
+ * Opciones de JPlag fijadas en el request; los valores null los decide
+ * {@link AdaptiveTuningPolicy}
+ */
+public class TuningOverrides {
+
+    private Boolean adaptive;
+    private Integer minimumTokenMatch;
+    private Double similarityThreshold;
+    private Integer maximumReportComparisons;
+
+    public TuningOverrides() {
+    }
+
+    public TuningOverrides(Boolean adaptive, Integer minimumTokenMatch, Double similarityThreshold,
+            Integer maximumReportComparisons) {
+        this.adaptive = adaptive;
+        this.minimumTokenMatch = minimumTokenMatch;
+        this.similarityThreshold = similarityThreshold;
+        this.maximumReportComparisons = maximumReportComparisons;
+    }
+
+    public Boolean getAdaptive() {
+        return adaptive;
+    }
+
+    public Integer getMinimumTokenMatch() {
+        return minimumTokenMatch;
+    }
+
+    public Double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public Integer getMaximumReportComparisons() {
+        return maximumReportComparisons;
+    }
+}
@@ -0,0 +1,14 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import de.jplag.strategy.SubmissionTuple;
+
+import java.util.List;
+
+/**
+ * Etapa que decide qué pares de entregas pasan a la comparación completa de
+ * JPlag (y en qué orden). Las etapas se aplican en cadena antes de comparar.
+ */
+public interface TupleSelector {
+
+    List<SubmissionTuple> select(List<SubmissionTuple> tuples);
+}
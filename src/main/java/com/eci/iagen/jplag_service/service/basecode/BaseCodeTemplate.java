@@ -0,0 +1,63 @@
+package com.eci.iagen.jplag_service.service.basecode;
+
+import de.jplag.Language;
+import de.jplag.Submission;
+import de.jplag.Token;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Código base (plantilla) de una tarea en un commit dado, con sus fuentes en
+ * disco y sus tokens ya calculados
+ */
+public class BaseCodeTemplate {
+
+    private final String repositoryUrl;
+    private final String commit;
+    private final Path sourcesDirectory;
+    private final List<File> files;
+    private final List<Token> tokens;
+
+    public BaseCodeTemplate(String repositoryUrl, String commit, Path sourcesDirectory, List<File> files,
+            List<Token> tokens) {
+        this.repositoryUrl = repositoryUrl;
+        this.commit = commit;
+        this.sourcesDirectory = sourcesDirectory;
+        this.files = List.copyOf(files);
+        this.tokens = List.copyOf(tokens);
+    }
+
+    /**
+     * Crea la entrega de código base para un análisis reutilizando los tokens
+     * cacheados, sin volver a parsear la plantilla
+     */
+    public Submission toSubmission(Language language) {
+        Submission submission = new Submission(sourcesDirectory.getFileName().toString(),
+                sourcesDirectory.toFile(), false, files, language);
+        submission.setTokenList(new ArrayList<>(tokens));
+        return submission;
+    }
+
+    public String getRepositoryUrl() {
+        return repositoryUrl;
+    }
+
+    public String getCommit() {
+        return commit;
+    }
+
+    public Path getSourcesDirectory() {
+        return sourcesDirectory;
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public int getTokenCount() {
+        return tokens.size();
+    }
+}
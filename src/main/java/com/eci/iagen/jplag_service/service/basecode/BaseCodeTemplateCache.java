@@ -0,0 +1,189 @@
+package com.eci.iagen.jplag_service.service.basecode;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.GitService;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import de.jplag.Language;
+import de.jplag.ParsingException;
+import de.jplag.Token;
+import de.jplag.java.JavaLanguage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Caché del código base por (tarea, commit de la plantilla). Las fuentes se
+ * guardan en disco (sobreviven a reinicios) y los tokens en memoria, de modo que
+ * la plantilla no se vuelve a clonar ni a parsear mientras su commit no cambie.
+ */
+@Service
+public class BaseCodeTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaseCodeTemplateCache.class);
+    private static final String SOURCES_DIRECTORY = "base-code";
+
+    @Autowired
+    private GitService gitService;
+
+    @Value("${jplag.base-code.cache-directory:./base-code-cache}")
+    private String cacheDirectory;
+
+    @Value("${jplag.base-code.max-cached-templates:32}")
+    private int maxCachedTemplates;
+
+    private final Map<String, BaseCodeTemplate> templates = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BaseCodeTemplate> eldest) {
+            return size() > maxCachedTemplates;
+        }
+    };
+
+    /**
+     * Obtiene la plantilla de una tarea. Sólo se consulta el commit remoto; si ya
+     * está en caché no se clona ni se parsea. El resumen describe el resultado
+     * (también cuando la plantilla no se pudo obtener).
+     */
+    public BaseCodeTemplate resolve(Long assignmentId, String repositoryUrl, AnalysisJob job,
+            PlagiarismDetectionResponse.BaseCodeSummary summary) throws IOException {
+        summary.setRepositoryUrl(repositoryUrl);
+        if (!gitService.isValidGitUrl(repositoryUrl)) {
+            summary.setMessage("URL de código base inválida");
+            return null;
+        }
+
+        String commit = gitService.resolveRemoteHead(repositoryUrl);
+        if (commit == null) {
+            summary.setMessage("No se pudo consultar el repositorio de código base");
+            return null;
+        }
+        summary.setCommit(commit);
+
+        String key = cacheKey(assignmentId, repositoryUrl, commit);
+        BaseCodeTemplate template;
+        synchronized (templates) {
+            template = templates.get(key);
+        }
+        if (template != null) {
+            summary.setCached(true);
+            describe(summary, template);
+            return template;
+        }
+
+        Path templateDirectory = templateDirectory(assignmentId, repositoryUrl, commit);
+        if (!Files.isDirectory(templateDirectory.resolve(SOURCES_DIRECTORY))) {
+            fetchSources(repositoryUrl, commit, templateDirectory, job);
+        }
+        template = parse(repositoryUrl, commit, templateDirectory.resolve(SOURCES_DIRECTORY));
+        synchronized (templates) {
+            templates.put(key, template);
+        }
+
+        logger.info("Base code for assignment {} at {} cached: {} files, {} tokens", assignmentId, commit,
+                template.getFileCount(), template.getTokenCount());
+        describe(summary, template);
+        return template;
+    }
+
+    /**
+     * Clona la plantilla y guarda sólo sus archivos .java en el directorio de la
+     * caché. El directorio final se publica con un rename atómico.
+     */
+    private void fetchSources(String repositoryUrl, String commit, Path templateDirectory, AnalysisJob job)
+            throws IOException {
+        Path stagingDirectory = templateDirectory.resolveSibling(".tmp-" + UUID.randomUUID());
+        Path cloneDirectory = stagingDirectory.resolve("clone");
+        try {
+            Files.createDirectories(stagingDirectory);
+            if (!gitService.cloneRepository(repositoryUrl, cloneDirectory, job)) {
+                throw new IOException("Failed to clone base code repository: " + repositoryUrl);
+            }
+            String clonedCommit = gitService.resolveLocalHead(cloneDirectory);
+            if (!commit.equals(clonedCommit)) {
+                throw new IOException("Base code repository moved from " + commit + " to " + clonedCommit
+                        + " while cloning");
+            }
+
+            SourceManifest manifest = SourceManifest.scan(cloneDirectory);
+            Path sourcesDirectory = stagingDirectory.resolve(SOURCES_DIRECTORY);
+            for (Path relativePath : manifest.getFiles()) {
+                Path target = sourcesDirectory.resolve(relativePath);
+                Files.createDirectories(target.getParent());
+                Files.copy(cloneDirectory.resolve(relativePath), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.createDirectories(sourcesDirectory);
+            deleteRecursively(cloneDirectory);
+
+            Files.createDirectories(templateDirectory.getParent());
+            try {
+                Files.move(stagingDirectory, templateDirectory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Otro análisis publicó la misma plantilla primero
+                if (!Files.isDirectory(templateDirectory.resolve(SOURCES_DIRECTORY))) {
+                    throw e;
+                }
+            }
+        } finally {
+            deleteRecursively(stagingDirectory);
+        }
+    }
+
+    private BaseCodeTemplate parse(String repositoryUrl, String commit, Path sourcesDirectory) throws IOException {
+        List<File> files;
+        try (Stream<Path> paths = Files.walk(sourcesDirectory)) {
+            files = paths.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).sorted().toList();
+        }
+
+        Language language = new JavaLanguage();
+        try {
+            List<Token> tokens = files.isEmpty() ? List.of() : language.parse(new HashSet<>(files), false);
+            return new BaseCodeTemplate(repositoryUrl, commit, sourcesDirectory, files, tokens);
+        } catch (ParsingException e) {
+            throw new IOException("Failed to parse base code: " + e.getMessage(), e);
+        }
+    }
+
+    private void describe(PlagiarismDetectionResponse.BaseCodeSummary summary, BaseCodeTemplate template) {
+        summary.setApplied(true);
+        summary.setFiles(template.getFileCount());
+        summary.setTokens(template.getTokenCount());
+    }
+
+    private String cacheKey(Long assignmentId, String repositoryUrl, String commit) {
+        return assignmentId + "|" + repositoryUrl + "|" + commit;
+    }
+
+    private Path templateDirectory(Long assignmentId, String repositoryUrl, String commit) {
+        String urlHash = Integer.toHexString(repositoryUrl.hashCode());
+        return Paths.get(cacheDirectory).toAbsolutePath().normalize()
+                .resolve(assignmentId != null ? "assignment-" + assignmentId : "shared")
+                .resolve(urlHash + "-" + commit);
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.debug("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.eci.iagen.jplag_service.service.cluster;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Agrupa entregas con union-find sobre los pares con similitud mayor o igual
+ * al umbral. Los pares se agregan de a uno y en cualquier orden (p.ej. a
+ * medida que terminan las comparaciones) y los grupos se pueden leer en
+ * cualquier momento. Cada par cuesta O(α(n)) y los agregados de cada grupo se
+ * mantienen en su raíz, así que el costo total es casi lineal en la cantidad
+ * de pares sobre el umbral.
+ */
+public class SimilarityClusterer {
+
+    private final double threshold;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Long> submissionIds = new ArrayList<>();
+    private final List<String> teams = new ArrayList<>();
+
+    private int[] parent = new int[16];
+    private int[] rank = new int[16];
+    private int[] edges = new int[16];
+    private double[] similaritySum = new double[16];
+    private double[] maxSimilarity = new double[16];
+    private int totalEdges;
+
+    public SimilarityClusterer(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Agrega un par comparado. Retorna false si queda bajo el umbral.
+     */
+    public boolean addEdge(String first, Long firstId, String firstTeam, String second, Long secondId,
+            String secondTeam, double similarity) {
+        if (similarity < threshold) {
+            return false;
+        }
+        int a = find(node(first, firstId, firstTeam));
+        int b = find(node(second, secondId, secondTeam));
+        int root = a == b ? a : union(a, b);
+        edges[root]++;
+        similaritySum[root] += similarity;
+        maxSimilarity[root] = Math.max(maxSimilarity[root], similarity);
+        totalEdges++;
+        return true;
+    }
+
+    /**
+     * Grupos de dos o más entregas, los más grandes (y luego los más
+     * similares) primero
+     */
+    public PlagiarismDetectionResponse.ClusteringSummary toSummary() {
+        Map<Integer, List<Integer>> membersByRoot = new HashMap<>();
+        for (int node = 0; node < names.size(); node++) {
+            membersByRoot.computeIfAbsent(find(node), root -> new ArrayList<>()).add(node);
+        }
+
+        List<PlagiarismDetectionResponse.SubmissionCluster> clusters = new ArrayList<>();
+        int clusteredSubmissions = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : membersByRoot.entrySet()) {
+            int root = entry.getKey();
+            List<Integer> members = entry.getValue();
+            if (members.size() < 2) {
+                continue;
+            }
+            members.sort(Comparator.comparing(names::get));
+
+            PlagiarismDetectionResponse.SubmissionCluster cluster = new PlagiarismDetectionResponse.SubmissionCluster();
+            cluster.setSize(members.size());
+            cluster.setSubmissions(members.stream().map(names::get).toList());
+            cluster.setSubmissionIds(members.stream().map(submissionIds::get).toList());
+            TreeSet<String> clusterTeams = new TreeSet<>();
+            for (int member : members) {
+                if (teams.get(member) != null) {
+                    clusterTeams.add(teams.get(member));
+                }
+            }
+            cluster.setTeams(new ArrayList<>(clusterTeams));
+            cluster.setEdges(edges[root]);
+            cluster.setAverageSimilarity(similaritySum[root] / edges[root]);
+            cluster.setMaxSimilarity(maxSimilarity[root]);
+            long possibleEdges = (long) members.size() * (members.size() - 1) / 2;
+            cluster.setDensity(Math.min(1.0, (double) edges[root] / possibleEdges));
+            clusters.add(cluster);
+            clusteredSubmissions += members.size();
+        }
+
+        clusters.sort(Comparator
+                .comparingInt(PlagiarismDetectionResponse.SubmissionCluster::getSize).reversed()
+                .thenComparing(Comparator.comparingDouble(
+                        PlagiarismDetectionResponse.SubmissionCluster::getAverageSimilarity).reversed()));
+        for (int i = 0; i < clusters.size(); i++) {
+            clusters.get(i).setId(i + 1);
+        }
+
+        PlagiarismDetectionResponse.ClusteringSummary summary = new PlagiarismDetectionResponse.ClusteringSummary();
+        summary.setSimilarityThreshold(threshold);
+        summary.setEdges(totalEdges);
+        summary.setClusteredSubmissions(clusteredSubmissions);
+        summary.setClusters(clusters);
+        return summary;
+    }
+
+    private int node(String name, Long submissionId, String team) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int node = names.size();
+        if (node == parent.length) {
+            int capacity = node * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+            edges = Arrays.copyOf(edges, capacity);
+            similaritySum = Arrays.copyOf(similaritySum, capacity);
+            maxSimilarity = Arrays.copyOf(maxSimilarity, capacity);
+        }
+        parent[node] = node;
+        ids.put(name, node);
+        names.add(name);
+        submissionIds.add(submissionId);
+        teams.add(team);
+        return node;
+    }
+
+    private int find(int node) {
+        int root = node;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // Compresión de caminos
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Une dos raíces por rango y acumula los agregados en la nueva raíz
+     */
+    private int union(int a, int b) {
+        if (rank[a] < rank[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        if (rank[a] == rank[b]) {
+            rank[a]++;
+        }
+        edges[a] += edges[b];
+        similaritySum[a] += similaritySum[b];
+        maxSimilarity[a] = Math.max(maxSimilarity[a], maxSimilarity[b]);
+        return a;
+    }
+}
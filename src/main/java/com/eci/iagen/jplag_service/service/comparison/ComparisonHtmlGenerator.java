@@ -5,12 +5,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.eci.iagen.jplag_service.service.job.AnalysisProgress;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -31,8 +35,20 @@ public class ComparisonHtmlGenerator {
      * 
      * @param reportDir El directorio del reporte JPlag
      * @param sessionId ID de la sesión para identificar el reporte
+     * @param registry  Entregas del análisis; null si el reporte se regenera
+     *                  desde disco, y entonces el id sale del nombre del
+     *                  directorio
      */
-    public void generateComparisonHtmlFiles(Path reportDir, String sessionId) {
+    public void generateComparisonHtmlFiles(Path reportDir, String sessionId, SubmissionRegistry registry) {
+        generateComparisonHtmlFiles(reportDir, sessionId, registry, null);
+    }
+
+    /**
+     * Igual que {@link #generateComparisonHtmlFiles(Path, String, SubmissionRegistry)},
+     * contando las páginas escritas en el progreso del análisis (puede ser null)
+     */
+    public void generateComparisonHtmlFiles(Path reportDir, String sessionId, SubmissionRegistry registry,
+            AnalysisProgress progress) {
         try {
             // Usar directorio independiente organizado por sessionId
             Path baseComparationDir = java.nio.file.Paths.get(comparationDirectory).toAbsolutePath().normalize();
@@ -48,15 +64,23 @@ public class ComparisonHtmlGenerator {
             }
 
             // Procesar todos los archivos JSON de comparación
-            Files.list(comparisonsDir)
-                    .filter(path -> path.toString().endsWith(".json"))
-                    .forEach(comparisonFile -> {
-                        try {
-                            generateSingleComparisonHtml(comparisonFile, sessionComparationDir, sessionId);
-                        } catch (Exception e) {
-                            logger.error("Error generating HTML for comparison file: {}", comparisonFile, e);
-                        }
-                    });
+            List<Path> comparisonFiles;
+            try (Stream<Path> files = Files.list(comparisonsDir)) {
+                comparisonFiles = files.filter(path -> path.toString().endsWith(".json")).toList();
+            }
+            if (progress != null) {
+                progress.setHtmlPagesTotal(comparisonFiles.size());
+            }
+            for (Path comparisonFile : comparisonFiles) {
+                try {
+                    generateSingleComparisonHtml(comparisonFile, sessionComparationDir, sessionId, registry);
+                    if (progress != null) {
+                        progress.htmlPageWritten();
+                    }
+                } catch (Exception e) {
+                    logger.error("Error generating HTML for comparison file: {}", comparisonFile, e);
+                }
+            }
 
             logger.info("Generated comparison HTML files in: {}", sessionComparationDir);
 
@@ -68,8 +92,8 @@ public class ComparisonHtmlGenerator {
     /**
      * Genera un archivo HTML individual para una comparación específica
      */
-    private void generateSingleComparisonHtml(Path comparisonFile, Path outputDir, String sessionId)
-            throws IOException {
+    private void generateSingleComparisonHtml(Path comparisonFile, Path outputDir, String sessionId,
+            SubmissionRegistry registry) throws IOException {
         // Leer el archivo JSON de comparación
         String jsonContent = Files.readString(comparisonFile);
         JsonNode comparisonData = objectMapper.readTree(jsonContent);
@@ -80,10 +104,15 @@ public class ComparisonHtmlGenerator {
         JsonNode similarities = comparisonData.get("similarities");
         JsonNode matches = comparisonData.get("matches");
 
-        // Extraer solo los IDs numéricos de los nombres de directorio
-        // Los nombres vienen como "submission_19_team_17", queremos solo "19"
-        String numericId1 = extractNumericId(firstSubmissionId);
-        String numericId2 = extractNumericId(secondSubmissionId);
+        // Ids de entrega de los nombres de directorio ("submission_19_team_17" -> 19), como en los enlaces
+        // comparisonHtmlUrl; sin id (p.ej. una entrega histórica) la página no se enlaza y no se genera
+        Long numericId1 = submissionId(firstSubmissionId, registry);
+        Long numericId2 = submissionId(secondSubmissionId, registry);
+        if (numericId1 == null || numericId2 == null) {
+            logger.debug("Skipping comparison page without submission ids: {} - {}", firstSubmissionId,
+                    secondSubmissionId);
+            return;
+        }
 
         // Generar el contenido HTML
         String htmlContent = generateHtmlContent(
@@ -461,30 +490,17 @@ public class ComparisonHtmlGenerator {
     }
 
     /**
-     * Extrae el ID numérico de un nombre de directorio de submission
-     * Ejemplo: "submission_19_team_17" -> "19"
+     * Id de entrega de un nombre de JPlag: búsqueda exacta del directorio en
+     * el registro o, si no está, el id codificado en el nombre. Con varios
+     * roots JPlag antepone el root, así que se usa el último segmento.
      */
-    private String extractNumericId(String submissionName) {
+    private static Long submissionId(String submissionName, SubmissionRegistry registry) {
         if (submissionName == null) {
-            return "unknown";
-        }
-
-        // Buscar patrón submission_XX_team_YY
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("submission_(\\d+)_team_\\d+");
-        java.util.regex.Matcher matcher = pattern.matcher(submissionName);
-
-        if (matcher.find()) {
-            return matcher.group(1); // Retorna el primer grupo capturado (el ID de submission)
-        }
-
-        // Si no encuentra el patrón, intentar extraer cualquier número
-        pattern = java.util.regex.Pattern.compile("(\\d+)");
-        matcher = pattern.matcher(submissionName);
-        if (matcher.find()) {
-            return matcher.group(1);
+            return null;
         }
-
-        // Si no encuentra números, retornar el nombre original
-        return submissionName;
+        String directoryName = submissionName.substring(
+                Math.max(submissionName.lastIndexOf('/'), submissionName.lastIndexOf('\\')) + 1);
+        return registry != null ? registry.submissionId(directoryName)
+                : SubmissionRegistry.parseSubmissionId(directoryName);
     }
 }
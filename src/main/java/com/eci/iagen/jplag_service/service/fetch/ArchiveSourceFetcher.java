@@ -0,0 +1,255 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.CloneProgressMonitor;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import com.eci.iagen.jplag_service.service.workspace.ZipExtractor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Descarga el snapshot de HEAD como ZIP (zipball) en lugar de clonar el
+ * historial completo. El ZIP se descomprime a medida que llega, sin archivo
+ * intermedio, y sólo se escriben los fuentes. La URL del archivo sale de la
+ * plantilla configurada para el host del repositorio
+ * (jplag.fetch.archive.url-templates), con los marcadores {scheme},
+ * {authority}, {path} (owner/repo sin .git), {encodedPath} y {name}. Tanto
+ * los bytes descargados como los extraídos se limitan a
+ * jplag.limits.max-repository-size-mb.
+ */
+@Component
+public class ArchiveSourceFetcher implements SourceFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveSourceFetcher.class);
+    public static final String NAME = "archive";
+
+    @Autowired
+    private SubmissionLimits submissionLimits;
+
+    @Value("${jplag.fetch.archive.url-templates:}")
+    private String urlTemplates;
+
+    @Value("${jplag.fetch.archive.max-concurrent:10}")
+    private int maxConcurrentDownloads;
+
+    @Value("${git.clone.timeout.seconds:60}")
+    private int timeoutSeconds;
+
+    @Value("${git.clone.max-duration.seconds:600}")
+    private long maxDurationSeconds;
+
+    private Map<String, String> templatesByHost;
+    private HttpClient httpClient;
+    private Semaphore downloadPermits;
+
+    @PostConstruct
+    public void init() {
+        templatesByHost = SourceFetcherSelector.parseHostMap(urlTemplates);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(timeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        downloadPermits = new Semaphore(Math.max(1, maxConcurrentDownloads), true);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(String repositoryUrl) {
+        return archiveUrl(repositoryUrl) != null;
+    }
+
+    @Override
+    public boolean fetch(String repositoryUrl, Path targetPath, AnalysisJob job) throws LimitExceededException {
+        String archiveUrl = archiveUrl(repositoryUrl);
+        if (archiveUrl == null) {
+            logger.warn("No archive URL configured for repository: {}", repositoryUrl);
+            return false;
+        }
+        if (Files.exists(targetPath)) {
+            logger.warn("Target directory already exists: {}", targetPath);
+            return false;
+        }
+
+        try {
+            downloadPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting to download archive: {}", archiveUrl);
+            return false;
+        }
+
+        // Mismas condiciones de aborto que un clon: cancelación, interrupción y duración máxima
+        CloneProgressMonitor monitor = new CloneProgressMonitor(job, maxDurationSeconds);
+        logger.info("Downloading archive: {} to {}", archiveUrl, targetPath);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(archiveUrl))
+                    .timeout(Duration.ofSeconds(timeoutSeconds))
+                    .header("User-Agent", "jplag-service")
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long maxBytes = submissionLimits.getMaxRepositoryBytes();
+            try (InputStream body = new MonitoredInputStream(response.body(), monitor, maxBytes)) {
+                if (response.statusCode() != 200) {
+                    logger.warn("Archive download of {} failed: HTTP {}", archiveUrl, response.statusCode());
+                    return false;
+                }
+                ZipExtractor.Summary summary = ZipExtractor.extract(body, targetPath, SourceManifest::isSourcePath,
+                        maxBytes, ZipExtractor.UNLIMITED_ENTRIES);
+                if (job != null) {
+                    job.getProgress().addFilesCheckedOut(summary.getFiles());
+                }
+                logger.info("Downloaded archive of {}: {} source files ({} KB), skipped {} entries", repositoryUrl,
+                        summary.getFiles(), summary.getBytes() / 1024, summary.getSkippedEntries());
+                return true;
+            }
+        } catch (LimitExceededException e) {
+            logger.error("Archive download of {} aborted: {}", archiveUrl, e.getMessage());
+            discard(targetPath);
+            throw e;
+        } catch (IOException | IllegalArgumentException e) {
+            if (monitor.isTimedOut()) {
+                logger.error("Archive download of {} exceeded {} seconds and was aborted", archiveUrl,
+                        maxDurationSeconds);
+            } else {
+                logger.error("Failed to download archive: {} - {}", archiveUrl, e.getMessage());
+            }
+            discard(targetPath);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while downloading archive: {}", archiveUrl);
+            discard(targetPath);
+            return false;
+        } finally {
+            downloadPermits.release();
+        }
+    }
+
+    /**
+     * URL del archivo de HEAD para un repositorio, o null si su host no tiene
+     * plantilla
+     */
+    String archiveUrl(String repositoryUrl) {
+        URI uri;
+        try {
+            uri = URI.create(repositoryUrl.trim());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        if (uri.getHost() == null
+                || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            return null;
+        }
+        String template = templatesByHost.get(uri.getRawAuthority().toLowerCase());
+        if (template == null) {
+            template = templatesByHost.get(uri.getHost().toLowerCase());
+        }
+
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.endsWith(".git")) {
+            path = path.substring(0, path.length() - 4);
+        }
+        if (template == null || path.isEmpty() || Arrays.asList(path.split("/")).contains("..")) {
+            return null;
+        }
+
+        return template.replace("{scheme}", uri.getScheme())
+                .replace("{authority}", uri.getRawAuthority())
+                .replace("{path}", path)
+                .replace("{encodedPath}", URLEncoder.encode(path, StandardCharsets.UTF_8))
+                .replace("{name}", path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private void discard(Path targetPath) {
+        try {
+            FileSystemUtils.deleteRecursively(targetPath);
+        } catch (IOException e) {
+            logger.warn("Could not delete partial download {}: {}", targetPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Aborta la lectura del archivo cuando el análisis se cancela, se supera
+     * la duración máxima o se descargan más de maxBytes
+     */
+    private static final class MonitoredInputStream extends FilterInputStream {
+
+        private final CloneProgressMonitor monitor;
+        private final long maxBytes;
+        private long bytesRead;
+
+        MonitoredInputStream(InputStream input, CloneProgressMonitor monitor, long maxBytes) {
+            super(input);
+            this.monitor = monitor;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkCancelled();
+            int value = super.read();
+            if (value != -1) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            checkCancelled();
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws LimitExceededException {
+            bytesRead += read;
+            if (bytesRead > maxBytes) {
+                throw new LimitExceededException(SubmissionLimits.REPOSITORY_SIZE, bytesRead, maxBytes);
+            }
+        }
+
+        private void checkCancelled() throws InterruptedIOException {
+            if (monitor.isCancelled()) {
+                throw new InterruptedIOException(monitor.isTimedOut() ? "Download timed out" : "Download cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.GitService;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Clon completo con JGit: sirve para cualquier repositorio accesible por Git
+ */
+@Component
+public class GitSourceFetcher implements SourceFetcher {
+
+    public static final String NAME = "git";
+
+    @Autowired
+    private GitService gitService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(String repositoryUrl) {
+        return true;
+    }
+
+    @Override
+    public boolean fetch(String repositoryUrl, Path targetPath, AnalysisJob job) throws LimitExceededException {
+        return gitService.cloneRepository(repositoryUrl, targetPath, job);
+    }
+}
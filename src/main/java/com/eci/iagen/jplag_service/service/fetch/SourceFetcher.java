@@ -0,0 +1,31 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+
+import java.nio.file.Path;
+
+/**
+ * Estrategia para traer las fuentes de un repositorio a un directorio del
+ * workspace. {@link SourceFetcherSelector} elige la estrategia según el host.
+ */
+public interface SourceFetcher {
+
+    /**
+     * Nombre de la estrategia en jplag.fetch.strategies
+     */
+    String getName();
+
+    /**
+     * Indica si la estrategia sabe traer ese repositorio (p.ej. si hay una
+     * URL de archivo configurada para su host)
+     */
+    boolean supports(String repositoryUrl);
+
+    /**
+     * Trae las fuentes a targetPath, que no debe existir. Retorna false si no
+     * se pudo; el análisis puede cancelarlo mediante job. Lanza
+     * {@link LimitExceededException} si el repositorio supera los límites.
+     */
+    boolean fetch(String repositoryUrl, Path targetPath, AnalysisJob job) throws LimitExceededException;
+}
@@ -0,0 +1,113 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elige por host cómo traer cada repositorio (jplag.fetch.strategies, p.ej.
+ * github.com=archive) y, si la estrategia elegida falla, reintenta con un
+ * clon de Git
+ */
+@Service
+public class SourceFetcherSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceFetcherSelector.class);
+
+    @Autowired
+    private List<SourceFetcher> fetchers;
+
+    @Autowired
+    private GitSourceFetcher gitFetcher;
+
+    @Value("${jplag.fetch.strategies:}")
+    private String strategies;
+
+    @Value("${jplag.fetch.default-strategy:git}")
+    private String defaultStrategy;
+
+    @Value("${jplag.fetch.fallback-to-git:true}")
+    private boolean fallbackToGit;
+
+    private final Map<String, SourceFetcher> fetchersByName = new HashMap<>();
+    private Map<String, String> strategiesByHost;
+
+    @PostConstruct
+    public void init() {
+        fetchers.forEach(fetcher -> fetchersByName.put(fetcher.getName(), fetcher));
+        strategiesByHost = parseHostMap(strategies);
+        strategiesByHost.forEach((host, strategy) -> {
+            if (!fetchersByName.containsKey(strategy)) {
+                logger.warn("Unknown fetch strategy '{}' for host {}, using {}", strategy, host, defaultStrategy);
+            }
+        });
+        logger.info("Source fetch strategies: {} (default {})", strategiesByHost, defaultStrategy);
+    }
+
+    /**
+     * Estrategia para un repositorio: la del host (o host:puerto), la de
+     * jplag.fetch.default-strategy o, si no sabe traerlo, Git
+     */
+    public SourceFetcher select(String repositoryUrl) {
+        String strategy = null;
+        try {
+            URI uri = URI.create(repositoryUrl.trim());
+            if (uri.getRawAuthority() != null) {
+                strategy = strategiesByHost.get(uri.getRawAuthority().toLowerCase());
+            }
+            if (strategy == null && uri.getHost() != null) {
+                strategy = strategiesByHost.get(uri.getHost().toLowerCase());
+            }
+        } catch (IllegalArgumentException e) {
+            // URLs tipo scp (git@host:repo) no son URIs: se clonan con Git
+        }
+        SourceFetcher fetcher = fetchersByName.get(strategy != null ? strategy : defaultStrategy);
+        return fetcher != null && fetcher.supports(repositoryUrl) ? fetcher : gitFetcher;
+    }
+
+    /**
+     * Trae las fuentes de un repositorio con la estrategia de su host. Un
+     * repositorio que supera los límites no se reintenta con Git.
+     */
+    public boolean fetch(String repositoryUrl, Path targetPath, AnalysisJob job) throws LimitExceededException {
+        SourceFetcher fetcher = select(repositoryUrl);
+        if (fetcher.fetch(repositoryUrl, targetPath, job)) {
+            return true;
+        }
+        if (fallbackToGit && fetcher != gitFetcher && (job == null || !job.isCancelled())) {
+            logger.warn("Fetching {} with strategy '{}' failed, falling back to git clone", repositoryUrl,
+                    fetcher.getName());
+            return gitFetcher.fetch(repositoryUrl, targetPath, job);
+        }
+        return false;
+    }
+
+    /**
+     * Lee una lista "host=valor,host2=valor2" (hosts en minúsculas)
+     */
+    static Map<String, String> parseHostMap(String value) {
+        Map<String, String> map = new LinkedHashMap<>();
+        if (value == null) {
+            return map;
+        }
+        for (String pair : value.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                map.put(pair.substring(0, separator).trim().toLowerCase(), pair.substring(separator + 1).trim());
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,382 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import de.jplag.JPlagResult;
+import de.jplag.Language;
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.java.JavaLanguage;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Corpus histórico de entregas de semestres anteriores. Cada análisis completo
+ * archiva, por clave de tarea, las fuentes y las huellas (winnowing) de sus
+ * entregas. Los análisis siguientes con la misma clave buscan en el índice
+ * invertido de huellas y sólo las entregas históricas más parecidas entran a
+ * la comparación completa de JPlag como "old submissions". Está deshabilitado
+ * por defecto, sólo se usa con un historyKey explícito y las entradas más
+ * antiguas que retention-days se borran.
+ */
+@Service
+public class HistoricalCorpusIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalCorpusIndex.class);
+    private static final String SUBMISSIONS_DIRECTORY = "submissions";
+    private static final String FINGERPRINTS_DIRECTORY = "fingerprints";
+    private static final String FINGERPRINT_SUFFIX = ".fp";
+
+    @Value("${jplag.history.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jplag.history.directory:./history}")
+    private String historyDirectory;
+
+    @Value("${jplag.history.retention-days:730}")
+    private long retentionDays;
+
+    @Value("${jplag.history.kgram-size:8}")
+    private int kgramSize;
+
+    @Value("${jplag.history.window-size:5}")
+    private int windowSize;
+
+    @Value("${jplag.history.min-score:0.2}")
+    private double minScore;
+
+    @Value("${jplag.history.candidates-per-submission:3}")
+    private int candidatesPerSubmission;
+
+    @Value("${jplag.history.max-candidates:50}")
+    private int maxCandidates;
+
+    private final Map<String, KeyIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Borra al arrancar las entradas vencidas de todas las claves
+     */
+    @PostConstruct
+    public void init() {
+        Path baseDirectory = Paths.get(historyDirectory).toAbsolutePath().normalize();
+        if (!enabled || !Files.isDirectory(baseDirectory)) {
+            return;
+        }
+        try (Stream<Path> keys = Files.list(baseDirectory)) {
+            keys.filter(Files::isDirectory)
+                    .forEach(directory -> sweepExpired(directory.getFileName().toString()));
+        } catch (IOException e) {
+            logger.warn("Error sweeping history in {}: {}", baseDirectory, e.getMessage());
+        }
+    }
+
+    /**
+     * Clave del corpus para una solicitud: su historyKey. Retorna null si el
+     * corpus está deshabilitado o la solicitud no trae clave; el título de la
+     * tarea no sirve de clave porque se repite entre cursos distintos.
+     */
+    public String resolveKey(PlagiarismDetectionRequest request) {
+        if (!enabled || Boolean.FALSE.equals(request.getHistoryEnabled())) {
+            return null;
+        }
+        return request.getHistoryKey();
+    }
+
+    /**
+     * Busca en el índice las entregas históricas más parecidas a las de la
+     * cohorte y copia sus fuentes bajo candidatesRoot. Retorna los directorios
+     * a usar como "old submissions" de JPlag (vacío si no hay candidatos).
+     */
+    public Set<File> selectCandidates(String key, Long assignmentId, Path analysisRoot, Path candidatesRoot,
+            AnalysisJob job) throws IOException {
+        if (key == null) {
+            return Set.of();
+        }
+
+        long start = System.currentTimeMillis();
+        // Las entregas de esta misma tarea (análisis anteriores) no cuentan
+        long excludedAssignmentId = assignmentId != null ? assignmentId : Long.MIN_VALUE;
+        KeyIndex keyIndex = index(key);
+        long archivedSubmissions = keyIndex.entries.stream()
+                .filter(entry -> entry.getAssignmentId() != excludedAssignmentId)
+                .count();
+        if (archivedSubmissions == 0) {
+            job.setHistorySummary(summary(key, 0, 0, System.currentTimeMillis() - start));
+            return Set.of();
+        }
+
+        List<Path> submissionDirectories;
+        try (Stream<Path> children = Files.list(analysisRoot)) {
+            submissionDirectories = children.filter(Files::isDirectory).toList();
+        }
+
+        Language language = new JavaLanguage();
+        Map<HistoricalEntry, Double> bestScores = new HashMap<>();
+        submissionDirectories.parallelStream()
+                .map(directory -> {
+                    job.checkCancelled();
+                    return keyIndex.topMatches(fingerprintDirectory(language, directory), excludedAssignmentId,
+                            minScore, candidatesPerSubmission);
+                })
+                .toList()
+                .forEach(matches -> matches.forEach((entry, score) -> bestScores.merge(entry, score, Math::max)));
+
+        List<HistoricalEntry> candidates = bestScores.entrySet().stream()
+                .sorted(Map.Entry.<HistoricalEntry, Double>comparingByValue().reversed())
+                .limit(maxCandidates)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        for (HistoricalEntry candidate : candidates) {
+            copyDirectory(keyDirectory(key).resolve(SUBMISSIONS_DIRECTORY).resolve(candidate.getName()),
+                    candidatesRoot.resolve(candidate.getName()));
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("History '{}': {} of {} archived submissions selected for comparison in {} ms", key,
+                candidates.size(), archivedSubmissions, elapsed);
+        job.setHistorySummary(summary(key, archivedSubmissions, candidates.size(), elapsed));
+        return candidates.isEmpty() ? Set.of() : Set.of(candidatesRoot.toFile());
+    }
+
+    /**
+     * Archiva las entregas de la cohorte de un análisis terminado. Las huellas
+     * se calculan con los tokens que JPlag ya generó; volver a analizar la misma
+     * tarea reemplaza sus entradas.
+     */
+    public void archive(String key, Long assignmentId, JPlagResult result, SubmissionRegistry registry) {
+        if (key == null || assignmentId == null) {
+            return;
+        }
+
+        Path keyDirectory = keyDirectory(key);
+        int archived = 0;
+        try {
+            Files.createDirectories(keyDirectory.resolve(SUBMISSIONS_DIRECTORY));
+            Files.createDirectories(keyDirectory.resolve(FINGERPRINTS_DIRECTORY));
+
+            for (Submission submission : result.getSubmissions().getSubmissions()) {
+                // Con varios roots JPlag antepone el root al nombre; se usa el directorio
+                SubmissionDto dto = registry.find(submission.getRoot().getName());
+                if (!submission.isNew() || dto == null) {
+                    continue;
+                }
+
+                String name = HistoricalEntry.entryName(assignmentId, dto.getSubmissionId(), dto.getTeamId());
+                int[] fingerprints = WinnowingFingerprinter.fingerprint(submission.getTokenList(), kgramSize,
+                        windowSize);
+
+                Path sourcesDirectory = keyDirectory.resolve(SUBMISSIONS_DIRECTORY).resolve(name);
+                deleteDirectory(sourcesDirectory);
+                copyDirectory(submission.getRoot().toPath(), sourcesDirectory);
+                new HistoricalEntry(name, assignmentId, dto.getSubmissionId(), dto.getTeamId(), dto.getTeamName(),
+                        System.currentTimeMillis(), fingerprints)
+                        .write(keyDirectory.resolve(FINGERPRINTS_DIRECTORY).resolve(name + FINGERPRINT_SUFFIX));
+                archived++;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to archive submissions into history '{}': {}", key, e.getMessage());
+        } finally {
+            sweepExpired(key);
+            indexes.remove(key);
+        }
+        logger.info("Archived {} submissions into history '{}'", archived, key);
+    }
+
+    /**
+     * Borra las huellas y las fuentes de las entradas de una clave archivadas
+     * hace más de retention-days
+     */
+    void sweepExpired(String key) {
+        Path fingerprintsDirectory = keyDirectory(key).resolve(FINGERPRINTS_DIRECTORY);
+        if (!Files.isDirectory(fingerprintsDirectory)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - Duration.ofDays(retentionDays).toMillis();
+        int removed = 0;
+        try (Stream<Path> files = Files.list(fingerprintsDirectory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(FINGERPRINT_SUFFIX)).toList()) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - FINGERPRINT_SUFFIX.length());
+                try {
+                    if (HistoricalEntry.read(file, name).getArchivedAtMillis() < cutoff) {
+                        deleteDirectory(keyDirectory(key).resolve(SUBMISSIONS_DIRECTORY).resolve(name));
+                        Files.deleteIfExists(file);
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not check history entry {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Error sweeping history '{}': {}", key, e.getMessage());
+        }
+        if (removed > 0) {
+            indexes.remove(key);
+            logger.info("Removed {} expired submissions from history '{}'", removed, key);
+        }
+    }
+
+    /**
+     * Entrada histórica por nombre, o null si no existe
+     */
+    public HistoricalEntry findEntry(String key, String name) {
+        return key == null ? null : index(key).entriesByName.get(name);
+    }
+
+    private KeyIndex index(String key) {
+        return indexes.computeIfAbsent(key, this::loadIndex);
+    }
+
+    private KeyIndex loadIndex(String key) {
+        Path fingerprintsDirectory = keyDirectory(key).resolve(FINGERPRINTS_DIRECTORY);
+        List<HistoricalEntry> entries = new ArrayList<>();
+        if (Files.isDirectory(fingerprintsDirectory)) {
+            try (Stream<Path> files = Files.list(fingerprintsDirectory)) {
+                for (Path file : files.filter(path -> path.toString().endsWith(FINGERPRINT_SUFFIX)).toList()) {
+                    String fileName = file.getFileName().toString();
+                    try {
+                        entries.add(HistoricalEntry.read(file,
+                                fileName.substring(0, fileName.length() - FINGERPRINT_SUFFIX.length())));
+                    } catch (IOException e) {
+                        logger.warn("Skipping unreadable fingerprint file {}: {}", file, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to load history '{}': {}", key, e.getMessage());
+            }
+        }
+        logger.info("Loaded history '{}' with {} archived submissions", key, entries.size());
+        return new KeyIndex(entries);
+    }
+
+    private int[] fingerprintDirectory(Language language, Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Set<File> files = paths.filter(path -> path.toString().endsWith(".java"))
+                    .map(Path::toFile)
+                    .collect(Collectors.toCollection(HashSet::new));
+            List<Token> tokens = files.isEmpty() ? List.of() : language.parse(files, false);
+            return WinnowingFingerprinter.fingerprint(tokens, kgramSize, windowSize);
+        } catch (Exception e) {
+            logger.warn("Could not fingerprint {} for history lookup: {}", directory.getFileName(), e.getMessage());
+            return new int[0];
+        }
+    }
+
+    private Path keyDirectory(String key) {
+        return Paths.get(historyDirectory).toAbsolutePath().normalize().resolve(key);
+    }
+
+    private PlagiarismDetectionResponse.HistorySummary summary(String key, long archivedSubmissions,
+            int selectedCandidates, long lookupMillis) {
+        PlagiarismDetectionResponse.HistorySummary summary = new PlagiarismDetectionResponse.HistorySummary();
+        summary.setHistoryKey(key);
+        summary.setArchivedSubmissions(archivedSubmissions);
+        summary.setSelectedCandidates(selectedCandidates);
+        summary.setLookupMillis(lookupMillis);
+        return summary;
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.toList()) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(path, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Índice invertido huella -> entradas de una clave
+     */
+    private static final class KeyIndex {
+
+        private final List<HistoricalEntry> entries;
+        private final Map<String, HistoricalEntry> entriesByName = new HashMap<>();
+        private final Map<Integer, List<Integer>> postings = new HashMap<>();
+
+        KeyIndex(List<HistoricalEntry> entries) {
+            this.entries = entries;
+            for (int i = 0; i < entries.size(); i++) {
+                HistoricalEntry entry = entries.get(i);
+                entriesByName.put(entry.getName(), entry);
+                for (int fingerprint : entry.getFingerprints()) {
+                    postings.computeIfAbsent(fingerprint, hash -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        /**
+         * Entradas con mayor contención de huellas compartidas:
+         * compartidas / min(|A|, |B|)
+         */
+        Map<HistoricalEntry, Double> topMatches(int[] fingerprints, long excludedAssignmentId, double minScore,
+                int limit) {
+            if (fingerprints.length == 0) {
+                return Map.of();
+            }
+            int[] shared = new int[entries.size()];
+            for (int fingerprint : fingerprints) {
+                List<Integer> posting = postings.get(fingerprint);
+                if (posting != null) {
+                    posting.forEach(index -> shared[index]++);
+                }
+            }
+
+            Map<HistoricalEntry, Double> matches = new LinkedHashMap<>();
+            IntStream.range(0, shared.length)
+                    .filter(index -> shared[index] > 0
+                            && entries.get(index).getAssignmentId() != excludedAssignmentId)
+                    .boxed()
+                    .map(index -> Map.entry(entries.get(index), (double) shared[index]
+                            / Math.max(1, Math.min(fingerprints.length,
+                                    entries.get(index).getFingerprints().length))))
+                    .filter(match -> match.getValue() >= minScore)
+                    .sorted(Map.Entry.<HistoricalEntry, Double>comparingByValue().reversed())
+                    .limit(limit)
+                    .forEach(match -> matches.put(match.getKey(), match.getValue()));
+            return matches;
+        }
+    }
+}
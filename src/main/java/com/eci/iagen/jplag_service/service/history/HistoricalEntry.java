@@ -0,0 +1,117 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Entrega archivada en el corpus histórico: sus metadatos y sus huellas. Se
+ * guarda en un archivo binario .fp junto a una copia de sus fuentes.
+ */
+public class HistoricalEntry {
+
+    private static final int MAGIC = 0x4A504846;
+    private static final int VERSION = 1;
+
+    private final String name;
+    private final long assignmentId;
+    private final long submissionId;
+    private final long teamId;
+    private final String teamName;
+    private final long archivedAtMillis;
+    private final int[] fingerprints;
+
+    public HistoricalEntry(String name, long assignmentId, long submissionId, long teamId, String teamName,
+            long archivedAtMillis, int[] fingerprints) {
+        this.name = name;
+        this.assignmentId = assignmentId;
+        this.submissionId = submissionId;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.archivedAtMillis = archivedAtMillis;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Nombre de la entrada; no sigue el patrón submission_X_team_Y para no
+     * confundirse con las entregas de la cohorte actual
+     */
+    public static String entryName(long assignmentId, long submissionId, long teamId) {
+        return "history_a" + assignmentId + "_s" + submissionId + "_t" + teamId;
+    }
+
+    public void write(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(assignmentId);
+            out.writeLong(submissionId);
+            out.writeLong(teamId);
+            out.writeUTF(teamName != null ? teamName : "");
+            out.writeLong(archivedAtMillis);
+            out.writeInt(fingerprints.length);
+            for (int fingerprint : fingerprints) {
+                out.writeInt(fingerprint);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HistoricalEntry read(Path file, String name) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported fingerprint file: " + file);
+            }
+            long assignmentId = in.readLong();
+            long submissionId = in.readLong();
+            long teamId = in.readLong();
+            String teamName = in.readUTF();
+            long archivedAtMillis = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || (long) count * Integer.BYTES > Files.size(file)) {
+                throw new IOException("Corrupt fingerprint file: " + file);
+            }
+            int[] fingerprints = new int[count];
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = in.readInt();
+            }
+            return new HistoricalEntry(name, assignmentId, submissionId, teamId,
+                    teamName.isEmpty() ? null : teamName, archivedAtMillis, fingerprints);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public long getSubmissionId() {
+        return submissionId;
+    }
+
+    public long getTeamId() {
+        return teamId;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public long getArchivedAtMillis() {
+        return archivedAtMillis;
+    }
+
+    public int[] getFingerprints() {
+        return fingerprints;
+    }
+}
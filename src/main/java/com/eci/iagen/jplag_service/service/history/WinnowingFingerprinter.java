@@ -0,0 +1,60 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import de.jplag.Token;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Huellas por winnowing (Schleimer et al.) sobre k-gramas de tipos de token.
+ * Toda coincidencia de al menos k + w - 1 tokens comparte al menos una huella.
+ */
+public final class WinnowingFingerprinter {
+
+    private WinnowingFingerprinter() {
+    }
+
+    /**
+     * Retorna las huellas distintas de una lista de tokens, ordenadas
+     */
+    public static int[] fingerprint(List<Token> tokens, int kgramSize, int windowSize) {
+        if (tokens == null || tokens.size() < kgramSize) {
+            return new int[0];
+        }
+
+        int[] types = new int[tokens.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = tokens.get(i).getType().getDescription().hashCode();
+        }
+
+        int kgramCount = types.length - kgramSize + 1;
+        int[] kgrams = new int[kgramCount];
+        for (int start = 0; start < kgramCount; start++) {
+            int hash = 17;
+            for (int offset = 0; offset < kgramSize; offset++) {
+                hash = 31 * hash + types[start + offset];
+            }
+            kgrams[start] = hash ^ (hash >>> 16);
+        }
+
+        int[] selected = new int[kgramCount];
+        int selectedCount = 0;
+        int lastSelected = -1;
+        int window = Math.min(windowSize, kgramCount);
+        for (int start = 0; start + window <= kgramCount; start++) {
+            // Mínimo de la ventana; en empate se toma el de más a la derecha
+            int minimum = start;
+            for (int i = start + 1; i < start + window; i++) {
+                if (kgrams[i] <= kgrams[minimum]) {
+                    minimum = i;
+                }
+            }
+            if (minimum != lastSelected) {
+                selected[selectedCount++] = kgrams[minimum];
+                lastSelected = minimum;
+            }
+        }
+
+        return Arrays.stream(selected, 0, selectedCount).distinct().sorted().toArray();
+    }
+}
@@ -0,0 +1,20 @@
+package com.eci.iagen.jplag_service.service.job;
+
+/**
+ * Se lanza cuando un análisis en curso fue cancelado
+ */
+public class AnalysisCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String sessionId;
+
+    public AnalysisCancelledException(String sessionId) {
+        super("Analysis cancelled: " + sessionId);
+        this.sessionId = sessionId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+}
@@ -0,0 +1,181 @@
+package com.eci.iagen.jplag_service.service.job;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * Estado de un análisis en ejecución. La cancelación es cooperativa: el
+ * pipeline consulta {@link #checkCancelled()} entre etapas y por cada
+ * comparación, y las tareas de IO registradas se interrumpen.
+ */
+public class AnalysisJob {
+
+    private final String sessionId;
+    private final Long assignmentId;
+    private final Instant startedAt = Instant.now();
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+    private final AnalysisProgress progress = new AnalysisProgress();
+    private volatile boolean cancelled;
+    private volatile Instant deadline;
+    private volatile String stage = "created";
+    private volatile PlagiarismDetectionResponse.PrefilterSummary prefilterSummary;
+    private volatile PlagiarismDetectionResponse.HistorySummary historySummary;
+    private volatile PlagiarismDetectionResponse.DuplicateSummary duplicateSummary;
+    private volatile PlagiarismDetectionResponse.BaseCodeSummary baseCodeSummary;
+    private volatile PlagiarismDetectionResponse.TeamFilterSummary teamFilterSummary;
+    private volatile PlagiarismDetectionResponse.TuningSummary tuningSummary;
+    private volatile String callbackUrl;
+    private final List<PlagiarismDetectionResponse.LimitViolation> limitViolations = new CopyOnWriteArrayList<>();
+
+    public AnalysisJob(String sessionId, Long assignmentId) {
+        this.sessionId = sessionId;
+        this.assignmentId = assignmentId;
+        progress.enterStage(stage);
+    }
+
+    /**
+     * Marca el análisis como cancelado e interrumpe sus tareas pendientes
+     */
+    public void cancel() {
+        cancelled = true;
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    /**
+     * Lanza {@link AnalysisCancelledException} si el análisis fue cancelado
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new AnalysisCancelledException(sessionId);
+        }
+    }
+
+    public void trackTask(Future<?> task) {
+        tasks.add(task);
+        if (cancelled) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Indica si ya venció el plazo del análisis (si tiene uno)
+     */
+    public boolean isPastDeadline() {
+        Instant current = deadline;
+        return current != null && Instant.now().isAfter(current);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Plazo para las comparaciones; null para compararlas todas
+     */
+    public void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+        progress.enterStage(stage);
+    }
+
+    public AnalysisProgress getProgress() {
+        return progress;
+    }
+
+    public PlagiarismDetectionResponse.PrefilterSummary getPrefilterSummary() {
+        return prefilterSummary;
+    }
+
+    public void setPrefilterSummary(PlagiarismDetectionResponse.PrefilterSummary prefilterSummary) {
+        this.prefilterSummary = prefilterSummary;
+    }
+
+    public PlagiarismDetectionResponse.HistorySummary getHistorySummary() {
+        return historySummary;
+    }
+
+    public void setHistorySummary(PlagiarismDetectionResponse.HistorySummary historySummary) {
+        this.historySummary = historySummary;
+    }
+
+    public PlagiarismDetectionResponse.DuplicateSummary getDuplicateSummary() {
+        return duplicateSummary;
+    }
+
+    public void setDuplicateSummary(PlagiarismDetectionResponse.DuplicateSummary duplicateSummary) {
+        this.duplicateSummary = duplicateSummary;
+    }
+
+    public PlagiarismDetectionResponse.BaseCodeSummary getBaseCodeSummary() {
+        return baseCodeSummary;
+    }
+
+    public void setBaseCodeSummary(PlagiarismDetectionResponse.BaseCodeSummary baseCodeSummary) {
+        this.baseCodeSummary = baseCodeSummary;
+    }
+
+    public PlagiarismDetectionResponse.TeamFilterSummary getTeamFilterSummary() {
+        return teamFilterSummary;
+    }
+
+    public void setTeamFilterSummary(PlagiarismDetectionResponse.TeamFilterSummary teamFilterSummary) {
+        this.teamFilterSummary = teamFilterSummary;
+    }
+
+    public PlagiarismDetectionResponse.TuningSummary getTuningSummary() {
+        return tuningSummary;
+    }
+
+    public void setTuningSummary(PlagiarismDetectionResponse.TuningSummary tuningSummary) {
+        this.tuningSummary = tuningSummary;
+    }
+
+    /**
+     * URL a notificar cuando el análisis termina; null si no se pidió
+     */
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    /**
+     * Registra una entrega o archivo excluido por superar un límite de tamaño
+     */
+    public void addLimitViolation(PlagiarismDetectionResponse.LimitViolation violation) {
+        limitViolations.add(violation);
+    }
+
+    public List<PlagiarismDetectionResponse.LimitViolation> getLimitViolations() {
+        return List.copyOf(limitViolations);
+    }
+}
@@ -0,0 +1,60 @@
+package com.eci.iagen.jplag_service.service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de los análisis en ejecución, indexados por sessionId
+ */
+@Service
+public class AnalysisJobRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobRegistry.class);
+
+    private final Map<String, AnalysisJob> runningJobs = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un nuevo análisis. Retorna null si ya hay uno con el mismo
+     * sessionId en ejecución.
+     */
+    public AnalysisJob register(String sessionId, Long assignmentId) {
+        AnalysisJob job = new AnalysisJob(sessionId, assignmentId);
+        if (runningJobs.putIfAbsent(sessionId, job) != null) {
+            logger.warn("Analysis already running for session: {}", sessionId);
+            return null;
+        }
+        return job;
+    }
+
+    public void unregister(AnalysisJob job) {
+        runningJobs.remove(job.getSessionId(), job);
+    }
+
+    public AnalysisJob get(String sessionId) {
+        return runningJobs.get(sessionId);
+    }
+
+    /**
+     * Solicita la cancelación de un análisis en ejecución
+     */
+    public boolean cancel(String sessionId) {
+        AnalysisJob job = runningJobs.get(sessionId);
+        if (job == null) {
+            return false;
+        }
+
+        logger.info("Cancelling analysis for session: {} (stage: {})", sessionId, job.getStage());
+        job.cancel();
+        return true;
+    }
+
+    public List<AnalysisJob> getRunningJobs() {
+        return new ArrayList<>(runningJobs.values());
+    }
+}
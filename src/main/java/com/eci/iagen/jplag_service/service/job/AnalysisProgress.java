@@ -0,0 +1,189 @@
+package com.eci.iagen.jplag_service.service.job;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de progreso de un análisis y el historial de sus etapas. Las
+ * etapas del pipeline sólo incrementan contadores atómicos; quien publica el
+ * progreso lee instantáneas con {@link #toMap()} cuando lo necesita.
+ */
+public class AnalysisProgress {
+
+    private final long startedAtNanos = System.nanoTime();
+    private final List<StageTransition> stages = new ArrayList<>();
+
+    private final AtomicInteger repositoriesTotal = new AtomicInteger();
+    private final AtomicInteger repositoriesCloned = new AtomicInteger();
+    private final AtomicInteger repositoriesFailed = new AtomicInteger();
+    private final AtomicLong objectsReceived = new AtomicLong();
+    private final AtomicLong filesCheckedOut = new AtomicLong();
+    private final AtomicInteger filesTotal = new AtomicInteger();
+    private final AtomicInteger filesTokenized = new AtomicInteger();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicInteger comparisonsTotal = new AtomicInteger();
+    private final AtomicInteger comparisonsCompleted = new AtomicInteger();
+    private final AtomicInteger htmlPagesTotal = new AtomicInteger();
+    private final AtomicInteger htmlPagesWritten = new AtomicInteger();
+
+    private final AtomicLong revision = new AtomicLong();
+    private volatile long comparingStartedAtNanos;
+
+    /**
+     * Registra el paso a una etapa (si es distinta de la actual)
+     */
+    public synchronized void enterStage(String stage) {
+        if (!stages.isEmpty() && stages.get(stages.size() - 1).stage.equals(stage)) {
+            return;
+        }
+        long now = System.nanoTime();
+        stages.add(new StageTransition(stage, (now - startedAtNanos) / 1_000_000));
+        revision.incrementAndGet();
+        if (stage.startsWith("comparing") && comparingStartedAtNanos == 0) {
+            comparingStartedAtNanos = now;
+        }
+    }
+
+    /**
+     * Número que cambia con cada actualización de los contadores o de la etapa
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Transiciones desde la posición from (para publicar sólo las nuevas)
+     */
+    public synchronized List<Map<String, Object>> stagesSince(int from) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = Math.max(0, from); i < stages.size(); i++) {
+            result.add(stages.get(i).toMap());
+        }
+        return result;
+    }
+
+    public void setRepositoriesTotal(int total) {
+        repositoriesTotal.set(total);
+        revision.incrementAndGet();
+    }
+
+    public void repositoryFinished(boolean cloned) {
+        (cloned ? repositoriesCloned : repositoriesFailed).incrementAndGet();
+        revision.incrementAndGet();
+    }
+
+    public void addObjectsReceived(int objects) {
+        objectsReceived.addAndGet(objects);
+        revision.incrementAndGet();
+    }
+
+    public void addFilesCheckedOut(int files) {
+        filesCheckedOut.addAndGet(files);
+        revision.incrementAndGet();
+    }
+
+    public void setFilesTotal(int total) {
+        filesTotal.set(total);
+        revision.incrementAndGet();
+    }
+
+    public void setTokenized(int files, long tokenCount) {
+        filesTokenized.set(files);
+        tokens.set(tokenCount);
+        revision.incrementAndGet();
+    }
+
+    public void setComparisonsTotal(int total) {
+        comparisonsTotal.set(total);
+        revision.incrementAndGet();
+    }
+
+    public void comparisonCompleted() {
+        comparisonsCompleted.incrementAndGet();
+        revision.incrementAndGet();
+    }
+
+    public void setHtmlPagesTotal(int total) {
+        htmlPagesTotal.set(total);
+        revision.incrementAndGet();
+    }
+
+    public void htmlPageWritten() {
+        htmlPagesWritten.incrementAndGet();
+        revision.incrementAndGet();
+    }
+
+    /**
+     * Instantánea de los contadores, con la etapa actual, la duración de cada
+     * etapa y una estimación del tiempo restante de las comparaciones
+     */
+    public Map<String, Object> toMap() {
+        long now = System.nanoTime();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            snapshot.put("stage", stages.isEmpty() ? null : stages.get(stages.size() - 1).stage);
+            List<Map<String, Object>> durations = new ArrayList<>();
+            for (int i = 0; i < stages.size(); i++) {
+                long end = i + 1 < stages.size() ? stages.get(i + 1).atMillis : (now - startedAtNanos) / 1_000_000;
+                Map<String, Object> stage = stages.get(i).toMap();
+                stage.put("durationMillis", end - stages.get(i).atMillis);
+                durations.add(stage);
+            }
+            snapshot.put("stages", durations);
+        }
+        snapshot.put("elapsedMillis", (now - startedAtNanos) / 1_000_000);
+
+        Map<String, Object> repositories = new LinkedHashMap<>();
+        repositories.put("total", repositoriesTotal.get());
+        repositories.put("cloned", repositoriesCloned.get());
+        repositories.put("failed", repositoriesFailed.get());
+        repositories.put("objectsReceived", objectsReceived.get());
+        repositories.put("filesCheckedOut", filesCheckedOut.get());
+        snapshot.put("repositories", repositories);
+
+        Map<String, Object> files = new LinkedHashMap<>();
+        files.put("total", filesTotal.get());
+        files.put("tokenized", filesTokenized.get());
+        files.put("tokens", tokens.get());
+        snapshot.put("files", files);
+
+        int total = comparisonsTotal.get();
+        int completed = comparisonsCompleted.get();
+        Map<String, Object> comparisons = new LinkedHashMap<>();
+        comparisons.put("total", total);
+        comparisons.put("completed", completed);
+        long comparingStarted = comparingStartedAtNanos;
+        if (comparingStarted != 0 && completed > 0 && completed < total) {
+            double millisPerComparison = (now - comparingStarted) / 1_000_000.0 / completed;
+            comparisons.put("etaMillis", Math.round(millisPerComparison * (total - completed)));
+        }
+        snapshot.put("comparisons", comparisons);
+
+        Map<String, Object> htmlPages = new LinkedHashMap<>();
+        htmlPages.put("total", htmlPagesTotal.get());
+        htmlPages.put("written", htmlPagesWritten.get());
+        snapshot.put("htmlPages", htmlPages);
+        return snapshot;
+    }
+
+    private static final class StageTransition {
+        private final String stage;
+        private final long atMillis;
+
+        StageTransition(String stage, long atMillis) {
+            this.stage = stage;
+            this.atMillis = atMillis;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("stage", stage);
+            map.put("atMillis", atMillis);
+            return map;
+        }
+    }
+}
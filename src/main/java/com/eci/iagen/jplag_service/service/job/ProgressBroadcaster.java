@@ -0,0 +1,183 @@
+package com.eci.iagen.jplag_service.service.job;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.result.AnalysisResultStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica el progreso de los análisis por Server-Sent Events. Un único hilo
+ * muestrea cada intervalo los análisis con suscriptores y envía los eventos
+ * "stage" (cada transición de etapa), "progress" (contadores, sólo si
+ * cambiaron) y "end" (al terminar el análisis). El pipeline no sabe de los
+ * suscriptores: sólo actualiza {@link AnalysisProgress}.
+ */
+@Service
+public class ProgressBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressBroadcaster.class);
+
+    @Autowired
+    private AnalysisJobRegistry jobRegistry;
+
+    @Autowired
+    private AnalysisResultStore resultStore;
+
+    @Value("${jplag.progress.interval-ms:500}")
+    private long intervalMs;
+
+    @Value("${jplag.progress.await-start-seconds:30}")
+    private long awaitStartSeconds;
+
+    @Value("${jplag.progress.emitter-timeout-minutes:60}")
+    private long emitterTimeoutMinutes;
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void init() {
+        ticker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("progress-broadcaster").daemon(true).factory());
+        ticker.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        subscriptions.values().forEach(list -> list.forEach(subscription -> subscription.emitter.complete()));
+    }
+
+    /**
+     * Suscribe a los eventos de una sesión. Si el análisis todavía no empezó
+     * (p.ej. recién aceptado con callbackUrl) se espera hasta
+     * jplag.progress.await-start-seconds.
+     */
+    public SseEmitter subscribe(String sessionId) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(emitterTimeoutMinutes));
+        Subscription subscription = new Subscription(sessionId, emitter);
+        subscriptions.computeIfAbsent(sessionId, key -> new CopyOnWriteArrayList<>()).add(subscription);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+        ticker.execute(() -> publish(subscription));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void tick() {
+        try {
+            for (List<Subscription> sessionSubscriptions : subscriptions.values()) {
+                for (Subscription subscription : sessionSubscriptions) {
+                    publish(subscription);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error publishing analysis progress: {}", e.getMessage());
+        }
+    }
+
+    private void publish(Subscription subscription) {
+        if (subscription.ended) {
+            return;
+        }
+        AnalysisJob running = jobRegistry.get(subscription.sessionId);
+        if (running != null) {
+            subscription.job = running;
+        }
+        AnalysisJob job = subscription.job;
+        if (job == null) {
+            PlagiarismDetectionResponse result = resultStore.get(subscription.sessionId);
+            if (result != null || System.nanoTime() - subscription.subscribedAtNanos
+                    > TimeUnit.SECONDS.toNanos(awaitStartSeconds)) {
+                end(subscription, null, result);
+            }
+            return;
+        }
+
+        AnalysisProgress progress = job.getProgress();
+        try {
+            for (Map<String, Object> stage : progress.stagesSince(subscription.stagesSent)) {
+                send(subscription, "stage", stage);
+                subscription.stagesSent++;
+            }
+            long revision = progress.getRevision();
+            if (revision != subscription.lastRevision) {
+                send(subscription, "progress", progress.toMap());
+                subscription.lastRevision = revision;
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscription);
+            return;
+        }
+
+        if (running == null) {
+            end(subscription, job, resultStore.get(subscription.sessionId));
+        }
+    }
+
+    private void end(Subscription subscription, AnalysisJob job, PlagiarismDetectionResponse result) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("sessionId", subscription.sessionId);
+        data.put("cancelled", job != null && job.isCancelled());
+        data.put("success", result != null ? result.isSuccess() : null);
+        data.put("message", result != null ? result.getMessage() : "Análisis desconocido o no iniciado");
+        data.put("resultUrl", result != null ? "/api/plagiarism/results/" + subscription.sessionId : null);
+        if (job != null) {
+            data.put("progress", job.getProgress().toMap());
+        }
+        try {
+            send(subscription, "end", data);
+            subscription.emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Could not send end event for session {}: {}", subscription.sessionId, e.getMessage());
+        }
+        remove(subscription);
+    }
+
+    private void send(Subscription subscription, String event, Object data) throws IOException {
+        subscription.emitter.send(SseEmitter.event().name(event).data(data));
+    }
+
+    private void remove(Subscription subscription) {
+        subscription.ended = true;
+        subscriptions.computeIfPresent(subscription.sessionId, (key, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static final class Subscription {
+        private final String sessionId;
+        private final SseEmitter emitter;
+        private final long subscribedAtNanos = System.nanoTime();
+        private volatile AnalysisJob job;
+        private volatile boolean ended;
+        private int stagesSent;
+        private long lastRevision = -1;
+
+        Subscription(String sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.eci.iagen.jplag_service.service.lifecycle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide el tiempo de arranque (inicio de la JVM hasta que el servicio acepta
+ * tráfico) y el tiempo hasta el primer análisis completado, para comparar el
+ * efecto de AppCDS/AOT y del warm-up
+ */
+@Component
+public class StartupMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final AtomicLong readyAtUptimeMs = new AtomicLong(-1);
+    private final AtomicLong firstAnalysisAtUptimeMs = new AtomicLong(-1);
+    private final AtomicLong firstAnalysisDurationMs = new AtomicLong(-1);
+    private volatile List<Long> warmupDurationsMs = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        readyAtUptimeMs.set(uptime);
+        logger.info("Service ready {} ms after JVM start", uptime);
+    }
+
+    /**
+     * Registra la finalización de un análisis; sólo el primero después de estar
+     * listo queda guardado (los análisis del warm-up no cuentan)
+     */
+    public void recordAnalysisCompleted(long durationMs) {
+        if (readyAtUptimeMs.get() < 0) {
+            return;
+        }
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (firstAnalysisAtUptimeMs.compareAndSet(-1, uptime)) {
+            firstAnalysisDurationMs.set(durationMs);
+            logger.info("First analysis completed {} ms after JVM start (took {} ms)", uptime, durationMs);
+        }
+    }
+
+    public void recordWarmup(List<Long> durationsMs) {
+        warmupDurationsMs = List.copyOf(durationsMs);
+        logger.info("Warm-up iterations took {} ms", warmupDurationsMs);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("readyAfterMs", readyAtUptimeMs.get());
+        metrics.put("firstAnalysisAfterMs", firstAnalysisAtUptimeMs.get());
+        metrics.put("firstAnalysisDurationMs", firstAnalysisDurationMs.get());
+        metrics.put("warmupDurationsMs", warmupDurationsMs);
+        metrics.put("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+        return metrics;
+    }
+}
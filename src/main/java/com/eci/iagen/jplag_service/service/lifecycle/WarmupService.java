@@ -0,0 +1,191 @@
+package com.eci.iagen.jplag_service.service.lifecycle;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.JPlagDetectionService;
+import com.eci.iagen.jplag_service.service.result.ResultIndex;
+import com.eci.iagen.jplag_service.service.snapshot.ResultSnapshotStore;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceLease;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceManager;
+import org.eclipse.jgit.api.Git;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Warm-up del JIT al arrancar: ejecuta un mini-corpus sintético incluido en el
+ * jar (classpath:warmup/) por el pipeline completo (clon JGit local, copia,
+ * parser de Java, greedy string tiling, reporte y HTML de comparaciones) antes
+ * de que el servicio se declare listo. Sin acceso a red.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+    private static final String CORPUS_LOCATION = "classpath*:warmup/**/*.java";
+    private static final String CORPUS_MARKER = "/warmup/";
+
+    @Autowired
+    private JPlagDetectionService jplagDetectionService;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @Autowired
+    private ResultSnapshotStore snapshotStore;
+
+    @Autowired
+    private ResultIndex resultIndex;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${jplag.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jplag.warmup.iterations:2}")
+    private int iterations;
+
+    @Value("${jplag.warmup.exit-after:false}")
+    private boolean exitAfter;
+
+    @Value("${jplag.reports-directory:./reports}")
+    private String reportsDirectory;
+
+    @Value("${jplag.comparation-directory:./comparation}")
+    private String comparationDirectory;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+
+        // Usado al entrenar el archivo AppCDS: termina después del warm-up
+        if (exitAfter) {
+            logger.info("Warm-up finished, exiting as requested (jplag.warmup.exit-after)");
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * Ejecuta el corpus de warm-up el número de iteraciones configurado y
+     * registra la duración de cada una
+     */
+    public void warmUp() {
+        WorkspaceLease corpusWorkspace = null;
+        try {
+            corpusWorkspace = workspaceManager.acquire("warmup-corpus-" + UUID.randomUUID());
+            List<SubmissionDto> submissions = materializeCorpus(corpusWorkspace.getRoot());
+
+            List<Long> durations = new ArrayList<>();
+            for (int i = 1; i <= iterations; i++) {
+                long start = System.nanoTime();
+                String sessionId = "warmup-" + i + "-" + UUID.randomUUID();
+                PlagiarismDetectionRequest request = new PlagiarismDetectionRequest(0L, "warmup", submissions,
+                        sessionId);
+                request.setHistoryEnabled(false);
+                PlagiarismDetectionResponse response = jplagDetectionService.detectPlagiarism(request);
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                durations.add(elapsedMs);
+
+                logger.info("Warm-up iteration {}/{} took {} ms (success: {}, comparisons: {})", i, iterations,
+                        elapsedMs, response.isSuccess(),
+                        response.getComparisons() != null ? response.getComparisons().size() : 0);
+                discardReportOutput(sessionId);
+            }
+            startupMetrics.recordWarmup(durations);
+
+        } catch (Exception e) {
+            logger.warn("Warm-up failed, continuing startup: {}", e.getMessage(), e);
+        } finally {
+            workspaceManager.release(corpusWorkspace);
+        }
+    }
+
+    /**
+     * Copia el corpus del classpath a repositorios Git locales, uno por entrega,
+     * para que el warm-up también ejercite el clonado con JGit
+     */
+    private List<SubmissionDto> materializeCorpus(Path corpusRoot) throws Exception {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(CORPUS_LOCATION);
+        Map<String, Path> repositories = new TreeMap<>();
+
+        for (Resource resource : resources) {
+            String url = resource.getURL().toString();
+            String relativePath = url.substring(url.lastIndexOf(CORPUS_MARKER) + CORPUS_MARKER.length());
+            String submissionName = relativePath.substring(0, relativePath.indexOf('/'));
+
+            Path repository = repositories.computeIfAbsent(submissionName,
+                    name -> corpusRoot.resolve(name + ".git"));
+            Path target = repository.resolve(relativePath.substring(submissionName.length() + 1));
+            Files.createDirectories(target.getParent());
+            try (InputStream input = resource.getInputStream()) {
+                Files.copy(input, target);
+            }
+        }
+
+        List<SubmissionDto> submissions = new ArrayList<>();
+        long id = 1;
+        for (Map.Entry<String, Path> repository : repositories.entrySet()) {
+            commitAll(repository.getValue());
+
+            SubmissionDto submission = new SubmissionDto();
+            submission.setSubmissionId(id);
+            submission.setTeamId(id);
+            submission.setTeamName("warmup-" + repository.getKey());
+            submission.setRepositoryUrl("file://" + repository.getValue().toAbsolutePath());
+            submissions.add(submission);
+            id++;
+        }
+
+        logger.info("Warm-up corpus ready: {} submissions from {} files", submissions.size(), resources.length);
+        return submissions;
+    }
+
+    private void commitAll(Path repository) throws Exception {
+        try (Git git = Git.init().setDirectory(repository.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit()
+                    .setMessage("warmup")
+                    .setAuthor("warmup", "warmup@localhost")
+                    .setCommitter("warmup", "warmup@localhost")
+                    .setSign(false)
+                    .call();
+        }
+    }
+
+    /**
+     * Elimina el reporte, los HTML de comparación, el snapshot y la entrada del
+     * índice de resultados generados por el warm-up
+     */
+    private void discardReportOutput(String sessionId) {
+        workspaceManager.discard(Paths.get(reportsDirectory).resolve("report_" + sessionId));
+        workspaceManager.discard(Paths.get(comparationDirectory).resolve(sessionId));
+        snapshotStore.discard(sessionId);
+        resultIndex.discard(sessionId);
+    }
+}
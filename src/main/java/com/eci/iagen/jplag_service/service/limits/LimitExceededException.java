@@ -0,0 +1,35 @@
+package com.eci.iagen.jplag_service.service.limits;
+
+import java.io.IOException;
+
+/**
+ * Una entrega superó un límite de tamaño mientras se traía (clon, descarga o
+ * subida); la entrega se excluye y se informa en la respuesta
+ */
+public class LimitExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String limit;
+    private final long value;
+    private final long maximum;
+
+    public LimitExceededException(String limit, long value, long maximum) {
+        super("Limit '" + limit + "' exceeded: " + value + " > " + maximum);
+        this.limit = limit;
+        this.value = value;
+        this.maximum = maximum;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+}
@@ -0,0 +1,100 @@
+package com.eci.iagen.jplag_service.service.limits;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Límites de tamaño por entrega. Protegen a la cohorte de una entrega enorme
+ * (un dataset commiteado, fuentes generados): quien los supera queda fuera
+ * del análisis y se informa en la respuesta, sin hacer fallar el resto. Un
+ * valor menor o igual a 0 desactiva el límite.
+ */
+@Component
+public class SubmissionLimits {
+
+    public static final String REPOSITORY_SIZE = "repository-size";
+    public static final String ARCHIVE_ENTRIES = "archive-entries";
+    public static final String FILE_SIZE = "file-size";
+    public static final String FILES_PER_SUBMISSION = "files-per-submission";
+    public static final String TOKENS_PER_SUBMISSION = "tokens-per-submission";
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    @Value("${jplag.limits.max-repository-size-mb:200}")
+    private long maxRepositorySizeMb;
+
+    @Value("${file.processing.max.size.mb:1}")
+    private long maxFileSizeMb;
+
+    @Value("${jplag.limits.max-files-per-submission:2000}")
+    private int maxFilesPerSubmission;
+
+    @Value("${jplag.limits.max-tokens-per-submission:200000}")
+    private long maxTokensPerSubmission;
+
+    /**
+     * Bytes que puede transferir (y extraer) una entrega al clonarse o
+     * descargarse
+     */
+    public long getMaxRepositoryBytes() {
+        return maxRepositorySizeMb > 0 ? maxRepositorySizeMb * BYTES_PER_MB : Long.MAX_VALUE;
+    }
+
+    /**
+     * Tamaño máximo de un archivo fuente; los más grandes se omiten
+     */
+    public long getMaxFileBytes() {
+        return maxFileSizeMb > 0 ? maxFileSizeMb * BYTES_PER_MB : Long.MAX_VALUE;
+    }
+
+    public int getMaxFilesPerSubmission() {
+        return maxFilesPerSubmission > 0 ? maxFilesPerSubmission : Integer.MAX_VALUE;
+    }
+
+    public long getMaxTokensPerSubmission() {
+        return maxTokensPerSubmission > 0 ? maxTokensPerSubmission : Long.MAX_VALUE;
+    }
+
+    /**
+     * Violación de un límite por la entrega con ese nombre de directorio
+     * (submission_X_team_Y); path es null si se excluye la entrega completa
+     */
+    public PlagiarismDetectionResponse.LimitViolation violation(String limit, String directoryName, String path,
+            long value, long maximum) {
+        PlagiarismDetectionResponse.LimitViolation violation = new PlagiarismDetectionResponse.LimitViolation();
+        violation.setSubmissionId(SubmissionRegistry.parseSubmissionId(directoryName));
+        violation.setSubmission(directoryName);
+        violation.setLimit(limit);
+        violation.setPath(path);
+        violation.setValue(value);
+        violation.setMaximum(maximum);
+        violation.setSubmissionExcluded(path == null);
+        return violation;
+    }
+
+    public PlagiarismDetectionResponse.LimitViolation violation(LimitExceededException exceeded,
+            String directoryName) {
+        return violation(exceeded.getLimit(), directoryName, null, exceeded.getValue(), exceeded.getMaximum());
+    }
+
+    /**
+     * Resumen para la respuesta, o null si ninguna entrega superó un límite
+     */
+    public PlagiarismDetectionResponse.LimitsSummary summarize(
+            List<PlagiarismDetectionResponse.LimitViolation> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        PlagiarismDetectionResponse.LimitsSummary summary = new PlagiarismDetectionResponse.LimitsSummary();
+        summary.setMaxRepositoryBytes(getMaxRepositoryBytes());
+        summary.setMaxFileBytes(getMaxFileBytes());
+        summary.setMaxFilesPerSubmission(getMaxFilesPerSubmission());
+        summary.setMaxTokensPerSubmission(getMaxTokensPerSubmission());
+        summary.setViolations(violations);
+        return summary;
+    }
+}
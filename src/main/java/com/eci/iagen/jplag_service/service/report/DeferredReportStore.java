@@ -0,0 +1,210 @@
+package com.eci.iagen.jplag_service.service.report;
+
+import com.eci.iagen.jplag_service.service.basecode.BaseCodeTemplate;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceManager;
+import de.jplag.options.JPlagOptions;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Conserva las entradas de los análisis ejecutados sin reporte para poder
+ * generarlo después a pedido, sin volver a clonar los repositorios. Las
+ * entradas vencen después de jplag.report.deferred-retention-hours.
+ */
+@Service
+public class DeferredReportStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredReportStore.class);
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String SUBMISSIONS_DIRECTORY = "submissions";
+    private static final String BASE_CODE_DIRECTORY = "base-code";
+    private static final String ANALYSIS_FILE = "analysis.properties";
+    private static final String TEAM_PREFIX = "team.";
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Value("${jplag.report.deferred-directory:./deferred-reports}")
+    private String deferredDirectory;
+
+    @Value("${jplag.report.deferred-retention-hours:24}")
+    private long retentionHours;
+
+    private Path baseDirectory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDirectory = Paths.get(deferredDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(baseDirectory);
+    }
+
+    /**
+     * Conserva el directorio de análisis (se mueve si está en el mismo sistema de
+     * archivos; si no, se copia), el código base y las opciones efectivas. Al
+     * mismo tiempo borra las entradas vencidas.
+     */
+    public void retain(String sessionId, Long assignmentId, Path analysisRoot, JPlagOptions options,
+            BaseCodeTemplate baseCode, Map<String, Long> teamsByDirectory) throws IOException {
+        sweepExpired();
+
+        Path target = resolve(sessionId);
+        Path staging = baseDirectory.resolve("." + sessionId + "-" + System.nanoTime());
+        Files.createDirectories(staging);
+        try {
+            moveOrCopy(analysisRoot, staging.resolve(SUBMISSIONS_DIRECTORY));
+            if (baseCode != null) {
+                copyRecursively(baseCode.getSourcesDirectory(), staging.resolve(BASE_CODE_DIRECTORY));
+            }
+
+            Properties properties = new Properties();
+            properties.setProperty("sessionId", sessionId);
+            if (assignmentId != null) {
+                properties.setProperty("assignmentId", String.valueOf(assignmentId));
+            }
+            properties.setProperty("minimumTokenMatch", String.valueOf(options.minimumTokenMatch()));
+            properties.setProperty("similarityThreshold", String.valueOf(options.similarityThreshold()));
+            properties.setProperty("maximumReportComparisons", String.valueOf(options.maximumNumberOfComparisons()));
+            teamsByDirectory.forEach((directory, teamId) -> properties.setProperty(TEAM_PREFIX + directory,
+                    String.valueOf(teamId)));
+            try (OutputStream out = Files.newOutputStream(staging.resolve(ANALYSIS_FILE))) {
+                properties.store(out, "Analysis retained for deferred report generation");
+            }
+
+            if (Files.exists(target)) {
+                workspaceManager.discard(Files.move(target, baseDirectory.resolve(
+                        "." + sessionId + "-old-" + System.nanoTime())));
+            }
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Retained analysis inputs of session {} for deferred report generation", sessionId);
+        } catch (IOException e) {
+            workspaceManager.discard(staging);
+            throw e;
+        }
+    }
+
+    /**
+     * Indica si la sesión tiene entradas conservadas
+     */
+    public boolean exists(String sessionId) {
+        return sessionId != null && SESSION_ID.matcher(sessionId).matches()
+                && Files.isRegularFile(resolve(sessionId).resolve(ANALYSIS_FILE));
+    }
+
+    /**
+     * Entradas conservadas de una sesión, o null si no hay (o vencieron)
+     */
+    public RetainedAnalysis load(String sessionId) throws IOException {
+        if (sessionId == null || !SESSION_ID.matcher(sessionId).matches()) {
+            return null;
+        }
+        Path directory = resolve(sessionId);
+        Path analysisFile = directory.resolve(ANALYSIS_FILE);
+        if (!Files.isRegularFile(analysisFile)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(analysisFile)) {
+            properties.load(in);
+        }
+        Map<String, Long> teams = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(TEAM_PREFIX)) {
+                teams.put(name.substring(TEAM_PREFIX.length()), Long.valueOf(properties.getProperty(name)));
+            }
+        }
+        String assignmentId = properties.getProperty("assignmentId");
+        Path baseCode = directory.resolve(BASE_CODE_DIRECTORY);
+
+        // Extender la retención: el reporte se puede volver a pedir
+        Files.setLastModifiedTime(directory, FileTime.from(Instant.now()));
+        return new RetainedAnalysis(sessionId,
+                assignmentId != null ? Long.valueOf(assignmentId) : null,
+                directory.resolve(SUBMISSIONS_DIRECTORY),
+                Files.isDirectory(baseCode) ? baseCode : null,
+                Integer.parseInt(properties.getProperty("minimumTokenMatch")),
+                Double.parseDouble(properties.getProperty("similarityThreshold")),
+                Integer.parseInt(properties.getProperty("maximumReportComparisons")),
+                teams);
+    }
+
+    private Path resolve(String sessionId) {
+        if (!SESSION_ID.matcher(sessionId).matches()) {
+            throw new IllegalArgumentException("Invalid session id: " + sessionId);
+        }
+        return baseDirectory.resolve(sessionId);
+    }
+
+    private void sweepExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        try (Stream<Path> entries = Files.list(baseDirectory)) {
+            List<Path> expired = entries.filter(path -> isOlderThan(path, cutoff)).toList();
+            for (Path directory : expired) {
+                logger.info("Discarding expired retained analysis: {}", directory.getFileName());
+                workspaceManager.discard(directory);
+            }
+        } catch (IOException e) {
+            logger.warn("Error sweeping retained analyses in {}: {}", baseDirectory, e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void moveOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException | DirectoryNotEmptyException e) {
+            // Distinto sistema de archivos (p.ej. workspace en tmpfs)
+            copyRecursively(source, target);
+        }
+    }
+
+    private void copyRecursively(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file).toString()),
+                        StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
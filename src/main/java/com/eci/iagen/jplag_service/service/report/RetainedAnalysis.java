@@ -0,0 +1,68 @@
+package com.eci.iagen.jplag_service.service.report;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Entradas conservadas de un análisis ejecutado sin reporte: las fuentes de
+ * las entregas, el código base y las opciones de JPlag que se usaron
+ */
+public class RetainedAnalysis {
+
+    private final String sessionId;
+    private final Long assignmentId;
+    private final Path submissionsDirectory;
+    private final Path baseCodeDirectory;
+    private final int minimumTokenMatch;
+    private final double similarityThreshold;
+    private final int maximumReportComparisons;
+    private final Map<String, Long> teamsByDirectory;
+
+    public RetainedAnalysis(String sessionId, Long assignmentId, Path submissionsDirectory, Path baseCodeDirectory,
+            int minimumTokenMatch, double similarityThreshold, int maximumReportComparisons,
+            Map<String, Long> teamsByDirectory) {
+        this.sessionId = sessionId;
+        this.assignmentId = assignmentId;
+        this.submissionsDirectory = submissionsDirectory;
+        this.baseCodeDirectory = baseCodeDirectory;
+        this.minimumTokenMatch = minimumTokenMatch;
+        this.similarityThreshold = similarityThreshold;
+        this.maximumReportComparisons = maximumReportComparisons;
+        this.teamsByDirectory = Map.copyOf(teamsByDirectory);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Path getSubmissionsDirectory() {
+        return submissionsDirectory;
+    }
+
+    /**
+     * Directorio con el código base, o null si el análisis no tenía
+     */
+    public Path getBaseCodeDirectory() {
+        return baseCodeDirectory;
+    }
+
+    public int getMinimumTokenMatch() {
+        return minimumTokenMatch;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public int getMaximumReportComparisons() {
+        return maximumReportComparisons;
+    }
+
+    public Map<String, Long> getTeamsByDirectory() {
+        return teamsByDirectory;
+    }
+}
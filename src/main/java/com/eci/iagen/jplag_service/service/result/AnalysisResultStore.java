@@ -0,0 +1,41 @@
+package com.eci.iagen.jplag_service.service.result;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Últimos resultados de análisis por sessionId, para consultarlos después de
+ * la respuesta (p.ej. cuando un resultado parcial se completa en segundo plano)
+ */
+@Service
+public class AnalysisResultStore {
+
+    @Value("${jplag.results.max-entries:200}")
+    private int maxEntries;
+
+    private final Map<String, PlagiarismDetectionResponse> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlagiarismDetectionResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Guarda (o reemplaza) el resultado de una sesión
+     */
+    public void put(PlagiarismDetectionResponse response) {
+        synchronized (results) {
+            results.put(response.getSessionId(), response);
+        }
+    }
+
+    public PlagiarismDetectionResponse get(String sessionId) {
+        synchronized (results) {
+            return results.get(sessionId);
+        }
+    }
+}
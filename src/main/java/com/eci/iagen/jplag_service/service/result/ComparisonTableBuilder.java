@@ -0,0 +1,126 @@
+package com.eci.iagen.jplag_service.service.result;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arma la vista columnar de una lista de comparaciones: una columna por campo
+ * y cada texto repetido (sesión, entrega, equipo) guardado una sola vez. Con
+ * miles de pares evita repetir nombres de equipo y prefijos de URL en cada
+ * fila.
+ */
+public class ComparisonTableBuilder {
+
+    /**
+     * Plantilla de la URL del HTML de cada comparación (ver
+     * JPlagDetectionService)
+     */
+    public static final String COMPARISON_HTML_URL_TEMPLATE =
+            "/reports/comparison/{session}/{submissionId1}-{submissionId2}.html";
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<Long> submissionIds1;
+    private final List<Long> submissionIds2;
+    private int[] sessions;
+    private int[] submissions1;
+    private int[] submissions2;
+    private int[] teams1;
+    private int[] teams2;
+    private double[] similarities;
+    private int[] matchedTokens;
+    private int size;
+
+    public ComparisonTableBuilder(int expectedSize) {
+        int capacity = Math.max(1, expectedSize);
+        sessions = new int[capacity];
+        submissions1 = new int[capacity];
+        submissions2 = new int[capacity];
+        teams1 = new int[capacity];
+        teams2 = new int[capacity];
+        similarities = new double[capacity];
+        matchedTokens = new int[capacity];
+        submissionIds1 = new ArrayList<>(capacity);
+        submissionIds2 = new ArrayList<>(capacity);
+    }
+
+    public static PlagiarismDetectionResponse.ComparisonTable fromComparisons(String sessionId,
+            List<PlagiarismDetectionResponse.ComparisonResult> comparisons) {
+        ComparisonTableBuilder builder = new ComparisonTableBuilder(comparisons.size());
+        for (PlagiarismDetectionResponse.ComparisonResult comparison : comparisons) {
+            builder.add(sessionId, comparison.getSubmission1(), comparison.getSubmission2(), comparison.getTeam1(),
+                    comparison.getTeam2(), comparison.getSubmissionId1(), comparison.getSubmissionId2(),
+                    comparison.getSimilarity(), comparison.getMatchedTokens());
+        }
+        return builder.build();
+    }
+
+    public static PlagiarismDetectionResponse.ComparisonTable fromIndexed(List<IndexedComparison> comparisons) {
+        ComparisonTableBuilder builder = new ComparisonTableBuilder(comparisons.size());
+        for (IndexedComparison comparison : comparisons) {
+            builder.add(comparison.getSessionId(), comparison.getSubmission1(), comparison.getSubmission2(),
+                    comparison.getTeam1(), comparison.getTeam2(), comparison.getSubmissionId1(),
+                    comparison.getSubmissionId2(), comparison.getSimilarity(), comparison.getMatchedTokens());
+        }
+        return builder.build();
+    }
+
+    public void add(String sessionId, String submission1, String submission2, String team1, String team2,
+            Long submissionId1, Long submissionId2, double similarity, int tokens) {
+        if (size == sessions.length) {
+            int capacity = size * 2;
+            sessions = Arrays.copyOf(sessions, capacity);
+            submissions1 = Arrays.copyOf(submissions1, capacity);
+            submissions2 = Arrays.copyOf(submissions2, capacity);
+            teams1 = Arrays.copyOf(teams1, capacity);
+            teams2 = Arrays.copyOf(teams2, capacity);
+            similarities = Arrays.copyOf(similarities, capacity);
+            matchedTokens = Arrays.copyOf(matchedTokens, capacity);
+        }
+        sessions[size] = intern(sessionId);
+        submissions1[size] = intern(submission1);
+        submissions2[size] = intern(submission2);
+        teams1[size] = intern(team1);
+        teams2[size] = intern(team2);
+        submissionIds1.add(submissionId1);
+        submissionIds2.add(submissionId2);
+        similarities[size] = similarity;
+        matchedTokens[size] = tokens;
+        size++;
+    }
+
+    public PlagiarismDetectionResponse.ComparisonTable build() {
+        PlagiarismDetectionResponse.ComparisonTable table = new PlagiarismDetectionResponse.ComparisonTable();
+        table.setSize(size);
+        table.setStrings(new ArrayList<>(strings));
+        table.setSessions(Arrays.copyOf(sessions, size));
+        table.setSubmission1(Arrays.copyOf(submissions1, size));
+        table.setSubmission2(Arrays.copyOf(submissions2, size));
+        table.setTeam1(Arrays.copyOf(teams1, size));
+        table.setTeam2(Arrays.copyOf(teams2, size));
+        table.setSubmissionId1(new ArrayList<>(submissionIds1));
+        table.setSubmissionId2(new ArrayList<>(submissionIds2));
+        table.setSimilarity(Arrays.copyOf(similarities, size));
+        table.setMatchedTokens(Arrays.copyOf(matchedTokens, size));
+        table.setComparisonHtmlUrlTemplate(COMPARISON_HTML_URL_TEMPLATE);
+        return table;
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndexes.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,170 @@
+package com.eci.iagen.jplag_service.service.result;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Par comparado de un análisis guardado en el {@link ResultIndex}. Los ids
+ * ausentes se guardan como null.
+ */
+public class IndexedComparison {
+
+    /**
+     * Orden de los índices: mayor similitud primero; el resto de los campos
+     * sólo desempata para que el orden sea total
+     */
+    static final Comparator<IndexedComparison> BY_SIMILARITY_DESC = Comparator
+            .comparingDouble(IndexedComparison::getSimilarity).reversed()
+            .thenComparing(IndexedComparison::getSessionId)
+            .thenComparing(IndexedComparison::getSubmission1)
+            .thenComparing(IndexedComparison::getSubmission2);
+
+    private final String sessionId;
+    private final Long assignmentId;
+    private final long analyzedAtMillis;
+    private final String submission1;
+    private final String submission2;
+    private final Long submissionId1;
+    private final Long submissionId2;
+    private final Long teamId1;
+    private final Long teamId2;
+    private final String team1;
+    private final String team2;
+    private final double similarity;
+    private final int matchedTokens;
+    private final String comparisonHtmlUrl;
+
+    public IndexedComparison(String sessionId, Long assignmentId, long analyzedAtMillis, String submission1,
+            String submission2, Long submissionId1, Long submissionId2, Long teamId1, Long teamId2, String team1,
+            String team2, double similarity, int matchedTokens, String comparisonHtmlUrl) {
+        this.sessionId = sessionId;
+        this.assignmentId = assignmentId;
+        this.analyzedAtMillis = analyzedAtMillis;
+        this.submission1 = submission1;
+        this.submission2 = submission2;
+        this.submissionId1 = submissionId1;
+        this.submissionId2 = submissionId2;
+        this.teamId1 = teamId1;
+        this.teamId2 = teamId2;
+        this.team1 = team1;
+        this.team2 = team2;
+        this.similarity = similarity;
+        this.matchedTokens = matchedTokens;
+        this.comparisonHtmlUrl = comparisonHtmlUrl;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(submission1);
+        out.writeUTF(submission2);
+        writeId(out, submissionId1);
+        writeId(out, submissionId2);
+        writeId(out, teamId1);
+        writeId(out, teamId2);
+        out.writeUTF(team1 != null ? team1 : "");
+        out.writeUTF(team2 != null ? team2 : "");
+        out.writeDouble(similarity);
+        out.writeInt(matchedTokens);
+        out.writeUTF(comparisonHtmlUrl != null ? comparisonHtmlUrl : "");
+    }
+
+    static IndexedComparison read(DataInputStream in, String sessionId, Long assignmentId, long analyzedAtMillis)
+            throws IOException {
+        String submission1 = in.readUTF();
+        String submission2 = in.readUTF();
+        Long submissionId1 = readId(in);
+        Long submissionId2 = readId(in);
+        Long teamId1 = readId(in);
+        Long teamId2 = readId(in);
+        String team1 = in.readUTF();
+        String team2 = in.readUTF();
+        double similarity = in.readDouble();
+        int matchedTokens = in.readInt();
+        String comparisonHtmlUrl = in.readUTF();
+        return new IndexedComparison(sessionId, assignmentId, analyzedAtMillis, submission1, submission2,
+                submissionId1, submissionId2, teamId1, teamId2, team1.isEmpty() ? null : team1,
+                team2.isEmpty() ? null : team2, similarity, matchedTokens,
+                comparisonHtmlUrl.isEmpty() ? null : comparisonHtmlUrl);
+    }
+
+    static void writeId(DataOutputStream out, Long id) throws IOException {
+        out.writeLong(id != null ? id : -1);
+    }
+
+    static Long readId(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        return id >= 0 ? id : null;
+    }
+
+    /**
+     * Comprueba si el par involucra al equipo
+     */
+    public boolean involvesTeam(long teamId) {
+        return teamId1 != null && teamId1 == teamId || teamId2 != null && teamId2 == teamId;
+    }
+
+    /**
+     * Comprueba si el par involucra a la entrega
+     */
+    public boolean involvesSubmission(long submissionId) {
+        return submissionId1 != null && submissionId1 == submissionId
+                || submissionId2 != null && submissionId2 == submissionId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public long getAnalyzedAtMillis() {
+        return analyzedAtMillis;
+    }
+
+    public String getSubmission1() {
+        return submission1;
+    }
+
+    public String getSubmission2() {
+        return submission2;
+    }
+
+    public Long getSubmissionId1() {
+        return submissionId1;
+    }
+
+    public Long getSubmissionId2() {
+        return submissionId2;
+    }
+
+    public Long getTeamId1() {
+        return teamId1;
+    }
+
+    public Long getTeamId2() {
+        return teamId2;
+    }
+
+    public String getTeam1() {
+        return team1;
+    }
+
+    public String getTeam2() {
+        return team2;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public int getMatchedTokens() {
+        return matchedTokens;
+    }
+
+    public String getComparisonHtmlUrl() {
+        return comparisonHtmlUrl;
+    }
+}
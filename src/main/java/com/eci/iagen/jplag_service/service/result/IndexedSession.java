@@ -0,0 +1,54 @@
+package com.eci.iagen.jplag_service.service.result;
+
+/**
+ * Resumen de un análisis guardado en el {@link ResultIndex}
+ */
+public class IndexedSession {
+
+    private final String sessionId;
+    private final Long assignmentId;
+    private final String assignmentTitle;
+    private final long analyzedAtMillis;
+    private final int totalSubmissions;
+    private final int totalComparisons;
+    private final boolean complete;
+
+    public IndexedSession(String sessionId, Long assignmentId, String assignmentTitle, long analyzedAtMillis,
+            int totalSubmissions, int totalComparisons, boolean complete) {
+        this.sessionId = sessionId;
+        this.assignmentId = assignmentId;
+        this.assignmentTitle = assignmentTitle;
+        this.analyzedAtMillis = analyzedAtMillis;
+        this.totalSubmissions = totalSubmissions;
+        this.totalComparisons = totalComparisons;
+        this.complete = complete;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public String getAssignmentTitle() {
+        return assignmentTitle;
+    }
+
+    public long getAnalyzedAtMillis() {
+        return analyzedAtMillis;
+    }
+
+    public int getTotalSubmissions() {
+        return totalSubmissions;
+    }
+
+    public int getTotalComparisons() {
+        return totalComparisons;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,529 @@
+package com.eci.iagen.jplag_service.service.result;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Índice local de los resultados de análisis: sesiones, entregas y pares
+ * comparados, consultables por tarea, equipo, entrega, sesión y similitud sin
+ * leer los directorios de reportes.
+ * <p>
+ * Los resultados se agregan a un log binario (un registro por sesión con
+ * longitud y CRC); al iniciar se reproduce el log y se arman en memoria
+ * índices ordenados por similitud. Volver a indexar una sesión reemplaza su
+ * registro anterior; cuando los registros reemplazados superan a los vigentes
+ * el log se compacta.
+ * <p>
+ * Periódicamente (y al indexar) se quitan las sesiones más antiguas que
+ * retention-days y, si los pares en memoria superan max-comparisons, las
+ * sesiones más antiguas hasta volver al límite; el log se reescribe sin ellas.
+ */
+@Service
+public class ResultIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultIndex.class);
+    private static final int MAGIC = 0x4A50524C;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String LOG_FILE = "results.log";
+    private static final byte SESSION_RECORD = 0;
+    private static final byte REMOVAL_RECORD = 1;
+
+    @Value("${jplag.results.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jplag.results.index.directory:./results-index}")
+    private String indexDirectory;
+
+    @Value("${jplag.results.index.retention-days:365}")
+    private long retentionDays;
+
+    @Value("${jplag.results.index.compaction-min-records:64}")
+    private int compactionMinRecords;
+
+    @Value("${jplag.results.index.max-comparisons:1000000}")
+    private int maxComparisons;
+
+    @Value("${jplag.results.index.maintenance-interval-minutes:60}")
+    private long maintenanceIntervalMinutes;
+
+    private final Map<String, SessionEntry> sessions = new HashMap<>();
+    private final NavigableSet<IndexedComparison> allComparisons = new TreeSet<>(IndexedComparison.BY_SIMILARITY_DESC);
+    private final Map<Long, NavigableSet<IndexedComparison>> comparisonsByAssignment = new HashMap<>();
+    private final Map<Long, NavigableSet<IndexedComparison>> comparisonsByTeam = new HashMap<>();
+    private final Map<Long, NavigableSet<IndexedComparison>> comparisonsBySubmission = new HashMap<>();
+
+    private Path logFile;
+    private DataOutputStream log;
+    private int records;
+    private ScheduledExecutorService maintenance;
+
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(indexDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        logFile = directory.resolve(LOG_FILE);
+
+        boolean stale = load();
+        stale |= evict();
+        if (stale || shouldCompact()) {
+            compact();
+        } else {
+            openLog();
+        }
+        logger.info("Result index loaded: {} sessions, {} comparisons", sessions.size(), allComparisons.size());
+
+        if (maintenanceIntervalMinutes > 0) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("result-index-maintenance").daemon(true).factory());
+            maintenance.scheduleWithFixedDelay(this::maintain, maintenanceIntervalMinutes,
+                    maintenanceIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (maintenance != null) {
+            maintenance.shutdown();
+            maintenance = null;
+        }
+        closeLog();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Indexa (o reemplaza) el resultado de una sesión. Los ids de equipo de los
+     * pares se toman de las entregas del análisis.
+     */
+    public synchronized void index(PlagiarismDetectionResponse response, SubmissionRegistry registry) {
+        if (!enabled || log == null || !response.isSuccess() || response.getComparisons() == null) {
+            return;
+        }
+
+        long analyzedAtMillis = System.currentTimeMillis();
+        String sessionId = response.getSessionId();
+        Long assignmentId = response.getAssignmentId();
+        List<IndexedComparison> comparisons = new ArrayList<>();
+        for (PlagiarismDetectionResponse.ComparisonResult comparison : response.getComparisons()) {
+            SubmissionDto first = registry.findById(comparison.getSubmissionId1());
+            SubmissionDto second = registry.findById(comparison.getSubmissionId2());
+            comparisons.add(new IndexedComparison(sessionId, assignmentId, analyzedAtMillis,
+                    comparison.getSubmission1(), comparison.getSubmission2(),
+                    comparison.getSubmissionId1(), comparison.getSubmissionId2(),
+                    first != null ? first.getTeamId() : null, second != null ? second.getTeamId() : null,
+                    comparison.getTeam1(), comparison.getTeam2(),
+                    comparison.getSimilarity(), comparison.getMatchedTokens(), comparison.getComparisonHtmlUrl()));
+        }
+        boolean complete = response.getCompleteness() == null || response.getCompleteness().isComplete();
+        IndexedSession session = new IndexedSession(sessionId, assignmentId, response.getAssignmentTitle(),
+                analyzedAtMillis, registry.size(), comparisons.size(), complete);
+
+        try {
+            appendRecord(log, session, comparisons);
+            log.flush();
+            records++;
+        } catch (IOException e) {
+            logger.warn("Could not append session {} to the result index: {}", sessionId, e.getMessage());
+            // Reescribir desde memoria para no dejar un registro a medias en el log
+            try {
+                compact();
+            } catch (IOException compactionError) {
+                logger.warn("Could not rewrite the result index: {}", compactionError.getMessage());
+            }
+            return;
+        }
+        apply(session, comparisons);
+        maintain();
+    }
+
+    /**
+     * Quita las sesiones vencidas o que exceden max-comparisons y compacta el
+     * log si corresponde
+     */
+    synchronized void maintain() {
+        if (!enabled || log == null) {
+            return;
+        }
+        if (evict() || shouldCompact()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.warn("Could not compact the result index: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Quita una sesión del índice (p.ej. las del warm-up)
+     */
+    public synchronized void discard(String sessionId) {
+        if (!enabled || log == null || !sessions.containsKey(sessionId)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(buffer);
+            record.writeByte(REMOVAL_RECORD);
+            record.writeUTF(sessionId);
+            record.flush();
+            appendPayload(log, buffer.toByteArray());
+            log.flush();
+            records++;
+        } catch (IOException e) {
+            logger.warn("Could not remove session {} from the result index: {}", sessionId, e.getMessage());
+        }
+        remove(sessionId);
+    }
+
+    /**
+     * Pares con similitud mayor o igual a minSimilarity que cumplen todos los
+     * filtros no nulos, de mayor a menor similitud. Se recorre el índice más
+     * selectivo de los filtros dados y se corta al bajar del mínimo.
+     */
+    public synchronized List<IndexedComparison> findComparisons(Long assignmentId, Long teamId, Long submissionId,
+            String sessionId, double minSimilarity, int limit) {
+        List<NavigableSet<IndexedComparison>> candidates = new ArrayList<>();
+        if (submissionId != null) {
+            candidates.add(comparisonsBySubmission.get(submissionId));
+        }
+        if (teamId != null) {
+            candidates.add(comparisonsByTeam.get(teamId));
+        }
+        if (sessionId != null) {
+            SessionEntry entry = sessions.get(sessionId);
+            candidates.add(entry != null ? entry.comparisons : null);
+        }
+        if (assignmentId != null) {
+            candidates.add(comparisonsByAssignment.get(assignmentId));
+        }
+        if (candidates.isEmpty()) {
+            candidates.add(allComparisons);
+        }
+        if (candidates.contains(null)) {
+            return List.of();
+        }
+        NavigableSet<IndexedComparison> smallest = candidates.stream()
+                .min(Comparator.comparingInt(NavigableSet::size))
+                .orElseThrow();
+
+        List<IndexedComparison> results = new ArrayList<>();
+        for (IndexedComparison comparison : smallest) {
+            if (comparison.getSimilarity() < minSimilarity || results.size() >= limit) {
+                break;
+            }
+            if (assignmentId != null && !assignmentId.equals(comparison.getAssignmentId())
+                    || teamId != null && !comparison.involvesTeam(teamId)
+                    || submissionId != null && !comparison.involvesSubmission(submissionId)
+                    || sessionId != null && !sessionId.equals(comparison.getSessionId())) {
+                continue;
+            }
+            results.add(comparison);
+        }
+        return results;
+    }
+
+    /**
+     * Sesiones indexadas (de una tarea, si se indica), las más recientes
+     * primero
+     */
+    public synchronized List<IndexedSession> findSessions(Long assignmentId) {
+        return sessions.values().stream()
+                .map(entry -> entry.session)
+                .filter(session -> assignmentId == null || assignmentId.equals(session.getAssignmentId()))
+                .sorted(Comparator.comparingLong(IndexedSession::getAnalyzedAtMillis).reversed())
+                .toList();
+    }
+
+    /**
+     * Sesión indexada, o null si no existe
+     */
+    public synchronized IndexedSession findSession(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null ? entry.session : null;
+    }
+
+    /**
+     * Reproduce el log. Un registro incompleto o corrupto al final (p.ej. por
+     * una caída durante la escritura) se descarta junto con lo que le sigue.
+     * Retorna true si hay registros vencidos o descartados y conviene
+     * reescribir el log.
+     */
+    private boolean load() throws IOException {
+        if (!Files.exists(logFile)) {
+            return false;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        long size = Files.size(logFile);
+        boolean stale = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported result index: " + logFile);
+            }
+            long offset = HEADER_BYTES;
+            while (offset < size) {
+                int length = in.readInt();
+                if (length < 0 || length > size - offset) {
+                    logger.warn("Incomplete record in result index at offset {}, discarding the rest", offset);
+                    return true;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (in.readInt() != crc(payload)) {
+                    logger.warn("Corrupt record in result index at offset {}, discarding the rest", offset);
+                    return true;
+                }
+                offset += 2L * Integer.BYTES + length;
+                records++;
+                stale |= !readRecord(payload, cutoff);
+            }
+        } catch (EOFException e) {
+            logger.warn("Incomplete record at the end of the result index, discarding it");
+            return true;
+        }
+        return stale;
+    }
+
+    /**
+     * Aplica un registro del log. Retorna false si la sesión ya venció.
+     */
+    private boolean readRecord(byte[] payload, Instant cutoff) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String sessionId = in.readUTF();
+        if (type == REMOVAL_RECORD) {
+            remove(sessionId);
+            return true;
+        }
+        Long assignmentId = IndexedComparison.readId(in);
+        String assignmentTitle = in.readUTF();
+        long analyzedAtMillis = in.readLong();
+        int totalSubmissions = in.readInt();
+        boolean complete = in.readBoolean();
+        int count = in.readInt();
+        List<IndexedComparison> comparisons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comparisons.add(IndexedComparison.read(in, sessionId, assignmentId, analyzedAtMillis));
+        }
+
+        if (Instant.ofEpochMilli(analyzedAtMillis).isBefore(cutoff)) {
+            remove(sessionId);
+            return false;
+        }
+        apply(new IndexedSession(sessionId, assignmentId, assignmentTitle.isEmpty() ? null : assignmentTitle,
+                analyzedAtMillis, totalSubmissions, count, complete), comparisons);
+        return true;
+    }
+
+    private void apply(IndexedSession session, List<IndexedComparison> comparisons) {
+        remove(session.getSessionId());
+
+        SessionEntry entry = new SessionEntry(session);
+        for (IndexedComparison comparison : comparisons) {
+            entry.comparisons.add(comparison);
+            allComparisons.add(comparison);
+            if (comparison.getAssignmentId() != null) {
+                addTo(comparisonsByAssignment, comparison.getAssignmentId(), comparison);
+            }
+            addTo(comparisonsByTeam, comparison.getTeamId1(), comparison);
+            addTo(comparisonsByTeam, comparison.getTeamId2(), comparison);
+            addTo(comparisonsBySubmission, comparison.getSubmissionId1(), comparison);
+            addTo(comparisonsBySubmission, comparison.getSubmissionId2(), comparison);
+        }
+        sessions.put(session.getSessionId(), entry);
+    }
+
+    private void remove(String sessionId) {
+        SessionEntry previous = sessions.remove(sessionId);
+        if (previous == null) {
+            return;
+        }
+        for (IndexedComparison comparison : previous.comparisons) {
+            allComparisons.remove(comparison);
+            removeFrom(comparisonsByAssignment, comparison.getAssignmentId(), comparison);
+            removeFrom(comparisonsByTeam, comparison.getTeamId1(), comparison);
+            removeFrom(comparisonsByTeam, comparison.getTeamId2(), comparison);
+            removeFrom(comparisonsBySubmission, comparison.getSubmissionId1(), comparison);
+            removeFrom(comparisonsBySubmission, comparison.getSubmissionId2(), comparison);
+        }
+    }
+
+    private static void addTo(Map<Long, NavigableSet<IndexedComparison>> index, Long key,
+            IndexedComparison comparison) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new TreeSet<>(IndexedComparison.BY_SIMILARITY_DESC)).add(comparison);
+        }
+    }
+
+    private static void removeFrom(Map<Long, NavigableSet<IndexedComparison>> index, Long key,
+            IndexedComparison comparison) {
+        if (key == null) {
+            return;
+        }
+        NavigableSet<IndexedComparison> comparisons = index.get(key);
+        if (comparisons != null) {
+            comparisons.remove(comparison);
+            if (comparisons.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Quita de memoria, de la más antigua a la más reciente, las sesiones
+     * vencidas y las necesarias para no superar max-comparisons (la más
+     * reciente se conserva siempre). Retorna true si quitó alguna.
+     */
+    private boolean evict() {
+        long cutoff = Instant.now().minus(Duration.ofDays(retentionDays)).toEpochMilli();
+        List<IndexedSession> oldestFirst = sessions.values().stream()
+                .map(entry -> entry.session)
+                .sorted(Comparator.comparingLong(IndexedSession::getAnalyzedAtMillis))
+                .toList();
+        int evicted = 0;
+        for (IndexedSession session : oldestFirst) {
+            boolean expired = session.getAnalyzedAtMillis() < cutoff;
+            boolean overLimit = allComparisons.size() > maxComparisons && sessions.size() > 1;
+            if (!expired && !overLimit) {
+                break;
+            }
+            remove(session.getSessionId());
+            evicted++;
+        }
+        if (evicted > 0) {
+            logger.info("Evicted {} sessions from the result index ({} comparisons remain)", evicted,
+                    allComparisons.size());
+        }
+        return evicted > 0;
+    }
+
+    private boolean shouldCompact() {
+        return records >= compactionMinRecords && records > 2 * sessions.size();
+    }
+
+    /**
+     * Reescribe el log sólo con los registros vigentes
+     */
+    private void compact() throws IOException {
+        closeLog();
+        Path tempFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (SessionEntry entry : sessions.values()) {
+                appendRecord(out, entry.session, entry.comparisons);
+            }
+        }
+        Files.move(tempFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Compacted result index from {} to {} records", records, sessions.size());
+        records = sessions.size();
+        openLog();
+    }
+
+    private void openLog() throws IOException {
+        boolean created = !Files.exists(logFile);
+        OutputStream stream = Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log = new DataOutputStream(new BufferedOutputStream(stream));
+        if (created) {
+            log.writeInt(MAGIC);
+            log.writeInt(VERSION);
+            log.flush();
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.warn("Error closing result index: {}", e.getMessage());
+        }
+        log = null;
+    }
+
+    private static void appendRecord(DataOutputStream out, IndexedSession session,
+            Iterable<IndexedComparison> comparisons) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeByte(SESSION_RECORD);
+        record.writeUTF(session.getSessionId());
+        IndexedComparison.writeId(record, session.getAssignmentId());
+        record.writeUTF(session.getAssignmentTitle() != null ? session.getAssignmentTitle() : "");
+        record.writeLong(session.getAnalyzedAtMillis());
+        record.writeInt(session.getTotalSubmissions());
+        record.writeBoolean(session.isComplete());
+        record.writeInt(session.getTotalComparisons());
+        for (IndexedComparison comparison : comparisons) {
+            comparison.write(record);
+        }
+        record.flush();
+        appendPayload(out, buffer.toByteArray());
+    }
+
+    private static void appendPayload(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(crc(payload));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Sesión indexada con sus pares ordenados por similitud
+     */
+    private static final class SessionEntry {
+        private final IndexedSession session;
+        private final NavigableSet<IndexedComparison> comparisons = new TreeSet<>(
+                IndexedComparison.BY_SIMILARITY_DESC);
+
+        private SessionEntry(IndexedSession session) {
+            this.session = session;
+        }
+    }
+}
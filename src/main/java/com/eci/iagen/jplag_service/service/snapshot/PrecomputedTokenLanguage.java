@@ -0,0 +1,61 @@
+package com.eci.iagen.jplag_service.service.snapshot;
+
+import de.jplag.Language;
+import de.jplag.Token;
+import de.jplag.options.LanguageOptions;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lenguaje de una sola entrega restaurada desde un snapshot: "parsear"
+ * retorna los tokens guardados, de modo que JPlag arma la entrega sin volver
+ * a tokenizar sus fuentes. El resto se delega en el lenguaje real.
+ */
+class PrecomputedTokenLanguage implements Language {
+
+    private final Language delegate;
+    private final List<Token> tokens;
+
+    PrecomputedTokenLanguage(Language delegate, List<Token> tokens) {
+        this.delegate = delegate;
+        this.tokens = tokens;
+    }
+
+    @Override
+    public List<Token> parse(Set<File> files, boolean normalize) {
+        return new ArrayList<>(tokens);
+    }
+
+    @Override
+    public String[] suffixes() {
+        return delegate.suffixes();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String getIdentifier() {
+        return delegate.getIdentifier();
+    }
+
+    @Override
+    public int minimumTokenMatch() {
+        return delegate.minimumTokenMatch();
+    }
+
+    @Override
+    public boolean tokensHaveSemantics() {
+        return delegate.tokensHaveSemantics();
+    }
+
+    @Override
+    public LanguageOptions getOptions() {
+        return delegate.getOptions();
+    }
+}
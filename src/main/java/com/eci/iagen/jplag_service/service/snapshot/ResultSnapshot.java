@@ -0,0 +1,563 @@
+package com.eci.iagen.jplag_service.service.snapshot;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import de.jplag.JPlagComparison;
+import de.jplag.JPlagResult;
+import de.jplag.Language;
+import de.jplag.Match;
+import de.jplag.Submission;
+import de.jplag.SubmissionSet;
+import de.jplag.Token;
+import de.jplag.TokenType;
+import de.jplag.clustering.ClusteringFactory;
+import de.jplag.exceptions.ExitException;
+import de.jplag.options.JPlagOptions;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Snapshot binario y compacto de un {@link JPlagResult}: entregas (con sus
+ * metadatos del request), tablas de tokens con su posición, coincidencias,
+ * similitudes y las fuentes. Los tokens y el índice de comparaciones son
+ * registros de tamaño fijo, así que el archivo se lee mapeado en memoria sin
+ * deserializarlo completo.
+ * <p>
+ * Formato: cabecera (magic, versión, opciones), secciones y un pie con el
+ * offset de cada sección. Los archivos de más de 2 GB no se pueden mapear.
+ */
+public class ResultSnapshot {
+
+    private static final int MAGIC = 0x4A50534E;
+    private static final int VERSION = 1;
+
+    private static final int STRINGS = 0;
+    private static final int TOKEN_TYPES = 1;
+    private static final int SUBMISSIONS = 2;
+    private static final int TOKENS = 3;
+    private static final int BASE_CODE_MATCHES = 4;
+    private static final int COMPARISONS = 5;
+    private static final int MATCHES = 6;
+    private static final int SOURCES = 7;
+    private static final int SECTION_COUNT = 8;
+
+    private static final int TOKEN_BYTES = 20;
+    private static final int COMPARISON_BYTES = 24;
+    private static final int FOOTER_BYTES = SECTION_COUNT * Long.BYTES + Integer.BYTES;
+    private static final int FLAG_NEW = 1;
+    private static final String COMPLETE_MARKER = ".complete";
+
+    private final ByteBuffer buffer;
+    private final long[] sections = new long[SECTION_COUNT];
+    private final long assignmentId;
+    private final long createdAtMillis;
+    private final long durationMillis;
+    private final int minimumTokenMatch;
+    private final double similarityThreshold;
+    private final int maximumNumberOfComparisons;
+    private final int baseCodeIndex;
+    private final String[] strings;
+    private final List<SnapshotSubmission> submissions = new ArrayList<>();
+    private final int comparisonCount;
+
+    private ResultSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        if (limit < 8 + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(limit - Integer.BYTES) != MAGIC) {
+            throw new IOException("Unsupported result snapshot");
+        }
+        long previous = 8;
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections[i] = buffer.getLong(limit - FOOTER_BYTES + i * Long.BYTES);
+            if (sections[i] < previous || sections[i] > limit - FOOTER_BYTES) {
+                throw new IOException("Corrupt result snapshot: invalid section offset");
+            }
+            previous = sections[i];
+        }
+
+        ByteBuffer header = buffer.duplicate().position(8);
+        assignmentId = header.getLong();
+        createdAtMillis = header.getLong();
+        durationMillis = header.getLong();
+        minimumTokenMatch = header.getInt();
+        similarityThreshold = header.getDouble();
+        maximumNumberOfComparisons = header.getInt();
+        baseCodeIndex = header.getInt();
+
+        ByteBuffer stringSection = section(STRINGS);
+        strings = new String[count(stringSection, Integer.BYTES)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[count(stringSection, 1)];
+            stringSection.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        ByteBuffer submissionSection = section(SUBMISSIONS);
+        int submissionCount = count(submissionSection, 1);
+        for (int i = 0; i < submissionCount; i++) {
+            SnapshotSubmission submission = new SnapshotSubmission();
+            submission.name = strings[submissionSection.getInt()];
+            submission.rootName = strings[submissionSection.getInt()];
+            submission.isNew = (submissionSection.get() & FLAG_NEW) != 0;
+            submission.submissionId = submissionSection.getLong();
+            submission.teamId = submissionSection.getLong();
+            int teamName = submissionSection.getInt();
+            submission.teamName = teamName >= 0 ? strings[teamName] : null;
+            submission.files = new String[count(submissionSection, Integer.BYTES)];
+            for (int file = 0; file < submission.files.length; file++) {
+                submission.files[file] = strings[submissionSection.getInt()];
+            }
+            submission.tokenCount = submissionSection.getInt();
+            submission.tokenStart = submissionSection.getLong();
+            submissions.add(submission);
+        }
+        comparisonCount = section(COMPARISONS).getInt();
+    }
+
+    /**
+     * Abre un snapshot mapeándolo en memoria (sólo lectura)
+     */
+    public static ResultSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Result snapshot too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ResultSnapshot(mapped);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+            // Índices o tamaños fuera de rango: el archivo está truncado o dañado
+            throw new IOException("Corrupt result snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Escribe el snapshot de un resultado. metadata retorna la entrega del
+     * request para el nombre del directorio de una entrega (o null).
+     */
+    public static void write(Path file, JPlagResult result, Long assignmentId,
+            Function<String, SubmissionDto> metadata) throws IOException {
+        SubmissionSet submissionSet = result.getSubmissions();
+        List<Submission> submissions = new ArrayList<>(submissionSet.getSubmissions());
+        int baseCodeIndex = -1;
+        if (submissionSet.hasBaseCode()) {
+            baseCodeIndex = submissions.size();
+            submissions.add(submissionSet.getBaseCode());
+        }
+        Map<Submission, Integer> indexes = new IdentityHashMap<>();
+        for (Submission submission : submissions) {
+            indexes.put(submission, indexes.size());
+        }
+
+        // Tablas de strings y tipos de token
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<TokenType, Integer> tokenTypes = new LinkedHashMap<>();
+        List<List<File>> filesBySubmission = new ArrayList<>();
+        for (Submission submission : submissions) {
+            intern(strings, submission.getName());
+            intern(strings, submission.getRoot().getName());
+            SubmissionDto dto = metadata.apply(submission.getRoot().getName());
+            if (dto != null && dto.getTeamName() != null) {
+                intern(strings, dto.getTeamName());
+            }
+            List<File> files = new ArrayList<>(submission.getFiles());
+            filesBySubmission.add(files);
+            for (File sourceFile : files) {
+                intern(strings, relativePath(submission, sourceFile));
+            }
+            for (Token token : submission.getTokenList()) {
+                if (!tokenTypes.containsKey(token.getType())) {
+                    if (!(token.getType() instanceof Enum<?> constant)) {
+                        throw new IOException("Unsupported token type: " + token.getType().getClass().getName());
+                    }
+                    intern(strings, constant.getDeclaringClass().getName());
+                    intern(strings, constant.name());
+                    tokenTypes.put(token.getType(), tokenTypes.size());
+                }
+            }
+        }
+
+        List<JPlagComparison> comparisons = result.getAllComparisons();
+        long[] sections = new long[SECTION_COUNT];
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            JPlagOptions options = result.getOptions();
+            out.writeLong(assignmentId != null ? assignmentId : -1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(result.getDuration());
+            out.writeInt(options.minimumTokenMatch());
+            out.writeDouble(options.similarityThreshold());
+            out.writeInt(options.maximumNumberOfComparisons());
+            out.writeInt(baseCodeIndex);
+
+            sections[STRINGS] = out.size();
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            sections[TOKEN_TYPES] = out.size();
+            out.writeInt(tokenTypes.size());
+            for (TokenType type : tokenTypes.keySet()) {
+                Enum<?> constant = (Enum<?>) type;
+                out.writeInt(strings.get(constant.getDeclaringClass().getName()));
+                out.writeInt(strings.get(constant.name()));
+            }
+
+            sections[SUBMISSIONS] = out.size();
+            out.writeInt(submissions.size());
+            long tokenStart = 0;
+            for (int i = 0; i < submissions.size(); i++) {
+                Submission submission = submissions.get(i);
+                SubmissionDto dto = metadata.apply(submission.getRoot().getName());
+                out.writeInt(strings.get(submission.getName()));
+                out.writeInt(strings.get(submission.getRoot().getName()));
+                out.writeByte(submission.isNew() ? FLAG_NEW : 0);
+                out.writeLong(dto != null && dto.getSubmissionId() != null ? dto.getSubmissionId() : -1);
+                out.writeLong(dto != null && dto.getTeamId() != null ? dto.getTeamId() : -1);
+                out.writeInt(dto != null && dto.getTeamName() != null ? strings.get(dto.getTeamName()) : -1);
+                out.writeInt(filesBySubmission.get(i).size());
+                for (File sourceFile : filesBySubmission.get(i)) {
+                    out.writeInt(strings.get(relativePath(submission, sourceFile)));
+                }
+                out.writeInt(submission.getTokenList().size());
+                out.writeLong(tokenStart);
+                tokenStart += submission.getTokenList().size();
+            }
+
+            sections[TOKENS] = out.size();
+            for (int i = 0; i < submissions.size(); i++) {
+                Map<File, Integer> fileIndexes = new HashMap<>();
+                for (File sourceFile : filesBySubmission.get(i)) {
+                    fileIndexes.put(sourceFile, fileIndexes.size());
+                }
+                for (Token token : submissions.get(i).getTokenList()) {
+                    out.writeInt(tokenTypes.get(token.getType()));
+                    out.writeInt(fileIndexes.getOrDefault(token.getFile(), -1));
+                    out.writeInt(token.getLine());
+                    out.writeInt(token.getColumn());
+                    out.writeInt(token.getLength());
+                }
+            }
+
+            sections[BASE_CODE_MATCHES] = out.size();
+            List<Submission> withBaseCode = submissions.stream()
+                    .filter(submission -> submission.getBaseCodeComparison() != null)
+                    .toList();
+            out.writeInt(withBaseCode.size());
+            for (Submission submission : withBaseCode) {
+                out.writeInt(indexes.get(submission));
+                writeMatches(out, submission.getBaseCodeComparison().matches());
+            }
+
+            // Índice de tamaño fijo; las coincidencias de cada par van en MATCHES
+            sections[COMPARISONS] = out.size();
+            out.writeInt(comparisons.size());
+            long matchOffset = 0;
+            for (JPlagComparison comparison : comparisons) {
+                out.writeInt(indexes.get(comparison.firstSubmission()));
+                out.writeInt(indexes.get(comparison.secondSubmission()));
+                out.writeFloat((float) comparison.similarity());
+                out.writeInt(comparison.getNumberOfMatchedTokens());
+                out.writeLong(matchOffset);
+                matchOffset += 2L * Integer.BYTES
+                        + 3L * Integer.BYTES * (comparison.matches().size() + comparison.ignoredMatches().size());
+            }
+
+            sections[MATCHES] = out.size();
+            for (JPlagComparison comparison : comparisons) {
+                writeMatches(out, comparison.matches());
+                writeMatches(out, comparison.ignoredMatches());
+            }
+
+            sections[SOURCES] = out.size();
+            for (int i = 0; i < submissions.size(); i++) {
+                for (File sourceFile : filesBySubmission.get(i)) {
+                    byte[] content = sourceFile.isFile() ? Files.readAllBytes(sourceFile.toPath()) : new byte[0];
+                    out.writeInt(content.length);
+                    out.write(content);
+                }
+            }
+
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("Result snapshot exceeds 2 GB");
+            }
+            for (long offset : sections) {
+                out.writeLong(offset);
+            }
+            out.writeInt(MAGIC);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Comparaciones entre entregas actuales con similitud mayor o igual a la
+     * mínima, ordenadas de mayor a menor. Sólo lee el índice de comparaciones.
+     */
+    public List<PlagiarismDetectionResponse.ComparisonResult> comparisons(String sessionId,
+            double minimumSimilarity) {
+        List<PlagiarismDetectionResponse.ComparisonResult> results = new ArrayList<>();
+        ByteBuffer index = section(COMPARISONS).position((int) sections[COMPARISONS] + Integer.BYTES);
+        for (int i = 0; i < comparisonCount; i++) {
+            SnapshotSubmission first = submissions.get(index.getInt());
+            SnapshotSubmission second = submissions.get(index.getInt());
+            double similarity = index.getFloat();
+            int matchedTokens = index.getInt();
+            index.getLong();
+            if (similarity < minimumSimilarity || !first.isNew || !second.isNew) {
+                continue;
+            }
+
+            String comparisonHtmlUrl = first.submissionId >= 0 && second.submissionId >= 0
+                    ? "/reports/comparison/" + sessionId + "/" + first.submissionId + "-" + second.submissionId
+                            + ".html"
+                    : null;
+            results.add(new PlagiarismDetectionResponse.ComparisonResult(
+                    first.name,
+                    second.name,
+                    first.teamName != null ? first.teamName : "Unknown Team",
+                    second.teamName != null ? second.teamName : "Unknown Team",
+                    similarity,
+                    matchedTokens,
+                    "completed",
+                    comparisonHtmlUrl,
+                    first.submissionId >= 0 ? first.submissionId : null,
+                    second.submissionId >= 0 ? second.submissionId : null));
+        }
+        results.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return results;
+    }
+
+    /**
+     * Reconstruye el resultado de JPlag sin volver a tokenizar: las entregas se
+     * arman con sus tokens guardados y las fuentes se materializan (una vez)
+     * en sourcesDirectory para que el reporte pueda incluirlas.
+     *
+     * @param minimumSimilarity       sólo se incluyen los pares con al menos
+     *                                esta similitud
+     * @param maximumComparisons      pares en el reporte; null para el valor
+     *                                original
+     */
+    public JPlagResult toJPlagResult(Language language, Path sourcesDirectory, double minimumSimilarity,
+            Integer maximumComparisons) throws IOException, ExitException {
+        Path submissionsDirectory = sourcesDirectory.resolve("submissions");
+        Path baseCodeDirectory = sourcesDirectory.resolve("base-code");
+        materializeSources(sourcesDirectory, submissionsDirectory, baseCodeDirectory);
+
+        TokenType[] tokenTypes = readTokenTypes();
+        List<Submission> restored = new ArrayList<>();
+        for (int i = 0; i < submissions.size(); i++) {
+            SnapshotSubmission snapshot = submissions.get(i);
+            Path root = i == baseCodeIndex ? baseCodeDirectory : submissionsDirectory.resolve(snapshot.rootName);
+            List<File> files = new ArrayList<>();
+            for (String relativePath : snapshot.files) {
+                files.add(root.resolve(relativePath).toFile());
+            }
+
+            List<Token> tokens = new ArrayList<>(snapshot.tokenCount);
+            ByteBuffer tokenBuffer = buffer.duplicate()
+                    .position((int) (sections[TOKENS] + snapshot.tokenStart * TOKEN_BYTES));
+            for (int token = 0; token < snapshot.tokenCount; token++) {
+                TokenType type = tokenTypes[tokenBuffer.getInt()];
+                int file = tokenBuffer.getInt();
+                tokens.add(new Token(type, file >= 0 ? files.get(file) : root.toFile(), tokenBuffer.getInt(),
+                        tokenBuffer.getInt(), tokenBuffer.getInt()));
+            }
+            restored.add(new Submission(snapshot.name, root.toFile(), snapshot.isNew, files,
+                    new PrecomputedTokenLanguage(language, tokens)));
+        }
+
+        Submission baseCode = baseCodeIndex >= 0 ? restored.get(baseCodeIndex) : null;
+        List<Submission> analyzed = new ArrayList<>(restored);
+        if (baseCode != null) {
+            analyzed.remove(baseCodeIndex);
+        }
+
+        JPlagOptions options = new JPlagOptions(language, Set.of(submissionsDirectory.toFile()), Set.of())
+                .withMinimumTokenMatch(minimumTokenMatch)
+                .withSimilarityThreshold(Math.max(similarityThreshold, minimumSimilarity))
+                .withMaximumNumberOfComparisons(maximumComparisons != null ? maximumComparisons
+                        : maximumNumberOfComparisons);
+        if (baseCode != null) {
+            options = options.withBaseCodeSubmissionDirectory(baseCodeDirectory.toFile());
+        }
+        // Con minimum token match 1 ninguna entrega del análisis original queda inválida
+        SubmissionSet submissionSet = new SubmissionSet(analyzed, baseCode, options.withMinimumTokenMatch(1));
+
+        ByteBuffer baseCodeMatches = section(BASE_CODE_MATCHES);
+        int withBaseCode = baseCodeMatches.getInt();
+        for (int i = 0; i < withBaseCode; i++) {
+            Submission submission = restored.get(baseCodeMatches.getInt());
+            submission.setBaseCodeComparison(new JPlagComparison(submission, baseCode,
+                    readMatches(baseCodeMatches), List.of()));
+        }
+
+        List<JPlagComparison> comparisons = new ArrayList<>();
+        ByteBuffer index = section(COMPARISONS).position((int) sections[COMPARISONS] + Integer.BYTES);
+        for (int i = 0; i < comparisonCount; i++) {
+            Submission first = restored.get(index.getInt());
+            Submission second = restored.get(index.getInt());
+            float similarity = index.getFloat();
+            index.getInt();
+            long matchOffset = index.getLong();
+            if (similarity < minimumSimilarity) {
+                continue;
+            }
+            ByteBuffer matches = buffer.duplicate().position((int) (sections[MATCHES] + matchOffset));
+            comparisons.add(new JPlagComparison(first, second, readMatches(matches), readMatches(matches)));
+        }
+
+        JPlagResult result = new JPlagResult(comparisons, submissionSet, durationMillis, options);
+        result.setClusteringResult(ClusteringFactory.getClusterings(comparisons, options.clusteringOptions()));
+        return result;
+    }
+
+    public long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public int getSubmissionCount() {
+        return baseCodeIndex >= 0 ? submissions.size() - 1 : submissions.size();
+    }
+
+    public int getComparisonCount() {
+        return comparisonCount;
+    }
+
+    /**
+     * Escribe las fuentes guardadas bajo sourcesDirectory si aún no están
+     */
+    private void materializeSources(Path sourcesDirectory, Path submissionsDirectory, Path baseCodeDirectory)
+            throws IOException {
+        if (Files.exists(sourcesDirectory.resolve(COMPLETE_MARKER))) {
+            return;
+        }
+        ByteBuffer sources = section(SOURCES);
+        for (int i = 0; i < submissions.size(); i++) {
+            SnapshotSubmission snapshot = submissions.get(i);
+            Path root = i == baseCodeIndex ? baseCodeDirectory : submissionsDirectory.resolve(snapshot.rootName);
+            for (String relativePath : snapshot.files) {
+                byte[] content = new byte[sources.getInt()];
+                sources.get(content);
+                Path target = root.resolve(relativePath).normalize();
+                if (!target.startsWith(sourcesDirectory)) {
+                    throw new IOException("Unsafe source path in snapshot: " + relativePath);
+                }
+                Files.createDirectories(target.getParent());
+                Files.write(target, content);
+            }
+        }
+        Files.createFile(sourcesDirectory.resolve(COMPLETE_MARKER));
+    }
+
+    private TokenType[] readTokenTypes() throws IOException {
+        ByteBuffer types = section(TOKEN_TYPES);
+        TokenType[] tokenTypes = new TokenType[types.getInt()];
+        for (int i = 0; i < tokenTypes.length; i++) {
+            String className = strings[types.getInt()];
+            String constantName = strings[types.getInt()];
+            try {
+                Class<?> type = Class.forName(className);
+                for (Object constant : type.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equals(constantName)) {
+                        tokenTypes[i] = (TokenType) constant;
+                    }
+                }
+            } catch (ClassNotFoundException | ClassCastException | NullPointerException e) {
+                throw new IOException("Unknown token type in snapshot: " + className + "." + constantName, e);
+            }
+            if (tokenTypes[i] == null) {
+                throw new IOException("Unknown token type in snapshot: " + className + "." + constantName);
+            }
+        }
+        return tokenTypes;
+    }
+
+    /**
+     * Lee la cantidad de registros que siguen, validando que quepan en lo que
+     * resta del buffer
+     */
+    private static int count(ByteBuffer buffer, int minimumRecordBytes) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minimumRecordBytes > buffer.remaining()) {
+            throw new IOException("Corrupt result snapshot: invalid record count " + count);
+        }
+        return count;
+    }
+
+    private ByteBuffer section(int section) {
+        return buffer.duplicate().position((int) sections[section]);
+    }
+
+    private static List<Match> readMatches(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Match> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            matches.add(new Match(buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        return matches;
+    }
+
+    private static void writeMatches(DataOutputStream out, List<Match> matches) throws IOException {
+        out.writeInt(matches.size());
+        for (Match match : matches) {
+            out.writeInt(match.startOfFirst());
+            out.writeInt(match.startOfSecond());
+            out.writeInt(match.length());
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, String value) {
+        strings.putIfAbsent(value, strings.size());
+    }
+
+    private static String relativePath(Submission submission, File sourceFile) {
+        return submission.getRoot().toPath().relativize(sourceFile.toPath()).toString();
+    }
+
+    /**
+     * Metadatos de una entrega del snapshot (los tokens quedan en el buffer)
+     */
+    private static class SnapshotSubmission {
+        private String name;
+        private String rootName;
+        private boolean isNew;
+        private long submissionId;
+        private long teamId;
+        private String teamName;
+        private String[] files;
+        private int tokenCount;
+        private long tokenStart;
+    }
+}
@@ -0,0 +1,175 @@
+package com.eci.iagen.jplag_service.service.snapshot;
+
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.workspace.WorkspaceManager;
+import de.jplag.JPlagResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Guarda un {@link ResultSnapshot} por sesión para regenerar reportes, páginas
+ * de comparación y vistas filtradas sin volver a clonar ni tokenizar. Los
+ * snapshots vencen después de jplag.snapshots.retention-hours.
+ */
+@Service
+public class ResultSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSnapshotStore.class);
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String SNAPSHOT_EXTENSION = ".jpsn";
+    private static final String SOURCES_SUFFIX = ".sources";
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Value("${jplag.snapshots.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jplag.snapshots.directory:./snapshots}")
+    private String snapshotsDirectory;
+
+    @Value("${jplag.snapshots.retention-hours:72}")
+    private long retentionHours;
+
+    private Path baseDirectory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDirectory = Paths.get(snapshotsDirectory).toAbsolutePath().normalize();
+        if (enabled) {
+            Files.createDirectories(baseDirectory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Guarda (o reemplaza) el snapshot de una sesión y borra los vencidos.
+     * Retorna false si los snapshots están deshabilitados o no se pudo escribir.
+     */
+    public boolean save(String sessionId, JPlagResult result, Long assignmentId,
+            Function<String, SubmissionDto> metadata) {
+        if (!enabled || !isValidSessionId(sessionId)) {
+            return false;
+        }
+        sweepExpired();
+
+        try {
+            ResultSnapshot.write(snapshotFile(sessionId), result, assignmentId, metadata);
+            // Las fuentes materializadas de un snapshot anterior ya no corresponden
+            discardSources(sessionId);
+            logger.info("Saved result snapshot of session {} ({} comparisons)", sessionId,
+                    result.getAllComparisons().size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not save result snapshot of session {}: {}", sessionId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot de una sesión, o null si no hay (o venció)
+     */
+    public ResultSnapshot open(String sessionId) throws IOException {
+        if (!enabled || !isValidSessionId(sessionId)) {
+            return null;
+        }
+        Path file = snapshotFile(sessionId);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        // Extender la retención: el snapshot se sigue usando
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        return ResultSnapshot.open(file);
+    }
+
+    /**
+     * Indica si la sesión tiene un snapshot guardado (sin extender su retención)
+     */
+    public boolean exists(String sessionId) {
+        return enabled && isValidSessionId(sessionId) && Files.isRegularFile(snapshotFile(sessionId));
+    }
+
+    /**
+     * Borra el snapshot de una sesión y sus fuentes materializadas
+     */
+    public void discard(String sessionId) {
+        if (!enabled || !isValidSessionId(sessionId)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(snapshotFile(sessionId));
+            discardSources(sessionId);
+        } catch (IOException e) {
+            logger.warn("Could not discard result snapshot of session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Directorio donde se materializan las fuentes del snapshot de una sesión
+     */
+    public Path sourcesDirectory(String sessionId) {
+        return baseDirectory.resolve(sessionId + SOURCES_SUFFIX);
+    }
+
+    private Path snapshotFile(String sessionId) {
+        return baseDirectory.resolve(sessionId + SNAPSHOT_EXTENSION);
+    }
+
+    private boolean isValidSessionId(String sessionId) {
+        return sessionId != null && SESSION_ID.matcher(sessionId).matches();
+    }
+
+    private void discardSources(String sessionId) throws IOException {
+        Path sources = sourcesDirectory(sessionId);
+        if (Files.exists(sources)) {
+            workspaceManager.discard(Files.move(sources, baseDirectory.resolve(
+                    "." + sessionId + "-old-" + System.nanoTime())));
+        }
+    }
+
+    private void sweepExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        try (Stream<Path> entries = Files.list(baseDirectory)) {
+            List<Path> expired = entries
+                    .filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_EXTENSION))
+                    .filter(path -> isOlderThan(path, cutoff))
+                    .toList();
+            for (Path file : expired) {
+                String name = file.getFileName().toString();
+                String sessionId = name.substring(0, name.length() - SNAPSHOT_EXTENSION.length());
+                logger.info("Discarding expired result snapshot: {}", sessionId);
+                Files.deleteIfExists(file);
+                discardSources(sessionId);
+            }
+        } catch (IOException e) {
+            logger.warn("Error sweeping result snapshots in {}: {}", baseDirectory, e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
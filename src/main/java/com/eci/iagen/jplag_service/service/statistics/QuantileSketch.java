@@ -0,0 +1,50 @@
+package com.eci.iagen.jplag_service.service.statistics;
+
+/**
+ * Sketch de cuantiles para valores en [0, 1] (similitudes): cuenta cada valor
+ * en una de RESOLUTION + 1 cubetas uniformes, así que usa memoria fija, el
+ * error de cada cuantil es a lo sumo 1 / (2 * RESOLUTION) y dos sketches se
+ * combinan sumando sus cubetas.
+ */
+public class QuantileSketch {
+
+    private static final int RESOLUTION = 1000;
+
+    private final long[] counts = new long[RESOLUTION + 1];
+    private long total;
+
+    public void add(double value) {
+        double clamped = Math.max(0.0, Math.min(1.0, value));
+        counts[(int) Math.round(clamped * RESOLUTION)]++;
+        total++;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Valor del cuantil q (entre 0 y 1), o 0 si el sketch está vacío
+     */
+    public double quantile(double q) {
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (double) i / RESOLUTION;
+            }
+        }
+        return 1.0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.eci.iagen.jplag_service.service.statistics;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de similitud acumuladas en una sola pasada, a medida que se
+ * producen las comparaciones: promedio, mínimo, máximo, histograma de
+ * intervalos fijos, percentiles (con un {@link QuantileSketch}) y la mayor
+ * similitud de cada equipo. No guarda las comparaciones y dos acumuladores se
+ * pueden combinar.
+ */
+public class SimilarityStatistics {
+
+    private final long[] histogram;
+    private final QuantileSketch sketch = new QuantileSketch();
+    private final Map<String, PlagiarismDetectionResponse.TeamMaximum> teamMaxima = new HashMap<>();
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public SimilarityStatistics(int histogramBins) {
+        this.histogram = new long[Math.max(1, histogramBins)];
+    }
+
+    /**
+     * Agrega la similitud de un par; los equipos pueden ser null
+     */
+    public void add(double similarity, String team1, String team2) {
+        count++;
+        sum += similarity;
+        min = Math.min(min, similarity);
+        max = Math.max(max, similarity);
+        int bin = (int) (Math.max(0.0, Math.min(1.0, similarity)) * histogram.length);
+        histogram[Math.min(bin, histogram.length - 1)]++;
+        sketch.add(similarity);
+        updateTeamMaximum(team1, team2, similarity);
+        updateTeamMaximum(team2, team1, similarity);
+    }
+
+    /**
+     * Combina otro acumulador (con la misma cantidad de intervalos) en éste
+     */
+    public void merge(SimilarityStatistics other) {
+        if (other.histogram.length != histogram.length) {
+            throw new IllegalArgumentException("Histogram bins differ: " + other.histogram.length + " vs "
+                    + histogram.length);
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        sketch.merge(other.sketch);
+        for (PlagiarismDetectionResponse.TeamMaximum teamMaximum : other.teamMaxima.values()) {
+            updateTeamMaximum(teamMaximum.getTeam(), teamMaximum.getOtherTeam(), teamMaximum.getMaxSimilarity());
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public PlagiarismDetectionResponse.Statistics toStatistics(int totalSubmissions) {
+        PlagiarismDetectionResponse.Statistics statistics = new PlagiarismDetectionResponse.Statistics(
+                totalSubmissions, (int) count,
+                count > 0 ? round(sum / count) : 0.0,
+                count > 0 ? round(max) : 0.0,
+                count > 0 ? round(min) : 0.0);
+        statistics.setP50Similarity(round(sketch.quantile(0.50)));
+        statistics.setP90Similarity(round(sketch.quantile(0.90)));
+        statistics.setP99Similarity(round(sketch.quantile(0.99)));
+
+        List<PlagiarismDetectionResponse.HistogramBin> bins = new ArrayList<>();
+        for (int i = 0; i < histogram.length; i++) {
+            PlagiarismDetectionResponse.HistogramBin bin = new PlagiarismDetectionResponse.HistogramBin();
+            bin.setFrom(round((double) i / histogram.length));
+            bin.setTo(round((double) (i + 1) / histogram.length));
+            bin.setCount(histogram[i]);
+            bins.add(bin);
+        }
+        statistics.setHistogram(bins);
+
+        List<PlagiarismDetectionResponse.TeamMaximum> maxima = new ArrayList<>(teamMaxima.values());
+        maxima.sort(Comparator.comparingDouble(PlagiarismDetectionResponse.TeamMaximum::getMaxSimilarity).reversed()
+                .thenComparing(PlagiarismDetectionResponse.TeamMaximum::getTeam));
+        statistics.setTeamMaxima(maxima);
+        return statistics;
+    }
+
+    private void updateTeamMaximum(String team, String otherTeam, double similarity) {
+        if (team == null) {
+            return;
+        }
+        PlagiarismDetectionResponse.TeamMaximum teamMaximum = teamMaxima.get(team);
+        if (teamMaximum == null) {
+            teamMaximum = new PlagiarismDetectionResponse.TeamMaximum();
+            teamMaximum.setTeam(team);
+            teamMaximum.setMaxSimilarity(Double.NEGATIVE_INFINITY);
+            teamMaxima.put(team, teamMaximum);
+        }
+        if (similarity > teamMaximum.getMaxSimilarity()) {
+            teamMaximum.setMaxSimilarity(similarity);
+            teamMaximum.setOtherTeam(otherTeam);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
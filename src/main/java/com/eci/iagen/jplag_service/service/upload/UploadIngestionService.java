@@ -0,0 +1,257 @@
+package com.eci.iagen.jplag_service.service.upload;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.JPlagDetectionService;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionStager;
+import com.eci.iagen.jplag_service.service.workspace.ZipExtractor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.FileUploadIOException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Análisis de entregas subidas como multipart/form-data, alternativa a clonar
+ * repositorios. La primera parte, "request", es el JSON del análisis (el
+ * mismo de /analyze, sin repositoryUrl); cada parte siguiente es un ZIP o un
+ * .java suelto cuyo nombre de campo es el submissionId. Las partes se leen en
+ * streaming del request y sólo los fuentes se escriben, una única vez, en el
+ * workspace del análisis.
+ */
+@Service
+public class UploadIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadIngestionService.class);
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    public static final String REQUEST_PART = "request";
+
+    @Autowired
+    private JPlagDetectionService jplagDetectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private SubmissionLimits submissionLimits;
+
+    @Value("${jplag.upload.max-request-size-mb:512}")
+    private long maxRequestSizeMb;
+
+    @Value("${jplag.upload.max-submission-size-mb:20}")
+    private long maxSubmissionSizeMb;
+
+    @Value("${jplag.upload.max-entries-per-archive:20000}")
+    private int maxEntriesPerArchive;
+
+    /**
+     * Lee el request multipart y ejecuta el análisis a medida que llegan las
+     * entregas. Lanza IllegalArgumentException si el request no es válido.
+     */
+    public PlagiarismDetectionResponse analyze(HttpServletRequest httpRequest) throws IOException {
+        String contentType = httpRequest.getContentType();
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+            throw new IllegalArgumentException("Se esperaba un request multipart/form-data");
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setSizeMax(maxRequestSizeMb * BYTES_PER_MB);
+        FileItemIterator items;
+        PlagiarismDetectionRequest request;
+        try {
+            items = upload.getItemIterator(new ServletRequestContext(httpRequest));
+            request = readRequest(items);
+        } catch (FileUploadException | FileUploadIOException e) {
+            throw new IllegalArgumentException("Request multipart inválido: " + e.getMessage(), e);
+        }
+
+        logger.info("Received upload analysis for assignment: {} with {} submissions",
+                request.getAssignmentId(), request.getSubmissions().size());
+        return jplagDetectionService.detectPlagiarism(request, new UploadStager(items));
+    }
+
+    /**
+     * Primera parte del request: el JSON del análisis, validado como en /analyze
+     */
+    private PlagiarismDetectionRequest readRequest(FileItemIterator items) throws IOException {
+        if (!items.hasNext()) {
+            throw new IllegalArgumentException("El request multipart está vacío");
+        }
+        FileItemStream first = items.next();
+        if (!REQUEST_PART.equals(first.getFieldName())) {
+            throw new IllegalArgumentException("La primera parte debe ser \"" + REQUEST_PART
+                    + "\" con el JSON del análisis");
+        }
+
+        PlagiarismDetectionRequest request;
+        try (InputStream input = first.openStream()) {
+            request = objectMapper.readValue(input, PlagiarismDetectionRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido en \"" + REQUEST_PART + "\": "
+                    + e.getOriginalMessage(), e);
+        }
+
+        Set<ConstraintViolation<PlagiarismDetectionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", ")));
+        }
+        if (request.getSubmissions() == null || request.getSubmissions().isEmpty()) {
+            throw new IllegalArgumentException("\"" + REQUEST_PART + "\" no declara entregas");
+        }
+        Set<Long> ids = new HashSet<>();
+        for (SubmissionDto submission : request.getSubmissions()) {
+            if (submission.getSubmissionId() == null || !ids.add(submission.getSubmissionId())) {
+                throw new IllegalArgumentException("Cada entrega necesita un submissionId único");
+            }
+        }
+        // Las entregas subidas no tienen callback asíncrono: el request espera el resultado
+        request.setCallbackUrl(null);
+        return request;
+    }
+
+    /**
+     * Recibe las partes restantes en el directorio de repositorios del
+     * workspace. Una entrega que supera los límites o trae un ZIP inválido se
+     * descarta sin abortar el análisis; un request truncado o demasiado
+     * grande sí lo aborta.
+     */
+    private final class UploadStager implements SubmissionStager {
+
+        private final FileItemIterator items;
+
+        UploadStager(FileItemIterator items) {
+            this.items = items;
+        }
+
+        @Override
+        public List<File> stage(List<SubmissionDto> submissions, Path repositoriesDir, AnalysisJob job)
+                throws IOException {
+            job.setStage("receiving");
+            job.getProgress().setRepositoriesTotal(submissions.size());
+
+            Map<String, SubmissionDto> submissionsByField = new HashMap<>();
+            for (SubmissionDto submission : submissions) {
+                submissionsByField.put(String.valueOf(submission.getSubmissionId()), submission);
+            }
+            Map<SubmissionDto, Long> receivedBytes = new LinkedHashMap<>();
+            Set<SubmissionDto> rejected = new HashSet<>();
+            long maxSubmissionBytes = maxSubmissionSizeMb * BYTES_PER_MB;
+
+            while (items.hasNext()) {
+                job.checkCancelled();
+                FileItemStream item = items.next();
+                SubmissionDto submission = submissionsByField.get(item.getFieldName());
+                if (item.isFormField() || submission == null || rejected.contains(submission)) {
+                    // Partes no declaradas (o de entregas omitidas por el filtro de equipos) se saltan
+                    logger.debug("Skipping upload part '{}' ({})", item.getFieldName(), item.getName());
+                    continue;
+                }
+
+                Path submissionDir = repositoriesDir.resolve(SubmissionRegistry.directoryName(submission));
+                long remainingBytes = maxSubmissionBytes - receivedBytes.getOrDefault(submission, 0L);
+                try (InputStream input = item.openStream()) {
+                    long bytes = receive(item, input, submissionDir, remainingBytes);
+                    receivedBytes.merge(submission, bytes, Long::sum);
+                } catch (FileUploadIOException e) {
+                    throw e;
+                } catch (LimitExceededException e) {
+                    logger.warn("Rejected upload for submission {} ({}): {}", submission.getSubmissionId(),
+                            item.getName(), e.getMessage());
+                    job.addLimitViolation(submissionLimits.violation(e, SubmissionRegistry.directoryName(submission)));
+                    rejected.add(submission);
+                    receivedBytes.remove(submission);
+                    FileSystemUtils.deleteRecursively(submissionDir);
+                } catch (IOException e) {
+                    logger.warn("Rejected upload for submission {} ({}): {}", submission.getSubmissionId(),
+                            item.getName(), e.getMessage());
+                    rejected.add(submission);
+                    receivedBytes.remove(submission);
+                    FileSystemUtils.deleteRecursively(submissionDir);
+                }
+            }
+
+            List<File> staged = new ArrayList<>();
+            for (SubmissionDto submission : submissions) {
+                boolean received = receivedBytes.containsKey(submission);
+                if (received) {
+                    staged.add(repositoriesDir.resolve(SubmissionRegistry.directoryName(submission)).toFile());
+                } else if (!rejected.contains(submission)) {
+                    logger.warn("No upload received for submission {}", submission.getSubmissionId());
+                }
+                job.getProgress().repositoryFinished(received);
+            }
+            logger.info("Received {} out of {} uploaded submissions", staged.size(), submissions.size());
+            return staged;
+        }
+
+        @Override
+        public boolean isSourcesOnly() {
+            return true;
+        }
+    }
+
+    /**
+     * Escribe una parte en el directorio de la entrega: un ZIP se extrae
+     * filtrando sus fuentes, un .java se guarda tal cual. Retorna los bytes
+     * escritos.
+     */
+    private long receive(FileItemStream item, InputStream input, Path submissionDir, long remainingBytes)
+            throws IOException {
+        String fileName = item.getName() != null ? item.getName() : "";
+        String lowerName = fileName.toLowerCase();
+        String contentType = item.getContentType() != null ? item.getContentType().toLowerCase() : "";
+
+        if (lowerName.endsWith(".zip") || contentType.contains("zip")) {
+            ZipExtractor.Summary summary = ZipExtractor.extract(input, submissionDir,
+                    SourceManifest::isSourcePath, remainingBytes, maxEntriesPerArchive);
+            logger.info("Extracted {} source files ({} KB) to {}, skipped {} entries", summary.getFiles(),
+                    summary.getBytes() / 1024, submissionDir.getFileName(), summary.getSkippedEntries());
+            return summary.getBytes();
+        }
+
+        // Un fuente suelto: sólo el nombre del archivo, sin rutas del cliente
+        String baseName = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        if (!SourceManifest.isSourcePath(baseName)) {
+            throw new IOException("Unsupported upload (expected .zip or .java): " + fileName);
+        }
+        Files.createDirectories(submissionDir);
+        return ZipExtractor.write(input, ZipExtractor.resolveEntry(submissionDir, baseName), remainingBytes);
+    }
+}
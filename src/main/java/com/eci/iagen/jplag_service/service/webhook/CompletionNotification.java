@@ -0,0 +1,165 @@
+package com.eci.iagen.jplag_service.service.webhook;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cuerpo compacto de la notificación de fin de análisis: identificación,
+ * estadísticas y sólo los pares más similares. El resultado completo se
+ * obtiene con resultUrl.
+ */
+public class CompletionNotification {
+
+    public static final String EVENT_COMPLETED = "analysis.completed";
+    public static final String EVENT_FAILED = "analysis.failed";
+
+    private String event;
+    private String sessionId;
+    private Long assignmentId;
+    private String assignmentTitle;
+    private boolean success;
+    private String message;
+    private String reportStatus;
+    private String reportUrl;
+    private String resultUrl;
+    private int totalComparisons;
+    private PlagiarismDetectionResponse.Statistics statistics;
+    private List<PlagiarismDetectionResponse.ComparisonResult> topPairs;
+    private String completedAt;
+
+    public CompletionNotification() {
+    }
+
+    /**
+     * Resumen de un resultado con sus topPairs pares más similares (las
+     * comparaciones ya vienen ordenadas por similitud descendente)
+     */
+    public static CompletionNotification from(PlagiarismDetectionResponse response, int topPairs) {
+        CompletionNotification notification = new CompletionNotification();
+        notification.setEvent(response.isSuccess() ? EVENT_COMPLETED : EVENT_FAILED);
+        notification.setSessionId(response.getSessionId());
+        notification.setAssignmentId(response.getAssignmentId());
+        notification.setAssignmentTitle(response.getAssignmentTitle());
+        notification.setSuccess(response.isSuccess());
+        notification.setMessage(response.getMessage());
+        notification.setReportStatus(response.getReportStatus());
+        notification.setReportUrl(response.getReportUrl());
+        if (response.getSessionId() != null) {
+            notification.setResultUrl("/api/plagiarism/results/" + response.getSessionId());
+        }
+        List<PlagiarismDetectionResponse.ComparisonResult> comparisons = response.getComparisons() != null
+                ? response.getComparisons() : List.of();
+        notification.setTotalComparisons(comparisons.size());
+        notification.setStatistics(response.getStatistics());
+        notification.setTopPairs(List.copyOf(comparisons.subList(0, Math.min(Math.max(0, topPairs),
+                comparisons.size()))));
+        notification.setCompletedAt(Instant.now().toString());
+        return notification;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public void setEvent(String event) {
+        this.event = event;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public String getAssignmentTitle() {
+        return assignmentTitle;
+    }
+
+    public void setAssignmentTitle(String assignmentTitle) {
+        this.assignmentTitle = assignmentTitle;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getReportStatus() {
+        return reportStatus;
+    }
+
+    public void setReportStatus(String reportStatus) {
+        this.reportStatus = reportStatus;
+    }
+
+    public String getReportUrl() {
+        return reportUrl;
+    }
+
+    public void setReportUrl(String reportUrl) {
+        this.reportUrl = reportUrl;
+    }
+
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    public void setResultUrl(String resultUrl) {
+        this.resultUrl = resultUrl;
+    }
+
+    public int getTotalComparisons() {
+        return totalComparisons;
+    }
+
+    public void setTotalComparisons(int totalComparisons) {
+        this.totalComparisons = totalComparisons;
+    }
+
+    public PlagiarismDetectionResponse.Statistics getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(PlagiarismDetectionResponse.Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public List<PlagiarismDetectionResponse.ComparisonResult> getTopPairs() {
+        return topPairs;
+    }
+
+    public void setTopPairs(List<PlagiarismDetectionResponse.ComparisonResult> topPairs) {
+        this.topPairs = topPairs;
+    }
+
+    public String getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(String completedAt) {
+        this.completedAt = completedAt;
+    }
+}
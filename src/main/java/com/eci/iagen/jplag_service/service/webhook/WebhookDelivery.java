@@ -0,0 +1,118 @@
+package com.eci.iagen.jplag_service.service.webhook;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Notificación pendiente del outbox: destino, cuerpo ya serializado e intentos
+ * realizados. Se guarda en un archivo binario por entrega, así que sobrevive a
+ * un reinicio del servicio.
+ */
+public class WebhookDelivery {
+
+    private static final int MAGIC = 0x4A505748;
+    private static final int VERSION = 1;
+
+    private final String id;
+    private final String url;
+    private final String event;
+    private final byte[] payload;
+    private final long createdAtMillis;
+    private final int attempts;
+    private final long nextAttemptAtMillis;
+    private final String lastError;
+
+    public WebhookDelivery(String id, String url, String event, byte[] payload, long createdAtMillis, int attempts,
+            long nextAttemptAtMillis, String lastError) {
+        this.id = id;
+        this.url = url;
+        this.event = event;
+        this.payload = payload;
+        this.createdAtMillis = createdAtMillis;
+        this.attempts = attempts;
+        this.nextAttemptAtMillis = nextAttemptAtMillis;
+        this.lastError = lastError;
+    }
+
+    /**
+     * La misma entrega con un intento fallido más
+     */
+    public WebhookDelivery failedAttempt(long nextAttemptAtMillis, String error) {
+        return new WebhookDelivery(id, url, event, payload, createdAtMillis, attempts + 1, nextAttemptAtMillis,
+                error);
+    }
+
+    public void write(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(url);
+            out.writeUTF(event);
+            out.writeLong(createdAtMillis);
+            out.writeInt(attempts);
+            out.writeLong(nextAttemptAtMillis);
+            out.writeUTF(lastError != null ? lastError : "");
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static WebhookDelivery read(Path file, String id) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported webhook delivery file: " + file);
+            }
+            String url = in.readUTF();
+            String event = in.readUTF();
+            long createdAtMillis = in.readLong();
+            int attempts = in.readInt();
+            long nextAttemptAtMillis = in.readLong();
+            String lastError = in.readUTF();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return new WebhookDelivery(id, url, event, payload, createdAtMillis, attempts, nextAttemptAtMillis,
+                    lastError.isEmpty() ? null : lastError);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getNextAttemptAtMillis() {
+        return nextAttemptAtMillis;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
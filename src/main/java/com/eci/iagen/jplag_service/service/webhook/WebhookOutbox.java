@@ -0,0 +1,450 @@
+package com.eci.iagen.jplag_service.service.webhook;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Outbox persistente de notificaciones de fin de análisis. Cada notificación
+ * se guarda en disco antes del primer intento y se reintenta con backoff
+ * exponencial hasta que el destino responde 2xx, responde un error
+ * definitivo (4xx salvo 408 y 429) o se agotan los intentos; en los dos
+ * últimos casos pasa a failed/. Las pendientes se retoman al arrancar.
+ * Solo se notifica a hosts de jplag.webhooks.allowed-hosts y, salvo que se
+ * permita expresamente, nunca a direcciones de loopback, link-local o de red
+ * privada; las entregas de failed/ se borran pasado el periodo de retención.
+ */
+@Service
+public class WebhookOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookOutbox.class);
+    private static final String PENDING_DIRECTORY = "outbox";
+    private static final String FAILED_DIRECTORY = "failed";
+    private static final String DELIVERY_SUFFIX = ".dlv";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    @Qualifier("ioExecutor")
+    private ExecutorService ioExecutor;
+
+    @Value("${jplag.webhooks.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jplag.webhooks.directory:./webhooks}")
+    private String webhooksDirectory;
+
+    @Value("${jplag.webhooks.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${jplag.webhooks.initial-backoff-seconds:5}")
+    private long initialBackoffSeconds;
+
+    @Value("${jplag.webhooks.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${jplag.webhooks.timeout-seconds:10}")
+    private long timeoutSeconds;
+
+    @Value("${jplag.webhooks.top-pairs:10}")
+    private int topPairs;
+
+    @Value("${jplag.webhooks.secret:}")
+    private String secret;
+
+    @Value("${jplag.webhooks.allowed-hosts:}")
+    private List<String> allowedHosts;
+
+    @Value("${jplag.webhooks.allow-private-addresses:false}")
+    private boolean allowPrivateAddresses;
+
+    @Value("${jplag.webhooks.failed-retention-days:30}")
+    private long failedRetentionDays;
+
+    private Path pendingDirectory;
+    private Path failedDirectory;
+    private HttpClient httpClient;
+    private ScheduledExecutorService dispatcher;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path baseDirectory = Paths.get(webhooksDirectory).toAbsolutePath().normalize();
+        pendingDirectory = baseDirectory.resolve(PENDING_DIRECTORY);
+        failedDirectory = baseDirectory.resolve(FAILED_DIRECTORY);
+        Files.createDirectories(pendingDirectory);
+        Files.createDirectories(failedDirectory);
+
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(timeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        dispatcher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("webhook-dispatcher").daemon(true).factory());
+        dispatcher.scheduleWithFixedDelay(this::sweepFailed, 0, 1, TimeUnit.HOURS);
+
+        if (secret.isEmpty()) {
+            logger.warn("Webhooks enabled without jplag.webhooks.secret; notifications will not be signed");
+        }
+        if (allowedHosts.isEmpty()) {
+            logger.warn("Webhooks enabled but jplag.webhooks.allowed-hosts is empty; every callbackUrl is rejected");
+        }
+
+        // Retomar las entregas que quedaron pendientes en la ejecución anterior
+        List<Path> pending;
+        try (Stream<Path> files = Files.list(pendingDirectory)) {
+            pending = files.filter(file -> file.getFileName().toString().endsWith(DELIVERY_SUFFIX)).toList();
+        }
+        long now = System.currentTimeMillis();
+        for (Path file : pending) {
+            String id = deliveryId(file);
+            try {
+                WebhookDelivery delivery = WebhookDelivery.read(file, id);
+                schedule(id, Math.max(0, delivery.getNextAttemptAtMillis() - now));
+            } catch (IOException e) {
+                logger.warn("Unreadable webhook delivery {}: {}", file, e.getMessage());
+                moveToFailed(file);
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Resuming {} pending webhook deliveries", pending.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Indica si se puede notificar a callbackUrl: webhooks habilitados, esquema
+     * http(s) y host en jplag.webhooks.allowed-hosts (exacto, o subdominio si
+     * la entrada empieza con punto)
+     */
+    public boolean isAllowedCallback(String callbackUrl) {
+        if (!enabled || callbackUrl == null) {
+            return false;
+        }
+        try {
+            URI uri = URI.create(callbackUrl);
+            if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+                return false;
+            }
+            return uri.getHost() != null && isAllowedHost(uri.getHost());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda en el outbox la notificación del resultado de un análisis y la
+     * envía en cuanto se pueda. No hace nada si callbackUrl es null.
+     */
+    public void enqueue(String callbackUrl, PlagiarismDetectionResponse response) {
+        if (callbackUrl == null) {
+            return;
+        }
+        if (!enabled) {
+            logger.warn("Webhooks disabled; not notifying session {}", response.getSessionId());
+            return;
+        }
+        if (!isAllowedCallback(callbackUrl)) {
+            logger.warn("Callback URL not allowed for session {}: {}", response.getSessionId(), callbackUrl);
+            return;
+        }
+        try {
+            CompletionNotification notification = CompletionNotification.from(response, topPairs);
+            String id = UUID.randomUUID().toString();
+            WebhookDelivery delivery = new WebhookDelivery(id, callbackUrl, notification.getEvent(),
+                    objectMapper.writeValueAsBytes(notification), System.currentTimeMillis(), 0,
+                    System.currentTimeMillis(), null);
+            delivery.write(pendingDirectory.resolve(id + DELIVERY_SUFFIX));
+            logger.info("Queued webhook {} ({}) for session {}", id, notification.getEvent(),
+                    response.getSessionId());
+            schedule(id, 0);
+        } catch (IOException e) {
+            logger.error("Could not queue webhook for session {}: {}", response.getSessionId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cantidad de notificaciones que esperan un (re)intento
+     */
+    public long getPendingCount() {
+        return countDeliveries(pendingDirectory);
+    }
+
+    /**
+     * Cantidad de notificaciones descartadas después de agotar los intentos
+     */
+    public long getFailedCount() {
+        return countDeliveries(failedDirectory);
+    }
+
+    private void schedule(String id, long delayMillis) {
+        try {
+            dispatcher.schedule(() -> {
+                try {
+                    ioExecutor.execute(() -> attempt(id));
+                } catch (RejectedExecutionException e) {
+                    // Se reintenta al próximo arranque; la entrega sigue en disco
+                    logger.warn("Could not dispatch webhook {}: {}", id, e.getMessage());
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule webhook {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void attempt(String id) {
+        if (!inFlight.add(id)) {
+            return;
+        }
+        Path file = pendingDirectory.resolve(id + DELIVERY_SUFFIX);
+        try {
+            if (!Files.isRegularFile(file)) {
+                return;
+            }
+            WebhookDelivery delivery = WebhookDelivery.read(file, id);
+            String error;
+            boolean permanent = false;
+            try {
+                // Se resuelve antes de cada intento: el DNS puede cambiar entre reintentos
+                String rejection = rejectDestination(URI.create(delivery.getUrl()));
+                if (rejection != null) {
+                    delivery.failedAttempt(System.currentTimeMillis(), rejection).write(file);
+                    moveToFailed(file);
+                    logger.warn("Refusing webhook {} to {}: {}", id, delivery.getUrl(), rejection);
+                    return;
+                }
+                HttpResponse<Void> response = httpClient.send(buildRequest(delivery),
+                        HttpResponse.BodyHandlers.discarding());
+                int status = response.statusCode();
+                if (status >= 200 && status < 300) {
+                    Files.deleteIfExists(file);
+                    logger.info("Delivered webhook {} to {} (attempt {})", id, delivery.getUrl(),
+                            delivery.getAttempts() + 1);
+                    return;
+                }
+                error = "HTTP " + status;
+                permanent = status >= 400 && status < 500 && status != 408 && status != 429;
+            } catch (IOException e) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            int attempts = delivery.getAttempts() + 1;
+            if (permanent || attempts >= maxAttempts) {
+                delivery.failedAttempt(System.currentTimeMillis(), truncate(error)).write(file);
+                moveToFailed(file);
+                logger.warn("Giving up on webhook {} to {} after {} attempts: {}", id, delivery.getUrl(),
+                        attempts, error);
+                return;
+            }
+            long delayMillis = backoffMillis(attempts);
+            delivery.failedAttempt(System.currentTimeMillis() + delayMillis, truncate(error)).write(file);
+            logger.warn("Webhook {} to {} failed (attempt {}): {}; retrying in {} ms", id, delivery.getUrl(),
+                    attempts, error, delayMillis);
+            schedule(id, delayMillis);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error delivering webhook {}: {}", id, e.getMessage(), e);
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    /**
+     * Motivo por el que no se debe conectar al destino, o null si se puede.
+     * Se vuelve a comprobar la lista de hosts por si cambió desde que se
+     * encoló la entrega.
+     */
+    private String rejectDestination(URI uri) {
+        String host = uri.getHost();
+        if (host == null || !isAllowedHost(host)) {
+            return "Host not allowed: " + host;
+        }
+        if (allowPrivateAddresses) {
+            return null;
+        }
+        try {
+            for (InetAddress address : InetAddress.getAllByName(host)) {
+                if (isPrivateAddress(address)) {
+                    return "Private address not allowed: " + address.getHostAddress();
+                }
+            }
+            return null;
+        } catch (UnknownHostException e) {
+            return "Unknown host: " + host;
+        }
+    }
+
+    private boolean isAllowedHost(String host) {
+        String normalized = host.toLowerCase(Locale.ROOT);
+        for (String entry : allowedHosts) {
+            String allowed = entry.trim().toLowerCase(Locale.ROOT);
+            if (allowed.isEmpty()) {
+                continue;
+            }
+            if (allowed.startsWith(".") ? normalized.endsWith(allowed) : normalized.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loopback, link-local, red privada (incluidas las ULA fc00::/7 de IPv6),
+     * comodín y multicast
+     */
+    static boolean isPrivateAddress(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isSiteLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        return address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc;
+    }
+
+    private HttpRequest buildRequest(WebhookDelivery delivery) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(delivery.getUrl()))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .header("Content-Type", "application/json")
+                .header("User-Agent", "jplag-service")
+                .header("X-JPlag-Event", delivery.getEvent())
+                .header("X-JPlag-Delivery", delivery.getId())
+                .header("X-JPlag-Attempt", String.valueOf(delivery.getAttempts() + 1))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(delivery.getPayload()));
+        if (!secret.isEmpty()) {
+            builder.header("X-JPlag-Signature", "sha256=" + sign(delivery.getPayload()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * HMAC-SHA256 del cuerpo con jplag.webhooks.secret, para que el destino
+     * verifique el origen
+     */
+    private String sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Backoff exponencial con jitter de ±20% para no reintentar en ráfaga
+     */
+    private long backoffMillis(int attempts) {
+        long seconds = initialBackoffSeconds << Math.min(attempts - 1, 30);
+        long millis = Math.min(Math.max(1, seconds), maxBackoffSeconds) * 1000;
+        return (long) (millis * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private void moveToFailed(Path file) {
+        try {
+            Files.move(file, failedDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not move webhook delivery {} to failed: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las entregas de failed/ más antiguas que
+     * jplag.webhooks.failed-retention-days
+     */
+    void sweepFailed() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(failedRetentionDays));
+        try (Stream<Path> files = Files.list(failedDirectory)) {
+            List<Path> expired = files.filter(file -> isOlderThan(file, cutoff)).toList();
+            for (Path file : expired) {
+                Files.deleteIfExists(file);
+            }
+            if (!expired.isEmpty()) {
+                logger.info("Removed {} expired failed webhook deliveries", expired.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Error sweeping failed webhook deliveries in {}: {}", failedDirectory, e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private long countDeliveries(Path directory) {
+        if (!enabled) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(DELIVERY_SUFFIX)).count();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String deliveryId(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - DELIVERY_SUFFIX.length());
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
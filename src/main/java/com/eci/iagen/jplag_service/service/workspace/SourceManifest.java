@@ -0,0 +1,137 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lista de archivos fuente (.java) de un repositorio clonado, obtenida en un
+ * solo recorrido que omite directorios de build, IDE y control de versiones
+ */
+public class SourceManifest {
+
+    private static final Set<String> EXCLUDED_DIRECTORIES = Set.of(
+            ".git", "target", "build", "node_modules", ".idea", "out");
+
+    private final Path repositoryRoot;
+    private final List<Path> files;
+    private final long totalBytes;
+    private final Map<Path, Long> oversizedFiles;
+
+    private SourceManifest(Path repositoryRoot, List<Path> files, long totalBytes, Map<Path, Long> oversizedFiles) {
+        this.repositoryRoot = repositoryRoot;
+        this.files = Collections.unmodifiableList(files);
+        this.totalBytes = totalBytes;
+        this.oversizedFiles = Collections.unmodifiableMap(oversizedFiles);
+    }
+
+    /**
+     * Recorre el repositorio y registra los archivos .java (rutas relativas) y su
+     * tamaño total
+     */
+    public static SourceManifest scan(Path repositoryRoot) throws IOException {
+        return scan(repositoryRoot, Long.MAX_VALUE);
+    }
+
+    /**
+     * Como {@link #scan(Path)}, pero omite los fuentes de más de maxFileBytes
+     * (quedan en {@link #getOversizedFiles()})
+     */
+    public static SourceManifest scan(Path repositoryRoot, long maxFileBytes) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, Long> oversizedFiles = new LinkedHashMap<>();
+        long[] totalBytes = { 0 };
+
+        if (Files.isDirectory(repositoryRoot)) {
+            Files.walkFileTree(repositoryRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(repositoryRoot)
+                            && EXCLUDED_DIRECTORIES.contains(dir.getFileName().toString().toLowerCase())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".java")) {
+                        if (attrs.size() > maxFileBytes) {
+                            oversizedFiles.put(repositoryRoot.relativize(file), attrs.size());
+                            return FileVisitResult.CONTINUE;
+                        }
+                        files.add(repositoryRoot.relativize(file));
+                        totalBytes[0] += attrs.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        return new SourceManifest(repositoryRoot, files, totalBytes[0], oversizedFiles);
+    }
+
+    /**
+     * Indica si la ruta de una entrada de archivo (p.ej. de un ZIP, con "/"
+     * como separador) es un fuente que {@link #scan(Path)} incluiría. Además
+     * descarta los metadatos que agrega macOS al comprimir (__MACOSX, ._*).
+     */
+    public static boolean isSourcePath(String relativePath) {
+        String[] segments = relativePath.split("/");
+        for (int i = 0; i < segments.length - 1; i++) {
+            String directory = segments[i].toLowerCase();
+            if (EXCLUDED_DIRECTORIES.contains(directory) || directory.equals("__macosx")) {
+                return false;
+            }
+        }
+        String fileName = segments[segments.length - 1];
+        return fileName.toLowerCase().endsWith(".java") && !fileName.startsWith("._");
+    }
+
+    public Path getRepositoryRoot() {
+        return repositoryRoot;
+    }
+
+    /**
+     * Nombre de la entrega (nombre del directorio del repositorio)
+     */
+    public String getSubmissionName() {
+        return repositoryRoot.getFileName().toString();
+    }
+
+    /**
+     * Rutas de los archivos fuente, relativas al root del repositorio
+     */
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Fuentes omitidos por superar el tamaño máximo, con su tamaño en bytes
+     */
+    public Map<Path, Long> getOversizedFiles() {
+        return oversizedFiles;
+    }
+}
@@ -0,0 +1,83 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identidad de las entregas de un análisis: asocia el nombre del directorio de
+ * cada entrega (que JPlag usa como nombre de la entrega) con su
+ * {@link SubmissionDto}. Se arma una vez al crear el workspace y las búsquedas
+ * son exactas y O(1).
+ */
+public class SubmissionRegistry {
+
+    private static final Pattern DIRECTORY_NAME = Pattern.compile("submission_(\\d+)_team_(-?\\d+|null)");
+
+    private final List<SubmissionDto> submissions;
+    private final Map<String, SubmissionDto> submissionsByName = new HashMap<>();
+    private final Map<Long, SubmissionDto> submissionsById = new HashMap<>();
+
+    public SubmissionRegistry(List<SubmissionDto> submissions) {
+        this.submissions = Collections.unmodifiableList(submissions);
+        for (SubmissionDto submission : submissions) {
+            submissionsByName.put(directoryName(submission), submission);
+            if (submission.getSubmissionId() != null) {
+                submissionsById.put(submission.getSubmissionId(), submission);
+            }
+        }
+    }
+
+    /**
+     * Nombre del directorio (y de la entrega en JPlag) de una entrega
+     */
+    public static String directoryName(SubmissionDto submission) {
+        return "submission_" + submission.getSubmissionId() + "_team_" + submission.getTeamId();
+    }
+
+    /**
+     * Id de entrega codificado en un nombre de directorio, o null si el nombre
+     * no sigue el patrón submission_X_team_Y
+     */
+    public static Long parseSubmissionId(String directoryName) {
+        if (directoryName == null) {
+            return null;
+        }
+        Matcher matcher = DIRECTORY_NAME.matcher(directoryName);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    /**
+     * Entrega con ese nombre de directorio, o null si no es de este análisis
+     * (p.ej. una entrega histórica)
+     */
+    public SubmissionDto find(String directoryName) {
+        return directoryName != null ? submissionsByName.get(directoryName) : null;
+    }
+
+    public SubmissionDto findById(Long submissionId) {
+        return submissionId != null ? submissionsById.get(submissionId) : null;
+    }
+
+    /**
+     * Id de entrega de un nombre de directorio: el de la entrega registrada o,
+     * si no está, el codificado en el nombre
+     */
+    public Long submissionId(String directoryName) {
+        SubmissionDto submission = find(directoryName);
+        return submission != null ? submission.getSubmissionId() : parseSubmissionId(directoryName);
+    }
+
+    public List<SubmissionDto> getSubmissions() {
+        return submissions;
+    }
+
+    public int size() {
+        return submissions.size();
+    }
+}
@@ -0,0 +1,31 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Trae las fuentes de las entregas al directorio de repositorios del
+ * workspace (clonando, recibiendo archivos subidos, ...). Cada entrega va en
+ * repositoriesDir/{@link SubmissionRegistry#directoryName}.
+ */
+@FunctionalInterface
+public interface SubmissionStager {
+
+    /**
+     * Directorios de las entregas que se pudieron obtener
+     */
+    List<File> stage(List<SubmissionDto> submissions, Path repositoriesDir, AnalysisJob job) throws IOException;
+
+    /**
+     * Si los directorios sólo contienen fuentes ya filtradas, el workspace
+     * los mueve al root de análisis en lugar de copiarlos
+     */
+    default boolean isSourcesOnly() {
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Directorio de trabajo reservado para un análisis. Contiene los repositorios
+ * clonados y el root de análisis que recibe JPlag, que puede estar en disco o
+ * en un filesystem en memoria (tmpfs). Se libera con
+ * {@link WorkspaceManager#release(WorkspaceLease)}.
+ */
+public class WorkspaceLease {
+
+    private final String sessionId;
+    private final Path root;
+    private final Instant acquiredAt = Instant.now();
+    private volatile Path analysisDirectory;
+    private volatile long reservedMemoryBytes;
+
+    WorkspaceLease(String sessionId, Path root) {
+        this.sessionId = sessionId;
+        this.root = root;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Directorio donde se clonan los repositorios de las entregas
+     */
+    public Path getRepositoriesDirectory() {
+        return root.resolve("repos");
+    }
+
+    /**
+     * Directorio root que recibe JPlag, con un subdirectorio por entrega. Es
+     * null hasta que se asigna con
+     * {@link WorkspaceManager#allocateAnalysisDirectory(WorkspaceLease, long)}.
+     */
+    public Path getAnalysisDirectory() {
+        return analysisDirectory;
+    }
+
+    public boolean isInMemory() {
+        return reservedMemoryBytes > 0;
+    }
+
+    public Instant getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    long getReservedMemoryBytes() {
+        return reservedMemoryBytes;
+    }
+
+    void assignAnalysisDirectory(Path analysisDirectory, long reservedMemoryBytes) {
+        this.analysisDirectory = analysisDirectory;
+        this.reservedMemoryBytes = reservedMemoryBytes;
+    }
+}
@@ -0,0 +1,408 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Administra los directorios temporales de los análisis. Cada análisis recibe
+ * un lease propio bajo jplag.temp-directory; al liberarlo, el directorio se
+ * renombra a una papelera y se borra en segundo plano, fuera del camino de la
+ * respuesta. Al arrancar (y luego periódicamente) se barren los restos más
+ * antiguos que orphan-ttl-minutes.
+ *
+ * El root de análisis (las fuentes .java filtradas que lee JPlag) puede
+ * materializarse en un directorio respaldado por tmpfs cuando la tarea es
+ * pequeña, según jplag.workspace.backend, siempre que el filesystem tenga
+ * espacio libre; si la copia falla igual, el root vuelve a disco con
+ * {@link #fallbackToDisk(WorkspaceLease)}.
+ */
+@Service
+public class WorkspaceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceManager.class);
+    private static final String TRASH_DIRECTORY = ".trash";
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /**
+     * Backends disponibles para el root de análisis
+     */
+    public enum Backend {
+        DISK, MEMORY, AUTO
+    }
+
+    @Value("${jplag.temp-directory:./temp}")
+    private String tempDirectory;
+
+    @Value("${jplag.workspace.sweep-on-startup:true}")
+    private boolean sweepOnStartup;
+
+    @Value("${jplag.workspace.orphan-ttl-minutes:360}")
+    private long orphanTtlMinutes;
+
+    @Value("${jplag.workspace.reaper-interval-minutes:10}")
+    private long reaperIntervalMinutes;
+
+    @Value("${jplag.workspace.backend:disk}")
+    private Backend backend;
+
+    @Value("${jplag.workspace.memory.root:/dev/shm/jplag-service}")
+    private String memoryRoot;
+
+    @Value("${jplag.workspace.memory.threshold-mb:32}")
+    private long memoryThresholdMb;
+
+    @Value("${jplag.workspace.memory.max-total-mb:256}")
+    private long memoryMaxTotalMb;
+
+    @Value("${jplag.workspace.memory.min-free-mb:16}")
+    private long memoryMinFreeMb;
+
+    private final Map<Path, WorkspaceLease> activeLeases = new ConcurrentHashMap<>();
+    private final Set<Path> activeMemoryDirectories = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reservedMemoryBytes = new AtomicLong();
+    private ScheduledExecutorService reaper;
+    private Path baseDirectory;
+    private Path memoryDirectory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDirectory = Paths.get(tempDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(baseDirectory.resolve(TRASH_DIRECTORY));
+
+        if (backend != Backend.DISK) {
+            memoryDirectory = initMemoryDirectory();
+        }
+
+        reaper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("workspace-reaper").daemon(true).factory());
+
+        if (sweepOnStartup) {
+            // Con el TTL de huérfanos: el directorio temporal puede ser compartido
+            // con otras instancias y sus workspaces activos no tienen lease aquí
+            reaper.execute(() -> sweepAll(Duration.ofMinutes(orphanTtlMinutes)));
+        }
+        reaper.scheduleWithFixedDelay(() -> sweepAll(Duration.ofMinutes(orphanTtlMinutes)),
+                reaperIntervalMinutes, reaperIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdown();
+    }
+
+    /**
+     * Reserva el directorio de trabajo de una sesión
+     */
+    public WorkspaceLease acquire(String sessionId) throws IOException {
+        Path root = baseDirectory.resolve(sessionId).normalize();
+        if (!root.getParent().equals(baseDirectory) || root.getFileName().toString().equals(TRASH_DIRECTORY)) {
+            throw new IOException("Invalid workspace name: " + sessionId);
+        }
+
+        WorkspaceLease lease = new WorkspaceLease(sessionId, root);
+        if (activeLeases.putIfAbsent(root, lease) != null) {
+            throw new IOException("Workspace already in use: " + sessionId);
+        }
+
+        try {
+            Files.createDirectory(root);
+            Files.createDirectories(lease.getRepositoriesDirectory());
+        } catch (IOException e) {
+            activeLeases.remove(root);
+            throw e;
+        }
+
+        logger.info("Acquired workspace: {}", root);
+        return lease;
+    }
+
+    /**
+     * Asigna el root de análisis del lease. Si el backend lo permite y las
+     * fuentes caben en el umbral y en el presupuesto de memoria, se crea en
+     * tmpfs; si no, en disco junto a los repositorios.
+     */
+    public Path allocateAnalysisDirectory(WorkspaceLease lease, long sourceBytes) throws IOException {
+        if (lease.getAnalysisDirectory() != null) {
+            return lease.getAnalysisDirectory();
+        }
+
+        long reservation = Math.max(1, sourceBytes);
+        if (isMemoryEligible(sourceBytes) && reserveMemory(reservation)) {
+            Path directory = memoryDirectory.resolve(lease.getSessionId());
+            try {
+                Files.createDirectory(directory);
+                activeMemoryDirectories.add(directory);
+                lease.assignAnalysisDirectory(directory, reservation);
+                logger.info("Analysis directory for session {} in memory: {} ({} KB of sources)",
+                        lease.getSessionId(), directory, sourceBytes / 1024);
+                return directory;
+            } catch (IOException e) {
+                reservedMemoryBytes.addAndGet(-reservation);
+                logger.warn("Could not create in-memory analysis directory, falling back to disk: {}",
+                        e.getMessage());
+            }
+        }
+
+        return allocateDiskDirectory(lease, sourceBytes);
+    }
+
+    /**
+     * Mueve el root de análisis de un lease en memoria a disco (p.ej. si tmpfs
+     * se llenó al copiar): descarta lo copiado a memoria, libera la reserva y
+     * retorna el nuevo directorio, vacío. Sin efecto si ya está en disco.
+     */
+    public Path fallbackToDisk(WorkspaceLease lease) throws IOException {
+        if (!lease.isInMemory()) {
+            return lease.getAnalysisDirectory();
+        }
+
+        Path memoryAnalysisDirectory = lease.getAnalysisDirectory();
+        long memoryBytes = lease.getReservedMemoryBytes();
+        Path trashed = moveToTrash(memoryAnalysisDirectory, memoryDirectory);
+        activeMemoryDirectories.remove(memoryAnalysisDirectory);
+        reaper.execute(() -> {
+            deleteRecursively(trashed);
+            reservedMemoryBytes.addAndGet(-memoryBytes);
+        });
+
+        logger.warn("Moving analysis directory for session {} from memory to disk", lease.getSessionId());
+        return allocateDiskDirectory(lease, memoryBytes);
+    }
+
+    private Path allocateDiskDirectory(WorkspaceLease lease, long sourceBytes) throws IOException {
+        Path directory = lease.getRoot().resolve("analysis");
+        Files.createDirectories(directory);
+        lease.assignAnalysisDirectory(directory, 0);
+        logger.info("Analysis directory for session {} on disk: {} ({} KB of sources)",
+                lease.getSessionId(), directory, sourceBytes / 1024);
+        return directory;
+    }
+
+    /**
+     * Libera el directorio de trabajo. El renombrado a la papelera es inmediato;
+     * el borrado recursivo se hace en el hilo del reaper.
+     */
+    public void release(WorkspaceLease lease) {
+        if (lease == null || activeLeases.remove(lease.getRoot()) == null) {
+            return;
+        }
+
+        Path trashedRoot = moveToTrash(lease.getRoot(), baseDirectory);
+        Path trashedMemory = null;
+        if (lease.isInMemory()) {
+            Path memoryAnalysisDirectory = lease.getAnalysisDirectory();
+            trashedMemory = moveToTrash(memoryAnalysisDirectory, memoryDirectory);
+            activeMemoryDirectories.remove(memoryAnalysisDirectory);
+        }
+
+        Path memoryToDelete = trashedMemory;
+        long memoryBytes = lease.getReservedMemoryBytes();
+        reaper.execute(() -> {
+            deleteRecursively(trashedRoot);
+            if (memoryToDelete != null) {
+                deleteRecursively(memoryToDelete);
+                reservedMemoryBytes.addAndGet(-memoryBytes);
+            }
+        });
+    }
+
+    /**
+     * Borra en segundo plano un directorio que no pertenece a ningún lease
+     */
+    public void discard(Path directory) {
+        reaper.execute(() -> deleteRecursively(directory));
+    }
+
+    public int getActiveLeaseCount() {
+        return activeLeases.size();
+    }
+
+    public Backend getBackend() {
+        return memoryDirectory != null ? backend : Backend.DISK;
+    }
+
+    public long getReservedMemoryBytes() {
+        return reservedMemoryBytes.get();
+    }
+
+    /**
+     * Prepara el directorio en memoria. Si no es utilizable se desactiva el
+     * backend en memoria y todo va a disco.
+     */
+    private Path initMemoryDirectory() {
+        try {
+            Path directory = Paths.get(memoryRoot).toAbsolutePath().normalize();
+            Files.createDirectories(directory.resolve(TRASH_DIRECTORY));
+            FileStore store = Files.getFileStore(directory);
+            if (!"tmpfs".equalsIgnoreCase(store.type())) {
+                logger.warn("Memory workspace root {} is on '{}', not tmpfs", directory, store.type());
+            }
+            long totalMb = store.getTotalSpace() / BYTES_PER_MB;
+            if (totalMb < memoryMaxTotalMb + memoryMinFreeMb) {
+                // P.ej. el /dev/shm de 64 MB de Docker sin --shm-size
+                logger.warn("Memory workspace root {} has only {} MB, below the {} MB budget; "
+                        + "reservations are limited by its free space", directory, totalMb, memoryMaxTotalMb);
+            }
+            logger.info("Memory workspace enabled at {} (backend {}, threshold {} MB, budget {} MB)",
+                    directory, backend, memoryThresholdMb, memoryMaxTotalMb);
+            return directory;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Memory workspace root {} not usable, using disk only: {}", memoryRoot, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isMemoryEligible(long sourceBytes) {
+        if (memoryDirectory == null) {
+            return false;
+        }
+        return backend == Backend.MEMORY || sourceBytes <= memoryThresholdMb * BYTES_PER_MB;
+    }
+
+    /**
+     * Reserva espacio del presupuesto de memoria compartido entre análisis. El
+     * filesystem debe tener además el espacio libre para la reserva más
+     * jplag.workspace.memory.min-free-mb.
+     */
+    private boolean reserveMemory(long bytes) {
+        long usable = usableMemorySpace();
+        if (usable < bytes + memoryMinFreeMb * BYTES_PER_MB) {
+            logger.info("Memory workspace has {} MB free, using disk", usable / BYTES_PER_MB);
+            return false;
+        }
+
+        long budget = memoryMaxTotalMb * BYTES_PER_MB;
+        while (true) {
+            long current = reservedMemoryBytes.get();
+            if (current + bytes > budget) {
+                logger.info("Memory workspace budget exhausted ({} MB reserved), using disk",
+                        current / BYTES_PER_MB);
+                return false;
+            }
+            if (reservedMemoryBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private long usableMemorySpace() {
+        try {
+            return Files.getFileStore(memoryDirectory).getUsableSpace();
+        } catch (IOException e) {
+            logger.warn("Could not read free space of {}: {}", memoryDirectory, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Mueve un directorio a la papelera de su base. Si no se puede renombrar se
+     * borra en su ubicación original.
+     */
+    private Path moveToTrash(Path directory, Path base) {
+        Path target = base.resolve(TRASH_DIRECTORY).resolve(directory.getFileName() + "-" + System.nanoTime());
+        try {
+            try {
+                Files.move(directory, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(directory, target);
+            }
+            return target;
+        } catch (IOException e) {
+            logger.warn("Could not move workspace {} to trash: {}", directory, e.getMessage());
+            return directory;
+        }
+    }
+
+    private void sweepAll(Duration orphanTtl) {
+        sweep(baseDirectory, orphanTtl, activeLeases.keySet());
+        if (memoryDirectory != null) {
+            sweep(memoryDirectory, orphanTtl, activeMemoryDirectories);
+        }
+    }
+
+    /**
+     * Borra la papelera y los directorios sin lease más antiguos que el TTL
+     */
+    private void sweep(Path base, Duration orphanTtl, Set<Path> activeDirectories) {
+        Path trash = base.resolve(TRASH_DIRECTORY);
+        Instant cutoff = Instant.now().minus(orphanTtl);
+        try (Stream<Path> entries = Files.list(base)) {
+            List<Path> orphans = entries
+                    .filter(path -> !path.equals(trash))
+                    .filter(path -> !activeDirectories.contains(path))
+                    .filter(path -> isOlderThan(path, cutoff))
+                    .toList();
+            for (Path orphan : orphans) {
+                logger.info("Reaping orphan workspace: {}", orphan);
+                moveToTrash(orphan, base);
+            }
+        } catch (IOException e) {
+            logger.warn("Error sweeping workspace directory {}: {}", base, e.getMessage());
+        }
+
+        try (Stream<Path> trashed = Files.list(trash)) {
+            trashed.toList().forEach(this::deleteRecursively);
+        } catch (IOException e) {
+            logger.warn("Error emptying workspace trash {}: {}", trash, e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return !Files.getLastModifiedTime(path).toInstant().isAfter(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            logger.debug("Deleted workspace directory: {}", directory);
+        } catch (IOException e) {
+            logger.warn("Could not delete workspace directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extrae un ZIP leyéndolo en streaming (sin archivo intermedio) y escribiendo
+ * sólo las entradas aceptadas por un filtro. Los nombres se normalizan y una
+ * entrada que resuelva fuera del destino (zip slip) aborta la extracción.
+ */
+public final class ZipExtractor {
+
+    public static final long UNLIMITED_BYTES = Long.MAX_VALUE;
+    public static final int UNLIMITED_ENTRIES = Integer.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private ZipExtractor() {
+    }
+
+    /**
+     * Extrae todas las entradas de un ZIP en disco
+     */
+    public static Summary extract(Path zip, Path destination) throws IOException {
+        try (InputStream input = Files.newInputStream(zip)) {
+            return extract(input, destination, path -> true, UNLIMITED_BYTES, UNLIMITED_ENTRIES);
+        }
+    }
+
+    /**
+     * Extrae las entradas cuyo nombre (relativo, con "/") acepta el filtro;
+     * las descartadas no se validan ni se escriben. Falla con
+     * {@link LimitExceededException} si se superan maxBytes descomprimidos
+     * escritos o maxEntries entradas leídas (incluidas las descartadas); lo
+     * ya escrito queda en destination. El stream se lee hasta el final del
+     * ZIP pero no se cierra.
+     */
+    public static Summary extract(InputStream input, Path destination, Predicate<String> filter, long maxBytes,
+            int maxEntries) throws IOException {
+        Path destAbs = destination.toAbsolutePath().normalize();
+        Files.createDirectories(destAbs);
+
+        Summary summary = new Summary();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ZipInputStream zis = new ZipInputStream(input);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (++summary.entries > maxEntries) {
+                throw new LimitExceededException(SubmissionLimits.ARCHIVE_ENTRIES, summary.entries, maxEntries);
+            }
+            String name = normalizeEntryName(entry.getName());
+            if (name.isEmpty() || !filter.test(name)) {
+                summary.skippedEntries++;
+                continue;
+            }
+            Path out = resolveEntry(destAbs, name);
+
+            if (entry.isDirectory()) {
+                Files.createDirectories(out);
+            } else {
+                Files.createDirectories(out.getParent());
+                try {
+                    summary.bytes += write(zis, out, maxBytes - summary.bytes, buffer);
+                } catch (LimitExceededException e) {
+                    throw new LimitExceededException(e.getLimit(), summary.bytes + e.getValue(), maxBytes);
+                }
+                summary.files++;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Ruta de destino de una entrada. Rechaza nombres con un segmento ".." y
+     * cualquier entrada que, normalizada, quede fuera de destination (un
+     * nombre como "notas..txt" es válido).
+     */
+    public static Path resolveEntry(Path destination, String entryName) throws IOException {
+        Path destAbs = destination.toAbsolutePath().normalize();
+        String name = normalizeEntryName(entryName);
+
+        // Bloquea traversal explícito
+        if (Arrays.asList(name.split("/")).contains("..")) {
+            throw new IOException("Unsafe entry name: " + name);
+        }
+
+        Path out = destAbs.resolve(name).normalize();
+        if (!out.startsWith(destAbs)) {
+            throw new IOException("Zip Slip blocked: " + name);
+        }
+        return out;
+    }
+
+    /**
+     * Normaliza separadores y quita slashes iniciales (posibles en algunos zips)
+     */
+    private static String normalizeEntryName(String entryName) {
+        String name = entryName.replace('\\', '/');
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return name;
+    }
+
+    /**
+     * Escribe un stream en target (reemplazándolo) sin superar maxBytes; si
+     * los supera borra lo escrito y falla con {@link LimitExceededException}.
+     * Retorna los bytes escritos.
+     */
+    public static long write(InputStream input, Path target, long maxBytes) throws IOException {
+        return write(input, target, maxBytes, new byte[BUFFER_SIZE]);
+    }
+
+    private static long write(InputStream input, Path target, long remainingBytes, byte[] buffer)
+            throws IOException {
+        long written = 0;
+        try (OutputStream output = Files.newOutputStream(target)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                written += read;
+                if (written > remainingBytes) {
+                    throw new LimitExceededException(SubmissionLimits.REPOSITORY_SIZE, written, remainingBytes);
+                }
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return written;
+    }
+
+    /**
+     * Totales de una extracción
+     */
+    public static final class Summary {
+        private int entries;
+        private int files;
+        private int skippedEntries;
+        private long bytes;
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getSkippedEntries() {
+            return skippedEntries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
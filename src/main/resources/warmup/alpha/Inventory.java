@@ -0,0 +1,44 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Inventory {
+
+    private final Map<String, Integer> stock = new HashMap<>();
+    private final List<String> history = new ArrayList<>();
+
+    public void add(String item, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        stock.merge(item, quantity, Integer::sum);
+        history.add("ADD " + item + " " + quantity);
+    }
+
+    public boolean remove(String item, int quantity) {
+        Integer current = stock.get(item);
+        if (current == null || current < quantity) {
+            return false;
+        }
+        if (current == quantity) {
+            stock.remove(item);
+        } else {
+            stock.put(item, current - quantity);
+        }
+        history.add("REMOVE " + item + " " + quantity);
+        return true;
+    }
+
+    public int total() {
+        int sum = 0;
+        for (int value : stock.values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public List<String> history() {
+        return new ArrayList<>(history);
+    }
+}
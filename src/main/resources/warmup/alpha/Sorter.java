@@ -0,0 +1,43 @@
+public class Sorter {
+
+    public static void quickSort(int[] values, int low, int high) {
+        if (low < high) {
+            int pivotIndex = partition(values, low, high);
+            quickSort(values, low, pivotIndex - 1);
+            quickSort(values, pivotIndex + 1, high);
+        }
+    }
+
+    private static int partition(int[] values, int low, int high) {
+        int pivot = values[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (values[j] <= pivot) {
+                i++;
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        int temp = values[i + 1];
+        values[i + 1] = values[high];
+        values[high] = temp;
+        return i + 1;
+    }
+
+    public static int binarySearch(int[] values, int target) {
+        int left = 0;
+        int right = values.length - 1;
+        while (left <= right) {
+            int middle = (left + right) / 2;
+            if (values[middle] == target) {
+                return middle;
+            } else if (values[middle] < target) {
+                left = middle + 1;
+            } else {
+                right = middle - 1;
+            }
+        }
+        return -1;
+    }
+}
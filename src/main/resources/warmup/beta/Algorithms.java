@@ -0,0 +1,41 @@
+public class Algorithms {
+
+    public static void sort(int[] data) {
+        for (int i = 1; i < data.length; i++) {
+            int key = data[i];
+            int j = i - 1;
+            while (j >= 0 && data[j] > key) {
+                data[j + 1] = data[j];
+                j--;
+            }
+            data[j + 1] = key;
+        }
+    }
+
+    public static int search(int[] data, int wanted) {
+        int lo = 0;
+        int hi = data.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) / 2;
+            if (data[mid] == wanted) {
+                return mid;
+            } else if (data[mid] < wanted) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    public static long fibonacci(int n) {
+        long previous = 0;
+        long current = 1;
+        for (int i = 0; i < n; i++) {
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Stock {
+
+    private final Map<String, Integer> items = new HashMap<>();
+    private final List<String> log = new ArrayList<>();
+
+    public void put(String name, int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        items.merge(name, amount, Integer::sum);
+        log.add("PUT " + name + " " + amount);
+    }
+
+    public boolean take(String name, int amount) {
+        Integer available = items.get(name);
+        if (available == null || available < amount) {
+            return false;
+        }
+        if (available == amount) {
+            items.remove(name);
+        } else {
+            items.put(name, available - amount);
+        }
+        log.add("TAKE " + name + " " + amount);
+        return true;
+    }
+
+    public int count() {
+        int result = 0;
+        for (int amount : items.values()) {
+            result += amount;
+        }
+        return result;
+    }
+}
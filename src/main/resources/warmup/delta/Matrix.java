@@ -0,0 +1,37 @@
+public class Matrix {
+
+    private final double[][] cells;
+
+    public Matrix(int rows, int columns) {
+        cells = new double[rows][columns];
+    }
+
+    public void set(int row, int column, double value) {
+        cells[row][column] = value;
+    }
+
+    public Matrix multiply(Matrix other) {
+        int rows = cells.length;
+        int columns = other.cells[0].length;
+        int shared = other.cells.length;
+        Matrix result = new Matrix(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                double sum = 0;
+                for (int k = 0; k < shared; k++) {
+                    sum += cells[i][k] * other.cells[k][j];
+                }
+                result.cells[i][j] = sum;
+            }
+        }
+        return result;
+    }
+
+    public double trace() {
+        double sum = 0;
+        for (int i = 0; i < Math.min(cells.length, cells[0].length); i++) {
+            sum += cells[i][i];
+        }
+        return sum;
+    }
+}
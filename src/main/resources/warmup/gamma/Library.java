@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class Library {
+
+    public record Book(String isbn, String title, String author, int year) {
+    }
+
+    private final List<Book> books = new ArrayList<>();
+
+    public void register(Book book) {
+        for (Book existing : books) {
+            if (existing.isbn().equals(book.isbn())) {
+                throw new IllegalStateException("Duplicated ISBN " + book.isbn());
+            }
+        }
+        books.add(book);
+    }
+
+    public Optional<Book> findByIsbn(String isbn) {
+        return books.stream().filter(book -> book.isbn().equals(isbn)).findFirst();
+    }
+
+    public List<Book> publishedBetween(int from, int to) {
+        List<Book> result = new ArrayList<>();
+        for (Book book : books) {
+            if (book.year() >= from && book.year() <= to) {
+                result.add(book);
+            }
+        }
+        result.sort((a, b) -> Integer.compare(a.year(), b.year()));
+        return result;
+    }
+
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (Book book : books) {
+            builder.append(book.title()).append(" - ").append(book.author()).append('\n');
+        }
+        return builder.toString();
+    }
+}
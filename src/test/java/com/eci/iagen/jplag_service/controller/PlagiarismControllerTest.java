@@ -1,19 +1,84 @@
 package com.eci.iagen.jplag_service.controller;
 
+import com.eci.iagen.jplag_service.config.VirtualThreadPinningMonitor;
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.JPlagDetectionService;
+import com.eci.iagen.jplag_service.service.comparison.ComparisonHtmlGenerator;
+import com.eci.iagen.jplag_service.service.job.AnalysisJob;
+import com.eci.iagen.jplag_service.service.job.AnalysisJobRegistry;
+import com.eci.iagen.jplag_service.service.job.ProgressBroadcaster;
+import com.eci.iagen.jplag_service.service.lifecycle.StartupMetrics;
+import com.eci.iagen.jplag_service.service.result.AnalysisResultStore;
+import com.eci.iagen.jplag_service.service.result.IndexedComparison;
+import com.eci.iagen.jplag_service.service.result.ResultIndex;
+import com.eci.iagen.jplag_service.service.upload.UploadIngestionService;
+import com.eci.iagen.jplag_service.service.webhook.WebhookOutbox;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(PlagiarismController.class)
 class PlagiarismControllerTest {
 
+    private static final String ANALYZE_REQUEST = """
+            {"assignmentId": 7, "assignmentTitle": "Lab 3", "callbackUrl": "%s", "submissions": [
+              {"submissionId": 1, "teamId": 10, "repositoryUrl": "https://github.com/org/a.git"},
+              {"submissionId": 2, "teamId": 20, "repositoryUrl": "https://github.com/org/b.git"}]}
+            """;
+
     @Autowired
     private MockMvc mockMvc;
 
+    @MockitoBean
+    private JPlagDetectionService jplagDetectionService;
+
+    @MockitoBean
+    private ComparisonHtmlGenerator comparisonHtmlGenerator;
+
+    @MockitoBean
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @MockitoBean
+    private AnalysisJobRegistry jobRegistry;
+
+    @MockitoBean
+    private ProgressBroadcaster progressBroadcaster;
+
+    @MockitoBean
+    private UploadIngestionService uploadIngestionService;
+
+    @MockitoBean
+    private ApplicationAvailability applicationAvailability;
+
+    @MockitoBean
+    private StartupMetrics startupMetrics;
+
+    @MockitoBean
+    private AnalysisResultStore resultStore;
+
+    @MockitoBean
+    private ResultIndex resultIndex;
+
+    @MockitoBean
+    private WebhookOutbox webhookOutbox;
+
     @Test
     void health_ReturnsSuccess() throws Exception {
         mockMvc.perform(get("/api/plagiarism/health"))
@@ -21,4 +86,265 @@ class PlagiarismControllerTest {
                 .andExpect(jsonPath("$.status").value("UP"))
                 .andExpect(jsonPath("$.service").value("jplag-service"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void analyze_WithCallbackUrl_ReturnsAccepted() throws Exception {
+        PlagiarismDetectionResponse accepted = new PlagiarismDetectionResponse();
+        accepted.setSessionId("session-1");
+        accepted.setSuccess(true);
+        when(webhookOutbox.isAllowedCallback("http://gateway.local/hooks/plagiarism")).thenReturn(true);
+        when(jplagDetectionService.submitAnalysis(any())).thenReturn(accepted);
+
+        mockMvc.perform(post("/api/plagiarism/analyze").contentType(MediaType.APPLICATION_JSON)
+                .content(ANALYZE_REQUEST.formatted("http://gateway.local/hooks/plagiarism")))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.sessionId").value("session-1"));
+        verify(jplagDetectionService, never()).detectPlagiarism(any());
+    }
+
+    @Test
+    void analyze_SessionIdInUse_ReturnsConflict() throws Exception {
+        when(jplagDetectionService.isSessionInUse("lab-3")).thenReturn(true);
+        String request = ANALYZE_REQUEST.formatted("http://gateway.local/hooks/plagiarism")
+                .replace("\"assignmentId\": 7,", "\"assignmentId\": 7, \"sessionId\": \"lab-3\",");
+
+        mockMvc.perform(post("/api/plagiarism/analyze").contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.sessionId").value("lab-3"));
+        verify(jplagDetectionService, never()).submitAnalysis(any());
+        verify(jplagDetectionService, never()).detectPlagiarism(any());
+    }
+
+    @Test
+    void analyze_CallbackHostNotAllowed_ReturnsBadRequest() throws Exception {
+        when(webhookOutbox.isAllowedCallback(any())).thenReturn(false);
+
+        mockMvc.perform(post("/api/plagiarism/analyze").contentType(MediaType.APPLICATION_JSON)
+                .content(ANALYZE_REQUEST.formatted("http://169.254.169.254/latest/meta-data")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(jplagDetectionService, never()).submitAnalysis(any());
+        verify(jplagDetectionService, never()).detectPlagiarism(any());
+    }
+
+    @Test
+    void analyze_NonHttpCallbackUrl_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/plagiarism/analyze").contentType(MediaType.APPLICATION_JSON)
+                .content(ANALYZE_REQUEST.formatted("file:///etc/passwd")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void analyzeUpload_Success_ReturnsResult() throws Exception {
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId("session-1");
+        response.setSuccess(true);
+        when(uploadIngestionService.analyze(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/plagiarism/analyze/upload").contentType(MediaType.MULTIPART_FORM_DATA)
+                .content("--b--"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessionId").value("session-1"));
+    }
+
+    @Test
+    void analyzeUpload_InvalidRequestPart_ReturnsBadRequest() throws Exception {
+        when(uploadIngestionService.analyze(any()))
+                .thenThrow(new IllegalArgumentException("La primera parte debe ser \"request\""));
+
+        mockMvc.perform(post("/api/plagiarism/analyze/upload").contentType(MediaType.MULTIPART_FORM_DATA)
+                .content("--b--"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("La primera parte debe ser \"request\""));
+    }
+
+    @Test
+    void cancelJob_RunningSession_ReturnsAccepted() throws Exception {
+        when(jobRegistry.cancel("session-1")).thenReturn(true);
+
+        mockMvc.perform(post("/api/plagiarism/jobs/session-1/cancel"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.sessionId").value("session-1"));
+    }
+
+    @Test
+    void listRunningJobs_IncludesProgress() throws Exception {
+        AnalysisJob job = new AnalysisJob("session-1", 7L);
+        job.setStage("cloning");
+        job.getProgress().setRepositoriesTotal(3);
+        job.getProgress().repositoryFinished(true);
+        when(jobRegistry.getRunningJobs()).thenReturn(List.of(job));
+
+        mockMvc.perform(get("/api/plagiarism/jobs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].progress.stage").value("cloning"))
+                .andExpect(jsonPath("$[0].progress.repositories.total").value(3))
+                .andExpect(jsonPath("$[0].progress.repositories.cloned").value(1));
+    }
+
+    @Test
+    void streamJobProgress_StartsEventStream() throws Exception {
+        when(progressBroadcaster.subscribe("session-1")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/plagiarism/jobs/session-1/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void cancelJob_UnknownSession_ReturnsNotFound() throws Exception {
+        mockMvc.perform(post("/api/plagiarism/jobs/missing/cancel"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void ready_WhileRefusingTraffic_ReturnsServiceUnavailable() throws Exception {
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+
+        mockMvc.perform(get("/api/plagiarism/ready"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("NOT_READY"));
+    }
+
+    @Test
+    void ready_AcceptingTraffic_ReturnsOk() throws Exception {
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+
+        mockMvc.perform(get("/api/plagiarism/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("READY"));
+    }
+
+    @Test
+    void getResult_PartialResult_ReturnsCompleteness() throws Exception {
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId("session-1");
+        response.setSuccess(true);
+        PlagiarismDetectionResponse.CompletenessSummary completeness =
+                new PlagiarismDetectionResponse.CompletenessSummary();
+        completeness.setPlannedComparisons(10);
+        completeness.setCompletedComparisons(4);
+        completeness.setContinuingInBackground(true);
+        response.setCompleteness(completeness);
+        when(resultStore.get("session-1")).thenReturn(response);
+
+        mockMvc.perform(get("/api/plagiarism/results/session-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completeness.complete").value(false))
+                .andExpect(jsonPath("$.completeness.completedComparisons").value(4));
+    }
+
+    @Test
+    void getResult_ColumnarLayout_InternsRepeatedStrings() throws Exception {
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId("session-1");
+        response.setSuccess(true);
+        response.setComparisons(List.of(
+                new PlagiarismDetectionResponse.ComparisonResult("submission_1_team_10", "submission_2_team_20",
+                        "Team 10", "Team 20", 0.9, 150, "completed"),
+                new PlagiarismDetectionResponse.ComparisonResult("submission_1_team_10", "submission_3_team_30",
+                        "Team 10", "Team 30", 0.4, 60, "completed")));
+        when(resultStore.get("session-1")).thenReturn(response);
+
+        mockMvc.perform(get("/api/plagiarism/results/session-1").param("layout", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comparisons").doesNotExist())
+                .andExpect(jsonPath("$.comparisonTable.size").value(2))
+                .andExpect(jsonPath("$.comparisonTable.strings.length()").value(7))
+                .andExpect(jsonPath("$.comparisonTable.submission1[1]").value(1))
+                .andExpect(jsonPath("$.comparisonTable.similarity[1]").value(0.4));
+    }
+
+    @Test
+    void getResult_SmileAccepted_ReturnsSmile() throws Exception {
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId("session-1");
+        response.setSuccess(true);
+        when(resultStore.get("session-1")).thenReturn(response);
+
+        mockMvc.perform(get("/api/plagiarism/results/session-1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"));
+    }
+
+    @Test
+    void getResult_UnknownSession_ReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/plagiarism/results/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void generateReport_RetainedSession_ReturnsReportUrl() throws Exception {
+        when(jplagDetectionService.generateDeferredReport("session-1", null, null)).thenReturn("/reports/viewer/session-1");
+
+        mockMvc.perform(post("/api/plagiarism/results/session-1/report"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reportUrl").value("/reports/viewer/session-1"));
+    }
+
+    @Test
+    void generateReport_UnknownSession_ReturnsNotFound() throws Exception {
+        mockMvc.perform(post("/api/plagiarism/results/missing/report"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getComparisons_Snapshot_ReturnsFilteredComparisons() throws Exception {
+        PlagiarismDetectionResponse.ComparisonResult comparison = new PlagiarismDetectionResponse.ComparisonResult(
+                "submission_1_team_10", "submission_2_team_20", "Team 10", "Team 20", 0.8, 120, "completed");
+        when(jplagDetectionService.findSnapshotComparisons("session-1", 0.6)).thenReturn(List.of(comparison));
+
+        mockMvc.perform(get("/api/plagiarism/results/session-1/comparisons").param("minSimilarity", "0.6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comparisons[0].similarity").value(0.8));
+    }
+
+    @Test
+    void getComparisons_NoSnapshot_ReturnsNotFound() throws Exception {
+        when(jplagDetectionService.findSnapshotComparisons("missing", 0.0)).thenReturn(null);
+
+        mockMvc.perform(get("/api/plagiarism/results/missing/comparisons"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findComparisons_TeamAboveThreshold_ReturnsIndexedPairs() throws Exception {
+        IndexedComparison comparison = new IndexedComparison("session-1", 7L, 0L, "submission_1_team_10",
+                "submission_2_team_20", 1L, 2L, 10L, 20L, "Team 10", "Team 20", 0.75, 90, null);
+        when(resultIndex.findComparisons(null, 10L, null, null, 0.6, 100)).thenReturn(List.of(comparison));
+
+        mockMvc.perform(get("/api/plagiarism/comparisons").param("teamId", "10").param("minSimilarity", "0.6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalComparisons").value(1))
+                .andExpect(jsonPath("$.comparisons[0].teamId2").value(20));
+    }
+
+    @Test
+    void findSessions_NoSessions_ReturnsEmptyList() throws Exception {
+        mockMvc.perform(get("/api/plagiarism/sessions").param("assignmentId", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void getClusters_KnownSession_ReturnsClusters() throws Exception {
+        PlagiarismDetectionResponse.SubmissionCluster cluster = new PlagiarismDetectionResponse.SubmissionCluster();
+        cluster.setId(1);
+        cluster.setSize(3);
+        PlagiarismDetectionResponse.ClusteringSummary clustering = new PlagiarismDetectionResponse.ClusteringSummary();
+        clustering.setSimilarityThreshold(0.7);
+        clustering.setClusters(List.of(cluster));
+        when(jplagDetectionService.findClusters("session-1", 0.7)).thenReturn(clustering);
+
+        mockMvc.perform(get("/api/plagiarism/results/session-1/clusters").param("minSimilarity", "0.7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clusters[0].size").value(3));
+    }
+
+    @Test
+    void getClusters_UnknownSession_ReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/plagiarism/results/missing/clusters"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,103 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.service.workspace.SourceManifest;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateDetectorTest {
+
+    private static final String SOURCE = """
+            public class Saludo {
+                // Imprime un saludo
+                public static void main(String[] args) {
+                    System.out.println("%s");
+                }
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private DuplicateDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new DuplicateDetector();
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "minFileChars", 0);
+        ReflectionTestUtils.setField(detector, "maxShareRatio", 0.5);
+    }
+
+    @Test
+    void detect_SameCodeDifferentFormatting_ReportsIdentical() throws IOException {
+        List<SourceManifest> manifests = List.of(
+                submission("submission_1_team_10", String.format(SOURCE, "Hola"), StandardCharsets.UTF_8),
+                submission("submission_2_team_20", String.format(SOURCE, "Hola").replace("    ", "\t"),
+                        StandardCharsets.UTF_8));
+
+        PlagiarismDetectionResponse.DuplicateSummary summary = detector.detect(manifests, registry());
+
+        assertEquals(1, summary.getIdenticalSubmissions().size());
+        assertEquals(List.of(1L, 2L), summary.getIdenticalSubmissions().get(0).getSubmissionIds());
+    }
+
+    @Test
+    void detect_Latin1SourcesDifferingInAccents_NotIdentical() throws IOException {
+        // Bytes que no son UTF-8 válido: si se descartaran, sólo quedaría Comun.java y serían idénticas
+        List<SourceManifest> manifests = List.of(
+                submission("submission_1_team_10", String.format(SOURCE, "Adiós"), StandardCharsets.ISO_8859_1),
+                submission("submission_2_team_20", String.format(SOURCE, "Adiñs"), StandardCharsets.ISO_8859_1));
+
+        PlagiarismDetectionResponse.DuplicateSummary summary = detector.detect(manifests, registry());
+
+        assertTrue(summary.getIdenticalSubmissions().isEmpty());
+    }
+
+    @Test
+    void detect_IdenticalLatin1Sources_ReportsIdentical() throws IOException {
+        List<SourceManifest> manifests = List.of(
+                submission("submission_1_team_10", String.format(SOURCE, "Adiós"), StandardCharsets.ISO_8859_1),
+                submission("submission_2_team_20", String.format(SOURCE, "Adiós"), StandardCharsets.ISO_8859_1));
+
+        PlagiarismDetectionResponse.DuplicateSummary summary = detector.detect(manifests, registry());
+
+        assertEquals(1, summary.getIdenticalSubmissions().size());
+    }
+
+    @Test
+    void readSource_DecodesUtf8AndFallsBackToLatin1() throws IOException {
+        Path utf8 = tempDir.resolve("Utf8.java");
+        Files.writeString(utf8, "ñandú", StandardCharsets.UTF_8);
+        Path latin1 = tempDir.resolve("Latin1.java");
+        Files.writeString(latin1, "ñandú", StandardCharsets.ISO_8859_1);
+
+        assertEquals("ñandú", DuplicateDetector.readSource(utf8));
+        assertEquals("ñandú", DuplicateDetector.readSource(latin1));
+    }
+
+    private SourceManifest submission(String name, String content, Charset charset) throws IOException {
+        Path root = tempDir.resolve(name);
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/Saludo.java"), content, charset);
+        Files.writeString(root.resolve("src/Comun.java"), "public class Comun {\n}\n");
+        return SourceManifest.scan(root);
+    }
+
+    private static SubmissionRegistry registry() {
+        return new SubmissionRegistry(new ArrayList<>());
+    }
+}
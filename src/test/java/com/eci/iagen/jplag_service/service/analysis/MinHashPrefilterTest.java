@@ -0,0 +1,178 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.TokenType;
+import de.jplag.strategy.SubmissionTuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MinHashPrefilterTest {
+
+    private MinHashPrefilter prefilter;
+
+    @BeforeEach
+    void setUp() {
+        prefilter = new MinHashPrefilter();
+        ReflectionTestUtils.setField(prefilter, "enabled", true);
+        ReflectionTestUtils.setField(prefilter, "minSubmissions", 100);
+        ReflectionTestUtils.setField(prefilter, "shingleSize", 8);
+        ReflectionTestUtils.setField(prefilter, "numHashes", 128);
+        ReflectionTestUtils.setField(prefilter, "targetSimilarity", 0.3);
+        ReflectionTestUtils.setField(prefilter, "targetRecall", 0.99);
+        ReflectionTestUtils.setField(prefilter, "auditSampleSize", 10);
+        ReflectionTestUtils.setField(prefilter, "auditSimilarity", 0.5);
+    }
+
+    @Test
+    void newSelector_DefaultTargets_UsesLargestRowsReachingRecall() {
+        PlagiarismDetectionResponse.PrefilterSummary summary = prefilter.newSelector().summarize(List.of());
+
+        // s = 0.3, r = 0.99 con 128 hashes: 64 bandas de 2 filas (3 filas sólo llegan a ~0.68)
+        assertEquals(2, summary.getRows());
+        assertEquals(64, summary.getBands());
+        assertEquals(0.9976, summary.getTheoreticalRecall(), 1e-4);
+        assertTrue(MinHashPrefilter.theoreticalRecall(0.3, 42, 3) < 0.99);
+    }
+
+    @Test
+    void newSelector_UnreachableRecall_FallsBackToOneRow() {
+        ReflectionTestUtils.setField(prefilter, "targetSimilarity", 0.01);
+
+        PlagiarismDetectionResponse.PrefilterSummary summary = prefilter.newSelector().summarize(List.of());
+
+        assertEquals(1, summary.getRows());
+        assertEquals(128, summary.getBands());
+    }
+
+    @Test
+    void theoreticalRecall_MatchesBandingFormula() {
+        assertEquals(1.0 - Math.pow(1.0 - 0.25, 64), MinHashPrefilter.theoreticalRecall(0.5, 64, 2), 1e-12);
+        assertEquals(0.0, MinHashPrefilter.theoreticalRecall(0.0, 64, 2), 1e-12);
+        assertEquals(1.0, MinHashPrefilter.theoreticalRecall(1.0, 1, 128), 1e-12);
+    }
+
+    @Test
+    void appliesTo_RespectsEnabledAndMinimumSubmissions() {
+        assertFalse(prefilter.appliesTo(99));
+        assertTrue(prefilter.appliesTo(100));
+        ReflectionTestUtils.setField(prefilter, "enabled", false);
+        assertFalse(prefilter.appliesTo(1000));
+    }
+
+    @Test
+    void select_KeepsSharedBandPairsAndAuditsRejected() {
+        Random random = new Random(7);
+        List<TestType> shared = randomTypes(random, 300);
+        Submission original = submission(shared);
+        Submission copy = submission(shared);
+        Submission other = submission(randomTypes(random, 300));
+        Submission unrelated = submission(randomTypes(random, 300));
+        List<SubmissionTuple> tuples = List.of(
+                new SubmissionTuple(original, copy),
+                new SubmissionTuple(original, other),
+                new SubmissionTuple(original, unrelated),
+                new SubmissionTuple(copy, other),
+                new SubmissionTuple(copy, unrelated),
+                new SubmissionTuple(other, unrelated));
+        ReflectionTestUtils.setField(prefilter, "auditSampleSize", 2);
+        MinHashCandidateSelector selector = prefilter.newSelector();
+
+        List<SubmissionTuple> selected = selector.select(tuples);
+
+        assertEquals(3, selected.size());
+        assertSame(tuples.get(0), selected.get(0));
+        assertEquals(3, new HashSet<>(selected).size());
+
+        PlagiarismDetectionResponse.PrefilterSummary summary = selector.summarize(List.of());
+        assertEquals(6, summary.getTotalPairs());
+        assertEquals(1, summary.getCandidatePairs());
+        assertEquals(2, summary.getAuditedPairs());
+        assertEquals(3, summary.getSkippedPairs());
+        assertEquals(1.0, summary.getEstimatedRecall());
+    }
+
+    @Test
+    void summarize_AuditHits_ExtrapolatedToRejectedPairs() {
+        Random random = new Random(11);
+        List<TestType> shared = randomTypes(random, 300);
+        Submission original = submission(shared);
+        Submission copy = submission(shared);
+        Submission other = submission(randomTypes(random, 300));
+        Submission unrelated = submission(randomTypes(random, 300));
+        List<SubmissionTuple> tuples = List.of(
+                new SubmissionTuple(original, copy),
+                new SubmissionTuple(original, other),
+                new SubmissionTuple(original, unrelated),
+                new SubmissionTuple(copy, other),
+                new SubmissionTuple(copy, unrelated),
+                new SubmissionTuple(other, unrelated));
+        MinHashCandidateSelector selector = prefilter.newSelector();
+        selector.select(tuples);
+
+        // Los 5 pares descartados se auditan; 1 de ellos supera audit-similarity
+        PlagiarismDetectionResponse.PrefilterSummary summary = selector.summarize(List.of(
+                comparison(original, copy, 1.0),
+                comparison(other, original, 0.6),
+                comparison(copy, unrelated, 0.2)));
+
+        assertEquals(5, summary.getAuditedPairs());
+        assertEquals(0, summary.getSkippedPairs());
+        assertEquals(1, summary.getCandidateHits());
+        assertEquals(1, summary.getAuditHits());
+        // Perdidos estimados: 1/5 de los 5 descartados = 1, recall = 1 / (1 + 1)
+        assertEquals(0.5, summary.getEstimatedRecall());
+    }
+
+    static List<TestType> randomTypes(Random random, int count) {
+        List<TestType> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            types.add(TestType.values()[random.nextInt(TestType.values().length)]);
+        }
+        return types;
+    }
+
+    static List<Token> tokens(List<TestType> types) {
+        List<Token> tokens = new ArrayList<>(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            tokens.add(new Token(types.get(i), new File("Main.java"), i + 1, 1, 1));
+        }
+        return tokens;
+    }
+
+    private static Submission submission(List<TestType> types) {
+        Submission submission = mock(Submission.class);
+        when(submission.getTokenList()).thenReturn(tokens(types));
+        return submission;
+    }
+
+    private static JPlagComparison comparison(Submission first, Submission second, double similarity) {
+        JPlagComparison comparison = mock(JPlagComparison.class);
+        when(comparison.firstSubmission()).thenReturn(first);
+        when(comparison.secondSubmission()).thenReturn(second);
+        when(comparison.similarity()).thenReturn(similarity);
+        return comparison;
+    }
+
+    enum TestType implements TokenType {
+        CLASS, METHOD, IF, LOOP, ASSIGN, CALL, RETURN, VARIABLE;
+
+        @Override
+        public String getDescription() {
+            return name();
+        }
+    }
+}
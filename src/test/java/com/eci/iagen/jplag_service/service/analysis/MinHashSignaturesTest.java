@@ -0,0 +1,77 @@
+package com.eci.iagen.jplag_service.service.analysis;
+
+import com.eci.iagen.jplag_service.service.analysis.MinHashPrefilterTest.TestType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.eci.iagen.jplag_service.service.analysis.MinHashPrefilterTest.randomTypes;
+import static com.eci.iagen.jplag_service.service.analysis.MinHashPrefilterTest.tokens;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashSignaturesTest {
+
+    private static final int SHINGLE_SIZE = 8;
+
+    private final MinHashSignatures signatures = new MinHashSignatures(SHINGLE_SIZE, 128);
+
+    @Test
+    void signatureOf_SameTokens_SameSignature() {
+        List<TestType> types = randomTypes(new Random(1), 200);
+
+        long[] first = signatures.signatureOf(tokens(types));
+        long[] second = new MinHashSignatures(SHINGLE_SIZE, 128).signatureOf(tokens(types));
+
+        assertArrayEquals(first, second);
+        assertEquals(1.0, MinHashSignatures.estimateSimilarity(first, second));
+    }
+
+    @Test
+    void signatureOf_FewerTokensThanShingle_EstimatesZero() {
+        long[] empty = signatures.signatureOf(tokens(randomTypes(new Random(2), SHINGLE_SIZE - 1)));
+        long[] full = signatures.signatureOf(tokens(randomTypes(new Random(3), 200)));
+
+        assertEquals(Long.MAX_VALUE, empty[0]);
+        assertEquals(0.0, MinHashSignatures.estimateSimilarity(empty, empty));
+        assertEquals(0.0, MinHashSignatures.estimateSimilarity(empty, full));
+    }
+
+    @Test
+    void estimateSimilarity_ApproximatesShingleJaccard() {
+        Random random = new Random(4);
+        for (int shared : new int[] { 50, 150, 300 }) {
+            List<TestType> common = randomTypes(random, shared);
+            List<TestType> first = new ArrayList<>(randomTypes(random, 100));
+            first.addAll(common);
+            List<TestType> second = new ArrayList<>(common);
+            second.addAll(randomTypes(random, 100));
+
+            double estimate = MinHashSignatures.estimateSimilarity(signatures.signatureOf(tokens(first)),
+                    signatures.signatureOf(tokens(second)));
+
+            // Error estándar con 128 hashes ≤ 0.045; se admite ~3 desviaciones
+            assertEquals(jaccard(first, second), estimate, 0.14, "shared " + shared);
+        }
+    }
+
+    private static double jaccard(List<TestType> first, List<TestType> second) {
+        Set<List<TestType>> firstShingles = shingles(first);
+        Set<List<TestType>> union = new HashSet<>(firstShingles);
+        Set<List<TestType>> secondShingles = shingles(second);
+        union.addAll(secondShingles);
+        firstShingles.retainAll(secondShingles);
+        return (double) firstShingles.size() / union.size();
+    }
+
+    private static Set<List<TestType>> shingles(List<TestType> types) {
+        Set<List<TestType>> shingles = new HashSet<>();
+        for (int start = 0; start + SHINGLE_SIZE <= types.size(); start++) {
+            shingles.add(List.copyOf(types.subList(start, start + SHINGLE_SIZE)));
+        }
+        return shingles;
+    }
+}
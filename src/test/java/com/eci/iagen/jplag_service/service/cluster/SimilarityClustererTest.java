@@ -0,0 +1,113 @@
+package com.eci.iagen.jplag_service.service.cluster;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityClustererTest {
+
+    @Test
+    void addEdge_BelowThreshold_Ignored() {
+        SimilarityClusterer clusterer = new SimilarityClusterer(0.5);
+
+        assertFalse(clusterer.addEdge("a", 1L, "A", "b", 2L, "B", 0.49));
+
+        PlagiarismDetectionResponse.ClusteringSummary summary = clusterer.toSummary();
+        assertEquals(0, summary.getEdges());
+        assertEquals(0, summary.getClusteredSubmissions());
+        assertTrue(summary.getClusters().isEmpty());
+    }
+
+    @Test
+    void toSummary_TwoComponents_AggregatesPerCluster() {
+        SimilarityClusterer clusterer = new SimilarityClusterer(0.5);
+        // Triángulo incompleto a-b-c y el par d-e; f sólo tiene pares bajo el umbral
+        assertTrue(clusterer.addEdge("b", 2L, "B", "c", 3L, "C", 0.6));
+        assertTrue(clusterer.addEdge("a", 1L, "A", "b", 2L, "B", 0.9));
+        assertTrue(clusterer.addEdge("d", 4L, "D", "e", 5L, null, 0.95));
+        assertFalse(clusterer.addEdge("a", 1L, "A", "f", 6L, "F", 0.1));
+
+        PlagiarismDetectionResponse.ClusteringSummary summary = clusterer.toSummary();
+
+        assertEquals(0.5, summary.getSimilarityThreshold());
+        assertEquals(3, summary.getEdges());
+        assertEquals(5, summary.getClusteredSubmissions());
+        assertEquals(2, summary.getClusters().size());
+
+        PlagiarismDetectionResponse.SubmissionCluster largest = summary.getClusters().get(0);
+        assertEquals(1, largest.getId());
+        assertEquals(3, largest.getSize());
+        assertEquals(List.of("a", "b", "c"), largest.getSubmissions());
+        assertEquals(List.of(1L, 2L, 3L), largest.getSubmissionIds());
+        assertEquals(List.of("A", "B", "C"), largest.getTeams());
+        assertEquals(2, largest.getEdges());
+        assertEquals(0.75, largest.getAverageSimilarity(), 1e-12);
+        assertEquals(0.9, largest.getMaxSimilarity());
+        assertEquals(2.0 / 3, largest.getDensity(), 1e-12);
+
+        PlagiarismDetectionResponse.SubmissionCluster pair = summary.getClusters().get(1);
+        assertEquals(2, pair.getId());
+        assertEquals(List.of("d", "e"), pair.getSubmissions());
+        assertEquals(List.of("D"), pair.getTeams());
+        assertEquals(1, pair.getEdges());
+        assertEquals(1.0, pair.getDensity());
+    }
+
+    @Test
+    void toSummary_SameSizeClusters_OrderedByAverageSimilarity() {
+        SimilarityClusterer clusterer = new SimilarityClusterer(0.5);
+        clusterer.addEdge("a", 1L, null, "b", 2L, null, 0.6);
+        clusterer.addEdge("c", 3L, null, "d", 4L, null, 0.8);
+
+        List<PlagiarismDetectionResponse.SubmissionCluster> clusters = clusterer.toSummary().getClusters();
+
+        assertEquals(List.of("c", "d"), clusters.get(0).getSubmissions());
+        assertEquals(List.of("a", "b"), clusters.get(1).getSubmissions());
+    }
+
+    @Test
+    void toSummary_AnyEdgeOrder_SameAggregates() {
+        // Cadenas de 10 entregas: se superan los 16 nodos iniciales y las uniones mezclan raíces
+        List<Object[]> edges = new ArrayList<>();
+        Random random = new Random(5);
+        for (int chain = 0; chain < 4; chain++) {
+            for (int i = 0; i < 9; i++) {
+                edges.add(new Object[] { "s" + chain + "_" + i, "s" + chain + "_" + (i + 1),
+                        0.5 + random.nextInt(50) / 100.0 });
+            }
+        }
+        PlagiarismDetectionResponse.ClusteringSummary expected = cluster(edges);
+
+        for (int trial = 0; trial < 20; trial++) {
+            Collections.shuffle(edges, random);
+            PlagiarismDetectionResponse.ClusteringSummary actual = cluster(edges);
+
+            assertEquals(expected.getEdges(), actual.getEdges());
+            assertEquals(40, actual.getClusteredSubmissions());
+            assertEquals(4, actual.getClusters().size());
+            for (int i = 0; i < expected.getClusters().size(); i++) {
+                PlagiarismDetectionResponse.SubmissionCluster expectedCluster = expected.getClusters().get(i);
+                PlagiarismDetectionResponse.SubmissionCluster actualCluster = actual.getClusters().get(i);
+                assertEquals(expectedCluster.getSubmissions(), actualCluster.getSubmissions());
+                assertEquals(expectedCluster.getEdges(), actualCluster.getEdges());
+                assertEquals(expectedCluster.getAverageSimilarity(), actualCluster.getAverageSimilarity(), 1e-12);
+                assertEquals(expectedCluster.getMaxSimilarity(), actualCluster.getMaxSimilarity());
+                assertEquals(expectedCluster.getDensity(), actualCluster.getDensity(), 1e-12);
+            }
+        }
+    }
+
+    private static PlagiarismDetectionResponse.ClusteringSummary cluster(List<Object[]> edges) {
+        SimilarityClusterer clusterer = new SimilarityClusterer(0.5);
+        for (Object[] edge : edges) {
+            clusterer.addEdge((String) edge[0], null, null, (String) edge[1], null, null, (double) edge[2]);
+        }
+        return clusterer.toSummary();
+    }
+}
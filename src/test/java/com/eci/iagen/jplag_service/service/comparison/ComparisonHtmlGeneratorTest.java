@@ -0,0 +1,76 @@
+package com.eci.iagen.jplag_service.service.comparison;
+
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ComparisonHtmlGeneratorTest {
+
+    private static final String COMPARISON = """
+            {"firstSubmissionId": "%s", "secondSubmissionId": "%s",
+             "similarities": {"AVG": 0.8, "MAX": 0.9, "MAXIMUM_LENGTH": 0.7, "LONGEST_MATCH": 0.6},
+             "matches": []}
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private ComparisonHtmlGenerator generator;
+    private Path reportDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        generator = new ComparisonHtmlGenerator();
+        ReflectionTestUtils.setField(generator, "comparationDirectory", tempDir.resolve("comparation").toString());
+        reportDir = Files.createDirectories(tempDir.resolve("report/comparisons")).getParent();
+    }
+
+    @Test
+    void generate_RootPrefixedNames_UsesRegistrySubmissionIds() throws Exception {
+        writeComparison("a.json", "repositories/submission_19_team_17", "repositories/submission_4_team_null");
+        SubmissionRegistry registry = new SubmissionRegistry(List.of(submission(19L, 17L), submission(4L, null)));
+
+        generator.generateComparisonHtmlFiles(reportDir, "session-1", registry);
+
+        assertEquals(List.of("19-4.html"), pages("session-1"));
+    }
+
+    @Test
+    void generate_NameWithoutSubmissionId_SkipsPage() throws Exception {
+        // Entrega histórica: antes se tomaba el primer número del nombre (2024)
+        writeComparison("a.json", "submission_19_team_17", "history/cohorte2024/alumno7");
+        writeComparison("b.json", "submission_19_team_17", "submission_8_team_3");
+
+        generator.generateComparisonHtmlFiles(reportDir, "session-1", null);
+
+        assertEquals(List.of("19-8.html"), pages("session-1"));
+    }
+
+    private void writeComparison(String fileName, String first, String second) throws IOException {
+        Files.writeString(reportDir.resolve("comparisons").resolve(fileName), COMPARISON.formatted(first, second));
+    }
+
+    private List<String> pages(String sessionId) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("comparation").resolve(sessionId))) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static SubmissionDto submission(Long submissionId, Long teamId) {
+        SubmissionDto dto = new SubmissionDto();
+        dto.setSubmissionId(submissionId);
+        dto.setTeamId(teamId);
+        return dto;
+    }
+}
@@ -0,0 +1,168 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArchiveSourceFetcherTest {
+
+    private static final String TEMPLATES = "github.com=https://github.com/{path}/archive/HEAD.zip,"
+            + "gitlab.com=https://gitlab.com/api/v4/projects/{encodedPath}/repository/archive.zip,"
+            + "127.0.0.1:%d={scheme}://{authority}/archives/{path}/{name}.zip";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Map<String, byte[]> archives = new ConcurrentHashMap<>();
+    private SubmissionLimits submissionLimits;
+    private ArchiveSourceFetcher fetcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = startArchiveServer(archives);
+        submissionLimits = mock(SubmissionLimits.class);
+        when(submissionLimits.getMaxRepositoryBytes()).thenReturn(Long.MAX_VALUE);
+        fetcher = newFetcher(server, submissionLimits);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void archiveUrl_ExpandsTemplatePlaceholders() {
+        assertEquals("https://github.com/org/repo/archive/HEAD.zip",
+                fetcher.archiveUrl("https://github.com/org/repo.git"));
+        assertEquals("https://gitlab.com/api/v4/projects/group%2Fsub%2Fproj/repository/archive.zip",
+                fetcher.archiveUrl("https://gitlab.com/group/sub/proj.git/"));
+        assertEquals("https://github.com/org/my..repo/archive/HEAD.zip",
+                fetcher.archiveUrl("https://github.com/org/my..repo"));
+        assertEquals(baseUrl() + "/archives/org/repo/repo.zip", fetcher.archiveUrl(baseUrl() + "/org/repo.git"));
+    }
+
+    @Test
+    void archiveUrl_UnsupportedRepository_ReturnsNull() {
+        assertNull(fetcher.archiveUrl("https://github.com/org/../repo"));
+        assertNull(fetcher.archiveUrl("https://bitbucket.org/org/repo.git"));
+        assertNull(fetcher.archiveUrl("git@github.com:org/repo.git"));
+        assertNull(fetcher.archiveUrl("https://github.com/"));
+    }
+
+    @Test
+    void fetch_Zipball_ExtractsOnlySources() throws Exception {
+        archives.put("/archives/org/repo/repo.zip", zip(
+                "repo-HEAD/src/Calc.java", "class Calc {}",
+                "repo-HEAD/target/generated/Gen.java", "class Gen {}",
+                "repo-HEAD/docs/notes..txt", "notes",
+                "__MACOSX/repo-HEAD/src/._Calc.java", "x"));
+        Path target = tempDir.resolve("repo");
+
+        assertTrue(fetcher.fetch(baseUrl() + "/org/repo.git", target, null));
+
+        assertTrue(Files.isRegularFile(target.resolve("repo-HEAD/src/Calc.java")));
+        assertFalse(Files.exists(target.resolve("repo-HEAD/target")));
+        assertFalse(Files.exists(target.resolve("repo-HEAD/docs")));
+        assertFalse(Files.exists(target.resolve("__MACOSX")));
+    }
+
+    @Test
+    void fetch_NotFound_ReturnsFalse() throws Exception {
+        Path target = tempDir.resolve("missing");
+
+        assertFalse(fetcher.fetch(baseUrl() + "/org/missing.git", target, null));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void fetch_OverRepositoryLimit_AbortsAndDiscards() throws Exception {
+        when(submissionLimits.getMaxRepositoryBytes()).thenReturn(4096L);
+        byte[] noise = new byte[64 * 1024];
+        new Random(7).nextBytes(noise);
+        archives.put("/archives/org/big/big.zip", zip("big-HEAD/src/Big.java",
+                new String(noise, StandardCharsets.ISO_8859_1)));
+        Path target = tempDir.resolve("big");
+
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> fetcher.fetch(baseUrl() + "/org/big.git", target, null));
+
+        assertEquals(SubmissionLimits.REPOSITORY_SIZE, e.getLimit());
+        assertEquals(4096L, e.getMaximum());
+        assertFalse(Files.exists(target));
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Servidor local que sirve los ZIP registrados por ruta (404 para el resto)
+     */
+    static HttpServer startArchiveServer(Map<String, byte[]> archives) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] archive = archives.get(exchange.getRequestURI().getPath());
+            if (archive == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, archive.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(archive);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    static ArchiveSourceFetcher newFetcher(HttpServer server, SubmissionLimits submissionLimits) {
+        ArchiveSourceFetcher fetcher = new ArchiveSourceFetcher();
+        ReflectionTestUtils.setField(fetcher, "submissionLimits", submissionLimits);
+        ReflectionTestUtils.setField(fetcher, "urlTemplates", TEMPLATES.formatted(server.getAddress().getPort()));
+        ReflectionTestUtils.setField(fetcher, "maxConcurrentDownloads", 2);
+        ReflectionTestUtils.setField(fetcher, "timeoutSeconds", 5);
+        ReflectionTestUtils.setField(fetcher, "maxDurationSeconds", 30L);
+        fetcher.init();
+        return fetcher;
+    }
+
+    static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes(StandardCharsets.ISO_8859_1));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,102 @@
+package com.eci.iagen.jplag_service.service.fetch;
+
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SourceFetcherSelectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Map<String, byte[]> archives = new ConcurrentHashMap<>();
+    private SubmissionLimits submissionLimits;
+    private ArchiveSourceFetcher archiveFetcher;
+    private GitSourceFetcher gitFetcher;
+    private SourceFetcherSelector selector;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ArchiveSourceFetcherTest.startArchiveServer(archives);
+        submissionLimits = mock(SubmissionLimits.class);
+        when(submissionLimits.getMaxRepositoryBytes()).thenReturn(Long.MAX_VALUE);
+        archiveFetcher = ArchiveSourceFetcherTest.newFetcher(server, submissionLimits);
+        gitFetcher = mock(GitSourceFetcher.class);
+        when(gitFetcher.getName()).thenReturn(GitSourceFetcher.NAME);
+
+        selector = new SourceFetcherSelector();
+        ReflectionTestUtils.setField(selector, "fetchers", List.of(archiveFetcher, gitFetcher));
+        ReflectionTestUtils.setField(selector, "gitFetcher", gitFetcher);
+        ReflectionTestUtils.setField(selector, "strategies",
+                "127.0.0.1:" + server.getAddress().getPort() + "=archive");
+        ReflectionTestUtils.setField(selector, "defaultStrategy", GitSourceFetcher.NAME);
+        ReflectionTestUtils.setField(selector, "fallbackToGit", true);
+        selector.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void select_UsesStrategyOfHostAndPort() {
+        assertSame(archiveFetcher, selector.select(baseUrl() + "/org/repo.git"));
+        assertSame(gitFetcher, selector.select("https://bitbucket.org/org/repo.git"));
+        assertSame(gitFetcher, selector.select("git@github.com:org/repo.git"));
+    }
+
+    @Test
+    void fetch_ArchiveNotFound_FallsBackToGit() throws Exception {
+        String url = baseUrl() + "/org/repo.git";
+        Path target = tempDir.resolve("repo");
+        when(gitFetcher.fetch(url, target, null)).thenReturn(true);
+
+        assertTrue(selector.fetch(url, target, null));
+        verify(gitFetcher).fetch(url, target, null);
+    }
+
+    @Test
+    void fetch_OverRepositoryLimit_DoesNotFallBackToGit() throws Exception {
+        when(submissionLimits.getMaxRepositoryBytes()).thenReturn(16L);
+        archives.put("/archives/org/repo/repo.zip", ArchiveSourceFetcherTest.zip("repo/A.java", "class A {}"));
+
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> selector.fetch(baseUrl() + "/org/repo.git", tempDir.resolve("repo"), null));
+
+        assertEquals(SubmissionLimits.REPOSITORY_SIZE, e.getLimit());
+        verify(gitFetcher, never()).fetch(any(), any(), any());
+    }
+
+    @Test
+    void parseHostMap_LowercasesHostsAndSkipsInvalidPairs() {
+        assertEquals(Map.of("github.com", "archive", "git.local:8443", "git"),
+                SourceFetcherSelector.parseHostMap(" GitHub.com = archive ,git.local:8443=git,invalid"));
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
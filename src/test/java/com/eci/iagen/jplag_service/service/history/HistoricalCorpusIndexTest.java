@@ -0,0 +1,81 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricalCorpusIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HistoricalCorpusIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HistoricalCorpusIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "historyDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(index, "retentionDays", 30L);
+    }
+
+    @Test
+    void resolveKey_OnlyExplicitHistoryKey() {
+        PlagiarismDetectionRequest request = new PlagiarismDetectionRequest();
+        request.setAssignmentId(7L);
+        request.setAssignmentTitle("Laboratorio 3");
+        assertNull(index.resolveKey(request));
+
+        request.setHistoryKey("curso-a-lab-3");
+        assertEquals("curso-a-lab-3", index.resolveKey(request));
+
+        request.setHistoryEnabled(false);
+        assertNull(index.resolveKey(request));
+    }
+
+    @Test
+    void resolveKey_Disabled_ReturnsNull() {
+        ReflectionTestUtils.setField(index, "enabled", false);
+        PlagiarismDetectionRequest request = new PlagiarismDetectionRequest();
+        request.setHistoryKey("curso-a-lab-3");
+
+        assertNull(index.resolveKey(request));
+    }
+
+    @Test
+    void init_RemovesEntriesOlderThanRetention() throws IOException {
+        long now = System.currentTimeMillis();
+        String expired = archive("curso-a", 1, now - Duration.ofDays(31).toMillis());
+        String recent = archive("curso-a", 2, now - Duration.ofDays(29).toMillis());
+        String otherKey = archive("curso-b", 3, now - Duration.ofDays(90).toMillis());
+
+        index.init();
+
+        assertNull(index.findEntry("curso-a", expired));
+        assertFalse(Files.exists(tempDir.resolve("curso-a/submissions").resolve(expired)));
+        assertNotNull(index.findEntry("curso-a", recent));
+        assertTrue(Files.exists(tempDir.resolve("curso-a/submissions").resolve(recent)));
+        assertNull(index.findEntry("curso-b", otherKey));
+    }
+
+    private String archive(String key, long submissionId, long archivedAtMillis) throws IOException {
+        String name = HistoricalEntry.entryName(7, submissionId, submissionId * 10);
+        Path sources = tempDir.resolve(key).resolve("submissions").resolve(name);
+        Files.createDirectories(sources);
+        Files.writeString(sources.resolve("Main.java"), "class Main {}");
+        Path fingerprints = tempDir.resolve(key).resolve("fingerprints");
+        Files.createDirectories(fingerprints);
+        new HistoricalEntry(name, 7, submissionId, submissionId * 10, null, archivedAtMillis, new int[] { 1, 2 })
+                .write(fingerprints.resolve(name + ".fp"));
+        return name;
+    }
+}
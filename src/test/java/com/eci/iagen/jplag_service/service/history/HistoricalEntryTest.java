@@ -0,0 +1,81 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricalEntryTest {
+
+    private static final String NAME = HistoricalEntry.entryName(7, 1, 10);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_ThenRead_RoundTripsAllFields() throws Exception {
+        Path file = tempDir.resolve(NAME + ".fp");
+        new HistoricalEntry(NAME, 7, 1, 10, "Equipo Ñandú", 1_700_000_000_000L, new int[] { -5, 3, 42 }).write(file);
+
+        HistoricalEntry read = HistoricalEntry.read(file, NAME);
+
+        assertEquals(NAME, read.getName());
+        assertEquals(7, read.getAssignmentId());
+        assertEquals(1, read.getSubmissionId());
+        assertEquals(10, read.getTeamId());
+        assertEquals("Equipo Ñandú", read.getTeamName());
+        assertEquals(1_700_000_000_000L, read.getArchivedAtMillis());
+        assertArrayEquals(new int[] { -5, 3, 42 }, read.getFingerprints());
+        assertFalse(Files.exists(tempDir.resolve(NAME + ".fp.tmp")));
+    }
+
+    @Test
+    void write_ThenRead_NullTeamNameAndNoFingerprints() throws Exception {
+        Path file = tempDir.resolve(NAME + ".fp");
+        new HistoricalEntry(NAME, 7, 1, 10, null, 0, new int[0]).write(file);
+
+        HistoricalEntry read = HistoricalEntry.read(file, NAME);
+
+        assertNull(read.getTeamName());
+        assertEquals(0, read.getFingerprints().length);
+    }
+
+    @Test
+    void read_TruncatedFile_Throws() throws Exception {
+        Path file = tempDir.resolve(NAME + ".fp");
+        new HistoricalEntry(NAME, 7, 1, 10, "Team", 0, new int[] { 1, 2, 3 }).write(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        assertThrows(IOException.class, () -> HistoricalEntry.read(file, NAME));
+    }
+
+    @Test
+    void read_WrongMagic_Throws() throws Exception {
+        Path file = tempDir.resolve(NAME + ".fp");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> HistoricalEntry.read(file, NAME));
+    }
+
+    @Test
+    void read_CorruptFingerprintCount_Throws() throws Exception {
+        Path file = tempDir.resolve(NAME + ".fp");
+        new HistoricalEntry(NAME, 7, 1, 10, "Team", 0, new int[] { 1, 2, 3 }).write(file);
+        // El conteo va tras magic, versión, tres ids, el nombre ("Team" con su largo) y la fecha
+        long countOffset = 2 * Integer.BYTES + 3 * Long.BYTES + 2 + 4 + Long.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE), countOffset);
+        }
+
+        assertThrows(IOException.class, () -> HistoricalEntry.read(file, NAME));
+    }
+}
@@ -0,0 +1,92 @@
+package com.eci.iagen.jplag_service.service.history;
+
+import de.jplag.Token;
+import de.jplag.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WinnowingFingerprinterTest {
+
+    private static final int KGRAM_SIZE = 5;
+    private static final int WINDOW_SIZE = 4;
+    private static final File FILE = new File("Main.java");
+
+    @Test
+    void fingerprint_FewerTokensThanKgram_ReturnsEmpty() {
+        assertEquals(0, WinnowingFingerprinter.fingerprint(null, KGRAM_SIZE, WINDOW_SIZE).length);
+        assertEquals(0, WinnowingFingerprinter.fingerprint(tokens(randomTypes(new Random(1), 4)),
+                KGRAM_SIZE, WINDOW_SIZE).length);
+    }
+
+    @Test
+    void fingerprint_SameTypes_SameSortedDistinctFingerprints() {
+        List<TestType> types = randomTypes(new Random(2), 200);
+
+        int[] first = WinnowingFingerprinter.fingerprint(tokens(types), KGRAM_SIZE, WINDOW_SIZE);
+        int[] second = WinnowingFingerprinter.fingerprint(tokens(types), KGRAM_SIZE, WINDOW_SIZE);
+
+        assertArrayEquals(first, second);
+        assertTrue(first.length > 0);
+        assertArrayEquals(Arrays.stream(first).distinct().sorted().toArray(), first);
+    }
+
+    @Test
+    void fingerprint_SharedRunOfKPlusWMinusOne_SharesAFingerprint() {
+        Random random = new Random(3);
+        int guarantee = KGRAM_SIZE + WINDOW_SIZE - 1;
+        for (int trial = 0; trial < 200; trial++) {
+            List<TestType> shared = randomTypes(random, guarantee);
+            List<TestType> first = new ArrayList<>(randomTypes(random, random.nextInt(30)));
+            first.addAll(shared);
+            first.addAll(randomTypes(random, random.nextInt(30)));
+            List<TestType> second = new ArrayList<>(randomTypes(random, random.nextInt(30)));
+            second.addAll(shared);
+            second.addAll(randomTypes(random, random.nextInt(30)));
+
+            int[] firstPrints = WinnowingFingerprinter.fingerprint(tokens(first), KGRAM_SIZE, WINDOW_SIZE);
+            int[] secondPrints = WinnowingFingerprinter.fingerprint(tokens(second), KGRAM_SIZE, WINDOW_SIZE);
+
+            assertTrue(Arrays.stream(firstPrints).anyMatch(print -> Arrays.binarySearch(secondPrints, print) >= 0),
+                    "trial " + trial);
+        }
+    }
+
+    @Test
+    void fingerprint_WindowLargerThanKgrams_SelectsOneMinimum() {
+        List<TestType> types = randomTypes(new Random(4), KGRAM_SIZE + 1);
+
+        assertEquals(1, WinnowingFingerprinter.fingerprint(tokens(types), KGRAM_SIZE, 50).length);
+    }
+
+    private static List<TestType> randomTypes(Random random, int count) {
+        List<TestType> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            types.add(TestType.values()[random.nextInt(TestType.values().length)]);
+        }
+        return types;
+    }
+
+    private static List<Token> tokens(List<TestType> types) {
+        List<Token> tokens = new ArrayList<>(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            tokens.add(new Token(types.get(i), FILE, i + 1, 1, 1));
+        }
+        return tokens;
+    }
+
+    private enum TestType implements TokenType {
+        CLASS, METHOD, IF, LOOP, ASSIGN, CALL, RETURN, VARIABLE;
+
+        @Override
+        public String getDescription() {
+            return name();
+        }
+    }
+}
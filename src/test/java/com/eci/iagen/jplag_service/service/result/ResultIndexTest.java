@@ -0,0 +1,255 @@
+package com.eci.iagen.jplag_service.service.result;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import com.eci.iagen.jplag_service.service.workspace.SubmissionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultIndexTest {
+
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private ResultIndex index;
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void init_ReplaysLogAfterRestart() throws IOException {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9, 0.4), registry());
+        index.index(response("s2", 8L, 0.7), registry());
+
+        reopen(365, 64);
+
+        assertEquals(2, index.findSessions(null).size());
+        List<IndexedComparison> assignment7 = index.findComparisons(7L, null, null, null, 0.0, 10);
+        assertEquals(List.of(0.9, 0.4), similarities(assignment7));
+        assertEquals(10L, assignment7.get(0).getTeamId1());
+        assertEquals(List.of(0.9, 0.7), similarities(index.findComparisons(null, 10L, null, null, 0.5, 10)));
+    }
+
+    @Test
+    void index_SameSession_SupersedesPreviousRecord() throws IOException {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9, 0.5), registry());
+        index.index(response("s1", 7L, 0.3), registry());
+
+        reopen(365, 64);
+
+        assertEquals(1, index.findSessions(7L).size());
+        assertEquals(List.of(0.3), similarities(index.findComparisons(null, null, null, "s1", 0.0, 10)));
+    }
+
+    @Test
+    void discard_RemovalRecordSurvivesRestart() throws IOException {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9), registry());
+        index.index(response("s2", 7L, 0.8), registry());
+        index.discard("s1");
+
+        reopen(365, 64);
+
+        assertNull(index.findSession("s1"));
+        assertNotNull(index.findSession("s2"));
+        assertEquals(List.of(0.8), similarities(index.findComparisons(7L, null, null, null, 0.0, 10)));
+    }
+
+    @Test
+    void init_TornTail_DropsIncompleteRecordAndKeepsEarlierOnes() throws IOException {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9), registry());
+        index.index(response("s2", 7L, 0.8), registry());
+        index.close();
+        try (RandomAccessFile file = new RandomAccessFile(logFile().toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        index = open(365, 64);
+        index.index(response("s3", 7L, 0.6), registry());
+        reopen(365, 64);
+
+        assertNotNull(index.findSession("s1"));
+        assertNull(index.findSession("s2"));
+        assertNotNull(index.findSession("s3"));
+    }
+
+    @Test
+    void init_CorruptCrc_DropsRecordAndRest() throws IOException {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9), registry());
+        long firstRecordEnd = Files.size(logFile());
+        index.index(response("s2", 7L, 0.8), registry());
+        index.close();
+        try (RandomAccessFile file = new RandomAccessFile(logFile().toFile(), "rw")) {
+            // Un byte del payload del segundo registro (después de su longitud)
+            file.seek(firstRecordEnd + Integer.BYTES + 2);
+            int value = file.read();
+            file.seek(firstRecordEnd + Integer.BYTES + 2);
+            file.write(value ^ 0xFF);
+        }
+
+        index = open(365, 64);
+
+        assertNotNull(index.findSession("s1"));
+        assertNull(index.findSession("s2"));
+        assertEquals(firstRecordEnd, Files.size(logFile()));
+    }
+
+    @Test
+    void index_SupersededRecords_CompactLog() throws IOException {
+        index = open(365, 4);
+        index.index(response("s1", 7L, 0.9), registry());
+        long singleRecordSize = Files.size(logFile());
+
+        for (int i = 0; i < 3; i++) {
+            index.index(response("s1", 7L, 0.9), registry());
+        }
+
+        assertEquals(singleRecordSize, Files.size(logFile()));
+        reopen(365, 4);
+        assertEquals(List.of(0.9), similarities(index.findComparisons(7L, null, null, null, 0.0, 10)));
+    }
+
+    @Test
+    void init_ExpiredSessions_AreDroppedAndLogRewritten() throws Exception {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9), registry());
+        index.close();
+        Thread.sleep(5);
+
+        index = open(0, 64);
+
+        assertTrue(index.findSessions(null).isEmpty());
+        assertEquals(HEADER_BYTES, Files.size(logFile()));
+    }
+
+    @Test
+    void maintain_SessionsPastRetention_RemovedFromMemoryAndLog() throws Exception {
+        index = open(365, 64);
+        index.index(response("s1", 7L, 0.9), registry());
+        index.index(response("s2", 8L, 0.7), registry());
+        Thread.sleep(5);
+        ReflectionTestUtils.setField(index, "retentionDays", 0L);
+
+        index.maintain();
+
+        assertTrue(index.findSessions(null).isEmpty());
+        assertTrue(index.findComparisons(null, null, null, null, 0.0, 10).isEmpty());
+        // El log se reescribió sin las sesiones vencidas
+        assertEquals(HEADER_BYTES, Files.size(logFile()));
+    }
+
+    @Test
+    void index_OverMaxComparisons_EvictsOldestSessions() throws Exception {
+        index = open(365, 64);
+        ReflectionTestUtils.setField(index, "maxComparisons", 4);
+        index.index(response("s1", 7L, 0.9, 0.8), registry());
+        Thread.sleep(5);
+        index.index(response("s2", 7L, 0.7, 0.6), registry());
+        Thread.sleep(5);
+        index.index(response("s3", 7L, 0.5, 0.4), registry());
+
+        assertNull(index.findSession("s1"));
+        assertNotNull(index.findSession("s2"));
+        assertNotNull(index.findSession("s3"));
+        assertEquals(4, index.findComparisons(null, null, null, null, 0.0, 10).size());
+
+        reopen(365, 64);
+        assertNull(index.findSession("s1"));
+        assertEquals(2, index.findSessions(null).size());
+    }
+
+    @Test
+    void index_SingleSessionOverMaxComparisons_KeepsNewest() throws IOException {
+        index = open(365, 64);
+        ReflectionTestUtils.setField(index, "maxComparisons", 1);
+        index.index(response("s1", 7L, 0.9, 0.8, 0.7), registry());
+
+        assertNotNull(index.findSession("s1"));
+        assertEquals(3, index.findComparisons(null, null, null, "s1", 0.0, 10).size());
+    }
+
+    private ResultIndex open(long retentionDays, int compactionMinRecords) throws IOException {
+        ResultIndex resultIndex = new ResultIndex();
+        ReflectionTestUtils.setField(resultIndex, "enabled", true);
+        ReflectionTestUtils.setField(resultIndex, "indexDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(resultIndex, "retentionDays", retentionDays);
+        ReflectionTestUtils.setField(resultIndex, "compactionMinRecords", compactionMinRecords);
+        ReflectionTestUtils.setField(resultIndex, "maxComparisons", Integer.MAX_VALUE);
+        resultIndex.init();
+        return resultIndex;
+    }
+
+    private void reopen(long retentionDays, int compactionMinRecords) throws IOException {
+        index.close();
+        index = open(retentionDays, compactionMinRecords);
+    }
+
+    private Path logFile() {
+        return tempDir.resolve("results.log");
+    }
+
+    private static SubmissionRegistry registry() {
+        List<SubmissionDto> submissions = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            SubmissionDto submission = new SubmissionDto();
+            submission.setSubmissionId(id);
+            submission.setTeamId(id * 10);
+            submissions.add(submission);
+        }
+        return new SubmissionRegistry(submissions);
+    }
+
+    /**
+     * Resultado con un par por similitud: (1,2), (2,3), (1,3), ...
+     */
+    private static PlagiarismDetectionResponse response(String sessionId, Long assignmentId,
+            double... similarities) {
+        long[][] pairs = { { 1, 2 }, { 2, 3 }, { 1, 3 } };
+        List<PlagiarismDetectionResponse.ComparisonResult> comparisons = new ArrayList<>();
+        for (int i = 0; i < similarities.length; i++) {
+            long first = pairs[i][0];
+            long second = pairs[i][1];
+            PlagiarismDetectionResponse.ComparisonResult comparison = new PlagiarismDetectionResponse.ComparisonResult(
+                    "submission_" + first + "_team_" + first * 10, "submission_" + second + "_team_" + second * 10,
+                    "Team " + first * 10, "Team " + second * 10, similarities[i], 100, "completed");
+            comparison.setSubmissionId1(first);
+            comparison.setSubmissionId2(second);
+            comparisons.add(comparison);
+        }
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId(sessionId);
+        response.setAssignmentId(assignmentId);
+        response.setAssignmentTitle("Lab");
+        response.setSuccess(true);
+        response.setComparisons(comparisons);
+        return response;
+    }
+
+    private static List<Double> similarities(List<IndexedComparison> comparisons) {
+        return comparisons.stream().map(IndexedComparison::getSimilarity).toList();
+    }
+}
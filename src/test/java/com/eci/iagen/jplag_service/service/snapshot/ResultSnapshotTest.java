@@ -0,0 +1,227 @@
+package com.eci.iagen.jplag_service.service.snapshot;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.eci.iagen.jplag_service.dto.SubmissionDto;
+import de.jplag.JPlag;
+import de.jplag.JPlagComparison;
+import de.jplag.JPlagResult;
+import de.jplag.Submission;
+import de.jplag.java.JavaLanguage;
+import de.jplag.options.JPlagOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultSnapshotTest {
+
+    private static final String SORTER = """
+            package sorter;
+
+            public class Sorter {
+                public static void sort(int[] values) {
+                    for (int i = 0; i < values.length; i++) {
+                        for (int j = i + 1; j < values.length; j++) {
+                            if (values[j] < values[i]) {
+                                int tmp = values[i];
+                                values[i] = values[j];
+                                values[j] = tmp;
+                            }
+                        }
+                    }
+                }
+            }
+            """;
+
+    private static final String COUNTER = """
+            package counter;
+
+            public class Counter {
+                private int count;
+
+                public void increment() {
+                    count++;
+                }
+
+                public int get() {
+                    return count;
+                }
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private JPlagResult result;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path submissions = tempDir.resolve("submissions");
+        writeSource(submissions.resolve("alice/src/Sorter.java"), SORTER);
+        writeSource(submissions.resolve("bob/src/Sorter.java"), SORTER.replace("tmp", "swap"));
+        writeSource(submissions.resolve("carol/Counter.java"), COUNTER);
+
+        JPlagOptions options = new JPlagOptions(new JavaLanguage(), Set.of(submissions.toFile()), Set.of())
+                .withMinimumTokenMatch(5);
+        result = JPlag.run(options);
+        snapshotFile = tempDir.resolve("session.snapshot");
+    }
+
+    @Test
+    void write_ThenOpen_RoundTripsMetadataAndComparisons() throws Exception {
+        Map<String, SubmissionDto> metadata = Map.of(
+                "alice", submission(1L, 10L, "Team A"),
+                "bob", submission(2L, 20L, "Team B"));
+        ResultSnapshot.write(snapshotFile, result, 7L, metadata::get);
+
+        ResultSnapshot snapshot = ResultSnapshot.open(snapshotFile);
+        assertEquals(7L, snapshot.getAssignmentId());
+        assertEquals(3, snapshot.getSubmissionCount());
+        assertEquals(result.getAllComparisons().size(), snapshot.getComparisonCount());
+        assertFalse(Files.exists(tempDir.resolve("session.snapshot.tmp")));
+
+        List<PlagiarismDetectionResponse.ComparisonResult> comparisons = snapshot.comparisons("session", 0.0);
+        assertEquals(3, comparisons.size());
+        PlagiarismDetectionResponse.ComparisonResult top = comparisons.get(0);
+        assertEquals(Set.of("alice", "bob"), Set.of(top.getSubmission1(), top.getSubmission2()));
+        assertEquals(Set.of("Team A", "Team B"), Set.of(top.getTeam1(), top.getTeam2()));
+        assertEquals(similarity(result, "alice", "bob"), top.getSimilarity(), 1e-6);
+        assertNotNull(top.getComparisonHtmlUrl());
+
+        // carol no tiene metadatos: sin ids ni enlace al reporte
+        PlagiarismDetectionResponse.ComparisonResult withCarol = comparisons.stream()
+                .filter(comparison -> comparison.getSubmission1().equals("carol")
+                        || comparison.getSubmission2().equals("carol"))
+                .findFirst().orElseThrow();
+        assertNull(withCarol.getComparisonHtmlUrl());
+        assertTrue(withCarol.getTeam1().equals("Unknown Team") || withCarol.getTeam2().equals("Unknown Team"));
+
+        assertEquals(1, snapshot.comparisons("session", top.getSimilarity()).size());
+    }
+
+    @Test
+    void toJPlagResult_RestoresTokensMatchesAndSources() throws Exception {
+        ResultSnapshot.write(snapshotFile, result, null, name -> null);
+
+        ResultSnapshot snapshot = ResultSnapshot.open(snapshotFile);
+        assertEquals(-1L, snapshot.getAssignmentId());
+        Path sources = tempDir.resolve("restored");
+        JPlagResult restored = snapshot.toJPlagResult(new JavaLanguage(), sources, 0.0, null);
+
+        assertEquals(result.getSubmissions().numberOfSubmissions(), restored.getSubmissions().numberOfSubmissions());
+        for (Submission original : result.getSubmissions().getSubmissions()) {
+            Submission copy = restored.getSubmissions().getSubmissions().stream()
+                    .filter(submission -> submission.getName().equals(original.getName()))
+                    .findFirst().orElseThrow();
+            assertEquals(original.getNumberOfTokens(), copy.getNumberOfTokens());
+            assertEquals(original.getFiles().size(), copy.getFiles().size());
+        }
+        for (JPlagComparison comparison : result.getAllComparisons()) {
+            String first = comparison.firstSubmission().getName();
+            String second = comparison.secondSubmission().getName();
+            assertEquals(comparison.similarity(), similarity(restored, first, second), 1e-6);
+        }
+
+        assertEquals(SORTER, Files.readString(sources.resolve("submissions/alice/src/Sorter.java")));
+        assertEquals(COUNTER, Files.readString(sources.resolve("submissions/carol/Counter.java")));
+        assertTrue(Files.exists(sources.resolve(".complete")));
+    }
+
+    @Test
+    void toJPlagResult_MinimumSimilarity_DropsLowerPairs() throws Exception {
+        ResultSnapshot.write(snapshotFile, result, 7L, name -> null);
+        double top = result.getAllComparisons().stream()
+                .mapToDouble(JPlagComparison::similarity).max().orElseThrow();
+
+        JPlagResult restored = ResultSnapshot.open(snapshotFile)
+                .toJPlagResult(new JavaLanguage(), tempDir.resolve("restored"), top - 1e-3, null);
+
+        assertEquals(1, restored.getAllComparisons().size());
+    }
+
+    @Test
+    void open_TruncatedFile_Throws() throws Exception {
+        ResultSnapshot.write(snapshotFile, result, 7L, name -> null);
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        assertThrows(IOException.class, () -> ResultSnapshot.open(snapshotFile));
+    }
+
+    @Test
+    void open_WrongMagic_Throws() throws Exception {
+        Files.write(snapshotFile, new byte[128]);
+
+        assertThrows(IOException.class, () -> ResultSnapshot.open(snapshotFile));
+    }
+
+    @Test
+    void open_CorruptSectionOffset_Throws() throws Exception {
+        ResultSnapshot.write(snapshotFile, result, 7L, name -> null);
+        // Offset de la sección de strings (primer long del pie) fuera del archivo
+        long size = Files.size(snapshotFile);
+        overwrite(snapshotFile, size - 8 * Long.BYTES - Integer.BYTES, Long.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> ResultSnapshot.open(snapshotFile));
+    }
+
+    @Test
+    void open_CorruptStringCount_Throws() throws Exception {
+        ResultSnapshot.write(snapshotFile, result, 7L, name -> null);
+        // La sección de strings empieza tras la cabecera de 52 bytes
+        overwrite(snapshotFile, 52, Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> ResultSnapshot.open(snapshotFile));
+    }
+
+    private static void writeSource(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static void overwrite(Path file, long position, long value) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(value > Integer.MAX_VALUE ? Long.BYTES : Integer.BYTES)
+                .order(ByteOrder.BIG_ENDIAN);
+        if (value > Integer.MAX_VALUE) {
+            bytes.putLong(value);
+        } else {
+            bytes.putInt((int) value);
+        }
+        bytes.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static SubmissionDto submission(Long submissionId, Long teamId, String teamName) {
+        SubmissionDto dto = new SubmissionDto();
+        dto.setSubmissionId(submissionId);
+        dto.setTeamId(teamId);
+        dto.setTeamName(teamName);
+        return dto;
+    }
+
+    private static double similarity(JPlagResult result, String first, String second) {
+        return result.getAllComparisons().stream()
+                .filter(comparison -> Set.of(first, second).equals(Set.of(
+                        comparison.firstSubmission().getName(), comparison.secondSubmission().getName())))
+                .map(JPlagComparison::similarity)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+    }
+}
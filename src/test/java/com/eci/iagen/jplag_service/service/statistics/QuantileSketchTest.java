@@ -0,0 +1,79 @@
+package com.eci.iagen.jplag_service.service.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private static final double MAX_ERROR = 1.0 / 2000 + 1e-12;
+    private static final double[] QUANTILES = { 0.0, 0.01, 0.25, 0.5, 0.9, 0.99, 1.0 };
+
+    @Test
+    void quantile_Empty_ReturnsZero() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertEquals(0, sketch.getCount());
+        assertEquals(0.0, sketch.quantile(0.5));
+    }
+
+    @Test
+    void quantile_RandomValues_WithinHalfBucketOfExact() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 20; trial++) {
+            double[] values = new double[1 + random.nextInt(5000)];
+            QuantileSketch sketch = new QuantileSketch();
+            for (int i = 0; i < values.length; i++) {
+                // Mezcla de uniformes y valores concentrados cerca de 0, como las similitudes reales
+                values[i] = random.nextBoolean() ? random.nextDouble() : Math.pow(random.nextDouble(), 4);
+                sketch.add(values[i]);
+            }
+            Arrays.sort(values);
+
+            for (double q : QUANTILES) {
+                assertEquals(exactQuantile(values, q), sketch.quantile(q), MAX_ERROR, "trial " + trial + " q " + q);
+            }
+        }
+    }
+
+    @Test
+    void add_OutOfRange_ClampedToBounds() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(-0.5);
+        sketch.add(1.5);
+
+        assertEquals(0.0, sketch.quantile(0.5));
+        assertEquals(1.0, sketch.quantile(1.0));
+    }
+
+    @Test
+    void merge_EqualsSingleSketchOverAllValues() {
+        Random random = new Random(2);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < 3000; i++) {
+            double value = random.nextDouble();
+            all.add(value);
+            (i % 3 == 0 ? first : second).add(value);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.getCount(), first.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), first.quantile(q));
+        }
+    }
+
+    /**
+     * Cuantil de rango ceil(q * n) (al menos 1), la misma definición del sketch
+     */
+    private static double exactQuantile(double[] sorted, double q) {
+        int rank = (int) Math.max(1, Math.ceil(q * sorted.length));
+        return sorted[rank - 1];
+    }
+}
@@ -0,0 +1,104 @@
+package com.eci.iagen.jplag_service.service.statistics;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityStatisticsTest {
+
+    private static final int BINS = 10;
+
+    @Test
+    void toStatistics_Empty_ReturnsZeros() {
+        PlagiarismDetectionResponse.Statistics statistics = new SimilarityStatistics(BINS).toStatistics(3);
+
+        assertEquals(3, statistics.getTotalSubmissions());
+        assertEquals(0, statistics.getTotalComparisons());
+        assertEquals(0.0, statistics.getAverageSimilarity());
+        assertEquals(0.0, statistics.getMaxSimilarity());
+        assertEquals(0.0, statistics.getMinSimilarity());
+        assertEquals(BINS, statistics.getHistogram().size());
+        assertTrue(statistics.getTeamMaxima().isEmpty());
+    }
+
+    @Test
+    void add_TracksAggregatesHistogramAndTeamMaxima() {
+        SimilarityStatistics accumulator = new SimilarityStatistics(BINS);
+        accumulator.add(0.2, "A", "B");
+        accumulator.add(0.8, "A", "C");
+        accumulator.add(1.0, "B", "C");
+        accumulator.add(0.05, null, "C");
+
+        PlagiarismDetectionResponse.Statistics statistics = accumulator.toStatistics(3);
+
+        assertEquals(4, statistics.getTotalComparisons());
+        assertEquals(0.51, statistics.getAverageSimilarity());
+        assertEquals(1.0, statistics.getMaxSimilarity());
+        assertEquals(0.05, statistics.getMinSimilarity());
+        // 1.0 cae en el último intervalo
+        assertEquals(1, statistics.getHistogram().get(0).getCount());
+        assertEquals(1, statistics.getHistogram().get(2).getCount());
+        assertEquals(1, statistics.getHistogram().get(8).getCount());
+        assertEquals(1, statistics.getHistogram().get(9).getCount());
+
+        List<PlagiarismDetectionResponse.TeamMaximum> maxima = statistics.getTeamMaxima();
+        assertEquals(List.of("B", "C", "A"), maxima.stream().map(PlagiarismDetectionResponse.TeamMaximum::getTeam)
+                .toList());
+        assertEquals("C", maxima.get(0).getOtherTeam());
+        assertEquals("C", maxima.get(2).getOtherTeam());
+        assertEquals(0.8, maxima.get(2).getMaxSimilarity());
+    }
+
+    @Test
+    void merge_EqualsSingleAccumulatorOverAllPairs() {
+        Random random = new Random(3);
+        SimilarityStatistics all = new SimilarityStatistics(BINS);
+        SimilarityStatistics[] parts = { new SimilarityStatistics(BINS), new SimilarityStatistics(BINS),
+                new SimilarityStatistics(BINS) };
+        for (int i = 0; i < 2000; i++) {
+            double similarity = random.nextDouble();
+            String team1 = "T" + random.nextInt(20);
+            String team2 = "T" + random.nextInt(20);
+            all.add(similarity, team1, team2);
+            parts[random.nextInt(parts.length)].add(similarity, team1, team2);
+        }
+        SimilarityStatistics merged = new SimilarityStatistics(BINS);
+        for (SimilarityStatistics part : parts) {
+            merged.merge(part);
+        }
+
+        assertStatisticsEqual(all.toStatistics(40), merged.toStatistics(40));
+    }
+
+    @Test
+    void merge_DifferentBins_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SimilarityStatistics(BINS).merge(new SimilarityStatistics(BINS + 1)));
+    }
+
+    private static void assertStatisticsEqual(PlagiarismDetectionResponse.Statistics expected,
+            PlagiarismDetectionResponse.Statistics actual) {
+        assertEquals(expected.getTotalComparisons(), actual.getTotalComparisons());
+        assertEquals(expected.getAverageSimilarity(), actual.getAverageSimilarity());
+        assertEquals(expected.getMaxSimilarity(), actual.getMaxSimilarity());
+        assertEquals(expected.getMinSimilarity(), actual.getMinSimilarity());
+        assertEquals(expected.getP50Similarity(), actual.getP50Similarity());
+        assertEquals(expected.getP90Similarity(), actual.getP90Similarity());
+        assertEquals(expected.getP99Similarity(), actual.getP99Similarity());
+        for (int i = 0; i < BINS; i++) {
+            assertEquals(expected.getHistogram().get(i).getCount(), actual.getHistogram().get(i).getCount());
+        }
+        assertEquals(expected.getTeamMaxima().size(), actual.getTeamMaxima().size());
+        for (int i = 0; i < expected.getTeamMaxima().size(); i++) {
+            PlagiarismDetectionResponse.TeamMaximum expectedMaximum = expected.getTeamMaxima().get(i);
+            PlagiarismDetectionResponse.TeamMaximum actualMaximum = actual.getTeamMaxima().get(i);
+            assertEquals(expectedMaximum.getTeam(), actualMaximum.getTeam());
+            assertEquals(expectedMaximum.getMaxSimilarity(), actualMaximum.getMaxSimilarity());
+            assertEquals(expectedMaximum.getOtherTeam(), actualMaximum.getOtherTeam());
+        }
+    }
+}
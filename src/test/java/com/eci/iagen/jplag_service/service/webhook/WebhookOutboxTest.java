@@ -0,0 +1,258 @@
+package com.eci.iagen.jplag_service.service.webhook;
+
+import com.eci.iagen.jplag_service.dto.PlagiarismDetectionResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookOutboxTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final List<ReceivedRequest> received = new CopyOnWriteArrayList<>();
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private WebhookOutbox outbox;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            received.add(new ReceivedRequest(exchange.getRequestHeaders().getFirst("X-JPlag-Attempt"),
+                    exchange.getRequestHeaders().getFirst("X-JPlag-Signature"), body));
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        outbox = new WebhookOutbox();
+        ReflectionTestUtils.setField(outbox, "ioExecutor", ioExecutor);
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "webhooksDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outbox, "initialBackoffSeconds", 1L);
+        ReflectionTestUtils.setField(outbox, "maxBackoffSeconds", 1L);
+        ReflectionTestUtils.setField(outbox, "timeoutSeconds", 5L);
+        ReflectionTestUtils.setField(outbox, "topPairs", 10);
+        ReflectionTestUtils.setField(outbox, "secret", "");
+        ReflectionTestUtils.setField(outbox, "allowedHosts", List.of("127.0.0.1"));
+        // El stub escucha en loopback
+        ReflectionTestUtils.setField(outbox, "allowPrivateAddresses", true);
+        ReflectionTestUtils.setField(outbox, "failedRetentionDays", 30L);
+    }
+
+    @AfterEach
+    void stopStub() {
+        outbox.shutdown();
+        ioExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void enqueue_ServerError_IsRetriedThenDelivered() throws Exception {
+        statuses.add(503);
+        outbox.init();
+
+        outbox.enqueue(hookUrl(), response("session-1"));
+
+        await(() -> received.size() == 2 && outbox.getPendingCount() == 0);
+        assertEquals("1", received.get(0).attempt());
+        assertEquals("2", received.get(1).attempt());
+        assertEquals(0, outbox.getFailedCount());
+    }
+
+    @Test
+    void enqueue_ClientError_MovesToFailed() throws Exception {
+        statuses.add(404);
+        outbox.init();
+
+        outbox.enqueue(hookUrl(), response("session-1"));
+
+        await(() -> outbox.getFailedCount() == 1);
+        assertEquals(1, received.size());
+        assertEquals(0, outbox.getPendingCount());
+        Path failed;
+        try (var files = Files.list(tempDir.resolve("failed"))) {
+            failed = files.findFirst().orElseThrow();
+        }
+        WebhookDelivery delivery = WebhookDelivery.read(failed, "x");
+        assertEquals(1, delivery.getAttempts());
+        assertEquals("HTTP 404", delivery.getLastError());
+    }
+
+    @Test
+    void init_ResumesPendingDelivery() throws Exception {
+        Path pending = Files.createDirectories(tempDir.resolve("outbox"));
+        byte[] payload = "{\"event\":\"analysis.completed\"}".getBytes(StandardCharsets.UTF_8);
+        new WebhookDelivery("pending-1", hookUrl(), CompletionNotification.EVENT_COMPLETED, payload,
+                System.currentTimeMillis(), 2, System.currentTimeMillis(), "HTTP 503")
+                .write(pending.resolve("pending-1.dlv"));
+
+        outbox.init();
+
+        await(() -> received.size() == 1 && outbox.getPendingCount() == 0);
+        assertEquals("3", received.get(0).attempt());
+        assertArrayEquals(payload, received.get(0).body());
+    }
+
+    @Test
+    void enqueue_WithSecret_SignsPayloadWithHmac() throws Exception {
+        ReflectionTestUtils.setField(outbox, "secret", "s3cret");
+        outbox.init();
+
+        outbox.enqueue(hookUrl(), response("session-1"));
+
+        await(() -> received.size() == 1);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("s3cret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = "sha256=" + HexFormat.of().formatHex(mac.doFinal(received.get(0).body()));
+        assertEquals(expected, received.get(0).signature());
+    }
+
+    @Test
+    void enqueue_PrivateAddress_MovesToFailedWithoutConnecting() throws Exception {
+        ReflectionTestUtils.setField(outbox, "allowPrivateAddresses", false);
+        outbox.init();
+
+        outbox.enqueue(hookUrl(), response("session-1"));
+
+        await(() -> outbox.getFailedCount() == 1);
+        assertTrue(received.isEmpty());
+        Path failed;
+        try (var files = Files.list(tempDir.resolve("failed"))) {
+            failed = files.findFirst().orElseThrow();
+        }
+        assertTrue(WebhookDelivery.read(failed, "x").getLastError().startsWith("Private address not allowed"));
+    }
+
+    @Test
+    void enqueue_HostNotAllowed_IsNotQueued() throws Exception {
+        ReflectionTestUtils.setField(outbox, "allowedHosts", List.of("hooks.example.com"));
+        outbox.init();
+
+        outbox.enqueue(hookUrl(), response("session-1"));
+
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(0, outbox.getFailedCount());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void isAllowedCallback_MatchesExactHostsAndDotSubdomains() throws Exception {
+        ReflectionTestUtils.setField(outbox, "allowedHosts", List.of("Gateway.local", " .example.com"));
+        outbox.init();
+
+        assertTrue(outbox.isAllowedCallback("https://gateway.local/hooks"));
+        assertTrue(outbox.isAllowedCallback("http://ci.example.com:8080/hooks"));
+        assertFalse(outbox.isAllowedCallback("http://example.com.evil.io/hooks"));
+        assertFalse(outbox.isAllowedCallback("http://other.local/hooks"));
+        assertFalse(outbox.isAllowedCallback("ftp://gateway.local/hooks"));
+        assertFalse(outbox.isAllowedCallback("http://gateway.local:bad port/"));
+    }
+
+    @Test
+    void isAllowedCallback_Disabled_RejectsEverything() {
+        ReflectionTestUtils.setField(outbox, "enabled", false);
+
+        assertFalse(outbox.isAllowedCallback(hookUrl()));
+    }
+
+    @Test
+    void isPrivateAddress_RejectsInternalRanges() throws Exception {
+        for (String address : List.of("127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "0.0.0.0", "::1", "fe80::1", "fd00::1", "224.0.0.1")) {
+            assertTrue(WebhookOutbox.isPrivateAddress(InetAddress.getByName(address)), address);
+        }
+        assertFalse(WebhookOutbox.isPrivateAddress(InetAddress.getByName("93.184.216.34")));
+        assertFalse(WebhookOutbox.isPrivateAddress(InetAddress.getByName("2606:2800:220:1::1")));
+    }
+
+    @Test
+    void init_RemovesFailedDeliveriesPastRetention() throws Exception {
+        Path failed = Files.createDirectories(tempDir.resolve("failed"));
+        Path expired = Files.writeString(failed.resolve("old.dlv"), "x");
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+        Path recent = Files.writeString(failed.resolve("recent.dlv"), "x");
+
+        outbox.init();
+
+        await(() -> !Files.exists(expired));
+        assertTrue(Files.exists(recent));
+    }
+
+    private String hookUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    private static PlagiarismDetectionResponse response(String sessionId) {
+        PlagiarismDetectionResponse response = new PlagiarismDetectionResponse();
+        response.setSessionId(sessionId);
+        response.setSuccess(true);
+        response.setComparisons(List.of());
+        return response;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 s");
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class ReceivedRequest {
+        private final String attempt;
+        private final String signature;
+        private final byte[] body;
+
+        ReceivedRequest(String attempt, String signature, byte[] body) {
+            this.attempt = attempt;
+            this.signature = signature;
+            this.body = body;
+        }
+
+        String attempt() {
+            return attempt;
+        }
+
+        String signature() {
+            return signature;
+        }
+
+        byte[] body() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WorkspaceManager workspaceManager;
+
+    @BeforeEach
+    void setUp() {
+        workspaceManager = new WorkspaceManager();
+        ReflectionTestUtils.setField(workspaceManager, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(workspaceManager, "sweepOnStartup", true);
+        ReflectionTestUtils.setField(workspaceManager, "orphanTtlMinutes", 360L);
+        ReflectionTestUtils.setField(workspaceManager, "reaperIntervalMinutes", 10L);
+        ReflectionTestUtils.setField(workspaceManager, "backend", WorkspaceManager.Backend.DISK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspaceManager.shutdown();
+    }
+
+    @Test
+    void init_SharedTempDirectory_KeepsRecentWorkspacesOfOtherInstances() throws Exception {
+        Path otherInstance = Files.createDirectories(tempDir.resolve("session-running-elsewhere"));
+        Path orphan = Files.createDirectories(tempDir.resolve("session-from-yesterday"));
+        Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(Duration.ofHours(7))));
+
+        workspaceManager.init();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(orphan) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(otherInstance));
+    }
+}
@@ -0,0 +1,72 @@
+package com.eci.iagen.jplag_service.service.workspace;
+
+import com.eci.iagen.jplag_service.service.limits.LimitExceededException;
+import com.eci.iagen.jplag_service.service.limits.SubmissionLimits;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extract_DotsInsideNames_AreNotTraversal() throws IOException {
+        byte[] zip = zip("docs/notes..txt", "x", "img/a..b.png", "x", "src/a..b/Calc.java", "class Calc {}");
+
+        ZipExtractor.Summary summary = ZipExtractor.extract(new ByteArrayInputStream(zip), tempDir,
+                SourceManifest::isSourcePath, ZipExtractor.UNLIMITED_BYTES, ZipExtractor.UNLIMITED_ENTRIES);
+
+        assertEquals(1, summary.getFiles());
+        assertEquals(2, summary.getSkippedEntries());
+        assertTrue(Files.isRegularFile(tempDir.resolve("src/a..b/Calc.java")));
+    }
+
+    @Test
+    void extract_ParentSegmentInSource_IsRejected() throws IOException {
+        byte[] zip = zip("src/../../Evil.java", "class Evil {}");
+
+        assertThrows(IOException.class, () -> ZipExtractor.extract(new ByteArrayInputStream(zip),
+                tempDir.resolve("out"), SourceManifest::isSourcePath, ZipExtractor.UNLIMITED_BYTES,
+                ZipExtractor.UNLIMITED_ENTRIES));
+        assertFalse(Files.exists(tempDir.resolve("Evil.java")));
+    }
+
+    @Test
+    void extract_OverByteLimit_ReportsTotalBytes() throws IOException {
+        byte[] zip = zip("A.java", "a".repeat(60), "B.java", "b".repeat(60));
+
+        LimitExceededException e = assertThrows(LimitExceededException.class, () -> ZipExtractor.extract(
+                new ByteArrayInputStream(zip), tempDir, path -> true, 100, ZipExtractor.UNLIMITED_ENTRIES));
+
+        assertEquals(SubmissionLimits.REPOSITORY_SIZE, e.getLimit());
+        assertEquals(120, e.getValue());
+        assertEquals(100, e.getMaximum());
+    }
+
+    static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}